@@ -0,0 +1,243 @@
+package com.securitysuite;
+
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.WritableArray;
+import com.facebook.react.bridge.WritableMap;
+
+import java.net.Inet6Address;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+
+import okhttp3.Dns;
+
+/**
+ * {@link Dns} for pinned clients that remembers answers for {@code ttlMs}, so a new connection
+ * to a recently resolved host skips the blocking {@code getAllByName}.
+ *
+ * <p>With {@code staleWhileRevalidateMs}, an expired answer is still returned for that long
+ * while one background lookup refreshes it; a failed refresh keeps the stale answer until the
+ * window ends. Failures are never cached.
+ *
+ * <p>Answers are reordered to alternate IPv6 and IPv4 (RFC 8305 section 4), starting with the
+ * family the resolver preferred. OkHttp 4 tries routes one at a time rather than racing them,
+ * so interleaving is what keeps a broken family from costing a connect timeout per address.
+ *
+ * <p>The upstream resolver is a constructor argument so tests can substitute a local one; the
+ * number of hosts remembered is capped, least recently used first.
+ */
+final class CachingDns implements Dns {
+  static final long DEFAULT_TTL_MS = 60_000;
+  static final int MAX_HOSTS = 64;
+
+  /** Wall clock for expiry; replaced in tests. */
+  interface Clock {
+    long nowMs();
+  }
+
+  private static final Executor REFRESHER = Executors.newSingleThreadExecutor(runnable -> {
+    Thread thread = new Thread(runnable, "SecuritySuite-dns");
+    thread.setDaemon(true);
+    return thread;
+  });
+
+  private final Dns upstream;
+  private final long ttlMs;
+  private final long staleWhileRevalidateMs;
+  private final Executor refresher;
+  private final Clock clock;
+
+  private final Object lock = new Object();
+  private final Map<String, Host> hosts = new LinkedHashMap<String, Host>(16, 0.75f, true) {
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<String, Host> eldest) {
+      return size() > MAX_HOSTS;
+    }
+  };
+
+  CachingDns(Dns upstream, long ttlMs, long staleWhileRevalidateMs) {
+    this(upstream, ttlMs, staleWhileRevalidateMs, REFRESHER, System::currentTimeMillis);
+  }
+
+  CachingDns(
+      Dns upstream,
+      long ttlMs,
+      long staleWhileRevalidateMs,
+      Executor refresher,
+      Clock clock
+  ) {
+    this.upstream = upstream;
+    this.ttlMs = ttlMs;
+    this.staleWhileRevalidateMs = staleWhileRevalidateMs;
+    this.refresher = refresher;
+    this.clock = clock;
+  }
+
+  private static final class Host {
+    List<InetAddress> addresses;
+    long resolvedAtMs;
+    boolean refreshing;
+
+    long lookups;
+    long hits;
+    long staleHits;
+    long misses;
+    long failures;
+    long upstreamNs;
+    long lastUpstreamNs = -1;
+  }
+
+  @Override
+  public List<InetAddress> lookup(String hostname) throws UnknownHostException {
+    List<InetAddress> stale = null;
+    boolean refresh = false;
+    synchronized (lock) {
+      Host host = hostFor(hostname);
+      host.lookups++;
+      if (host.addresses != null) {
+        long age = clock.nowMs() - host.resolvedAtMs;
+        if (age < ttlMs) {
+          host.hits++;
+          return host.addresses;
+        }
+        if (age < ttlMs + staleWhileRevalidateMs) {
+          host.staleHits++;
+          stale = host.addresses;
+          refresh = !host.refreshing;
+          host.refreshing = true;
+        }
+      }
+    }
+
+    if (stale == null) {
+      return resolve(hostname);
+    }
+    if (refresh) {
+      refresher.execute(() -> {
+        try {
+          resolve(hostname);
+        } catch (UnknownHostException ignored) {
+          // Keep serving the stale answer until its window ends.
+        } finally {
+          synchronized (lock) {
+            hostFor(hostname).refreshing = false;
+          }
+        }
+      });
+    }
+    return stale;
+  }
+
+  /** Forgets every answer; metrics are kept. */
+  void clear() {
+    synchronized (lock) {
+      for (Host host : hosts.values()) {
+        host.addresses = null;
+      }
+    }
+  }
+
+  /**
+   * {@code {ttlMs, staleWhileRevalidateMs, hosts: {host: {lookups, hits, staleHits, misses,
+   * failures, meanLookupMs, lastLookupMs, addresses}}}}; the lookup times are upstream only.
+   */
+  WritableMap getStats() {
+    WritableMap stats = Arguments.createMap();
+    stats.putDouble("ttlMs", ttlMs);
+    stats.putDouble("staleWhileRevalidateMs", staleWhileRevalidateMs);
+    WritableMap hostStats = Arguments.createMap();
+    synchronized (lock) {
+      for (Map.Entry<String, Host> entry : hosts.entrySet()) {
+        Host host = entry.getValue();
+        WritableMap map = Arguments.createMap();
+        map.putDouble("lookups", host.lookups);
+        map.putDouble("hits", host.hits);
+        map.putDouble("staleHits", host.staleHits);
+        map.putDouble("misses", host.misses);
+        map.putDouble("failures", host.failures);
+        long upstreamLookups = host.misses + host.failures;
+        map.putDouble(
+            "meanLookupMs",
+            upstreamLookups > 0 ? host.upstreamNs / upstreamLookups / 1e6 : 0
+        );
+        map.putDouble("lastLookupMs", host.lastUpstreamNs >= 0 ? host.lastUpstreamNs / 1e6 : -1);
+        WritableArray addresses = Arguments.createArray();
+        if (host.addresses != null) {
+          for (InetAddress address : host.addresses) {
+            addresses.pushString(address.getHostAddress());
+          }
+        }
+        map.putArray("addresses", addresses);
+        hostStats.putMap(entry.getKey(), map);
+      }
+    }
+    stats.putMap("hosts", hostStats);
+    return stats;
+  }
+
+  private List<InetAddress> resolve(String hostname) throws UnknownHostException {
+    long start = System.nanoTime();
+    List<InetAddress> addresses;
+    try {
+      addresses = interleave(upstream.lookup(hostname));
+    } catch (UnknownHostException e) {
+      synchronized (lock) {
+        Host host = hostFor(hostname);
+        host.failures++;
+        recordUpstream(host, System.nanoTime() - start);
+      }
+      throw e;
+    }
+    synchronized (lock) {
+      Host host = hostFor(hostname);
+      host.misses++;
+      recordUpstream(host, System.nanoTime() - start);
+      host.addresses = addresses;
+      host.resolvedAtMs = clock.nowMs();
+    }
+    return addresses;
+  }
+
+  private static void recordUpstream(Host host, long elapsedNs) {
+    host.upstreamNs += elapsedNs;
+    host.lastUpstreamNs = elapsedNs;
+  }
+
+  private Host hostFor(String hostname) {
+    Host host = hosts.get(hostname);
+    if (host == null) {
+      host = new Host();
+      hosts.put(hostname, host);
+    }
+    return host;
+  }
+
+  /** Alternates address families, keeping the resolver's order within each family. */
+  static List<InetAddress> interleave(List<InetAddress> addresses) {
+    if (addresses.isEmpty()) {
+      return Collections.emptyList();
+    }
+    List<InetAddress> preferred = new ArrayList<>();
+    List<InetAddress> other = new ArrayList<>();
+    boolean preferV6 = addresses.get(0) instanceof Inet6Address;
+    for (InetAddress address : addresses) {
+      ((address instanceof Inet6Address) == preferV6 ? preferred : other).add(address);
+    }
+    List<InetAddress> result = new ArrayList<>(addresses.size());
+    for (int i = 0; i < Math.max(preferred.size(), other.size()); i++) {
+      if (i < preferred.size()) {
+        result.add(preferred.get(i));
+      }
+      if (i < other.size()) {
+        result.add(other.get(i));
+      }
+    }
+    return Collections.unmodifiableList(result);
+  }
+}
@@ -0,0 +1,805 @@
+package com.securitysuite;
+
+import android.content.ContentResolver;
+import android.content.Context;
+import android.net.Uri;
+import android.os.ParcelFileDescriptor;
+
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.ReadableMap;
+import com.facebook.react.bridge.WritableMap;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import javax.crypto.SecretKey;
+
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.Headers;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+
+import okio.BufferedSink;
+import okio.ByteString;
+
+/**
+ * Uploads one large file as fixed-size chunks sent in parallel over a pinned client, resuming
+ * where an interrupted upload stopped, for {@code uploadChunked}.
+ *
+ * <p>Every chunk is its own request to the upload URL ({@code PUT} unless {@code method} says
+ * otherwise) with the raw bytes as body and these headers, next to the caller's own:
+ * <ul>
+ *   <li>{@code Upload-Id} — stable id of the whole upload</li>
+ *   <li>{@code Content-Range: bytes first-last/size}</li>
+ *   <li>{@code Content-Digest: sha-256=:base64:} (RFC 9530) of the chunk</li>
+ *   <li>the JWS header from {@code jws}, signed per chunk so {@code bodyHash} covers it</li>
+ * </ul>
+ * Any 2xx accepts the chunk. Chunks are read with positional {@link FileChannel} reads, so the
+ * parallel requests share one descriptor without seeking and each holds one small buffer; a
+ * chunk is read twice, once to hash it and once to send it, and never held in memory.
+ *
+ * <p>Accepted chunks are recorded in a journal under the app's files directory, keyed by
+ * {@code uploadId}. Calling again with the same id, file and chunk size skips them; a changed
+ * size, modification time or chunk size starts over. With {@code commitUrl}, a final signed
+ * {@code POST} of {@code {uploadId, size, chunkSize, chunks: [sha256 hex]}} completes the upload
+ * and its response is returned. The journal is removed once everything succeeded.
+ *
+ * <p>Failed chunks are retried per {@code retry} (on by default). When a chunk fails for good the
+ * other chunks are cancelled and the result reports how far the upload got.
+ *
+ * <p>Chunks and the commit go through {@link FetchScheduler} as {@code priority}, which defaults
+ * to {@code background} so a large upload yields to interactive fetches. Each attempt also takes
+ * a {@link CircuitBreaker} permit for its host; an open circuit fails the upload at once with
+ * {@code code: "CIRCUIT_OPEN"}.
+ */
+final class ChunkedUploader {
+  static final long DEFAULT_CHUNK_SIZE = 8L * 1024 * 1024;
+  static final long MIN_CHUNK_SIZE = 64 * 1024;
+  static final int DEFAULT_CONCURRENCY = 3;
+  static final int MAX_CONCURRENCY = 8;
+  static final String JOURNAL_DIRECTORY = "SecuritySuite-uploads";
+
+  private static final MediaType OCTET_STREAM = MediaType.parse("application/octet-stream");
+  private static final int READ_BUFFER_BYTES = 64 * 1024;
+
+  /** Receives the outcome; invoked exactly once per upload. */
+  interface Listener {
+    void onComplete(WritableMap result);
+  }
+
+  private final OkHttpClient client;
+  private final String url;
+  private final String commitUrl;
+  private final String method;
+  private final ReadableMap options;
+  private final SecretKey hmacKey;
+  private final String tag;
+  private final RetryPolicy retryPolicy;
+  private final FetchScheduler.Priority priority;
+  private final TransferProgress.Meter progress;
+  private final String uploadId;
+  private final FileChannel channel;
+  private final Closeable file;
+  private final long size;
+  private final long chunkSize;
+  private final int chunkCount;
+  private final int concurrency;
+  private final Journal journal;
+  /** Hex SHA-256 per chunk, filled in as each request is built. */
+  private final String[] digests;
+  private final Listener listener;
+  private final long startedAtMs = System.currentTimeMillis();
+
+  private final Deque<Integer> pending = new ArrayDeque<>();
+  private final Set<Call> active = new HashSet<>();
+  private int running;
+  private int uploaded;
+  private int resumed;
+  private boolean committing;
+  private boolean finished;
+
+  private ChunkedUploader(
+      OkHttpClient client,
+      String url,
+      String commitUrl,
+      ReadableMap options,
+      SecretKey hmacKey,
+      TransferProgress progress,
+      Source source,
+      long chunkSize,
+      int concurrency,
+      File journalDir,
+      Listener listener
+  ) throws IOException {
+    this.client = client;
+    this.url = url;
+    this.commitUrl = commitUrl;
+    this.method = options.hasKey("method") ? Sslpinning.getMethod(options) : "PUT";
+    this.options = options;
+    this.hmacKey = hmacKey;
+    this.tag = Sslpinning.getTag(options, null);
+    this.retryPolicy = options.hasKey("retry")
+        ? RetryPolicy.fromOptions(options)
+        : RetryPolicy.DEFAULT;
+    this.priority = FetchScheduler.Priority.fromOptions(
+        options,
+        FetchScheduler.Priority.BACKGROUND
+    );
+    this.channel = source.channel;
+    this.file = source.owner;
+    this.size = source.channel.size();
+    this.chunkSize = chunkSize;
+    this.chunkCount = (int) ((size + chunkSize - 1) / chunkSize);
+    this.digests = new String[chunkCount];
+    this.concurrency = concurrency;
+    this.listener = listener;
+    this.progress = progress != null ? progress.meter(TransferProgress.UPLOAD, size) : null;
+
+    String id = options.hasKey("uploadId") ? options.getString("uploadId") : null;
+    if (id == null || id.isEmpty()) {
+      String fingerprint = url + "\n" + source.location + "\n" + size + "\n"
+          + source.lastModified + "\n" + chunkSize;
+      id = ByteString.encodeUtf8(fingerprint).sha256().hex().substring(0, 32);
+    }
+    this.uploadId = id;
+    this.journal = Journal.open(journalDir, uploadId, url, size, chunkSize, source.lastModified);
+  }
+
+  /**
+   * Opens {@code options.file} and starts uploading; the outcome goes to {@code listener}.
+   *
+   * @throws IllegalArgumentException for a missing or empty file, an unknown priority or
+   *     out-of-range options
+   * @throws IOException if the file or the journal cannot be read
+   */
+  static void start(
+      Context context,
+      OkHttpClient client,
+      String url,
+      String commitUrl,
+      ReadableMap options,
+      SecretKey hmacKey,
+      TransferProgress progress,
+      File journalDir,
+      Listener listener
+  ) throws IOException {
+    long chunkSize = options.hasKey("chunkSize")
+        ? (long) options.getDouble("chunkSize")
+        : DEFAULT_CHUNK_SIZE;
+    if (chunkSize < MIN_CHUNK_SIZE) {
+      throw new IllegalArgumentException("chunkSize must be at least " + MIN_CHUNK_SIZE);
+    }
+    int concurrency = options.hasKey("concurrency")
+        ? options.getInt("concurrency")
+        : DEFAULT_CONCURRENCY;
+    if (concurrency < 1 || concurrency > MAX_CONCURRENCY) {
+      throw new IllegalArgumentException("concurrency must be between 1 and " + MAX_CONCURRENCY);
+    }
+    if (!options.hasKey("file") || options.isNull("file")) {
+      throw new IllegalArgumentException("file is required");
+    }
+
+    Source source = Source.open(context, options.getMap("file"));
+    ChunkedUploader upload;
+    try {
+      if (source.channel.size() == 0) {
+        throw new IllegalArgumentException("Cannot upload an empty file");
+      }
+      upload = new ChunkedUploader(
+          client,
+          url,
+          commitUrl,
+          options,
+          hmacKey,
+          progress,
+          source,
+          chunkSize,
+          concurrency,
+          journalDir,
+          listener
+      );
+    } catch (IOException | RuntimeException e) {
+      closeQuietly(source.owner);
+      throw e;
+    }
+    upload.begin();
+  }
+
+  /** {@code {ok: false, error}} for an upload that never started. */
+  static WritableMap rejected(String message) {
+    WritableMap result = Arguments.createMap();
+    result.putBoolean("ok", false);
+    result.putString("error", message);
+    return result;
+  }
+
+  private void begin() {
+    Map<Integer, String> done = journal.chunks();
+    long resumedBytes = 0;
+    synchronized (this) {
+      for (int index = 0; index < chunkCount; index++) {
+        if (done.containsKey(index)) {
+          digests[index] = done.get(index);
+          resumedBytes += chunkLength(index);
+          resumed++;
+        } else {
+          pending.add(index);
+        }
+      }
+    }
+    if (progress != null && resumedBytes > 0) {
+      progress.add(resumedBytes);
+    }
+    for (int i = 0; i < concurrency; i++) {
+      next(null);
+    }
+  }
+
+  private long chunkLength(int index) {
+    return Math.min(chunkSize, size - index * chunkSize);
+  }
+
+  /**
+   * Starts the next pending chunk, or commits after the last one. {@code previous} is the call
+   * that just finished; it stays registered until its successor is, so a cancel by tag in
+   * between still reaches the upload.
+   */
+  private void next(Call previous) {
+    Integer index;
+    synchronized (this) {
+      index = finished ? null : pending.poll();
+      if (index != null) {
+        running++;
+      }
+    }
+    if (index == null) {
+      release(previous);
+      boolean commitNow;
+      synchronized (this) {
+        commitNow = !finished && !committing && running == 0 && pending.isEmpty();
+        committing |= commitNow;
+      }
+      if (commitNow) {
+        commit();
+      }
+      return;
+    }
+
+    Request request;
+    try {
+      request = chunkRequest(index);
+    } catch (Exception e) {
+      release(previous);
+      fail(failure(e.getMessage() != null ? e.getMessage() : "Chunk preparation failed"));
+      return;
+    }
+    send(request, index, 1, previous);
+  }
+
+  /**
+   * The chunk's request. Its {@code Content-Digest} and signature are added on the dispatcher
+   * thread (see {@link DeferredSigning}), where the chunk is hashed once for both.
+   */
+  private Request chunkRequest(int index) {
+    long offset = index * chunkSize;
+    long length = chunkLength(index);
+    RequestBody body = new ChunkBody(channel, offset, length);
+
+    Request.Builder builder = new Request.Builder()
+        .url(url)
+        .method(method, body)
+        .tag(DeferredSigning.class, DeferredSigning.withContentDigest(
+            url,
+            method,
+            body,
+            options,
+            hmacKey
+        ));
+    Headers headers = Sslpinning.setHeader(options);
+    if (headers != null) {
+      builder.headers(headers);
+    }
+    builder.header("Upload-Id", uploadId)
+        .header("Content-Range", "bytes " + offset + "-" + (offset + length - 1) + "/" + size);
+    return builder.build();
+  }
+
+  private void send(Request request, int index, int attempt, Call previous) {
+    Call call = client.newCall(request);
+    synchronized (this) {
+      if (finished) {
+        running--;
+        call = null;
+      } else {
+        active.add(call);
+      }
+    }
+    if (call == null) {
+      release(previous);
+      return;
+    }
+    InFlightCalls.register(call, tag);
+    release(previous);
+
+    schedule(call, new Callback() {
+      @Override
+      public void onFailure(Call call, IOException e) {
+        long delay = call.isCanceled() || e instanceof DeferredSigning.SigningException
+            ? -1
+            : retryPolicy.delayAfterFailure(attempt, method, e);
+        if (delay >= 0) {
+          retry(call, index, attempt, delay);
+          return;
+        }
+        release(call);
+        fail(call.isCanceled() ? canceled() : failure(message(e)));
+      }
+
+      @Override
+      public void onResponse(Call call, Response response) {
+        int code = response.code();
+        long delay = call.isCanceled()
+            ? -1
+            : retryPolicy.delayAfterResponse(attempt, method, response);
+        String error;
+        try (Response closeable = response) {
+          if (delay >= 0) {
+            retry(call, index, attempt, delay);
+            return;
+          }
+          if (closeable.isSuccessful()) {
+            accept(index, call);
+            return;
+          }
+          error = closeable.body() != null ? closeable.body().string() : "";
+        } catch (IOException e) {
+          error = message(e);
+        }
+        release(call);
+        WritableMap result = failure(error);
+        result.putInt("status", code);
+        fail(result);
+      }
+    });
+  }
+
+  private void retry(Call call, int index, int attempt, long delayMs) {
+    RetryPolicy.schedule(() -> {
+      if (call.isCanceled()) {
+        // Cancelled by tag during the backoff.
+        release(call);
+        fail(canceled());
+        return;
+      }
+      synchronized (this) {
+        active.remove(call);
+      }
+      send(call.request(), index, attempt + 1, call);
+    }, delayMs);
+  }
+
+  private void accept(int index, Call call) {
+    boolean failed;
+    synchronized (this) {
+      // Checked and journaled under one lock: once fail() has run, no further write can start,
+      // so a resumed upload never shares the journal with this one.
+      failed = finished;
+      running--;
+      if (!failed) {
+        digests[index] = call.request().tag(DeferredSigning.class).sha256Hex();
+        try {
+          journal.markDone(index, digests[index]);
+        } catch (IOException e) {
+          // The chunk is on the server; only resuming after a crash would resend it.
+        }
+        uploaded++;
+        active.remove(call);
+      }
+    }
+    if (failed) {
+      release(call);
+      return;
+    }
+    if (progress != null) {
+      progress.add(chunkLength(index));
+    }
+    next(call);
+  }
+
+  /** Sends {@code commitUrl} if configured, then reports success. */
+  private void commit() {
+    if (commitUrl == null) {
+      succeed(null, null);
+      return;
+    }
+    Request request;
+    try {
+      JSONArray chunks = new JSONArray();
+      for (String digest : digests) {
+        chunks.put(digest);
+      }
+      String json = new JSONObject()
+          .put("uploadId", uploadId)
+          .put("size", size)
+          .put("chunkSize", chunkSize)
+          .put("chunks", chunks)
+          .toString();
+      RequestBody body = RequestBody.create(json, Sslpinning.mediaType);
+      Request.Builder builder = new Request.Builder()
+          .url(commitUrl)
+          .post(body)
+          .tag(DeferredSigning.class, DeferredSigning.of(commitUrl, "POST", body, options, hmacKey));
+      Headers headers = Sslpinning.setHeader(options);
+      if (headers != null) {
+        builder.headers(headers);
+      }
+      builder.header("Upload-Id", uploadId);
+      request = builder.build();
+    } catch (Exception e) {
+      fail(failure(e.getMessage() != null ? e.getMessage() : "Commit preparation failed"));
+      return;
+    }
+
+    Call call = client.newCall(request);
+    synchronized (this) {
+      active.add(call);
+    }
+    InFlightCalls.register(call, tag);
+    schedule(call, new Callback() {
+      @Override
+      public void onFailure(Call call, IOException e) {
+        release(call);
+        fail(call.isCanceled() ? canceled() : failure(message(e)));
+      }
+
+      @Override
+      public void onResponse(Call call, Response response) {
+        int code = response.code();
+        String body;
+        try (Response closeable = response) {
+          body = closeable.body() != null ? closeable.body().string() : "";
+        } catch (IOException e) {
+          release(call);
+          fail(failure(message(e)));
+          return;
+        }
+        release(call);
+        if (code >= 200 && code < 300) {
+          succeed(code, body);
+        } else {
+          WritableMap result = failure(body);
+          result.putInt("status", code);
+          fail(result);
+        }
+      }
+    });
+  }
+
+  /** Enqueues {@code call}; an open circuit for its host fails the whole upload. */
+  private void schedule(Call call, Callback callback) {
+    String host = call.request().url().host();
+    FetchScheduler.SHARED.enqueue(call, host, priority, new Callback() {
+      @Override
+      public void onFailure(Call call, IOException e) {
+        if (e instanceof CircuitBreaker.OpenException) {
+          release(call);
+          fail(circuitOpen(host, ((CircuitBreaker.OpenException) e).retryAfterMs));
+        } else {
+          callback.onFailure(call, e);
+        }
+      }
+
+      @Override
+      public void onResponse(Call call, Response response) throws IOException {
+        callback.onResponse(call, response);
+      }
+    });
+  }
+
+  private void succeed(Integer status, String response) {
+    WritableMap result = summary();
+    result.putBoolean("ok", true);
+    if (status != null) {
+      result.putInt("status", status);
+      result.putString("response", response);
+    }
+    synchronized (this) {
+      if (finished) {
+        return;
+      }
+      finished = true;
+    }
+    journal.delete();
+    if (progress != null) {
+      progress.finish();
+    }
+    closeQuietly(file);
+    listener.onComplete(result);
+  }
+
+  /** Reports {@code result} once and cancels the chunks still running; the journal is kept. */
+  private void fail(WritableMap result) {
+    Set<Call> siblings;
+    synchronized (this) {
+      if (finished) {
+        return;
+      }
+      finished = true;
+      siblings = new HashSet<>(active);
+    }
+    for (Call sibling : siblings) {
+      sibling.cancel();
+    }
+    synchronized (this) {
+      if (active.isEmpty()) {
+        closeQuietly(file);
+      }
+    }
+    listener.onComplete(result);
+  }
+
+  /** Forgets a finished call; the last one out after failure closes the file. */
+  private void release(Call call) {
+    if (call == null) {
+      return;
+    }
+    InFlightCalls.unregister(call);
+    synchronized (this) {
+      active.remove(call);
+      if (finished && active.isEmpty()) {
+        closeQuietly(file);
+      }
+    }
+  }
+
+  private WritableMap failure(String error) {
+    WritableMap result = summary();
+    result.putBoolean("ok", false);
+    result.putString("error", error);
+    return result;
+  }
+
+  private WritableMap canceled() {
+    WritableMap result = failure("Canceled");
+    result.putBoolean("canceled", true);
+    return result;
+  }
+
+  private WritableMap circuitOpen(String host, long retryAfterMs) {
+    WritableMap result = failure("Circuit open for host '" + host + "'");
+    result.putString("code", FetchResult.CIRCUIT_OPEN_CODE);
+    result.putBoolean("circuitOpen", true);
+    result.putDouble("retryAfterMs", retryAfterMs);
+    return result;
+  }
+
+  private synchronized WritableMap summary() {
+    WritableMap result = Arguments.createMap();
+    result.putString("uploadId", uploadId);
+    result.putDouble("size", size);
+    result.putInt("chunkCount", chunkCount);
+    result.putInt("uploadedChunks", uploaded);
+    result.putInt("resumedChunks", resumed);
+    result.putString("duration", (System.currentTimeMillis() - startedAtMs) + "ms");
+    return result;
+  }
+
+  private static String message(IOException e) {
+    return e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+  }
+
+  private static void closeQuietly(Closeable closeable) {
+    try {
+      closeable.close();
+    } catch (IOException ignored) {
+      // Read-only descriptor; nothing to flush.
+    }
+  }
+
+  /** The open file: a channel for positional reads plus what has to be closed with it. */
+  private static final class Source {
+    final FileChannel channel;
+    final Closeable owner;
+    final String location;
+    /** Modification time for files, {@code -1} for content URIs. */
+    final long lastModified;
+
+    private Source(FileChannel channel, Closeable owner, String location, long lastModified) {
+      this.channel = channel;
+      this.owner = owner;
+      this.location = location;
+      this.lastModified = lastModified;
+    }
+
+    /** Accepts {@code {uri}} ({@code content://} or {@code file://}) or {@code {path}}. */
+    static Source open(Context context, ReadableMap file) throws IOException {
+      String location = file.hasKey("uri") ? file.getString("uri") : null;
+      if (location == null || location.trim().isEmpty()) {
+        location = file.hasKey("path") ? file.getString("path") : null;
+      }
+      if (location == null || location.trim().isEmpty()) {
+        throw new IllegalArgumentException("File uri or path is required");
+      }
+      location = location.trim();
+
+      Uri uri = Uri.parse(location);
+      String scheme = uri.getScheme();
+      if (scheme == null || ContentResolver.SCHEME_FILE.equals(scheme)) {
+        File path = new File(scheme == null ? location : uri.getPath());
+        RandomAccessFile randomAccessFile = new RandomAccessFile(path, "r");
+        return new Source(
+            randomAccessFile.getChannel(),
+            randomAccessFile,
+            path.getAbsolutePath(),
+            path.lastModified()
+        );
+      }
+
+      ParcelFileDescriptor descriptor = context.getContentResolver().openFileDescriptor(uri, "r");
+      if (descriptor == null) {
+        throw new IOException("Unable to open URI: " + uri);
+      }
+      FileChannel channel = new FileInputStream(descriptor.getFileDescriptor()).getChannel();
+      return new Source(channel, descriptor, location, -1);
+    }
+  }
+
+  /** One chunk, read with positional reads each time it is written. */
+  private static final class ChunkBody extends RequestBody {
+    private final FileChannel channel;
+    private final long offset;
+    private final long length;
+
+    ChunkBody(FileChannel channel, long offset, long length) {
+      this.channel = channel;
+      this.offset = offset;
+      this.length = length;
+    }
+
+    @Override
+    public MediaType contentType() {
+      return OCTET_STREAM;
+    }
+
+    @Override
+    public long contentLength() {
+      return length;
+    }
+
+    @Override
+    public void writeTo(BufferedSink sink) throws IOException {
+      ByteBuffer buffer = ByteBuffer.allocate((int) Math.min(READ_BUFFER_BYTES, length));
+      long position = offset;
+      long end = offset + length;
+      while (position < end) {
+        buffer.clear();
+        buffer.limit((int) Math.min(buffer.capacity(), end - position));
+        int read = channel.read(buffer, position);
+        if (read < 0) {
+          throw new EOFException("File shrank during upload");
+        }
+        buffer.flip();
+        sink.write(buffer);
+        position += read;
+      }
+    }
+  }
+
+  /**
+   * Accepted chunks of one upload as {@code {uploadId, url, size, chunkSize, lastModified,
+   * chunks: {index: sha256 hex}}}, rewritten through a temporary file after every chunk.
+   */
+  static final class Journal {
+    private final File file;
+    private final JSONObject header;
+    private final Map<Integer, String> chunks = new TreeMap<>();
+
+    private Journal(File file, JSONObject header) {
+      this.file = file;
+      this.header = header;
+    }
+
+    static Journal open(
+        File directory,
+        String uploadId,
+        String url,
+        long size,
+        long chunkSize,
+        long lastModified
+    ) throws IOException {
+      if (!directory.isDirectory() && !directory.mkdirs()) {
+        throw new IOException("Unable to create " + directory);
+      }
+      File file = new File(directory, ByteString.encodeUtf8(uploadId).sha256().hex() + ".json");
+      JSONObject header;
+      try {
+        header = new JSONObject()
+            .put("uploadId", uploadId)
+            .put("url", url)
+            .put("size", size)
+            .put("chunkSize", chunkSize)
+            .put("lastModified", lastModified);
+      } catch (JSONException e) {
+        throw new IOException(e);
+      }
+      Journal journal = new Journal(file, header);
+      if (file.isFile()) {
+        journal.load();
+      }
+      return journal;
+    }
+
+    synchronized Map<Integer, String> chunks() {
+      return new TreeMap<>(chunks);
+    }
+
+    synchronized void markDone(int index, String sha256Hex) throws IOException {
+      chunks.put(index, sha256Hex);
+      JSONObject done = new JSONObject();
+      try {
+        for (Map.Entry<Integer, String> entry : chunks.entrySet()) {
+          done.put(String.valueOf(entry.getKey()), entry.getValue());
+        }
+        ResponseFileWriter.replaceAtomically(
+            file,
+            new JSONObject(header.toString()).put("chunks", done).toString()
+        );
+      } catch (JSONException e) {
+        throw new IOException(e);
+      }
+    }
+
+    synchronized void delete() {
+      chunks.clear();
+      file.delete();
+    }
+
+    /** Keeps the recorded chunks only if they describe this same file and chunking. */
+    private void load() {
+      try {
+        byte[] bytes = new byte[(int) file.length()];
+        try (RandomAccessFile input = new RandomAccessFile(file, "r")) {
+          input.readFully(bytes);
+        }
+        JSONObject saved = new JSONObject(new String(bytes, StandardCharsets.UTF_8));
+        for (String key : new String[] {"uploadId", "url", "size", "chunkSize", "lastModified"}) {
+          if (!String.valueOf(header.get(key)).equals(String.valueOf(saved.opt(key)))) {
+            file.delete();
+            return;
+          }
+        }
+        JSONObject done = saved.getJSONObject("chunks");
+        JSONArray names = done.names();
+        for (int i = 0; names != null && i < names.length(); i++) {
+          String name = names.getString(i);
+          chunks.put(Integer.parseInt(name), done.getString(name));
+        }
+      } catch (IOException | JSONException | NumberFormatException e) {
+        // Unreadable journal: start over.
+        chunks.clear();
+        file.delete();
+      }
+    }
+  }
+}
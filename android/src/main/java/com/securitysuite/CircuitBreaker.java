@@ -0,0 +1,490 @@
+package com.securitysuite;
+
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.ReadableArray;
+import com.facebook.react.bridge.ReadableMap;
+import com.facebook.react.bridge.WritableArray;
+import com.facebook.react.bridge.WritableMap;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.Response;
+
+/**
+ * Per-host circuit breaker for pinned fetches, off until {@link #configure} enables it.
+ *
+ * <p>Each host starts {@code closed}. The outcomes of its last {@code windowSize} attempts are
+ * kept; once at least {@code minimumCalls} are in, a failure rate (transport errors and
+ * {@code failureOnStatus} responses) of {@code failureRateThreshold} or more, or a share of
+ * responses slower than {@code slowCallDurationMs} of {@code slowCallRateThreshold} or more,
+ * opens the circuit. While {@code open}, attempts fail at once without touching the network.
+ * After {@code openDurationMs} the host turns {@code half-open} and lets
+ * {@code halfOpenMaxCalls} probes through: any failed or slow probe opens the circuit again,
+ * and that many successful probes close it.
+ *
+ * <p>Every attempt, retries included, takes a {@link Permit} when {@link FetchScheduler} admits
+ * it and reports its outcome through it; a call refused there fails with {@link OpenException}.
+ * Outcomes of attempts that started before the host's last transition are ignored. The most
+ * recent transitions are kept for {@link #getStats}. Beyond {@link #MAX_HOSTS} hosts the least
+ * recently used closed one is forgotten; open and half-open hosts are never dropped, so an
+ * unhealthy host cannot be closed by eviction.
+ */
+final class CircuitBreaker {
+  static final int DEFAULT_WINDOW_SIZE = 20;
+  static final int DEFAULT_MINIMUM_CALLS = 10;
+  static final double DEFAULT_FAILURE_RATE_THRESHOLD = 0.5;
+  static final long DEFAULT_SLOW_CALL_DURATION_MS = 5_000;
+  static final double DEFAULT_SLOW_CALL_RATE_THRESHOLD = 0.8;
+  static final long DEFAULT_OPEN_DURATION_MS = 30_000;
+  static final int DEFAULT_HALF_OPEN_MAX_CALLS = 3;
+  static final int MAX_HOSTS = 64;
+  static final int MAX_EVENTS = 50;
+  private static final int[] DEFAULT_FAILURE_ON_STATUS = {500, 502, 503, 504};
+
+  static final CircuitBreaker SHARED = new CircuitBreaker(System::currentTimeMillis);
+
+  enum State {
+    CLOSED("closed"),
+    OPEN("open"),
+    HALF_OPEN("half-open");
+
+    final String label;
+
+    State(String label) {
+      this.label = label;
+    }
+  }
+
+  /** Wall clock for open intervals and event times; replaced in tests. */
+  interface Clock {
+    long nowMs();
+  }
+
+  /** Reports the outcome of one admitted attempt; use exactly one method, once. */
+  final class Permit {
+    private final String host;
+    private final long generation;
+    private final boolean probe;
+
+    private Permit(String host, long generation, boolean probe) {
+      this.host = host;
+      this.generation = generation;
+      this.probe = probe;
+    }
+
+    /** A response arrived {@code latencyMs} after the request was sent. */
+    void onResponse(int status, long latencyMs) {
+      record(this, Outcome.RESPONSE, status, latencyMs);
+    }
+
+    /** The attempt failed without a response (connection error, timeout, pin mismatch). */
+    void onFailure() {
+      record(this, Outcome.FAILURE, 0, 0);
+    }
+
+    /** The attempt was cancelled; it counts neither way. */
+    void release() {
+      record(this, Outcome.CANCELED, 0, 0);
+    }
+
+    /** {@code callback}, with the call's outcome reported to this permit first. */
+    Callback recording(Callback callback) {
+      return new Callback() {
+        @Override
+        public void onFailure(Call call, IOException e) {
+          // A request that could not be signed never reached the host.
+          if (call.isCanceled() || e instanceof DeferredSigning.SigningException) {
+            release();
+          } else {
+            Permit.this.onFailure();
+          }
+          callback.onFailure(call, e);
+        }
+
+        @Override
+        public void onResponse(Call call, Response response) throws IOException {
+          Permit.this.onResponse(
+              response.code(),
+              response.receivedResponseAtMillis() - response.sentRequestAtMillis()
+          );
+          callback.onResponse(call, response);
+        }
+      };
+    }
+  }
+
+  /** Fails a call that {@link FetchScheduler} refused because its host's circuit is open. */
+  static final class OpenException extends IOException {
+    private static final long serialVersionUID = 1L;
+
+    final String host;
+    final long retryAfterMs;
+
+    OpenException(String host, long retryAfterMs) {
+      super("Circuit open for host '" + host + "'");
+      this.host = host;
+      this.retryAfterMs = retryAfterMs;
+    }
+  }
+
+  private enum Outcome { RESPONSE, FAILURE, CANCELED }
+
+  private static final class Event {
+    final String host;
+    final State from;
+    final State to;
+    final String reason;
+    final long atMs;
+    final double failureRate;
+    final double slowCallRate;
+
+    Event(String host, State from, State to, String reason, long atMs, Host state) {
+      this.host = host;
+      this.from = from;
+      this.to = to;
+      this.reason = reason;
+      this.atMs = atMs;
+      this.failureRate = state.failureRate();
+      this.slowCallRate = state.slowCallRate();
+    }
+
+    WritableMap toWritableMap() {
+      WritableMap event = Arguments.createMap();
+      event.putString("host", host);
+      event.putString("from", from.label);
+      event.putString("to", to.label);
+      event.putString("reason", reason);
+      event.putDouble("at", atMs);
+      event.putDouble("failureRate", failureRate);
+      event.putDouble("slowCallRate", slowCallRate);
+      return event;
+    }
+  }
+
+  private static final class Host {
+    State state = State.CLOSED;
+    long generation;
+    boolean[] failed;
+    boolean[] slow;
+    int calls;
+    int next;
+    int failures;
+    int slowCalls;
+    long openedAtMs;
+    int probesInFlight;
+    int probesSucceeded;
+    long rejected;
+
+    Host(int windowSize) {
+      failed = new boolean[windowSize];
+      slow = new boolean[windowSize];
+    }
+
+    void add(boolean failure, boolean slowCall) {
+      if (calls == failed.length) {
+        failures -= failed[next] ? 1 : 0;
+        slowCalls -= slow[next] ? 1 : 0;
+      } else {
+        calls++;
+      }
+      failed[next] = failure;
+      slow[next] = slowCall;
+      failures += failure ? 1 : 0;
+      slowCalls += slowCall ? 1 : 0;
+      next = (next + 1) % failed.length;
+    }
+
+    void resetWindow() {
+      calls = 0;
+      next = 0;
+      failures = 0;
+      slowCalls = 0;
+    }
+
+    double failureRate() {
+      return calls > 0 ? (double) failures / calls : 0;
+    }
+
+    double slowCallRate() {
+      return calls > 0 ? (double) slowCalls / calls : 0;
+    }
+  }
+
+  private final Clock clock;
+
+  private final Object lock = new Object();
+  /** In access order, least recently used first; see {@link #evictClosedHost}. */
+  private final Map<String, Host> hosts = new LinkedHashMap<>(16, 0.75f, true);
+  private final ArrayDeque<Event> events = new ArrayDeque<>();
+  private final Permit unchecked = new Permit(null, -1, false);
+
+  private volatile boolean enabled;
+  private int windowSize = DEFAULT_WINDOW_SIZE;
+  private int minimumCalls = DEFAULT_MINIMUM_CALLS;
+  private double failureRateThreshold = DEFAULT_FAILURE_RATE_THRESHOLD;
+  private long slowCallDurationMs = DEFAULT_SLOW_CALL_DURATION_MS;
+  private double slowCallRateThreshold = DEFAULT_SLOW_CALL_RATE_THRESHOLD;
+  private long openDurationMs = DEFAULT_OPEN_DURATION_MS;
+  private int halfOpenMaxCalls = DEFAULT_HALF_OPEN_MAX_CALLS;
+  private Set<Integer> failureOnStatus = defaultFailureOnStatus();
+
+  CircuitBreaker(Clock clock) {
+    this.clock = clock;
+  }
+
+  /**
+   * Enables the breaker with the given thresholds (or disables it with {@code enabled: false}).
+   * Every host starts over closed.
+   *
+   * @throws IllegalArgumentException for out-of-range values
+   */
+  void configure(ReadableMap options) {
+    boolean enable = !options.hasKey("enabled") || options.getBoolean("enabled");
+    int window = intOption(options, "windowSize", DEFAULT_WINDOW_SIZE);
+    int minimum = intOption(options, "minimumCalls", DEFAULT_MINIMUM_CALLS);
+    double failureRate =
+        doubleOption(options, "failureRateThreshold", DEFAULT_FAILURE_RATE_THRESHOLD);
+    long slowDuration =
+        (long) doubleOption(options, "slowCallDurationMs", DEFAULT_SLOW_CALL_DURATION_MS);
+    double slowRate =
+        doubleOption(options, "slowCallRateThreshold", DEFAULT_SLOW_CALL_RATE_THRESHOLD);
+    long openDuration =
+        (long) doubleOption(options, "openDurationMs", DEFAULT_OPEN_DURATION_MS);
+    int probes = intOption(options, "halfOpenMaxCalls", DEFAULT_HALF_OPEN_MAX_CALLS);
+
+    if (window < 1) {
+      throw new IllegalArgumentException("windowSize must be at least 1");
+    }
+    if (minimum < 1 || minimum > window) {
+      throw new IllegalArgumentException("minimumCalls must be between 1 and windowSize");
+    }
+    if (!(failureRate > 0 && failureRate <= 1) || !(slowRate > 0 && slowRate <= 1)) {
+      throw new IllegalArgumentException("Rate thresholds must be above 0 and at most 1");
+    }
+    if (slowDuration < 1 || openDuration < 1) {
+      throw new IllegalArgumentException(
+          "slowCallDurationMs and openDurationMs must be at least 1"
+      );
+    }
+    if (probes < 1) {
+      throw new IllegalArgumentException("halfOpenMaxCalls must be at least 1");
+    }
+    Set<Integer> statuses = defaultFailureOnStatus();
+    if (options.hasKey("failureOnStatus")) {
+      statuses = new HashSet<>();
+      ReadableArray values = options.getArray("failureOnStatus");
+      for (int i = 0; i < values.size(); i++) {
+        statuses.add(values.getInt(i));
+      }
+    }
+
+    synchronized (lock) {
+      windowSize = window;
+      minimumCalls = minimum;
+      failureRateThreshold = failureRate;
+      slowCallDurationMs = slowDuration;
+      slowCallRateThreshold = slowRate;
+      openDurationMs = openDuration;
+      halfOpenMaxCalls = probes;
+      failureOnStatus = statuses;
+      hosts.clear();
+      events.clear();
+      enabled = enable;
+    }
+  }
+
+  /**
+   * Admits an attempt to {@code host}, or returns {@code null} while its circuit is open (or
+   * half-open with every probe slot taken).
+   */
+  Permit acquire(String host) {
+    if (!enabled || host == null) {
+      return unchecked;
+    }
+    String key = host.toLowerCase(Locale.ROOT);
+    synchronized (lock) {
+      Host state = hosts.get(key);
+      if (state == null) {
+        state = new Host(windowSize);
+        hosts.put(key, state);
+        if (hosts.size() > MAX_HOSTS) {
+          evictClosedHost(key);
+        }
+      }
+      if (state.state == State.OPEN && clock.nowMs() - state.openedAtMs >= openDurationMs) {
+        transition(key, state, State.HALF_OPEN, "openDurationElapsed");
+      }
+      switch (state.state) {
+        case CLOSED:
+          return new Permit(key, state.generation, false);
+        case HALF_OPEN:
+          if (state.probesInFlight < halfOpenMaxCalls) {
+            state.probesInFlight++;
+            return new Permit(key, state.generation, true);
+          }
+          // The probe slots are taken.
+          state.rejected++;
+          return null;
+        default:
+          state.rejected++;
+          return null;
+      }
+    }
+  }
+
+  /**
+   * Forgets the least recently used closed host other than {@code added}. When every other host
+   * is open or half-open none is dropped; the map then exceeds {@link #MAX_HOSTS} until one of
+   * them closes.
+   */
+  private void evictClosedHost(String added) {
+    Iterator<Map.Entry<String, Host>> iterator = hosts.entrySet().iterator();
+    while (iterator.hasNext()) {
+      Map.Entry<String, Host> entry = iterator.next();
+      if (entry.getValue().state == State.CLOSED && !entry.getKey().equals(added)) {
+        iterator.remove();
+        return;
+      }
+    }
+  }
+
+  /** How long until {@code host} will let a probe through, for fast-fail results. */
+  long retryAfterMs(String host) {
+    synchronized (lock) {
+      Host state = host != null ? hosts.get(host.toLowerCase(Locale.ROOT)) : null;
+      if (state == null || state.state != State.OPEN) {
+        return 0;
+      }
+      return Math.max(0, state.openedAtMs + openDurationMs - clock.nowMs());
+    }
+  }
+
+  private void record(Permit permit, Outcome outcome, int status, long latencyMs) {
+    if (permit.host == null) {
+      return;
+    }
+    synchronized (lock) {
+      Host state = hosts.get(permit.host);
+      if (state == null || state.generation != permit.generation) {
+        return;
+      }
+      boolean canceled = outcome == Outcome.CANCELED;
+      boolean failure = outcome == Outcome.FAILURE
+          || outcome == Outcome.RESPONSE && failureOnStatus.contains(status);
+      boolean slowCall = outcome == Outcome.RESPONSE && latencyMs >= slowCallDurationMs;
+      if (permit.probe) {
+        state.probesInFlight--;
+        if (canceled) {
+          return;
+        }
+        if (failure || slowCall) {
+          transition(permit.host, state, State.OPEN, failure ? "probeFailed" : "probeSlow");
+        } else if (++state.probesSucceeded >= halfOpenMaxCalls) {
+          transition(permit.host, state, State.CLOSED, "probesSucceeded");
+        }
+        return;
+      }
+      if (canceled || state.state != State.CLOSED) {
+        return;
+      }
+      state.add(failure, slowCall);
+      if (state.calls < minimumCalls) {
+        return;
+      }
+      if (state.failureRate() >= failureRateThreshold) {
+        transition(permit.host, state, State.OPEN, "failureRate");
+      } else if (state.slowCallRate() >= slowCallRateThreshold) {
+        transition(permit.host, state, State.OPEN, "slowCallRate");
+      }
+    }
+  }
+
+  private void transition(String host, Host state, State to, String reason) {
+    long now = clock.nowMs();
+    events.addLast(new Event(host, state.state, to, reason, now, state));
+    if (events.size() > MAX_EVENTS) {
+      events.removeFirst();
+    }
+
+    state.state = to;
+    state.generation++;
+    state.probesInFlight = 0;
+    state.probesSucceeded = 0;
+    if (to == State.OPEN) {
+      state.openedAtMs = now;
+    } else if (to == State.CLOSED) {
+      state.resetWindow();
+    }
+  }
+
+  /**
+   * {@code {enabled, hosts: {host: {state, calls, failureRate, slowCallRate, rejected,
+   * retryAfterMs}}, events: [{host, from, to, reason, at, failureRate, slowCallRate}]}}, with
+   * events oldest first. An open host whose interval has elapsed still reports {@code open}
+   * until its next attempt.
+   */
+  WritableMap getStats() {
+    WritableMap output = Arguments.createMap();
+    WritableMap hostStats = Arguments.createMap();
+    WritableArray history = Arguments.createArray();
+    synchronized (lock) {
+      long now = clock.nowMs();
+      output.putBoolean("enabled", enabled);
+      for (Map.Entry<String, Host> entry : hosts.entrySet()) {
+        Host state = entry.getValue();
+        WritableMap stats = Arguments.createMap();
+        stats.putString("state", state.state.label);
+        stats.putInt("calls", state.calls);
+        stats.putDouble("failureRate", state.failureRate());
+        stats.putDouble("slowCallRate", state.slowCallRate());
+        stats.putDouble("rejected", state.rejected);
+        stats.putDouble(
+            "retryAfterMs",
+            state.state == State.OPEN
+                ? Math.max(0, state.openedAtMs + openDurationMs - now)
+                : 0
+        );
+        hostStats.putMap(entry.getKey(), stats);
+      }
+      for (Event event : events) {
+        history.pushMap(event.toWritableMap());
+      }
+    }
+    output.putMap("hosts", hostStats);
+    output.putArray("events", history);
+    return output;
+  }
+
+  /** Closes every circuit and forgets the transition history. */
+  void reset() {
+    synchronized (lock) {
+      hosts.clear();
+      events.clear();
+    }
+  }
+
+  private static int intOption(ReadableMap options, String key, int fallback) {
+    return options.hasKey(key) ? options.getInt(key) : fallback;
+  }
+
+  private static double doubleOption(ReadableMap options, String key, double fallback) {
+    return options.hasKey(key) ? options.getDouble(key) : fallback;
+  }
+
+  private static Set<Integer> defaultFailureOnStatus() {
+    Set<Integer> statuses = new HashSet<>();
+    for (int status : DEFAULT_FAILURE_ON_STATUS) {
+      statuses.add(status);
+    }
+    return statuses;
+  }
+}
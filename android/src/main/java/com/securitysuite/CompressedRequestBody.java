@@ -0,0 +1,103 @@
+package com.securitysuite;
+
+import com.facebook.react.bridge.ReadableMap;
+
+import java.io.IOException;
+import java.util.zip.Deflater;
+
+import okhttp3.MediaType;
+import okhttp3.RequestBody;
+
+import okio.BufferedSink;
+import okio.DeflaterSink;
+import okio.GzipSink;
+import okio.Okio;
+import okio.Sink;
+
+/**
+ * Request body compressed on the fly while OkHttp writes it, for {@code compressRequest}.
+ *
+ * <p>The wrapped body streams through a {@link GzipSink} (or a zlib {@link DeflaterSink} for
+ * {@code deflate}) straight into the connection, so nothing is buffered and the length is
+ * unknown up front; the upload uses chunked transfer encoding on HTTP/1.1. The body can be
+ * written more than once, for retries, as long as the wrapped body can.
+ *
+ * <p>Signing always covers the uncompressed bytes: {@code bodyHash} and the legacy detached
+ * formats are computed from the original body before it is wrapped. Compressed output is not
+ * canonical across zlib versions or levels, so the server verifies after decoding
+ * {@code Content-Encoding}.
+ */
+final class CompressedRequestBody extends RequestBody {
+  static final String GZIP = "gzip";
+  static final String DEFLATE = "deflate";
+  static final long DEFAULT_THRESHOLD_BYTES = 1024;
+
+  private final RequestBody body;
+  private final String encoding;
+
+  private CompressedRequestBody(RequestBody body, String encoding) {
+    this.body = body;
+    this.encoding = encoding;
+  }
+
+  /**
+   * Wraps {@code body} per {@code compressRequest} and {@code compressThreshold}. Returns the
+   * body unchanged when compression is off, the body is empty, or its known length is below the
+   * threshold; bodies of unknown length are always compressed.
+   *
+   * @throws IllegalArgumentException for an unsupported encoding or a negative threshold
+   */
+  static RequestBody wrap(RequestBody body, ReadableMap options) throws IOException {
+    if (!options.hasKey("compressRequest") || options.isNull("compressRequest")) {
+      return body;
+    }
+    String encoding = options.getString("compressRequest");
+    if (!GZIP.equals(encoding) && !DEFLATE.equals(encoding)) {
+      throw new IllegalArgumentException(
+          "Unsupported compressRequest '" + encoding + "', expected 'gzip' or 'deflate'"
+      );
+    }
+    long threshold = options.hasKey("compressThreshold")
+        ? (long) options.getDouble("compressThreshold")
+        : DEFAULT_THRESHOLD_BYTES;
+    if (threshold < 0) {
+      throw new IllegalArgumentException("compressThreshold must not be negative");
+    }
+
+    if (body == null) {
+      return null;
+    }
+    long length = body.contentLength();
+    if (length == 0 || (length > 0 && length < threshold)) {
+      return body;
+    }
+    return new CompressedRequestBody(body, encoding);
+  }
+
+  /** The {@code Content-Encoding} to send, or {@code null} if {@code body} is not compressed. */
+  static String encodingOf(RequestBody body) {
+    return body instanceof CompressedRequestBody ? ((CompressedRequestBody) body).encoding : null;
+  }
+
+  @Override
+  public MediaType contentType() {
+    return body.contentType();
+  }
+
+  @Override
+  public long contentLength() {
+    return -1;
+  }
+
+  @Override
+  public void writeTo(BufferedSink sink) throws IOException {
+    Sink compressing = GZIP.equals(encoding)
+        ? new GzipSink(sink)
+        : new DeflaterSink(sink, new Deflater());
+    // Closing writes the trailer and releases the native deflater; OkHttp tolerates the
+    // request sink being closed by the body.
+    try (BufferedSink compressed = Okio.buffer(compressing)) {
+      body.writeTo(compressed);
+    }
+  }
+}
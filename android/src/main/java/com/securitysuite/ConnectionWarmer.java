@@ -0,0 +1,218 @@
+package com.securitysuite;
+
+import android.content.Context;
+
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.ReadableArray;
+import com.facebook.react.bridge.ReadableMap;
+import com.facebook.react.bridge.WritableArray;
+import com.facebook.react.bridge.WritableMap;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.HttpUrl;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+
+/**
+ * Opens pinned connections ahead of the first fetch.
+ *
+ * <p>OkHttp has no public API to connect without a call, so each warm connection is a
+ * {@code HEAD /} request made through the same pinned client a fetch with these pins would use.
+ * DNS, TCP, the TLS handshake and the {@code CertificatePinner} check all run on the dispatcher,
+ * and the connection is released into the shared pool once the response is read. The status
+ * code is irrelevant: any response means the connection was established and pinned.
+ *
+ * <p>For HTTP/1.1 hosts, {@code connectionsPerHost} concurrent calls leave that many idle
+ * connections behind. HTTP/2 hosts multiplex every call over one connection, so they always
+ * end up with one. Idle connections are kept for the pool's keep-alive and count towards its
+ * {@code maxIdleConnections} (see {@link PinnedClientRegistry#configureDispatcher}).
+ *
+ * <p>Warmups go through {@link FetchScheduler} as {@code background} calls, so they yield to
+ * fetches and count against {@code maxBackground}, and through the host's
+ * {@link CircuitBreaker}: a host whose circuit is open is skipped without touching the network.
+ */
+final class ConnectionWarmer {
+  static final int DEFAULT_CONNECTIONS_PER_HOST = 1;
+
+  /** Receives the warmup report once every host has finished or failed. */
+  interface Listener {
+    void onComplete(WritableMap report);
+
+    void onError(String message);
+  }
+
+  private ConnectionWarmer() {}
+
+  /**
+   * Warms {@code options.hosts} with the pins in {@code options}. Rejects the whole call when
+   * pinning is not configured or a host is outside {@code validDomains}, since an unpinned
+   * warm connection would be reused by pinned fetches without ever being checked.
+   */
+  static void preconnect(Context context, ReadableMap options, Listener listener) {
+    Sslpinning.PinningConfig pinningConfig = Sslpinning.PinningConfig.fromOptions(options);
+    if (pinningConfig.hasError()) {
+      listener.onError(pinningConfig.getError());
+      return;
+    }
+    if (!pinningConfig.isEnabled()) {
+      listener.onError("preconnect requires 'certificates' and 'validDomains'");
+      return;
+    }
+
+    ReadableArray hosts = options.hasKey("hosts") ? options.getArray("hosts") : null;
+    if (hosts == null || hosts.size() == 0) {
+      listener.onError("At least one host is required");
+      return;
+    }
+
+    int connectionsPerHost = options.hasKey("connectionsPerHost")
+        ? options.getInt("connectionsPerHost")
+        : DEFAULT_CONNECTIONS_PER_HOST;
+    if (connectionsPerHost < 1) {
+      listener.onError("connectionsPerHost must be at least 1");
+      return;
+    }
+
+    PinnedClientRegistry.PinSet pinSet;
+    OkHttpClient client;
+    HttpUrl[] urls = new HttpUrl[hosts.size()];
+    try {
+      pinSet = PinnedClientRegistry.pinSetFor(options);
+      for (int i = 0; i < urls.length; i++) {
+        String host = hosts.getString(i);
+        urls[i] = toUrl(host);
+        if (urls[i] == null) {
+          listener.onError("Invalid host '" + host + "'");
+          return;
+        }
+        if (!pinSet.allowlist.matches(urls[i].host())) {
+          listener.onError("Hostname '" + urls[i].host() + "' is not in validDomains");
+          return;
+        }
+      }
+      client = PinnedClientRegistry.getClient(context, options, pinSet);
+    } catch (Exception e) {
+      listener.onError(e.getMessage() != null ? e.getMessage() : "Preconnect failed");
+      return;
+    }
+
+    long start = System.nanoTime();
+    HostWarmup[] warmups = new HostWarmup[urls.length];
+    AtomicInteger remaining = new AtomicInteger(urls.length * connectionsPerHost);
+    Runnable onCallDone = () -> {
+      if (remaining.decrementAndGet() == 0) {
+        listener.onComplete(report(hosts, warmups, start, client));
+      }
+    };
+
+    for (int i = 0; i < urls.length; i++) {
+      warmups[i] = new HostWarmup(start);
+      Request request = new Request.Builder().url(urls[i]).head().build();
+      for (int c = 0; c < connectionsPerHost; c++) {
+        FetchScheduler.SHARED.enqueue(
+            client.newCall(request),
+            urls[i].host(),
+            FetchScheduler.Priority.BACKGROUND,
+            warmups[i].callback(onCallDone)
+        );
+      }
+    }
+  }
+
+  /** Accepts {@code host}, {@code host:port} or an {@code https://} origin. */
+  private static HttpUrl toUrl(String host) {
+    if (host == null || host.trim().isEmpty()) {
+      return null;
+    }
+    String trimmed = host.trim();
+    if (trimmed.contains("://")) {
+      HttpUrl url = HttpUrl.parse(trimmed);
+      if (url == null || !url.isHttps()) {
+        return null;
+      }
+      return url.newBuilder().encodedPath("/").query(null).fragment(null).build();
+    }
+    return HttpUrl.parse("https://" + trimmed + "/");
+  }
+
+  private static WritableMap report(
+      ReadableArray hosts,
+      HostWarmup[] warmups,
+      long start,
+      OkHttpClient client
+  ) {
+    WritableArray entries = Arguments.createArray();
+    for (int i = 0; i < warmups.length; i++) {
+      entries.pushMap(warmups[i].toWritableMap(hosts.getString(i)));
+    }
+    WritableMap report = Arguments.createMap();
+    report.putDouble("durationMs", (System.nanoTime() - start) / 1_000_000.0);
+    report.putInt("idleConnectionCount", client.connectionPool().idleConnectionCount());
+    report.putArray("hosts", entries);
+    return report;
+  }
+
+  private static final class HostWarmup {
+    private final long start;
+    private long end;
+    private int connected;
+    private String protocol;
+    private String error;
+    private long retryAfterMs = -1;
+
+    HostWarmup(long start) {
+      this.start = start;
+    }
+
+    Callback callback(Runnable onDone) {
+      return new Callback() {
+        @Override
+        public void onFailure(Call call, IOException e) {
+          synchronized (HostWarmup.this) {
+            end = System.nanoTime();
+            error = e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+            if (e instanceof CircuitBreaker.OpenException) {
+              retryAfterMs = ((CircuitBreaker.OpenException) e).retryAfterMs;
+            }
+          }
+          onDone.run();
+        }
+
+        @Override
+        public void onResponse(Call call, Response response) {
+          response.close();
+          synchronized (HostWarmup.this) {
+            end = System.nanoTime();
+            connected++;
+            protocol = response.protocol().toString();
+          }
+          onDone.run();
+        }
+      };
+    }
+
+    synchronized WritableMap toWritableMap(String host) {
+      WritableMap map = Arguments.createMap();
+      map.putString("host", host);
+      map.putBoolean("ok", connected > 0);
+      map.putInt("warmedCalls", connected);
+      map.putDouble("durationMs", (end - start) / 1_000_000.0);
+      if (protocol != null) {
+        map.putString("protocol", protocol);
+      }
+      if (error != null) {
+        map.putString("error", error);
+      }
+      if (retryAfterMs >= 0) {
+        map.putBoolean("circuitOpen", true);
+        map.putDouble("retryAfterMs", retryAfterMs);
+      }
+      return map;
+    }
+  }
+}
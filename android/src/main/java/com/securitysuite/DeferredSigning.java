@@ -0,0 +1,132 @@
+package com.securitysuite;
+
+import com.facebook.react.bridge.ReadableMap;
+
+import java.io.IOException;
+
+import javax.crypto.SecretKey;
+
+import okhttp3.Interceptor;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+
+import okio.ByteString;
+
+/**
+ * JWS signing (and, for chunk uploads, the {@code Content-Digest} header) deferred from the
+ * thread that builds a request to the dispatcher thread that sends it.
+ *
+ * <p>Signing hashes the whole body, which for a file or content-URI body is a full extra read.
+ * Requests are therefore built on the native-modules thread with this tag only, and
+ * {@link #INTERCEPTOR} signs them once they have been admitted. The result is kept on the tag,
+ * so retries of the same request reuse the signature instead of reading the body again.
+ *
+ * <p>The tag holds the body as the caller passed it, before progress reporting, compression
+ * and payload encryption wrap it, so {@code bodyHash} covers the uncompressed plaintext. A
+ * request that cannot be signed fails with {@link SigningException} without being sent.
+ */
+final class DeferredSigning {
+  static final Interceptor INTERCEPTOR = chain -> {
+    Request request = chain.request();
+    DeferredSigning signing = request.tag(DeferredSigning.class);
+    if (signing == null) {
+      return chain.proceed(request);
+    }
+    signing.sign();
+    Request.Builder builder = request.newBuilder();
+    if (signing.contentDigest) {
+      builder.header("Content-Digest", "sha-256=:" + signing.sha256.base64() + ":");
+    }
+    if (signing.result != null
+        && signing.result.signature != null
+        && !signing.result.signature.isEmpty()) {
+      builder.addHeader(signing.result.headerName, signing.result.signature);
+    }
+    return chain.proceed(builder.build());
+  };
+
+  /** The request could not be signed and was not sent. */
+  static final class SigningException extends IOException {
+    private static final long serialVersionUID = 1L;
+
+    SigningException(String message, Throwable cause) {
+      super(message, cause);
+    }
+  }
+
+  private final String url;
+  private final String method;
+  private final RequestBodyDigest digest;
+  private final ReadableMap options;
+  private final SecretKey hmacKey;
+  private final boolean contentDigest;
+
+  private boolean signed;
+  private ByteString sha256;
+  private JwsFetchSigner.Result result;
+  private SigningException failure;
+
+  private DeferredSigning(
+      String url,
+      String method,
+      RequestBody body,
+      ReadableMap options,
+      SecretKey hmacKey,
+      boolean contentDigest
+  ) {
+    this.url = url;
+    this.method = method;
+    this.digest = RequestBodyDigest.of(body);
+    this.options = options;
+    this.hmacKey = hmacKey;
+    this.contentDigest = contentDigest;
+  }
+
+  /** Signs {@code body} for {@code url} as {@link JwsFetchSigner} would, when sent. */
+  static DeferredSigning of(
+      String url,
+      String method,
+      RequestBody body,
+      ReadableMap options,
+      SecretKey hmacKey
+  ) {
+    return new DeferredSigning(url, method, body, options, hmacKey, false);
+  }
+
+  /** Like {@link #of}, and also sends the body's SHA-256 as {@code Content-Digest}. */
+  static DeferredSigning withContentDigest(
+      String url,
+      String method,
+      RequestBody body,
+      ReadableMap options,
+      SecretKey hmacKey
+  ) {
+    return new DeferredSigning(url, method, body, options, hmacKey, true);
+  }
+
+  /** Hex SHA-256 of the body once the request has been signed, else {@code null}. */
+  synchronized String sha256Hex() {
+    return sha256 != null ? sha256.hex() : null;
+  }
+
+  private synchronized void sign() throws SigningException {
+    if (!signed) {
+      signed = true;
+      try {
+        if (contentDigest) {
+          byte[] hash = digest.sha256();
+          sha256 = hash != null ? ByteString.of(hash) : ByteString.EMPTY.sha256();
+        }
+        result = JwsFetchSigner.sign(url, method, digest, options, hmacKey);
+      } catch (Exception e) {
+        failure = new SigningException(
+            e.getMessage() != null ? e.getMessage() : "JWS signing failed",
+            e
+        );
+      }
+    }
+    if (failure != null) {
+      throw failure;
+    }
+  }
+}
@@ -0,0 +1,142 @@
+package com.securitysuite;
+
+import java.net.IDN;
+import java.util.Collection;
+import java.util.Locale;
+
+/**
+ * Compiled {@code validDomains} matcher: a host matches when it equals an allowed domain or is
+ * a subdomain of one.
+ *
+ * <p>Domains are trimmed, stripped of a trailing dot, IDN-converted to ASCII and lower-cased
+ * once, then stored in an open-addressing hash table. A lookup hashes the host right to left,
+ * probing the table at each label boundary, so it touches each character once, compares ASCII
+ * case-insensitively in place and allocates nothing.
+ */
+final class DomainAllowlist {
+  private final String[] domains;
+  private final int[] hashes;
+  private final int mask;
+  private final int size;
+
+  private DomainAllowlist(String[] domains, int[] hashes, int size) {
+    this.domains = domains;
+    this.hashes = hashes;
+    this.mask = domains.length - 1;
+    this.size = size;
+  }
+
+  /**
+   * @throws IllegalArgumentException if a domain is not a valid internationalized domain name
+   */
+  static DomainAllowlist compile(Collection<String> validDomains) {
+    int capacity = Integer.highestOneBit(Math.max(validDomains.size(), 1) * 2 - 1) << 1;
+    String[] table = new String[Math.max(capacity, 2)];
+    int[] hashes = new int[table.length];
+    int mask = table.length - 1;
+    int size = 0;
+
+    for (String domain : validDomains) {
+      String normalized = normalize(domain);
+      if (normalized == null) {
+        continue;
+      }
+      int hash = hash(normalized, 0, normalized.length());
+      int index = mix(hash) & mask;
+      boolean duplicate = false;
+      while (table[index] != null) {
+        if (hashes[index] == hash && table[index].equals(normalized)) {
+          duplicate = true;
+          break;
+        }
+        index = (index + 1) & mask;
+      }
+      if (!duplicate) {
+        table[index] = normalized;
+        hashes[index] = hash;
+        size++;
+      }
+    }
+    return new DomainAllowlist(table, hashes, size);
+  }
+
+  /** Canonical form used for both matching and certificate pinner patterns. */
+  static String normalize(String domain) {
+    if (domain == null) {
+      return null;
+    }
+    String trimmed = domain.trim();
+    if (trimmed.endsWith(".")) {
+      trimmed = trimmed.substring(0, trimmed.length() - 1);
+    }
+    if (trimmed.isEmpty()) {
+      return null;
+    }
+    return IDN.toASCII(trimmed, IDN.ALLOW_UNASSIGNED).toLowerCase(Locale.US);
+  }
+
+  boolean isEmpty() {
+    return size == 0;
+  }
+
+  /** {@code host} is expected in ASCII form, as returned by {@link java.net.URI#getHost()}. */
+  boolean matches(String host) {
+    if (size == 0 || host == null) {
+      return false;
+    }
+    int end = host.length();
+    if (end > 0 && host.charAt(end - 1) == '.') {
+      end--;
+    }
+
+    int hash = 0;
+    for (int i = end - 1; i >= 0; i--) {
+      char c = host.charAt(i);
+      if (c == '.' && i + 1 < end && contains(host, i + 1, end, hash)) {
+        return true;
+      }
+      hash = 31 * hash + lower(c);
+    }
+    return end > 0 && contains(host, 0, end, hash);
+  }
+
+  private boolean contains(String host, int start, int end, int hash) {
+    int index = mix(hash) & mask;
+    String candidate;
+    while ((candidate = domains[index]) != null) {
+      if (hashes[index] == hash
+          && candidate.length() == end - start
+          && equalsIgnoreAsciiCase(candidate, host, start)) {
+        return true;
+      }
+      index = (index + 1) & mask;
+    }
+    return false;
+  }
+
+  // Hash of s[start, end) read right to left, the order matches() consumes the host in.
+  private static int hash(String s, int start, int end) {
+    int hash = 0;
+    for (int i = end - 1; i >= start; i--) {
+      hash = 31 * hash + lower(s.charAt(i));
+    }
+    return hash;
+  }
+
+  private static boolean equalsIgnoreAsciiCase(String lowerCase, String host, int offset) {
+    for (int i = 0; i < lowerCase.length(); i++) {
+      if (lowerCase.charAt(i) != lower(host.charAt(offset + i))) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static char lower(char c) {
+    return c >= 'A' && c <= 'Z' ? (char) (c + ('a' - 'A')) : c;
+  }
+
+  private static int mix(int hash) {
+    return hash ^ (hash >>> 16);
+  }
+}
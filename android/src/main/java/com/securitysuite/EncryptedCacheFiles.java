@@ -0,0 +1,202 @@
+package com.securitysuite;
+
+import com.securitysuite.crypto.encryption.AesGcmEncryption;
+import com.securitysuite.crypto.utils.CryptoBytes;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+
+import okio.Buffer;
+import okio.BufferedSink;
+import okio.BufferedSource;
+import okio.Okio;
+import okio.Sink;
+import okio.Source;
+import okio.Timeout;
+
+/**
+ * Reads and writes {@link FetchCacheStore} files, encrypting every byte with AES-256-GCM.
+ *
+ * <p>Files are sealed in {@link #SEGMENT_SIZE} segments so reads and writes stream in constant
+ * memory. A file is {@code version (1) || noncePrefix (8) || segment*}; each segment is GCM
+ * ciphertext plus tag under nonce {@code noncePrefix || index}, with the caller's entry name and
+ * a final-segment flag as associated data. Reordered, truncated, extended or swapped files
+ * therefore fail authentication and the store treats the entry as a miss.
+ */
+final class EncryptedCacheFiles {
+  static final int SEGMENT_SIZE = 64 * 1024;
+  private static final byte VERSION = 1;
+  private static final int NONCE_PREFIX_LENGTH = 8;
+  private static final int TAG_LENGTH = AesGcmEncryption.TAG_LENGTH_BYTES;
+  private static final String TRANSFORMATION = "AES/GCM/NoPadding";
+
+  private final SecretKeySpec key;
+
+  EncryptedCacheFiles(byte[] dataKey) {
+    if (dataKey == null || dataKey.length != 32) {
+      throw new IllegalArgumentException("Cache encryption requires a 32-byte key");
+    }
+    this.key = new SecretKeySpec(dataKey, "AES");
+  }
+
+  /** Opens {@code file}, which must have been written under the same {@code name}. */
+  Source source(File file, String name) throws FileNotFoundException {
+    return new DecryptingSource(Okio.buffer(Okio.source(file)), bytes(name));
+  }
+
+  /**
+   * Writes {@code file}, binding it to {@code name}. The file is only complete, and readable,
+   * once the sink is closed.
+   */
+  Sink sink(File file, String name) throws FileNotFoundException {
+    return new EncryptingSink(Okio.buffer(Okio.sink(file)), bytes(name));
+  }
+
+  private static byte[] bytes(String name) {
+    return name.getBytes(StandardCharsets.UTF_8);
+  }
+
+  private Cipher initCipher(int mode, byte[] noncePrefix, int index, byte[] name, boolean last)
+      throws IOException {
+    try {
+      byte[] nonce = ByteBuffer.allocate(AesGcmEncryption.IV_LENGTH)
+          .put(noncePrefix)
+          .putInt(index)
+          .array();
+      Cipher cipher = Cipher.getInstance(TRANSFORMATION);
+      cipher.init(mode, key, new GCMParameterSpec(AesGcmEncryption.TAG_LENGTH_BITS, nonce));
+      cipher.updateAAD(name);
+      cipher.updateAAD(new byte[] {(byte) (last ? 1 : 0)});
+      return cipher;
+    } catch (GeneralSecurityException e) {
+      throw new IOException("Unable to initialise cache cipher", e);
+    }
+  }
+
+  private final class EncryptingSink implements Sink {
+    private final BufferedSink out;
+    private final byte[] name;
+    private final byte[] noncePrefix = CryptoBytes.randomBytes(NONCE_PREFIX_LENGTH);
+    private final Buffer pending = new Buffer();
+    private int index;
+    private boolean closed;
+
+    EncryptingSink(BufferedSink out, byte[] name) {
+      this.out = out;
+      this.name = name;
+    }
+
+    @Override
+    public void write(Buffer source, long byteCount) throws IOException {
+      pending.write(source, byteCount);
+      // Seal only while more data follows; the remainder is sealed as the final segment.
+      while (pending.size() > SEGMENT_SIZE) {
+        seal(SEGMENT_SIZE, false);
+      }
+    }
+
+    private void seal(int length, boolean last) throws IOException {
+      if (index == 0) {
+        out.writeByte(VERSION);
+        out.write(noncePrefix);
+      }
+      byte[] plaintext = pending.readByteArray(length);
+      try {
+        out.write(initCipher(Cipher.ENCRYPT_MODE, noncePrefix, index++, name, last)
+            .doFinal(plaintext));
+      } catch (GeneralSecurityException e) {
+        throw new IOException("Unable to encrypt cache entry", e);
+      }
+    }
+
+    @Override
+    public void flush() throws IOException {
+      out.flush();
+    }
+
+    @Override
+    public Timeout timeout() {
+      return out.timeout();
+    }
+
+    @Override
+    public void close() throws IOException {
+      if (closed) {
+        return;
+      }
+      closed = true;
+      try {
+        seal((int) pending.size(), true);
+      } finally {
+        out.close();
+      }
+    }
+  }
+
+  private final class DecryptingSource implements Source {
+    private final BufferedSource in;
+    private final byte[] name;
+    private final Buffer plaintext = new Buffer();
+    private byte[] noncePrefix;
+    private int index;
+    private boolean finished;
+
+    DecryptingSource(BufferedSource in, byte[] name) {
+      this.in = in;
+      this.name = name;
+    }
+
+    @Override
+    public long read(Buffer sink, long byteCount) throws IOException {
+      while (plaintext.size() == 0 && !finished) {
+        openNextSegment();
+      }
+      if (plaintext.size() == 0) {
+        return -1;
+      }
+      return plaintext.read(sink, byteCount);
+    }
+
+    private void openNextSegment() throws IOException {
+      if (noncePrefix == null) {
+        if (!in.request(1 + NONCE_PREFIX_LENGTH) || in.readByte() != VERSION) {
+          throw new IOException("Unrecognised cache entry format");
+        }
+        noncePrefix = in.readByteArray(NONCE_PREFIX_LENGTH);
+      }
+
+      in.request(SEGMENT_SIZE + TAG_LENGTH);
+      long available = Math.min(in.getBuffer().size(), SEGMENT_SIZE + TAG_LENGTH);
+      if (available < TAG_LENGTH) {
+        throw new IOException("Truncated cache entry");
+      }
+      byte[] ciphertext = in.readByteArray(available);
+      boolean last = in.exhausted();
+      try {
+        plaintext.write(initCipher(Cipher.DECRYPT_MODE, noncePrefix, index++, name, last)
+            .doFinal(ciphertext));
+      } catch (GeneralSecurityException e) {
+        throw new IOException("Cache entry failed authentication", e);
+      }
+      finished = last;
+    }
+
+    @Override
+    public Timeout timeout() {
+      return in.timeout();
+    }
+
+    @Override
+    public void close() throws IOException {
+      in.close();
+    }
+  }
+}
@@ -0,0 +1,79 @@
+package com.securitysuite;
+
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.WritableArray;
+import com.facebook.react.bridge.WritableMap;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Collects the results of one {@code fetchBatch} call in request order.
+ *
+ * <p>Items complete on whichever dispatcher thread finishes them; each slot is written once and
+ * the final decrement of {@code remaining} publishes all of them to the thread that delivers the
+ * batch, so the bridge is crossed exactly once for the whole array.
+ */
+final class FetchBatch {
+  /** Notified as each item completes, in completion order. Optional. */
+  interface ItemListener {
+    void onItem(int index, FetchResult result);
+  }
+
+  /** Notified once with every result, in request order. */
+  interface CompletionListener {
+    void onComplete(FetchResult[] results);
+  }
+
+  private final FetchResult[] results;
+  private final AtomicInteger remaining;
+  private final ItemListener itemListener;
+  private final CompletionListener completionListener;
+
+  FetchBatch(int size, ItemListener itemListener, CompletionListener completionListener) {
+    this.results = new FetchResult[size];
+    this.remaining = new AtomicInteger(size);
+    this.itemListener = itemListener;
+    this.completionListener = completionListener;
+    if (size == 0) {
+      completionListener.onComplete(results);
+    }
+  }
+
+  Sslpinning.FetchListener listenerFor(int index) {
+    return result -> {
+      results[index] = result;
+      if (itemListener != null) {
+        itemListener.onItem(index, result);
+      }
+      if (remaining.decrementAndGet() == 0) {
+        completionListener.onComplete(results);
+      }
+    };
+  }
+
+  /** Fails every item with the same pre-flight error, e.g. an invalid batch pinning config. */
+  void rejectAll(String message) {
+    for (int i = 0; i < results.length; i++) {
+      listenerFor(i).onComplete(FetchResult.rejected(message));
+    }
+  }
+
+  /**
+   * One batch entry: the regular success or error map plus {@code index} and {@code ok}.
+   * Pre-flight rejections carry only {@code error}.
+   */
+  static WritableMap toEntry(int index, FetchResult result) {
+    WritableMap entry = result.toWritableMap();
+    entry.putInt("index", index);
+    entry.putBoolean("ok", result.isSuccess());
+    return entry;
+  }
+
+  static WritableArray toArray(FetchResult[] results) {
+    WritableArray array = Arguments.createArray();
+    for (int i = 0; i < results.length; i++) {
+      array.pushMap(toEntry(i, results[i]));
+    }
+    return array;
+  }
+}
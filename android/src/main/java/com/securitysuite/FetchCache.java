@@ -0,0 +1,162 @@
+package com.securitysuite;
+
+import android.content.Context;
+
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.WritableMap;
+
+import java.io.File;
+
+/**
+ * Opt-in, encrypted-at-rest HTTP cache for pinned fetches.
+ *
+ * <p>A {@link FetchCacheInterceptor} on each pinned client applies HTTP freshness and conditional
+ * revalidation (ETag / Last-Modified) over one {@link FetchCacheStore}. Entries are keyed by pin
+ * set and the interceptor is attached only to clients that enforce pins, so an entry is only ever
+ * served on a connection pinned to the same keys it was fetched with. Every pin set shares the
+ * one {@code maxSizeBytes} budget, with least-recently-used eviction.
+ */
+public final class FetchCache {
+  static final long DEFAULT_MAX_SIZE_BYTES = 20L * 1024 * 1024;
+  private static final String DIRECTORY_NAME = "securitysuite-fetch-cache";
+  private static final String ENTRIES_DIRECTORY = "entries";
+  private static final String WRAPPED_KEY_FILE = "data.key";
+  private static final String KEY_ALIAS = "com.securitysuite.fetchcache.wrap";
+
+  private static final Object LOCK = new Object();
+
+  private static FetchCacheStore store;
+  private static long maxSizeBytes = DEFAULT_MAX_SIZE_BYTES;
+
+  private static long hits;
+  private static long misses;
+  private static long conditionalRequests;
+  private static long revalidated;
+  private static long bytesFromCache;
+
+  private FetchCache() {}
+
+  /** Enables the cache under the app cache directory. Derived clients must be rebuilt after. */
+  public static void enable(Context context, long maxSizeBytes) throws Exception {
+    File root = new File(context.getCacheDir(), DIRECTORY_NAME);
+    File keyFile = new File(root, WRAPPED_KEY_FILE);
+    byte[] dataKey;
+    try {
+      dataKey = FetchCacheKeyStore.loadOrCreateDataKey(keyFile, KEY_ALIAS);
+    } catch (Exception e) {
+      // The wrapping key is gone (e.g. restored backup); entries are unreadable, so start over.
+      deleteContents(root);
+      dataKey = FetchCacheKeyStore.loadOrCreateDataKey(keyFile, KEY_ALIAS);
+    }
+    configure(root, maxSizeBytes, new EncryptedCacheFiles(dataKey));
+  }
+
+  static void configure(File root, long maxSizeBytes, EncryptedCacheFiles files) {
+    synchronized (LOCK) {
+      closeStore();
+      FetchCache.maxSizeBytes = maxSizeBytes;
+      FetchCache.store =
+          new FetchCacheStore(new File(root, ENTRIES_DIRECTORY), maxSizeBytes, files);
+    }
+    // Derived clients hold interceptors for the previous store.
+    PinnedClientRegistry.evictAll();
+  }
+
+  /** Stops caching. Entries stay on disk, encrypted, until {@link #clear()} or re-enable. */
+  public static void disable() {
+    synchronized (LOCK) {
+      closeStore();
+    }
+    PinnedClientRegistry.evictAll();
+  }
+
+  static boolean isEnabled() {
+    synchronized (LOCK) {
+      return store != null;
+    }
+  }
+
+  /** Cache interceptor for one pin set, or {@code null} when caching is disabled. */
+  static FetchCacheInterceptor interceptorFor(String pinSetId) {
+    synchronized (LOCK) {
+      return store != null ? new FetchCacheInterceptor(store, pinSetId) : null;
+    }
+  }
+
+  /** Deletes every cached entry and resets counters. */
+  public static void clear() {
+    synchronized (LOCK) {
+      if (store != null) {
+        store.evictAll();
+      }
+      hits = 0;
+      misses = 0;
+      conditionalRequests = 0;
+      revalidated = 0;
+      bytesFromCache = 0;
+    }
+  }
+
+  static void recordHit(long bytes) {
+    synchronized (LOCK) {
+      hits++;
+      bytesFromCache += Math.max(bytes, 0);
+    }
+  }
+
+  static void recordMiss() {
+    synchronized (LOCK) {
+      misses++;
+    }
+  }
+
+  /** A stale entry was found and a conditional request sent to revalidate it. */
+  static void recordConditionalRequest() {
+    synchronized (LOCK) {
+      conditionalRequests++;
+    }
+  }
+
+  /** The server answered a conditional request with 304; the cached body was served. */
+  static void recordRevalidated(long bytes) {
+    synchronized (LOCK) {
+      revalidated++;
+      bytesFromCache += Math.max(bytes, 0);
+    }
+  }
+
+  public static WritableMap getStats() {
+    WritableMap stats = Arguments.createMap();
+    synchronized (LOCK) {
+      stats.putBoolean("enabled", store != null);
+      stats.putDouble("maxSizeBytes", maxSizeBytes);
+      stats.putDouble("sizeBytes", store != null ? store.size() : 0);
+      stats.putDouble("hitCount", hits);
+      stats.putDouble("missCount", misses);
+      stats.putDouble("conditionalRequestCount", conditionalRequests);
+      stats.putDouble("revalidatedCount", revalidated);
+      stats.putDouble("bytesServedFromCache", bytesFromCache);
+    }
+    return stats;
+  }
+
+  private static void closeStore() {
+    if (store != null) {
+      store.close();
+      store = null;
+    }
+  }
+
+  private static void deleteContents(File directory) {
+    File[] files = directory.listFiles();
+    if (files == null) {
+      return;
+    }
+    for (File file : files) {
+      if (file.isDirectory()) {
+        deleteContents(file);
+      }
+      file.delete();
+    }
+  }
+}
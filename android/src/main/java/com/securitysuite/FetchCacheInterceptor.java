@@ -0,0 +1,462 @@
+package com.securitysuite;
+
+import java.io.IOException;
+import java.util.Date;
+import java.util.Locale;
+import java.util.Set;
+import java.util.TreeSet;
+
+import okhttp3.CacheControl;
+import okhttp3.Headers;
+import okhttp3.Interceptor;
+import okhttp3.MediaType;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+
+import okio.Buffer;
+import okio.BufferedSink;
+import okio.Okio;
+import okio.Source;
+import okio.Timeout;
+
+/**
+ * Serves and stores pinned {@code GET} responses through a {@link FetchCacheStore}.
+ *
+ * <p>Freshness and revalidation follow the rules of OkHttp's own cache for a private client
+ * cache: {@code Cache-Control} max-age, min-fresh, max-stale, no-cache, no-store and
+ * only-if-cached, {@code Expires}, the 10% {@code Last-Modified} heuristic, {@code Vary}, and
+ * conditional requests with {@code If-None-Match} / {@code If-Modified-Since}. Unsafe methods
+ * invalidate the entry for their URL.
+ *
+ * <p>One interceptor is installed per pinned client, after {@link PayloadEncryption#INTERCEPTOR}.
+ * Requests tagged with a {@link PayloadEncryption.Mode} bypass it: their bodies are sealed with a
+ * session key that rotates, and a sealed entry must never be served to a plaintext request or the
+ * other way round. Entries are keyed by pin set as well as URL, so an entry is only served on a
+ * connection pinned to the keys it was fetched with.
+ */
+final class FetchCacheInterceptor implements Interceptor {
+  private final FetchCacheStore store;
+  private final String pinSetId;
+
+  FetchCacheInterceptor(FetchCacheStore store, String pinSetId) {
+    this.store = store;
+    this.pinSetId = pinSetId;
+  }
+
+  @Override
+  public Response intercept(Chain chain) throws IOException {
+    Request request = chain.request();
+    String key = FetchCacheStore.key(pinSetId, request.url());
+    if (!"GET".equals(request.method()) || request.tag(PayloadEncryption.Mode.class) != null) {
+      Response response = chain.proceed(request);
+      if (invalidatesCache(request.method())) {
+        store.remove(key);
+      }
+      return response;
+    }
+
+    long now = System.currentTimeMillis();
+    FetchCacheStore.Snapshot snapshot = store.get(key);
+    if (snapshot != null && !matches(snapshot.entry, request)) {
+      snapshot.close();
+      snapshot = null;
+    }
+    Request networkRequest = request;
+    if (snapshot != null) {
+      networkRequest = conditionalRequest(request, snapshot.entry, now);
+      if (networkRequest == null) {
+        FetchCache.recordHit(Math.max(snapshot.entry.bodyLength, 0));
+        return cachedResponse(request, snapshot, snapshot.entry);
+      }
+      if (networkRequest == request) {
+        // Not revalidatable; fetch it afresh.
+        snapshot.close();
+        snapshot = null;
+      }
+    }
+
+    if (request.cacheControl().onlyIfCached()) {
+      if (snapshot != null) {
+        snapshot.close();
+      }
+      return new Response.Builder()
+          .request(request)
+          .protocol(Protocol.HTTP_1_1)
+          .code(504)
+          .message("Unsatisfiable Request (only-if-cached)")
+          .body(ResponseBody.create(new byte[0], null))
+          .sentRequestAtMillis(-1L)
+          .receivedResponseAtMillis(System.currentTimeMillis())
+          .build();
+    }
+
+    if (snapshot != null) {
+      FetchCache.recordConditionalRequest();
+    } else {
+      FetchCache.recordMiss();
+    }
+    Response networkResponse;
+    try {
+      networkResponse = chain.proceed(networkRequest);
+    } catch (IOException | RuntimeException e) {
+      if (snapshot != null) {
+        snapshot.close();
+      }
+      throw e;
+    }
+
+    if (snapshot != null) {
+      if (networkResponse.code() == 304) {
+        networkResponse.close();
+        FetchCacheStore.Entry entry = snapshot.entry.revalidated(
+            combine(snapshot.entry.responseHeaders, networkResponse.headers()),
+            networkResponse.sentRequestAtMillis(),
+            networkResponse.receivedResponseAtMillis()
+        );
+        store.update(key, entry);
+        FetchCache.recordRevalidated(Math.max(entry.bodyLength, 0));
+        return cachedResponse(request, snapshot, entry);
+      }
+      snapshot.close();
+    }
+
+    // After a redirect the response belongs to another URL; it is not filed under this one.
+    if (!isCacheable(networkResponse, request)
+        || networkResponse.priorResponse() != null
+        || networkResponse.body() == null) {
+      return networkResponse;
+    }
+    Set<String> varyFields = varyFields(networkResponse.headers());
+    if (varyFields.contains("*")) {
+      return networkResponse;
+    }
+    FetchCacheStore.Editor editor;
+    try {
+      editor = store.edit(key, FetchCacheStore.Entry.of(
+          request, networkResponse, varyHeaders(request.headers(), varyFields)));
+    } catch (IOException e) {
+      // Caching is best effort.
+      return networkResponse;
+    }
+    if (editor == null) {
+      return networkResponse;
+    }
+    ResponseBody body = networkResponse.body();
+    Source caching = new CacheWritingSource(body.source(), editor, store.maxSizeBytes());
+    return networkResponse.newBuilder()
+        .body(ResponseBody.create(Okio.buffer(caching), body.contentType(), body.contentLength()))
+        .build();
+  }
+
+  private static Response cachedResponse(
+      Request request,
+      FetchCacheStore.Snapshot snapshot,
+      FetchCacheStore.Entry entry
+  ) {
+    String contentType = entry.responseHeaders.get("Content-Type");
+    return new Response.Builder()
+        .request(request)
+        .protocol(entry.protocol)
+        .code(entry.code)
+        .message(entry.message)
+        .headers(entry.responseHeaders)
+        .body(ResponseBody.create(
+            Okio.buffer(snapshot.body),
+            contentType != null ? MediaType.parse(contentType) : null,
+            entry.bodyLength
+        ))
+        .sentRequestAtMillis(entry.sentRequestAtMillis)
+        .receivedResponseAtMillis(entry.receivedResponseAtMillis)
+        .build();
+  }
+
+  /**
+   * The request to revalidate {@code entry} with; {@code null} when the entry can be served
+   * as is, or {@code request} itself when it has to be fetched afresh.
+   */
+  private static Request conditionalRequest(
+      Request request,
+      FetchCacheStore.Entry entry,
+      long now
+  ) {
+    CacheControl requestCaching = request.cacheControl();
+    if (!isCacheable(entry.code, entry.responseHeaders, request)
+        || requestCaching.noCache()
+        || request.header("If-Modified-Since") != null
+        || request.header("If-None-Match") != null) {
+      return request;
+    }
+
+    CacheControl responseCaching = CacheControl.parse(entry.responseHeaders);
+    long ageMillis = ageMillis(entry, now);
+    long freshMillis = freshnessLifetimeMillis(entry);
+    if (requestCaching.maxAgeSeconds() != -1) {
+      freshMillis = Math.min(freshMillis, requestCaching.maxAgeSeconds() * 1000L);
+    }
+    long minFreshMillis = requestCaching.minFreshSeconds() != -1
+        ? requestCaching.minFreshSeconds() * 1000L
+        : 0;
+    long maxStaleMillis = !responseCaching.mustRevalidate()
+        && requestCaching.maxStaleSeconds() != -1
+        ? requestCaching.maxStaleSeconds() * 1000L
+        : 0;
+    if (!responseCaching.noCache() && ageMillis + minFreshMillis < freshMillis + maxStaleMillis) {
+      return null;
+    }
+
+    String etag = entry.responseHeaders.get("ETag");
+    if (etag != null) {
+      return request.newBuilder().header("If-None-Match", etag).build();
+    }
+    String lastModified = entry.responseHeaders.get("Last-Modified");
+    if (lastModified == null) {
+      lastModified = entry.responseHeaders.get("Date");
+    }
+    if (lastModified != null) {
+      return request.newBuilder().header("If-Modified-Since", lastModified).build();
+    }
+    return request;
+  }
+
+  private static long ageMillis(FetchCacheStore.Entry entry, long now) {
+    Date servedDate = entry.responseHeaders.getDate("Date");
+    long apparentReceivedAge = servedDate != null
+        ? Math.max(0, entry.receivedResponseAtMillis - servedDate.getTime())
+        : 0;
+    long receivedAge = apparentReceivedAge;
+    String age = entry.responseHeaders.get("Age");
+    if (age != null) {
+      try {
+        receivedAge = Math.max(apparentReceivedAge, Long.parseLong(age.trim()) * 1000L);
+      } catch (NumberFormatException ignored) {
+        // An unparseable Age is ignored, as OkHttp does.
+      }
+    }
+    long responseDuration = entry.receivedResponseAtMillis - entry.sentRequestAtMillis;
+    long residentDuration = now - entry.receivedResponseAtMillis;
+    return receivedAge + responseDuration + residentDuration;
+  }
+
+  private static long freshnessLifetimeMillis(FetchCacheStore.Entry entry) {
+    Headers headers = entry.responseHeaders;
+    CacheControl caching = CacheControl.parse(headers);
+    if (caching.maxAgeSeconds() != -1) {
+      return caching.maxAgeSeconds() * 1000L;
+    }
+    Date servedDate = headers.getDate("Date");
+    Date expires = headers.getDate("Expires");
+    if (expires != null) {
+      long servedMillis = servedDate != null
+          ? servedDate.getTime()
+          : entry.receivedResponseAtMillis;
+      return Math.max(0, expires.getTime() - servedMillis);
+    }
+    Date lastModified = headers.getDate("Last-Modified");
+    if (lastModified != null && !entry.url.contains("?")) {
+      // As RFC 7234 recommends, 10% of the document's age when it was served.
+      long servedMillis = servedDate != null
+          ? servedDate.getTime()
+          : entry.sentRequestAtMillis;
+      long delta = servedMillis - lastModified.getTime();
+      return delta > 0 ? delta / 10 : 0;
+    }
+    return 0;
+  }
+
+  private static boolean isCacheable(Response response, Request request) {
+    return isCacheable(response.code(), response.headers(), request);
+  }
+
+  private static boolean isCacheable(int code, Headers headers, Request request) {
+    CacheControl caching = CacheControl.parse(headers);
+    switch (code) {
+      case 200:
+      case 203:
+      case 204:
+      case 300:
+      case 301:
+      case 308:
+      case 404:
+      case 405:
+      case 410:
+      case 414:
+      case 501:
+        break;
+      case 302:
+      case 307:
+        // Temporary redirects only when the server says how long they hold.
+        if (headers.get("Expires") == null
+            && caching.maxAgeSeconds() == -1
+            && !caching.isPublic()
+            && !caching.isPrivate()) {
+          return false;
+        }
+        break;
+      default:
+        return false;
+    }
+    return !caching.noStore() && !request.cacheControl().noStore();
+  }
+
+  private static boolean invalidatesCache(String method) {
+    return method.equals("POST")
+        || method.equals("PATCH")
+        || method.equals("PUT")
+        || method.equals("DELETE")
+        || method.equals("MOVE");
+  }
+
+  private static boolean matches(FetchCacheStore.Entry entry, Request request) {
+    if (!entry.url.equals(request.url().toString())) {
+      return false;
+    }
+    for (String field : varyFields(entry.responseHeaders)) {
+      if (!entry.varyHeaders.values(field).equals(request.headers(field))) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static Set<String> varyFields(Headers headers) {
+    Set<String> fields = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
+    for (String value : headers.values("Vary")) {
+      for (String field : value.split(",")) {
+        if (!field.trim().isEmpty()) {
+          fields.add(field.trim());
+        }
+      }
+    }
+    return fields;
+  }
+
+  private static Headers varyHeaders(Headers requestHeaders, Set<String> fields) {
+    Headers.Builder headers = new Headers.Builder();
+    for (int i = 0; i < requestHeaders.size(); i++) {
+      if (fields.contains(requestHeaders.name(i))) {
+        headers.addUnsafeNonAscii(requestHeaders.name(i), requestHeaders.value(i));
+      }
+    }
+    return headers.build();
+  }
+
+  /** Stored headers updated with a 304's end-to-end headers, as RFC 7234 section 4.3.4 says. */
+  private static Headers combine(Headers cached, Headers network) {
+    Headers.Builder headers = new Headers.Builder();
+    for (int i = 0; i < cached.size(); i++) {
+      String name = cached.name(i);
+      String value = cached.value(i);
+      if ("Warning".equalsIgnoreCase(name) && value.startsWith("1")) {
+        continue;
+      }
+      if (isContentSpecific(name) || !isEndToEnd(name) || network.get(name) == null) {
+        headers.addUnsafeNonAscii(name, value);
+      }
+    }
+    for (int i = 0; i < network.size(); i++) {
+      String name = network.name(i);
+      if (!isContentSpecific(name) && isEndToEnd(name)) {
+        headers.addUnsafeNonAscii(name, network.value(i));
+      }
+    }
+    return headers.build();
+  }
+
+  private static boolean isContentSpecific(String name) {
+    String lower = name.toLowerCase(Locale.US);
+    return lower.equals("content-length")
+        || lower.equals("content-encoding")
+        || lower.equals("content-type");
+  }
+
+  private static boolean isEndToEnd(String name) {
+    switch (name.toLowerCase(Locale.US)) {
+      case "connection":
+      case "keep-alive":
+      case "proxy-authenticate":
+      case "proxy-authorization":
+      case "te":
+      case "trailers":
+      case "transfer-encoding":
+      case "upgrade":
+        return false;
+      default:
+        return true;
+    }
+  }
+
+  /**
+   * Copies the body into the cache as the caller reads it. The entry is committed when the body
+   * is read to the end, and discarded if it fails, is closed early or outgrows the cache.
+   */
+  private static final class CacheWritingSource implements Source {
+    private final Source source;
+    private final FetchCacheStore.Editor editor;
+    private final BufferedSink cacheBody;
+    private final long maxBytes;
+    private long written;
+    private boolean done;
+
+    CacheWritingSource(Source source, FetchCacheStore.Editor editor, long maxBytes) {
+      this.source = source;
+      this.editor = editor;
+      this.cacheBody = editor.body();
+      this.maxBytes = maxBytes;
+    }
+
+    @Override
+    public long read(Buffer sink, long byteCount) throws IOException {
+      long read;
+      try {
+        read = source.read(sink, byteCount);
+      } catch (IOException e) {
+        abort();
+        throw e;
+      }
+      if (done) {
+        return read;
+      }
+      if (read == -1) {
+        done = true;
+        try {
+          editor.commit(written);
+        } catch (IOException ignored) {
+          // The caller already has the body; only the cache copy is lost.
+        }
+        return -1;
+      }
+      written += read;
+      if (written > maxBytes) {
+        abort();
+        return read;
+      }
+      try {
+        sink.copyTo(cacheBody.getBuffer(), sink.size() - read, read);
+        cacheBody.emitCompleteSegments();
+      } catch (IOException e) {
+        abort();
+      }
+      return read;
+    }
+
+    @Override
+    public Timeout timeout() {
+      return source.timeout();
+    }
+
+    @Override
+    public void close() throws IOException {
+      abort();
+      source.close();
+    }
+
+    private void abort() {
+      if (!done) {
+        done = true;
+        editor.abort();
+      }
+    }
+  }
+}
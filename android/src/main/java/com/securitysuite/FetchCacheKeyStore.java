@@ -0,0 +1,105 @@
+package com.securitysuite;
+
+import android.security.keystore.KeyGenParameterSpec;
+import android.security.keystore.KeyProperties;
+
+import com.securitysuite.crypto.encryption.AesGcmEncryption;
+import com.securitysuite.crypto.utils.CryptoBytes;
+
+import java.io.File;
+import java.security.KeyStore;
+
+import javax.crypto.Cipher;
+import javax.crypto.KeyGenerator;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+
+import okio.BufferedSink;
+import okio.BufferedSource;
+import okio.Okio;
+
+/**
+ * Data keys for encrypted on-disk stores, wrapped by non-exportable Android Keystore keys.
+ *
+ * <p>Entries are encrypted in software with a random AES-256 data key so each segment does not
+ * cost a Keystore round trip. A data key only ever touches disk as
+ * {@code IV || AES-GCM(keystoreKey, dataKey)}. Each store passes its own Keystore alias, so
+ * losing or rotating one wrapping key never affects another store.
+ */
+public final class FetchCacheKeyStore {
+  private static final String ANDROID_KEYSTORE = "AndroidKeyStore";
+  private static final String TRANSFORMATION = "AES/GCM/NoPadding";
+  private static final int DATA_KEY_LENGTH = 32;
+
+  private FetchCacheKeyStore() {}
+
+  /**
+   * Unwraps the data key stored in {@code wrappedKeyFile} with the Keystore key {@code alias},
+   * creating and storing a new one when the file does not exist. Throws when an existing file
+   * cannot be unwrapped (e.g. the Keystore key was lost); the caller must then discard the
+   * entries it protected.
+   */
+  public static byte[] loadOrCreateDataKey(File wrappedKeyFile, String alias) throws Exception {
+    SecretKey wrappingKey = getOrCreateWrappingKey(alias);
+
+    if (wrappedKeyFile.exists()) {
+      byte[] wrapped;
+      try (BufferedSource source = Okio.buffer(Okio.source(wrappedKeyFile))) {
+        wrapped = source.readByteArray();
+      }
+      Cipher cipher = Cipher.getInstance(TRANSFORMATION);
+      cipher.init(
+          Cipher.DECRYPT_MODE,
+          wrappingKey,
+          new GCMParameterSpec(AesGcmEncryption.TAG_LENGTH_BITS, wrapped, 0, AesGcmEncryption.IV_LENGTH)
+      );
+      return cipher.doFinal(
+          wrapped,
+          AesGcmEncryption.IV_LENGTH,
+          wrapped.length - AesGcmEncryption.IV_LENGTH
+      );
+    }
+
+    byte[] dataKey = CryptoBytes.randomBytes(DATA_KEY_LENGTH);
+    Cipher cipher = Cipher.getInstance(TRANSFORMATION);
+    // Keystore keys require a Keystore-generated IV.
+    cipher.init(Cipher.ENCRYPT_MODE, wrappingKey);
+    byte[] ciphertext = cipher.doFinal(dataKey);
+
+    File parent = wrappedKeyFile.getParentFile();
+    if (parent != null && !parent.isDirectory() && !parent.mkdirs()) {
+      throw new IllegalStateException("Unable to create cache directory: " + parent);
+    }
+    try (BufferedSink sink = Okio.buffer(Okio.sink(wrappedKeyFile))) {
+      sink.write(cipher.getIV());
+      sink.write(ciphertext);
+    }
+    return dataKey;
+  }
+
+  private static SecretKey getOrCreateWrappingKey(String alias) throws Exception {
+    KeyStore keyStore = KeyStore.getInstance(ANDROID_KEYSTORE);
+    keyStore.load(null);
+
+    if (keyStore.containsAlias(alias)) {
+      KeyStore.Entry entry = keyStore.getEntry(alias, null);
+      if (entry instanceof KeyStore.SecretKeyEntry) {
+        return ((KeyStore.SecretKeyEntry) entry).getSecretKey();
+      }
+    }
+
+    KeyGenerator keyGenerator = KeyGenerator.getInstance(
+        KeyProperties.KEY_ALGORITHM_AES,
+        ANDROID_KEYSTORE
+    );
+    keyGenerator.init(new KeyGenParameterSpec.Builder(
+        alias,
+        KeyProperties.PURPOSE_ENCRYPT | KeyProperties.PURPOSE_DECRYPT
+    )
+        .setBlockModes(KeyProperties.BLOCK_MODE_GCM)
+        .setEncryptionPaddings(KeyProperties.ENCRYPTION_PADDING_NONE)
+        .setKeySize(256)
+        .build());
+    return keyGenerator.generateKey();
+  }
+}
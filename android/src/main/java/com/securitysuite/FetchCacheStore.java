@@ -0,0 +1,443 @@
+package com.securitysuite;
+
+import com.securitysuite.crypto.utils.CryptoBytes;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import okhttp3.Headers;
+import okhttp3.HttpUrl;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.Response;
+
+import okio.BufferedSink;
+import okio.BufferedSource;
+import okio.ByteString;
+import okio.Okio;
+import okio.Source;
+
+/**
+ * Encrypted response store behind {@link FetchCacheInterceptor}, one directory for every pin set.
+ *
+ * <p>An entry is two files named after {@code SHA-256(pinSetId, url)}: {@code <key>.0} holds the
+ * URL, the request headers named by {@code Vary} and the response line and headers, and
+ * {@code <key>.1} holds the body. Both are sealed by {@link EncryptedCacheFiles}, and the body
+ * is bound to a random id recorded in its metadata, so it can never be paired with another
+ * response's headers. Files are written under temporary names and renamed into place under the
+ * store lock, which readers also take to open an entry.
+ *
+ * <p>All entries share one {@code maxSizeBytes} budget, evicted least recently used first.
+ * Recency survives restarts as the metadata file's modification time, so there is no plaintext
+ * journal on disk.
+ */
+final class FetchCacheStore {
+  private static final String METADATA_SUFFIX = ".0";
+  private static final String BODY_SUFFIX = ".1";
+  private static final String TEMP_SUFFIX = ".tmp";
+  private static final int BODY_ID_LENGTH = 16;
+
+  private final File directory;
+  private final long maxSizeBytes;
+  private final EncryptedCacheFiles files;
+  // Access order: iteration starts at the least recently used entry.
+  private final LinkedHashMap<String, Stored> entries = new LinkedHashMap<>(16, 0.75f, true);
+  private long size;
+  private boolean closed;
+
+  FetchCacheStore(File directory, long maxSizeBytes, EncryptedCacheFiles files) {
+    this.directory = directory;
+    this.maxSizeBytes = maxSizeBytes;
+    this.files = files;
+    load();
+  }
+
+  static String key(String pinSetId, HttpUrl url) {
+    return ByteString.encodeUtf8(pinSetId + "\n" + url).sha256().hex();
+  }
+
+  long maxSizeBytes() {
+    return maxSizeBytes;
+  }
+
+  synchronized long size() {
+    return size;
+  }
+
+  /** The entry stored for {@code key}, or {@code null}. Unreadable entries are removed. */
+  synchronized Snapshot get(String key) {
+    Stored stored = closed ? null : entries.get(key);
+    if (stored == null) {
+      return null;
+    }
+    File metadata = file(key, METADATA_SUFFIX);
+    try {
+      Entry entry;
+      try (BufferedSource source =
+          Okio.buffer(files.source(metadata, key + METADATA_SUFFIX))) {
+        entry = Entry.readFrom(source);
+      }
+      Source body = files.source(file(key, BODY_SUFFIX), bodyName(key, entry.bodyId));
+      stored.bodyId = entry.bodyId;
+      metadata.setLastModified(System.currentTimeMillis());
+      return new Snapshot(entry, body);
+    } catch (IOException e) {
+      // Tampered, truncated or written under a lost key: a miss is always safe.
+      remove(key);
+      return null;
+    }
+  }
+
+  /** Starts writing {@code entry} for {@code key}; {@code null} once the store is closed. */
+  Editor edit(String key, Entry entry) throws IOException {
+    synchronized (this) {
+      if (closed) {
+        return null;
+      }
+      if (!directory.isDirectory() && !directory.mkdirs()) {
+        throw new IOException("Unable to create cache directory: " + directory);
+      }
+    }
+    return new Editor(key, entry);
+  }
+
+  /**
+   * Replaces the metadata of {@code key} after a revalidation, provided the entry still holds the
+   * body {@code entry} describes. Failures only leave the previous metadata in place.
+   */
+  void update(String key, Entry entry) {
+    File temp = null;
+    try {
+      temp = writeMetadata(key, entry);
+      synchronized (this) {
+        Stored stored = entries.get(key);
+        if (closed || stored == null || !entry.bodyId.equals(stored.bodyId)) {
+          return;
+        }
+        File metadata = file(key, METADATA_SUFFIX);
+        long previous = metadata.length();
+        if (temp.renameTo(metadata)) {
+          stored.size += metadata.length() - previous;
+          size += metadata.length() - previous;
+          temp = null;
+        }
+      }
+    } catch (IOException ignored) {
+      // The cached response was still served; it is revalidated again next time.
+    } finally {
+      if (temp != null) {
+        temp.delete();
+      }
+    }
+  }
+
+  synchronized void remove(String key) {
+    Stored stored = entries.remove(key);
+    if (stored != null) {
+      size -= stored.size;
+    }
+    file(key, METADATA_SUFFIX).delete();
+    file(key, BODY_SUFFIX).delete();
+  }
+
+  synchronized void evictAll() {
+    for (String key : new ArrayList<>(entries.keySet())) {
+      remove(key);
+    }
+  }
+
+  /** Stops serving and storing entries. Files stay on disk. */
+  synchronized void close() {
+    closed = true;
+  }
+
+  private void load() {
+    File[] files = directory.listFiles();
+    if (files == null) {
+      return;
+    }
+    List<File> metadataFiles = new ArrayList<>();
+    for (File file : files) {
+      String name = file.getName();
+      if (name.endsWith(METADATA_SUFFIX) && file(key(file), BODY_SUFFIX).isFile()) {
+        metadataFiles.add(file);
+      } else if (!name.endsWith(BODY_SUFFIX) || !file(key(file), METADATA_SUFFIX).isFile()) {
+        // Abandoned temporary files and half-deleted entries.
+        file.delete();
+      }
+    }
+    metadataFiles.sort((a, b) -> Long.compare(a.lastModified(), b.lastModified()));
+    for (File metadata : metadataFiles) {
+      String key = key(metadata);
+      Stored stored = new Stored(null, metadata.length() + file(key, BODY_SUFFIX).length());
+      entries.put(key, stored);
+      size += stored.size;
+    }
+    trim();
+  }
+
+  private void trim() {
+    Iterator<Map.Entry<String, Stored>> eldest = entries.entrySet().iterator();
+    while (size > maxSizeBytes && eldest.hasNext()) {
+      Map.Entry<String, Stored> evicted = eldest.next();
+      size -= evicted.getValue().size;
+      eldest.remove();
+      file(evicted.getKey(), METADATA_SUFFIX).delete();
+      file(evicted.getKey(), BODY_SUFFIX).delete();
+    }
+  }
+
+  private synchronized void install(Editor editor, File metadata) throws IOException {
+    if (closed) {
+      throw new IOException("Cache closed");
+    }
+    remove(editor.key);
+    File body = file(editor.key, BODY_SUFFIX);
+    File target = file(editor.key, METADATA_SUFFIX);
+    if (!editor.body.renameTo(body) || !metadata.renameTo(target)) {
+      body.delete();
+      throw new IOException("Unable to commit cache entry");
+    }
+    Stored stored = new Stored(editor.entry.bodyId, target.length() + body.length());
+    entries.put(editor.key, stored);
+    size += stored.size;
+    trim();
+  }
+
+  private File writeMetadata(String key, Entry entry) throws IOException {
+    File temp = File.createTempFile(key, TEMP_SUFFIX, directory);
+    try (BufferedSink sink = Okio.buffer(files.sink(temp, key + METADATA_SUFFIX))) {
+      entry.writeTo(sink);
+    } catch (IOException e) {
+      temp.delete();
+      throw e;
+    }
+    return temp;
+  }
+
+  private File file(String key, String suffix) {
+    return new File(directory, key + suffix);
+  }
+
+  private static String key(File file) {
+    String name = file.getName();
+    return name.substring(0, name.length() - METADATA_SUFFIX.length());
+  }
+
+  private static String bodyName(String key, String bodyId) {
+    return key + BODY_SUFFIX + ":" + bodyId;
+  }
+
+  private static final class Stored {
+    // Unknown until the entry's metadata is first read this session.
+    String bodyId;
+    long size;
+
+    Stored(String bodyId, long size) {
+      this.bodyId = bodyId;
+      this.size = size;
+    }
+  }
+
+  /** An open entry. Closing it releases the body file. */
+  static final class Snapshot implements Closeable {
+    final Entry entry;
+    final Source body;
+
+    Snapshot(Entry entry, Source body) {
+      this.entry = entry;
+      this.body = body;
+    }
+
+    @Override
+    public void close() throws IOException {
+      body.close();
+    }
+  }
+
+  /**
+   * Writes one entry's body to a temporary file. Nothing is visible to readers until
+   * {@link #commit(long)}; {@link #abort()} discards the entry.
+   */
+  final class Editor {
+    private final String key;
+    private final Entry entry;
+    private final File body;
+    private final BufferedSink sink;
+    private boolean done;
+
+    private Editor(String key, Entry entry) throws IOException {
+      this.key = key;
+      this.entry = entry;
+      this.body = File.createTempFile(key, TEMP_SUFFIX, directory);
+      this.sink = Okio.buffer(files.sink(body, bodyName(key, entry.bodyId)));
+    }
+
+    BufferedSink body() {
+      return sink;
+    }
+
+    void commit(long bodyLength) throws IOException {
+      if (done) {
+        return;
+      }
+      done = true;
+      File metadata = null;
+      try {
+        sink.close();
+        metadata = writeMetadata(key, entry.withBodyLength(bodyLength));
+        install(this, metadata);
+      } finally {
+        body.delete();
+        if (metadata != null) {
+          metadata.delete();
+        }
+      }
+    }
+
+    void abort() {
+      if (done) {
+        return;
+      }
+      done = true;
+      try {
+        sink.close();
+      } catch (IOException ignored) {
+        // The partial file is deleted below.
+      }
+      body.delete();
+    }
+  }
+
+  /** What is stored about one response besides its body. */
+  static final class Entry {
+    final String url;
+    final Headers varyHeaders;
+    final Protocol protocol;
+    final int code;
+    final String message;
+    final Headers responseHeaders;
+    final long sentRequestAtMillis;
+    final long receivedResponseAtMillis;
+    final String bodyId;
+    final long bodyLength;
+
+    private Entry(
+        String url,
+        Headers varyHeaders,
+        Protocol protocol,
+        int code,
+        String message,
+        Headers responseHeaders,
+        long sentRequestAtMillis,
+        long receivedResponseAtMillis,
+        String bodyId,
+        long bodyLength
+    ) {
+      this.url = url;
+      this.varyHeaders = varyHeaders;
+      this.protocol = protocol;
+      this.code = code;
+      this.message = message;
+      this.responseHeaders = responseHeaders;
+      this.sentRequestAtMillis = sentRequestAtMillis;
+      this.receivedResponseAtMillis = receivedResponseAtMillis;
+      this.bodyId = bodyId;
+      this.bodyLength = bodyLength;
+    }
+
+    /**
+     * A new entry for {@code response} to {@code request}, the request the entry is keyed by,
+     * with a fresh body id and no body yet.
+     */
+    static Entry of(Request request, Response response, Headers varyHeaders) {
+      return new Entry(
+          request.url().toString(),
+          varyHeaders,
+          response.protocol(),
+          response.code(),
+          response.message(),
+          response.headers(),
+          response.sentRequestAtMillis(),
+          response.receivedResponseAtMillis(),
+          ByteString.of(CryptoBytes.randomBytes(BODY_ID_LENGTH)).hex(),
+          -1
+      );
+    }
+
+    Entry withBodyLength(long length) {
+      return new Entry(url, varyHeaders, protocol, code, message, responseHeaders,
+          sentRequestAtMillis, receivedResponseAtMillis, bodyId, length);
+    }
+
+    /** The same body, with headers and timestamps from a 304 that revalidated it. */
+    Entry revalidated(Headers headers, long sentAtMillis, long receivedAtMillis) {
+      return new Entry(url, varyHeaders, protocol, code, message, headers,
+          sentAtMillis, receivedAtMillis, bodyId, bodyLength);
+    }
+
+    void writeTo(BufferedSink sink) throws IOException {
+      sink.writeUtf8(url).writeByte('\n');
+      writeHeaders(sink, varyHeaders);
+      sink.writeUtf8(protocol.toString()).writeByte('\n');
+      sink.writeDecimalLong(code).writeByte('\n');
+      sink.writeUtf8(message).writeByte('\n');
+      writeHeaders(sink, responseHeaders);
+      sink.writeDecimalLong(sentRequestAtMillis).writeByte('\n');
+      sink.writeDecimalLong(receivedResponseAtMillis).writeByte('\n');
+      sink.writeUtf8(bodyId).writeByte('\n');
+      sink.writeDecimalLong(bodyLength).writeByte('\n');
+    }
+
+    static Entry readFrom(BufferedSource source) throws IOException {
+      return new Entry(
+          source.readUtf8LineStrict(),
+          readHeaders(source),
+          Protocol.get(source.readUtf8LineStrict()),
+          (int) readLong(source),
+          source.readUtf8LineStrict(),
+          readHeaders(source),
+          readLong(source),
+          readLong(source),
+          source.readUtf8LineStrict(),
+          readLong(source)
+      );
+    }
+
+    private static void writeHeaders(BufferedSink sink, Headers headers) throws IOException {
+      sink.writeDecimalLong(headers.size()).writeByte('\n');
+      for (int i = 0; i < headers.size(); i++) {
+        sink.writeUtf8(headers.name(i)).writeUtf8(": ").writeUtf8(headers.value(i))
+            .writeByte('\n');
+      }
+    }
+
+    private static Headers readHeaders(BufferedSource source) throws IOException {
+      long count = readLong(source);
+      Headers.Builder headers = new Headers.Builder();
+      for (long i = 0; i < count; i++) {
+        String line = source.readUtf8LineStrict();
+        int colon = line.indexOf(": ");
+        if (colon <= 0) {
+          throw new IOException("Corrupt cache metadata");
+        }
+        headers.addUnsafeNonAscii(line.substring(0, colon), line.substring(colon + 2));
+      }
+      return headers.build();
+    }
+
+    private static long readLong(BufferedSource source) throws IOException {
+      try {
+        return Long.parseLong(source.readUtf8LineStrict());
+      } catch (NumberFormatException e) {
+        throw new IOException("Corrupt cache metadata", e);
+      }
+    }
+  }
+}
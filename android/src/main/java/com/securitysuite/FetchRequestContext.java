@@ -0,0 +1,45 @@
+package com.securitysuite;
+
+import okhttp3.Request;
+
+/**
+ * Everything one pinned fetch needs after validation, captured once and never mutated.
+ *
+ * <p>{@link Sslpinning} keeps no per-call fields, so a single instance can run any number of
+ * requests in parallel; each request carries its own hostname, response mode and listener here.
+ */
+final class FetchRequestContext {
+  final String url;
+  final String hostname;
+  /** Caller-supplied tag for {@link InFlightCalls#cancel}, or {@code null}. */
+  final String tag;
+  final Request request;
+  final Sslpinning.ResponseConfig responseConfig;
+  final RetryPolicy retryPolicy;
+  final FetchScheduler.Priority priority;
+  final Sslpinning.FetchListener listener;
+
+  FetchRequestContext(
+      String url,
+      String hostname,
+      String tag,
+      Request request,
+      Sslpinning.ResponseConfig responseConfig,
+      RetryPolicy retryPolicy,
+      FetchScheduler.Priority priority,
+      Sslpinning.FetchListener listener
+  ) {
+    this.url = url;
+    this.hostname = hostname;
+    this.tag = tag;
+    this.request = request;
+    this.responseConfig = responseConfig;
+    this.retryPolicy = retryPolicy;
+    this.priority = priority;
+    this.listener = listener;
+  }
+
+  void complete(FetchResult result) {
+    listener.onComplete(result);
+  }
+}
@@ -0,0 +1,280 @@
+package com.securitysuite;
+
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.Callback;
+import com.facebook.react.bridge.WritableArray;
+import com.facebook.react.bridge.WritableMap;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Immutable outcome of one pinned fetch, converted to the JS callback shape only at the bridge.
+ *
+ * <p>The callback contract is unchanged from the original synchronous implementation:
+ * <ul>
+ *   <li>success — {@code callback(map, null)} with {@code status, url, duration, response}, or
+ *       {@code path, size, sha256} instead of {@code response} for {@code responseType: 'file'},
+ *       or the decoded body as {@code data} for {@code responseType: 'json'}</li>
+ *   <li>HTTP error — {@code callback(null, map)} with {@code status, url, duration, error}</li>
+ *   <li>both of the above also carry a {@code timings} map from {@link FetchTimings}</li>
+ *   <li>transport error — {@code callback(null, map)} with only {@code error}</li>
+ *   <li>cancelled via {@link InFlightCalls} — {@code callback(null, map)} with {@code error} and
+ *       {@code canceled: true}</li>
+ *   <li>failed fast by an open {@link CircuitBreaker} — {@code callback(null, map)} with
+ *       {@code error}, {@code code: "CIRCUIT_OPEN"}, {@code circuitOpen: true} and
+ *       {@code retryAfterMs}</li>
+ *   <li>rejected before sending — {@code callback(null, message)}</li>
+ * </ul>
+ * With a retry policy, every map that reached the network also carries {@code attempts}, one
+ * {@link Attempt} per try, the last being the one reported.
+ */
+final class FetchResult {
+  private enum Kind { SUCCESS, HTTP_ERROR, TRANSPORT_ERROR, CANCELED, CIRCUIT_OPEN, REJECTED }
+
+  /** {@code code} of results failed fast by an open {@link CircuitBreaker}. */
+  static final String CIRCUIT_OPEN_CODE = "CIRCUIT_OPEN";
+
+  /** Outcome and timings of one try of a retried request. */
+  static final class Attempt {
+    final int status;
+    final String error;
+    final FetchTimings.Phases timings;
+    final long backoffMs;
+
+    Attempt(int status, String error, FetchTimings.Phases timings, long backoffMs) {
+      this.status = status;
+      this.error = error;
+      this.timings = timings;
+      this.backoffMs = backoffMs;
+    }
+
+    WritableMap toWritableMap() {
+      WritableMap map = Arguments.createMap();
+      if (status > 0) {
+        map.putInt("status", status);
+      }
+      if (error != null) {
+        map.putString("error", error);
+      }
+      if (timings != null) {
+        map.putMap("timings", timings.toWritableMap());
+      }
+      map.putDouble("backoffMs", backoffMs);
+      return map;
+    }
+  }
+
+  private final Kind kind;
+  final int status;
+  final String url;
+  final String duration;
+  final String body;
+  final String error;
+  final ResponseFileWriter.Written file;
+  final Object data;
+  final FetchTimings.Phases timings;
+  final List<Attempt> attempts;
+  /** For {@link Kind#CIRCUIT_OPEN}: when the host will let a probe through. */
+  final long retryAfterMs;
+
+  private FetchResult(
+      Kind kind,
+      int status,
+      String url,
+      String duration,
+      String body,
+      String error,
+      ResponseFileWriter.Written file,
+      Object data,
+      FetchTimings.Phases timings
+  ) {
+    this(
+        kind,
+        status,
+        url,
+        duration,
+        body,
+        error,
+        file,
+        data,
+        timings,
+        Collections.emptyList(),
+        0
+    );
+  }
+
+  private FetchResult(
+      Kind kind,
+      int status,
+      String url,
+      String duration,
+      String body,
+      String error,
+      ResponseFileWriter.Written file,
+      Object data,
+      FetchTimings.Phases timings,
+      List<Attempt> attempts,
+      long retryAfterMs
+  ) {
+    this.kind = kind;
+    this.status = status;
+    this.url = url;
+    this.duration = duration;
+    this.body = body;
+    this.error = error;
+    this.file = file;
+    this.data = data;
+    this.timings = timings;
+    this.attempts = attempts;
+    this.retryAfterMs = retryAfterMs;
+  }
+
+  /** Same result with the per-try history of a retried request attached. */
+  FetchResult withAttempts(List<Attempt> attempts) {
+    return new FetchResult(
+        kind,
+        status,
+        url,
+        duration,
+        body,
+        error,
+        file,
+        data,
+        timings,
+        attempts,
+        retryAfterMs
+    );
+  }
+
+  /** This result as the final entry of an attempt history. */
+  Attempt toAttempt() {
+    boolean responded = kind == Kind.SUCCESS || kind == Kind.HTTP_ERROR;
+    return new Attempt(responded ? status : 0, kind == Kind.SUCCESS ? null : error, timings, 0);
+  }
+
+  static FetchResult rejected(String message) {
+    return new FetchResult(Kind.REJECTED, 0, null, null, null, message, null, null, null);
+  }
+
+  static FetchResult transportError(String error) {
+    return new FetchResult(Kind.TRANSPORT_ERROR, 0, null, null, null, error, null, null, null);
+  }
+
+  static FetchResult canceled() {
+    return new FetchResult(Kind.CANCELED, 0, null, null, null, "Canceled", null, null, null);
+  }
+
+  /** Failed fast without sending: {@code host}'s circuit is open. */
+  static FetchResult circuitOpen(String host, long retryAfterMs) {
+    return new FetchResult(
+        Kind.CIRCUIT_OPEN,
+        0,
+        null,
+        null,
+        null,
+        "Circuit open for host '" + host + "'",
+        null,
+        null,
+        null,
+        Collections.emptyList(),
+        retryAfterMs
+    );
+  }
+
+  static FetchResult response(
+      int status,
+      String url,
+      String duration,
+      String body,
+      boolean successful,
+      FetchTimings.Phases timings
+  ) {
+    return successful
+        ? new FetchResult(Kind.SUCCESS, status, url, duration, body, null, null, null, timings)
+        : new FetchResult(Kind.HTTP_ERROR, status, url, duration, null, body, null, null, timings);
+  }
+
+  static FetchResult downloaded(
+      int status,
+      String url,
+      String duration,
+      ResponseFileWriter.Written file,
+      FetchTimings.Phases timings
+  ) {
+    return new FetchResult(Kind.SUCCESS, status, url, duration, null, null, file, null, timings);
+  }
+
+  /** {@code data} is a tree from {@link JsonResponseDecoder#decode}. */
+  static FetchResult decoded(
+      int status,
+      String url,
+      String duration,
+      Object data,
+      FetchTimings.Phases timings
+  ) {
+    return new FetchResult(Kind.SUCCESS, status, url, duration, null, null, null, data, timings);
+  }
+
+  boolean isSuccess() {
+    return kind == Kind.SUCCESS;
+  }
+
+  boolean isCanceled() {
+    return kind == Kind.CANCELED;
+  }
+
+  /** True when no request reached the network (validation or signing failure). */
+  boolean isRejected() {
+    return kind == Kind.REJECTED;
+  }
+
+  WritableMap toWritableMap() {
+    WritableMap output = Arguments.createMap();
+    if (kind == Kind.SUCCESS || kind == Kind.HTTP_ERROR) {
+      output.putInt("status", status);
+      output.putString("url", url);
+      output.putString("duration", duration);
+      if (timings != null) {
+        output.putMap("timings", timings.toWritableMap());
+      }
+    }
+    if (kind == Kind.SUCCESS && data != null) {
+      JsonResponseDecoder.putValue(output, "data", data);
+    } else if (kind == Kind.SUCCESS && file != null) {
+      output.putString("path", file.path);
+      output.putDouble("size", file.size);
+      output.putString("sha256", file.sha256);
+    } else if (kind == Kind.SUCCESS) {
+      output.putString("response", body);
+    } else {
+      output.putString("error", error);
+    }
+    if (kind == Kind.CANCELED) {
+      output.putBoolean("canceled", true);
+    }
+    if (kind == Kind.CIRCUIT_OPEN) {
+      output.putString("code", CIRCUIT_OPEN_CODE);
+      output.putBoolean("circuitOpen", true);
+      output.putDouble("retryAfterMs", retryAfterMs);
+    }
+    if (!attempts.isEmpty()) {
+      WritableArray history = Arguments.createArray();
+      for (Attempt attempt : attempts) {
+        history.pushMap(attempt.toWritableMap());
+      }
+      output.putArray("attempts", history);
+    }
+    return output;
+  }
+
+  void deliver(Callback callback) {
+    if (kind == Kind.REJECTED) {
+      callback.invoke(null, error);
+    } else if (kind == Kind.SUCCESS) {
+      callback.invoke(toWritableMap(), null);
+    } else {
+      callback.invoke(null, toWritableMap());
+    }
+  }
+}
@@ -0,0 +1,450 @@
+package com.securitysuite;
+
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.ReadableMap;
+import com.facebook.react.bridge.ReadableMapKeySetIterator;
+import com.facebook.react.bridge.WritableMap;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.Response;
+
+/**
+ * Admission control in front of the shared OkHttp dispatcher for pinned fetches.
+ *
+ * <p>Every attempt of a fetch (retries included) waits here until it may start. Calls are
+ * admitted strictly by {@link Priority}, oldest first within a class:
+ * <ul>
+ *   <li>{@code critical} calls never wait for a concurrency slot;</li>
+ *   <li>{@code normal} calls start while fewer than {@code maxConcurrent} calls run, and fewer
+ *       than {@code maxRequestsPerHost} to the same host;</li>
+ *   <li>{@code background} calls additionally stay under {@code maxBackground} and only start
+ *       while no higher class is waiting for a slot, so interactive requests overtake queued
+ *       background work. Running calls are never interrupted.</li>
+ * </ul>
+ * Admitted calls still pass OkHttp's dispatcher, which runs at most {@code maxRequestsPerHost}
+ * calls per host. While a critical call to a host is queued or running, the other classes run at
+ * most {@code maxRequestsPerHost - 1} calls to that host, leaving a dispatcher slot for it (with
+ * {@code maxRequestsPerHost} of 1 there is none to spare). Hosts listed in {@code rateLimits}
+ * also need a token from that host's bucket. A call waiting for its host does not hold back
+ * calls to other hosts, and the queue is re-checked when the next token is due.
+ *
+ * <p>A call takes its {@link CircuitBreaker.Permit} only when it is admitted, so a half-open
+ * host's probe slots go to calls about to start rather than calls still waiting here. A call
+ * whose host's circuit is open fails with {@link CircuitBreaker.OpenException} instead of being
+ * admitted. A call cancelled while queued is handed to OkHttp at once, which fails it as
+ * cancelled without touching the network.
+ */
+final class FetchScheduler {
+  static final int DEFAULT_MAX_CONCURRENT = 16;
+  static final int DEFAULT_MAX_BACKGROUND = 2;
+  /** OkHttp's {@code Dispatcher} default. */
+  static final int DEFAULT_MAX_REQUESTS_PER_HOST = 5;
+
+  static final FetchScheduler SHARED = new FetchScheduler(
+      () -> System.nanoTime() / 1_000_000,
+      RetryPolicy::schedule,
+      CircuitBreaker.SHARED
+  );
+
+  /** Admission order, highest first. */
+  enum Priority {
+    CRITICAL,
+    NORMAL,
+    BACKGROUND;
+
+    final String label = name().toLowerCase(Locale.ROOT);
+
+    /**
+     * {@code options.priority}, else {@code defaults.priority}, else {@link #NORMAL}.
+     *
+     * @throws IllegalArgumentException for an unknown priority
+     */
+    static Priority fromOptions(ReadableMap options, ReadableMap defaults) {
+      ReadableMap source = options.hasKey("priority") ? options
+          : defaults != null && defaults.hasKey("priority") ? defaults
+          : null;
+      return source != null ? fromOptions(source, NORMAL) : NORMAL;
+    }
+
+    /**
+     * {@code options.priority}, else {@code fallback}.
+     *
+     * @throws IllegalArgumentException for an unknown priority
+     */
+    static Priority fromOptions(ReadableMap options, Priority fallback) {
+      if (!options.hasKey("priority") || options.isNull("priority")) {
+        return fallback;
+      }
+      String value = options.getString("priority");
+      for (Priority priority : values()) {
+        if (priority.label.equals(value)) {
+          return priority;
+        }
+      }
+      throw new IllegalArgumentException("priority must be critical, normal or background");
+    }
+  }
+
+  /** Monotonic milliseconds; replaced in tests. */
+  interface Clock {
+    long nowMs();
+  }
+
+  /** Runs a task after a delay; replaced in tests. */
+  interface Timer {
+    void schedule(Runnable task, long delayMs);
+  }
+
+  private static final class Job {
+    final Call call;
+    final Callback callback;
+    final Priority priority;
+    final String host;
+    final long queuedAtMs;
+    boolean rateLimited;
+    CircuitBreaker.Permit permit;
+
+    Job(Call call, Callback callback, Priority priority, String host, long queuedAtMs) {
+      this.call = call;
+      this.callback = callback;
+      this.priority = priority;
+      this.host = host;
+      this.queuedAtMs = queuedAtMs;
+    }
+  }
+
+  /** Token bucket holding up to {@code burst} tokens, refilled at {@code perSecond}. */
+  private static final class Bucket {
+    final double perSecond;
+    final double burst;
+    double tokens;
+    long refilledAtMs;
+
+    Bucket(double perSecond, double burst, long nowMs) {
+      this.perSecond = perSecond;
+      this.burst = burst;
+      this.tokens = burst;
+      this.refilledAtMs = nowMs;
+    }
+
+    /** Takes a token and returns 0, or returns how many ms until one is available. */
+    long take(long nowMs) {
+      tokens = Math.min(burst, tokens + (nowMs - refilledAtMs) * perSecond / 1000);
+      refilledAtMs = nowMs;
+      if (tokens >= 1) {
+        tokens -= 1;
+        return 0;
+      }
+      return Math.max(1, (long) Math.ceil((1 - tokens) * 1000 / perSecond));
+    }
+  }
+
+  private static final class ClassStats {
+    int queued;
+    int running;
+    long started;
+    long rateLimited;
+    long totalWaitMs;
+    long maxWaitMs;
+  }
+
+  private final Clock clock;
+  private final Timer timer;
+  private final CircuitBreaker breaker;
+
+  private final Object lock = new Object();
+  private final Map<Priority, ArrayDeque<Job>> queues = new HashMap<>();
+  private final Map<Priority, ClassStats> stats = new HashMap<>();
+  private Map<String, Bucket> buckets = new HashMap<>();
+  private int maxConcurrent = DEFAULT_MAX_CONCURRENT;
+  private int maxBackground = DEFAULT_MAX_BACKGROUND;
+  private int maxRequestsPerHost = DEFAULT_MAX_REQUESTS_PER_HOST;
+  private int running;
+  /** Non-critical calls running, by host. */
+  private final Map<String, Integer> runningPerHost = new HashMap<>();
+  /** Critical calls queued or running, by host; see {@link #hasHostSlot}. */
+  private final Map<String, Integer> criticalPerHost = new HashMap<>();
+  /** When the pending wakeup fires, or {@code Long.MAX_VALUE} if none is scheduled. */
+  private long wakeupAtMs = Long.MAX_VALUE;
+
+  FetchScheduler(Clock clock, Timer timer, CircuitBreaker breaker) {
+    this.clock = clock;
+    this.timer = timer;
+    this.breaker = breaker;
+    for (Priority priority : Priority.values()) {
+      queues.put(priority, new ArrayDeque<>());
+      stats.put(priority, new ClassStats());
+    }
+  }
+
+  /**
+   * Applies {@code maxConcurrent}, {@code maxBackground} and, when present, replaces the rate
+   * limits with {@code rateLimits: {host: {requestsPerSecond, burst}}} ({@code burst} defaults to
+   * one second's worth, at least 1). Queued calls are re-checked right away.
+   *
+   * @throws IllegalArgumentException for out-of-range values
+   */
+  void configure(ReadableMap options) {
+    int concurrent = options.hasKey("maxConcurrent")
+        ? options.getInt("maxConcurrent")
+        : DEFAULT_MAX_CONCURRENT;
+    int background = options.hasKey("maxBackground")
+        ? options.getInt("maxBackground")
+        : DEFAULT_MAX_BACKGROUND;
+    if (concurrent < 1) {
+      throw new IllegalArgumentException("maxConcurrent must be at least 1");
+    }
+    if (background < 1 || background > concurrent) {
+      throw new IllegalArgumentException("maxBackground must be between 1 and maxConcurrent");
+    }
+
+    Map<String, Bucket> limits = null;
+    if (options.hasKey("rateLimits") && !options.isNull("rateLimits")) {
+      limits = new HashMap<>();
+      ReadableMap rateLimits = options.getMap("rateLimits");
+      ReadableMapKeySetIterator hosts = rateLimits.keySetIterator();
+      long now = clock.nowMs();
+      while (hosts.hasNextKey()) {
+        String host = hosts.nextKey();
+        ReadableMap limit = rateLimits.getMap(host);
+        double perSecond = limit.hasKey("requestsPerSecond")
+            ? limit.getDouble("requestsPerSecond")
+            : 0;
+        if (!(perSecond > 0)) {
+          throw new IllegalArgumentException(
+              "rateLimits." + host + ".requestsPerSecond must be positive"
+          );
+        }
+        double burst = limit.hasKey("burst")
+            ? limit.getDouble("burst")
+            : Math.max(1, perSecond);
+        if (burst < 1) {
+          throw new IllegalArgumentException("rateLimits." + host + ".burst must be at least 1");
+        }
+        limits.put(host.toLowerCase(Locale.ROOT), new Bucket(perSecond, burst, now));
+      }
+    }
+
+    synchronized (lock) {
+      maxConcurrent = concurrent;
+      maxBackground = background;
+      if (limits != null) {
+        buckets = limits;
+      }
+    }
+    drain();
+  }
+
+  /** Mirrors the shared dispatcher's {@code maxRequestsPerHost}; see {@link #hasHostSlot}. */
+  void setMaxRequestsPerHost(int max) {
+    synchronized (lock) {
+      maxRequestsPerHost = max;
+    }
+    drain();
+  }
+
+  /** Queues {@code call}; it is enqueued on OkHttp with {@code callback} once admitted. */
+  void enqueue(Call call, String host, Priority priority, Callback callback) {
+    Job job = new Job(
+        call,
+        callback,
+        priority,
+        host != null ? host.toLowerCase(Locale.ROOT) : "",
+        clock.nowMs()
+    );
+    synchronized (lock) {
+      queues.get(priority).add(job);
+      stats.get(priority).queued++;
+      if (priority == Priority.CRITICAL) {
+        criticalPerHost.merge(job.host, 1, Integer::sum);
+      }
+    }
+    drain();
+  }
+
+  /** Admits whatever may start now and schedules a wakeup for calls waiting on a token. */
+  void drain() {
+    List<Job> admitted = new ArrayList<>();
+    List<Job> refused = new ArrayList<>();
+    synchronized (lock) {
+      long now = clock.nowMs();
+      long nextTokenMs = Long.MAX_VALUE;
+      boolean higherClassWaiting = false;
+      for (Priority priority : Priority.values()) {
+        ClassStats classStats = stats.get(priority);
+        boolean waitingForSlot = false;
+        for (Iterator<Job> jobs = queues.get(priority).iterator(); jobs.hasNext(); ) {
+          Job job = jobs.next();
+          if (!job.call.isCanceled()) {
+            if (!hasSlot(priority, higherClassWaiting)) {
+              waitingForSlot = true;
+              break;
+            }
+            if (!hasHostSlot(priority, job.host)) {
+              continue;
+            }
+            CircuitBreaker.Permit permit = breaker.acquire(job.host);
+            if (permit == null) {
+              jobs.remove();
+              classStats.queued--;
+              forgetCritical(job);
+              refused.add(job);
+              continue;
+            }
+            Bucket bucket = buckets.get(job.host);
+            long waitMs = bucket != null ? bucket.take(now) : 0;
+            if (waitMs > 0) {
+              // Hand a half-open host's probe slot back while the call waits for its token.
+              permit.release();
+              if (!job.rateLimited) {
+                job.rateLimited = true;
+                classStats.rateLimited++;
+              }
+              nextTokenMs = Math.min(nextTokenMs, now + waitMs);
+              continue;
+            }
+            job.permit = permit;
+          }
+          jobs.remove();
+          classStats.queued--;
+          classStats.running++;
+          classStats.started++;
+          running++;
+          if (priority != Priority.CRITICAL) {
+            runningPerHost.merge(job.host, 1, Integer::sum);
+          }
+          long waitedMs = now - job.queuedAtMs;
+          classStats.totalWaitMs += waitedMs;
+          classStats.maxWaitMs = Math.max(classStats.maxWaitMs, waitedMs);
+          admitted.add(job);
+        }
+        higherClassWaiting |= waitingForSlot;
+      }
+      if (nextTokenMs < wakeupAtMs) {
+        wakeupAtMs = nextTokenMs;
+        timer.schedule(this::wakeUp, nextTokenMs - now);
+      }
+    }
+    for (Job job : refused) {
+      long retryAfterMs = breaker.retryAfterMs(job.host);
+      job.callback.onFailure(job.call, new CircuitBreaker.OpenException(job.host, retryAfterMs));
+    }
+    for (Job job : admitted) {
+      Callback callback = job.permit != null ? job.permit.recording(job.callback) : job.callback;
+      job.call.enqueue(new Callback() {
+        @Override
+        public void onFailure(Call call, IOException e) {
+          try {
+            callback.onFailure(call, e);
+          } finally {
+            release(job);
+          }
+        }
+
+        @Override
+        public void onResponse(Call call, Response response) throws IOException {
+          try {
+            callback.onResponse(call, response);
+          } finally {
+            release(job);
+          }
+        }
+      });
+    }
+  }
+
+  private boolean hasSlot(Priority priority, boolean higherClassWaiting) {
+    switch (priority) {
+      case CRITICAL:
+        return true;
+      case NORMAL:
+        return running < maxConcurrent;
+      default:
+        return !higherClassWaiting
+            && running < maxConcurrent
+            && stats.get(Priority.BACKGROUND).running < maxBackground;
+    }
+  }
+
+  /**
+   * Non-critical calls leave one of the host's dispatcher slots free while a critical call to it
+   * is queued or running.
+   */
+  private boolean hasHostSlot(Priority priority, String host) {
+    if (priority == Priority.CRITICAL) {
+      return true;
+    }
+    int limit = criticalPerHost.containsKey(host)
+        ? Math.max(1, maxRequestsPerHost - 1)
+        : maxRequestsPerHost;
+    return runningPerHost.getOrDefault(host, 0) < limit;
+  }
+
+  private void forgetCritical(Job job) {
+    if (job.priority == Priority.CRITICAL
+        && criticalPerHost.merge(job.host, -1, Integer::sum) == 0) {
+      criticalPerHost.remove(job.host);
+    }
+  }
+
+  private void wakeUp() {
+    synchronized (lock) {
+      wakeupAtMs = Long.MAX_VALUE;
+    }
+    drain();
+  }
+
+  private void release(Job job) {
+    synchronized (lock) {
+      running--;
+      stats.get(job.priority).running--;
+      if (job.priority == Priority.CRITICAL) {
+        forgetCritical(job);
+      } else if (runningPerHost.merge(job.host, -1, Integer::sum) == 0) {
+        runningPerHost.remove(job.host);
+      }
+    }
+    drain();
+  }
+
+  /**
+   * {@code {maxConcurrent, maxBackground, running, classes: {critical|normal|background:
+   * {queued, running, started, rateLimited, meanWaitMs, maxWaitMs}}}}. Wait times are measured
+   * from queueing to admission.
+   */
+  WritableMap getStats() {
+    WritableMap output = Arguments.createMap();
+    WritableMap classes = Arguments.createMap();
+    synchronized (lock) {
+      output.putInt("maxConcurrent", maxConcurrent);
+      output.putInt("maxBackground", maxBackground);
+      output.putInt("running", running);
+      for (Priority priority : Priority.values()) {
+        ClassStats classStats = stats.get(priority);
+        WritableMap entry = Arguments.createMap();
+        entry.putInt("queued", classStats.queued);
+        entry.putInt("running", classStats.running);
+        entry.putDouble("started", classStats.started);
+        entry.putDouble("rateLimited", classStats.rateLimited);
+        entry.putDouble(
+            "meanWaitMs",
+            classStats.started > 0 ? (double) classStats.totalWaitMs / classStats.started : 0
+        );
+        entry.putDouble("maxWaitMs", classStats.maxWaitMs);
+        classes.putMap(priority.label, entry);
+      }
+    }
+    output.putMap("classes", classes);
+    return output;
+  }
+}
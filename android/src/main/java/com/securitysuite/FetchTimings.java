@@ -0,0 +1,225 @@
+package com.securitysuite;
+
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.WritableMap;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Proxy;
+import java.util.List;
+
+import okhttp3.Call;
+import okhttp3.Connection;
+import okhttp3.EventListener;
+import okhttp3.Handshake;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.Response;
+
+/**
+ * Per-call {@link EventListener} that records how long each network phase took.
+ *
+ * <p>One instance is attached to each fetch as a request tag and picked up by {@link #FACTORY},
+ * so the result builder can read the breakdown back from the request it sent. All values are
+ * nanoseconds from {@link System#nanoTime()}; a phase that did not happen (e.g. DNS and connect
+ * on a pooled connection) is reported as {@code -1}. Phases repeated by redirects or route
+ * retries are summed.
+ *
+ * <p>OkHttp verifies certificate pins inside the TLS step, after the handshake and before
+ * {@code secureConnectEnd}, so {@code tlsNs} includes pin verification.
+ */
+final class FetchTimings extends EventListener {
+  /** Returns the request's own {@link FetchTimings}, or a no-op listener for untagged calls. */
+  static final EventListener.Factory FACTORY = call -> {
+    FetchTimings timings = call.request().tag(FetchTimings.class);
+    return timings != null ? timings : EventListener.NONE;
+  };
+
+  /** Immutable breakdown handed to {@link FetchResult} and {@link LatencyHistograms}. */
+  static final class Phases {
+    final long dnsNs;
+    final long connectNs;
+    final long tlsNs;
+    final long requestWriteNs;
+    final long ttfbNs;
+    final long responseReadNs;
+    final long totalNs;
+    final boolean connectionReused;
+    final String protocol;
+
+    Phases(
+        long dnsNs,
+        long connectNs,
+        long tlsNs,
+        long requestWriteNs,
+        long ttfbNs,
+        long responseReadNs,
+        long totalNs,
+        boolean connectionReused,
+        String protocol
+    ) {
+      this.dnsNs = dnsNs;
+      this.connectNs = connectNs;
+      this.tlsNs = tlsNs;
+      this.requestWriteNs = requestWriteNs;
+      this.ttfbNs = ttfbNs;
+      this.responseReadNs = responseReadNs;
+      this.totalNs = totalNs;
+      this.connectionReused = connectionReused;
+      this.protocol = protocol;
+    }
+
+    WritableMap toWritableMap() {
+      WritableMap map = Arguments.createMap();
+      map.putDouble("dnsNs", dnsNs);
+      map.putDouble("connectNs", connectNs);
+      map.putDouble("tlsNs", tlsNs);
+      map.putDouble("requestWriteNs", requestWriteNs);
+      map.putDouble("ttfbNs", ttfbNs);
+      map.putDouble("responseReadNs", responseReadNs);
+      map.putDouble("totalNs", totalNs);
+      map.putBoolean("connectionReused", connectionReused);
+      if (protocol != null) {
+        map.putString("protocol", protocol);
+      }
+      return map;
+    }
+  }
+
+  private long callStart = -1;
+  private long dnsStart = -1;
+  private long dnsNs = -1;
+  private long connectStart = -1;
+  private long connectNs = -1;
+  private long secureConnectStart = -1;
+  private long tlsNs = -1;
+  private long requestStart = -1;
+  private long requestEnd = -1;
+  private long requestWriteNs = -1;
+  private long responseHeadersStart = -1;
+  private long ttfbNs = -1;
+  private long responseReadNs = -1;
+  private boolean connected;
+  private String protocol;
+
+  @Override
+  public synchronized void callStart(Call call) {
+    callStart = System.nanoTime();
+  }
+
+  @Override
+  public synchronized void dnsStart(Call call, String domainName) {
+    dnsStart = System.nanoTime();
+  }
+
+  @Override
+  public synchronized void dnsEnd(Call call, String domainName, List<InetAddress> addresses) {
+    dnsNs = add(dnsNs, System.nanoTime() - dnsStart);
+  }
+
+  @Override
+  public synchronized void connectStart(Call call, InetSocketAddress address, Proxy proxy) {
+    connected = true;
+    connectStart = System.nanoTime();
+  }
+
+  @Override
+  public synchronized void secureConnectStart(Call call) {
+    secureConnectStart = System.nanoTime();
+    connectNs = add(connectNs, secureConnectStart - connectStart);
+  }
+
+  @Override
+  public synchronized void secureConnectEnd(Call call, Handshake handshake) {
+    tlsNs = add(tlsNs, System.nanoTime() - secureConnectStart);
+  }
+
+  @Override
+  public synchronized void connectEnd(
+      Call call,
+      InetSocketAddress address,
+      Proxy proxy,
+      Protocol protocol
+  ) {
+    finishPlainConnect();
+  }
+
+  @Override
+  public synchronized void connectFailed(
+      Call call,
+      InetSocketAddress address,
+      Proxy proxy,
+      Protocol protocol,
+      IOException e
+  ) {
+    finishPlainConnect();
+  }
+
+  @Override
+  public synchronized void connectionAcquired(Call call, Connection connection) {
+    protocol = connection.protocol().toString();
+  }
+
+  @Override
+  public synchronized void requestHeadersStart(Call call) {
+    requestStart = System.nanoTime();
+  }
+
+  @Override
+  public synchronized void requestHeadersEnd(Call call, Request request) {
+    requestEnd = System.nanoTime();
+  }
+
+  @Override
+  public synchronized void requestBodyEnd(Call call, long byteCount) {
+    requestEnd = System.nanoTime();
+  }
+
+  @Override
+  public synchronized void responseHeadersStart(Call call) {
+    responseHeadersStart = System.nanoTime();
+    if (requestStart >= 0 && requestEnd >= 0) {
+      requestWriteNs = add(requestWriteNs, requestEnd - requestStart);
+      ttfbNs = add(ttfbNs, responseHeadersStart - requestEnd);
+    }
+  }
+
+  @Override
+  public synchronized void responseHeadersEnd(Call call, Response response) {
+    // A body-less response never reports responseBodyEnd; count header read time instead.
+    responseReadNs = System.nanoTime() - responseHeadersStart;
+  }
+
+  @Override
+  public synchronized void responseBodyEnd(Call call, long byteCount) {
+    responseReadNs = System.nanoTime() - responseHeadersStart;
+  }
+
+  /** Snapshot taken once the response has been consumed; {@code totalNs} ends now. */
+  synchronized Phases snapshot() {
+    long totalNs = callStart >= 0 ? System.nanoTime() - callStart : -1;
+    return new Phases(
+        dnsNs,
+        connectNs,
+        tlsNs,
+        requestWriteNs,
+        ttfbNs,
+        responseReadNs,
+        totalNs,
+        !connected,
+        protocol
+    );
+  }
+
+  // connectEnd follows secureConnectEnd for TLS; only plain TCP time is still unaccounted for.
+  private void finishPlainConnect() {
+    if (secureConnectStart < 0 || secureConnectStart < connectStart) {
+      connectNs = add(connectNs, System.nanoTime() - connectStart);
+    }
+  }
+
+  private static long add(long total, long elapsed) {
+    return total < 0 ? elapsed : total + elapsed;
+  }
+}
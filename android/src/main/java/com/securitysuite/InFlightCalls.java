@@ -0,0 +1,68 @@
+package com.securitysuite;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import okhttp3.Call;
+
+/**
+ * Process-wide registry of pinned calls that have been enqueued and not yet completed, so JS can
+ * cancel them by tag.
+ *
+ * <p>Cancelling a call makes OkHttp close its socket (or skip it if still queued), which frees
+ * the dispatcher thread and connection at once; the call's callback then completes with a
+ * {@link FetchResult#canceled()} result. Calls still waiting in {@link FetchScheduler} are
+ * handed to OkHttp right away so they fail the same way. Untagged calls are tracked too so
+ * {@link #cancelAll()} reaches them.
+ */
+final class InFlightCalls {
+  private static final String UNTAGGED = "";
+
+  private static final Map<Call, String> CALLS = new ConcurrentHashMap<>();
+
+  private InFlightCalls() {}
+
+  static void register(Call call, String tag) {
+    CALLS.put(call, tag != null ? tag : UNTAGGED);
+  }
+
+  static void unregister(Call call) {
+    CALLS.remove(call);
+  }
+
+  /** Cancels every in-flight call carrying {@code tag}; returns how many were cancelled. */
+  static int cancel(String tag) {
+    if (tag == null || tag.isEmpty()) {
+      return 0;
+    }
+    int cancelled = 0;
+    for (Map.Entry<Call, String> entry : CALLS.entrySet()) {
+      if (tag.equals(entry.getValue()) && CALLS.remove(entry.getKey(), tag)) {
+        entry.getKey().cancel();
+        cancelled++;
+      }
+    }
+    if (cancelled > 0) {
+      FetchScheduler.SHARED.drain();
+    }
+    return cancelled;
+  }
+
+  static int cancelAll() {
+    int cancelled = 0;
+    for (Call call : CALLS.keySet()) {
+      if (CALLS.remove(call) != null) {
+        call.cancel();
+        cancelled++;
+      }
+    }
+    if (cancelled > 0) {
+      FetchScheduler.SHARED.drain();
+    }
+    return cancelled;
+  }
+
+  static int size() {
+    return CALLS.size();
+  }
+}
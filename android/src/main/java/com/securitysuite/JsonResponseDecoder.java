@@ -0,0 +1,147 @@
+package com.securitysuite;
+
+import android.util.JsonReader;
+import android.util.JsonToken;
+
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.WritableArray;
+import com.facebook.react.bridge.WritableMap;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import okio.BufferedSource;
+
+/**
+ * Decodes a JSON response body on the network thread for {@code responseType: 'json'}.
+ *
+ * <p>The body is buffered up to the configured cap and parsed from a {@link BufferedSource#peek()
+ * peek} of that buffer, so a body that is too large or not valid JSON is still available to be
+ * returned as a plain string. The result is a plain Java tree (maps, lists, doubles, strings,
+ * booleans and {@link #NULL}) because bridge maps can only be sent once; {@link #putValue}
+ * converts it for each delivery. Numbers are doubles, matching {@code JSON.parse}.
+ */
+final class JsonResponseDecoder {
+  static final long DEFAULT_MAX_BYTES = 4L * 1024 * 1024;
+
+  /** JSON {@code null}; distinct from Java {@code null}, which means "not decoded". */
+  static final Object NULL = new Object();
+
+  private static final int MAX_DEPTH = 512;
+
+  private JsonResponseDecoder() {}
+
+  /**
+   * Returns the decoded body, or {@code null} without consuming {@code source} when the body
+   * exceeds {@code maxBytes} or is not a single valid JSON value.
+   */
+  static Object decode(BufferedSource source, long maxBytes) throws IOException {
+    if (source.request(maxBytes + 1)) {
+      return null;
+    }
+
+    try (JsonReader reader = new JsonReader(
+        new InputStreamReader(source.peek().inputStream(), StandardCharsets.UTF_8)
+    )) {
+      Object value = readValue(reader, 0);
+      return reader.peek() == JsonToken.END_DOCUMENT ? value : null;
+    } catch (IOException | IllegalStateException | NumberFormatException e) {
+      return null;
+    }
+  }
+
+  private static Object readValue(JsonReader reader, int depth) throws IOException {
+    switch (reader.peek()) {
+      case BEGIN_OBJECT:
+        checkDepth(depth);
+        Map<String, Object> map = new LinkedHashMap<>();
+        reader.beginObject();
+        while (reader.hasNext()) {
+          map.put(reader.nextName(), readValue(reader, depth + 1));
+        }
+        reader.endObject();
+        return map;
+      case BEGIN_ARRAY:
+        checkDepth(depth);
+        List<Object> list = new ArrayList<>();
+        reader.beginArray();
+        while (reader.hasNext()) {
+          list.add(readValue(reader, depth + 1));
+        }
+        reader.endArray();
+        return list;
+      case STRING:
+        return reader.nextString();
+      case NUMBER:
+        return reader.nextDouble();
+      case BOOLEAN:
+        return reader.nextBoolean();
+      case NULL:
+        reader.nextNull();
+        return NULL;
+      default:
+        throw new IOException("Unexpected JSON token " + reader.peek());
+    }
+  }
+
+  private static void checkDepth(int depth) throws IOException {
+    if (depth >= MAX_DEPTH) {
+      throw new IOException("JSON nesting exceeds " + MAX_DEPTH);
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  static void putValue(WritableMap target, String key, Object value) {
+    if (value instanceof Map) {
+      target.putMap(key, toWritableMap((Map<String, Object>) value));
+    } else if (value instanceof List) {
+      target.putArray(key, toWritableArray((List<Object>) value));
+    } else if (value instanceof String) {
+      target.putString(key, (String) value);
+    } else if (value instanceof Double) {
+      target.putDouble(key, (Double) value);
+    } else if (value instanceof Boolean) {
+      target.putBoolean(key, (Boolean) value);
+    } else {
+      target.putNull(key);
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private static void pushValue(WritableArray target, Object value) {
+    if (value instanceof Map) {
+      target.pushMap(toWritableMap((Map<String, Object>) value));
+    } else if (value instanceof List) {
+      target.pushArray(toWritableArray((List<Object>) value));
+    } else if (value instanceof String) {
+      target.pushString((String) value);
+    } else if (value instanceof Double) {
+      target.pushDouble((Double) value);
+    } else if (value instanceof Boolean) {
+      target.pushBoolean((Boolean) value);
+    } else {
+      target.pushNull();
+    }
+  }
+
+  private static WritableMap toWritableMap(Map<String, Object> map) {
+    WritableMap output = Arguments.createMap();
+    for (Map.Entry<String, Object> entry : map.entrySet()) {
+      putValue(output, entry.getKey(), entry.getValue());
+    }
+    return output;
+  }
+
+  private static WritableArray toWritableArray(List<Object> list) {
+    WritableArray output = Arguments.createArray();
+    for (Object value : list) {
+      pushValue(output, value);
+    }
+    return output;
+  }
+}
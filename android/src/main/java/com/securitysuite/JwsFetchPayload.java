@@ -20,6 +20,19 @@ public final class JwsFetchPayload {
       String method,
       byte[] requestBody,
       ReadableMap jwsOptions
+  ) throws Exception {
+    return build(url, method, RequestBodyDigest.ofBytes(requestBody), jwsOptions);
+  }
+
+  /**
+   * {@code bodyHash} is the base64url SHA-256 of the body bytes exactly as sent, read in a
+   * single streaming pass; it is omitted for an empty body.
+   */
+  public static String build(
+      String url,
+      String method,
+      RequestBodyDigest requestBody,
+      ReadableMap jwsOptions
   ) throws Exception {
     if (jwsOptions != null && jwsOptions.hasKey("payload")) {
       ReadableType payloadType = jwsOptions.getType("payload");
@@ -42,8 +55,9 @@ public final class JwsFetchPayload {
       fields.put("query", uri.getQuery());
     }
 
-    if (requestBody != null && requestBody.length > 0) {
-      fields.put("bodyHash", CryptoUtils.base64UrlEncode(CryptoUtils.sha256(requestBody)));
+    byte[] bodyHash = requestBody != null ? requestBody.sha256() : null;
+    if (bodyHash != null) {
+      fields.put("bodyHash", CryptoUtils.base64UrlEncode(bodyHash));
     }
 
     if (jwsOptions != null && jwsOptions.hasKey("headers") && jwsOptions.getMap("headers") != null) {
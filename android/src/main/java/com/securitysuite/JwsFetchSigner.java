@@ -46,6 +46,20 @@ public final class JwsFetchSigner {
       byte[] requestBody,
       ReadableMap options,
       SecretKey nativeHmacKey
+  ) throws Exception {
+    return sign(url, method, RequestBodyDigest.ofBytes(requestBody), options, nativeHmacKey);
+  }
+
+  /**
+   * Signs without buffering the body unless the selected format needs the raw bytes:
+   * the default {@code jws.secret} payload only reads the streaming SHA-256 {@code bodyHash}.
+   */
+  public static Result sign(
+      String url,
+      String method,
+      RequestBodyDigest requestBody,
+      ReadableMap options,
+      SecretKey nativeHmacKey
   ) throws Exception {
     if (options.hasKey("jws") && options.getMap("jws") != null) {
       return signWithJwsOptions(url, method, requestBody, options.getMap("jws"), nativeHmacKey);
@@ -67,7 +81,7 @@ public final class JwsFetchSigner {
   private static Result signWithJwsOptions(
       String url,
       String method,
-      byte[] requestBody,
+      RequestBodyDigest requestBody,
       ReadableMap jwsOptions,
       SecretKey nativeHmacKey
   ) throws Exception {
@@ -110,7 +124,7 @@ public final class JwsFetchSigner {
 
     JWSGenerator generator = new JWSGenerator();
     String signature = generator.generate(
-        requestBody,
+        requestBody.bytes(),
         nativeHmacKey,
         jwsOptions.hasKey("algorithm") ? jwsOptions.getString("algorithm") : "HS256",
         jwsOptions.getMap("headers")
@@ -119,13 +133,13 @@ public final class JwsFetchSigner {
   }
 
   private static Result signWithLegacyKeyId(
-      byte[] requestBody,
+      RequestBodyDigest requestBody,
       String keyId,
       String requestId,
       String explicitSecret,
       SecretKey nativeHmacKey
   ) throws Exception {
-    byte[] payload = requestBody != null ? requestBody : new byte[0];
+    byte[] payload = requestBody.bytes();
     JWSGenerator generator = new JWSGenerator();
 
     if (nativeHmacKey != null) {
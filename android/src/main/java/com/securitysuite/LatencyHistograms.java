@@ -0,0 +1,123 @@
+package com.securitysuite;
+
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.WritableArray;
+import com.facebook.react.bridge.WritableMap;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Per-host latency histograms fed by {@link FetchTimings} for every completed response.
+ *
+ * <p>Buckets are fixed and shared by all phases so recording is a handful of array increments.
+ * The number of hosts tracked is capped; the least recently recorded host is dropped first.
+ */
+public final class LatencyHistograms {
+  /** Upper bounds in milliseconds; a final overflow bucket holds everything above the last. */
+  static final long[] BUCKET_BOUNDS_MS = {5, 10, 25, 50, 100, 250, 500, 1000, 2500, 5000, 10000};
+  static final int MAX_HOSTS = 64;
+
+  private static final String[] PHASES = {"dns", "connect", "tls", "ttfb", "total"};
+  private static final int DNS = 0;
+  private static final int CONNECT = 1;
+  private static final int TLS = 2;
+  private static final int TTFB = 3;
+  private static final int TOTAL = 4;
+
+  private static final Object LOCK = new Object();
+  private static final Map<String, HostHistogram> HOSTS =
+      new LinkedHashMap<String, HostHistogram>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, HostHistogram> eldest) {
+          return size() > MAX_HOSTS;
+        }
+      };
+
+  private LatencyHistograms() {}
+
+  private static final class HostHistogram {
+    final long[][] counts = new long[PHASES.length][BUCKET_BOUNDS_MS.length + 1];
+    final long[] sumNs = new long[PHASES.length];
+    final long[] samples = new long[PHASES.length];
+
+    void record(int phase, long ns) {
+      if (ns < 0) {
+        return;
+      }
+      counts[phase][bucketFor(ns)]++;
+      sumNs[phase] += ns;
+      samples[phase]++;
+    }
+  }
+
+  static void record(String host, FetchTimings.Phases phases) {
+    if (host == null || phases == null) {
+      return;
+    }
+    synchronized (LOCK) {
+      HostHistogram histogram = HOSTS.get(host);
+      if (histogram == null) {
+        histogram = new HostHistogram();
+        HOSTS.put(host, histogram);
+      }
+      histogram.record(DNS, phases.dnsNs);
+      histogram.record(CONNECT, phases.connectNs);
+      histogram.record(TLS, phases.tlsNs);
+      histogram.record(TTFB, phases.ttfbNs);
+      histogram.record(TOTAL, phases.totalNs);
+    }
+  }
+
+  /**
+   * {@code {bucketBoundsMs, hosts: {host: {phase: {count, meanNs, buckets}}}}}, where
+   * {@code buckets} has one more entry than {@code bucketBoundsMs} for the overflow bucket.
+   */
+  public static WritableMap snapshot() {
+    WritableMap output = Arguments.createMap();
+    WritableArray bounds = Arguments.createArray();
+    for (long bound : BUCKET_BOUNDS_MS) {
+      bounds.pushDouble(bound);
+    }
+    output.putArray("bucketBoundsMs", bounds);
+
+    WritableMap hosts = Arguments.createMap();
+    synchronized (LOCK) {
+      for (Map.Entry<String, HostHistogram> entry : HOSTS.entrySet()) {
+        HostHistogram histogram = entry.getValue();
+        WritableMap host = Arguments.createMap();
+        for (int phase = 0; phase < PHASES.length; phase++) {
+          WritableMap phaseMap = Arguments.createMap();
+          long samples = histogram.samples[phase];
+          phaseMap.putDouble("count", samples);
+          phaseMap.putDouble("meanNs", samples > 0 ? histogram.sumNs[phase] / samples : 0);
+          WritableArray buckets = Arguments.createArray();
+          for (long count : histogram.counts[phase]) {
+            buckets.pushDouble(count);
+          }
+          phaseMap.putArray("buckets", buckets);
+          host.putMap(PHASES[phase], phaseMap);
+        }
+        hosts.putMap(entry.getKey(), host);
+      }
+    }
+    output.putMap("hosts", hosts);
+    return output;
+  }
+
+  public static void reset() {
+    synchronized (LOCK) {
+      HOSTS.clear();
+    }
+  }
+
+  static int bucketFor(long ns) {
+    long ms = ns / 1_000_000L;
+    for (int i = 0; i < BUCKET_BOUNDS_MS.length; i++) {
+      if (ms <= BUCKET_BOUNDS_MS[i]) {
+        return i;
+      }
+    }
+    return BUCKET_BOUNDS_MS.length;
+  }
+}
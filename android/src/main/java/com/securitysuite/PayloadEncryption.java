@@ -0,0 +1,269 @@
+package com.securitysuite;
+
+import com.facebook.react.bridge.ReadableMap;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.security.GeneralSecurityException;
+
+import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+
+import okhttp3.Interceptor;
+import okhttp3.MediaType;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+
+import okio.Buffer;
+import okio.BufferedSink;
+import okio.BufferedSource;
+import okio.ForwardingSink;
+import okio.Okio;
+import okio.Sink;
+import okio.Source;
+import okio.Timeout;
+
+/**
+ * End-to-end payload encryption for pinned fetches with the session key from
+ * {@code establishSharedKey}, so a body is sealed and opened natively instead of crossing the
+ * bridge as Base64 three times.
+ *
+ * <p>Both directions use the layout {@code encrypt}/{@code decrypt} already use, without the
+ * Base64: {@code IV || ciphertext || tag}, AES-GCM with the session's {@link CryptoConfig}. The
+ * request body is sealed as OkHttp writes it, with a fresh IV per write, and is sent as
+ * {@code application/octet-stream}. Only successful (2xx) responses are opened, so plaintext
+ * errors from proxies still reach JS.
+ *
+ * <p>A single GCM message is not streamed: the platform (Conscrypt) cipher holds all input until
+ * {@code doFinal}, and a decrypting cipher must not release plaintext before the tag checks out.
+ * Each sealed body is therefore held in memory once, which is fine for API payloads but not for
+ * files, so {@link Mode#fromOptions} rejects {@code bodyFile} and the {@code file} and
+ * {@code stream} response types.
+ *
+ * <p>{@link #INTERCEPTOR} is installed on every derived client and acts only on requests tagged
+ * with a {@link Mode}. It runs outside the debug logger, which therefore only ever sees
+ * ciphertext, and the response cache skips tagged requests. {@link DeferredSigning} hashes the
+ * body as it was before sealing, so the JWS {@code bodyHash} covers the plaintext.
+ */
+final class PayloadEncryption {
+  static final MediaType SEALED_TYPE = MediaType.get("application/octet-stream");
+
+  static final Interceptor INTERCEPTOR = chain -> {
+    Request request = chain.request();
+    Mode mode = request.tag(Mode.class);
+    if (mode == null) {
+      return chain.proceed(request);
+    }
+    if (mode.encryptBody && request.body() != null) {
+      request = request.newBuilder()
+          .method(request.method(), mode.encryption.seal(request.body()))
+          .build();
+    }
+    Response response = chain.proceed(request);
+    ResponseBody body = response.body();
+    if (!mode.decryptResponse || !response.isSuccessful() || body == null) {
+      return response;
+    }
+    return response.newBuilder()
+        .removeHeader("Content-Length")
+        .body(mode.encryption.open(body))
+        .build();
+  };
+
+  private final SecretKey key;
+  private final String transformation;
+  private final int ivLength;
+  private final int tagLengthBits;
+
+  PayloadEncryption(SecretKey key, CryptoConfig config) {
+    this.key = key;
+    this.transformation = config.cipherTransformation;
+    this.ivLength = config.gcmIvLength;
+    this.tagLengthBits = config.gcmTagLength;
+  }
+
+  /** Per-request switches, attached to the {@link Request} as a tag. */
+  static final class Mode {
+    final PayloadEncryption encryption;
+    final boolean encryptBody;
+    final boolean decryptResponse;
+
+    private Mode(PayloadEncryption encryption, boolean encryptBody, boolean decryptResponse) {
+      this.encryption = encryption;
+      this.encryptBody = encryptBody;
+      this.decryptResponse = decryptResponse;
+    }
+
+    /**
+     * Reads {@code encryptBody} and {@code decryptResponse}; {@code null} when neither is set.
+     *
+     * @throws IllegalArgumentException when combined with a file body or a file or stream
+     *     response, which would be buffered whole
+     * @throws IllegalStateException when encryption is requested before a session key exists
+     */
+    static Mode fromOptions(ReadableMap options, PayloadEncryption encryption) {
+      boolean encryptBody = options.hasKey("encryptBody") && options.getBoolean("encryptBody");
+      boolean decryptResponse = options.hasKey("decryptResponse")
+          && options.getBoolean("decryptResponse");
+      if (!encryptBody && !decryptResponse) {
+        return null;
+      }
+      if (encryptBody && options.hasKey("bodyFile") && !options.isNull("bodyFile")) {
+        throw new IllegalArgumentException("encryptBody cannot be combined with bodyFile");
+      }
+      String responseType = options.hasKey("responseType") && !options.isNull("responseType")
+          ? options.getString("responseType")
+          : null;
+      if (decryptResponse && (Sslpinning.ResponseConfig.TYPE_FILE.equals(responseType)
+          || Sslpinning.ResponseConfig.TYPE_STREAM.equals(responseType))) {
+        throw new IllegalArgumentException(
+            "decryptResponse cannot be combined with responseType '" + responseType + "'"
+        );
+      }
+      if (encryption == null) {
+        throw new IllegalStateException(
+            "Encryption key not established. Call establishSharedKey or getSharedKey first."
+        );
+      }
+      return new Mode(encryption, encryptBody, decryptResponse);
+    }
+  }
+
+  RequestBody seal(RequestBody plaintext) {
+    return new SealedRequestBody(plaintext);
+  }
+
+  ResponseBody open(ResponseBody sealed) {
+    Source source = new OpeningSource(sealed.source());
+    return ResponseBody.create(Okio.buffer(source), sealed.contentType(), -1);
+  }
+
+  private Cipher newCipher(int mode, byte[] iv) throws IOException {
+    try {
+      Cipher cipher = Cipher.getInstance(transformation);
+      cipher.init(mode, key, new GCMParameterSpec(tagLengthBits, iv));
+      return cipher;
+    } catch (GeneralSecurityException e) {
+      throw new IOException("Payload cipher unavailable: " + e.getMessage(), e);
+    }
+  }
+
+  private final class SealedRequestBody extends RequestBody {
+    private final RequestBody plaintext;
+
+    SealedRequestBody(RequestBody plaintext) {
+      this.plaintext = plaintext;
+    }
+
+    @Override
+    public MediaType contentType() {
+      return SEALED_TYPE;
+    }
+
+    // The sealed body is the IV, then ciphertext as long as the plaintext, then the tag.
+    @Override
+    public long contentLength() throws IOException {
+      long length = plaintext.contentLength();
+      return length < 0 ? -1 : ivLength + length + tagLengthBits / 8;
+    }
+
+    @Override
+    public void writeTo(BufferedSink sink) throws IOException {
+      byte[] iv = CryptoUtils.randomBytes(ivLength);
+      Cipher cipher = newCipher(Cipher.ENCRYPT_MODE, iv);
+      sink.write(iv);
+      try (BufferedSink sealing = Okio.buffer(new SealingSink(sink, cipher))) {
+        plaintext.writeTo(sealing);
+      }
+    }
+  }
+
+  /** Encrypts into {@code delegate}; closing appends the tag but leaves {@code delegate} open. */
+  private static final class SealingSink extends ForwardingSink {
+    private final BufferedSink delegate;
+    private final Cipher cipher;
+    private boolean closed;
+
+    SealingSink(BufferedSink delegate, Cipher cipher) {
+      super(delegate);
+      this.delegate = delegate;
+      this.cipher = cipher;
+    }
+
+    @Override
+    public void write(Buffer source, long byteCount) throws IOException {
+      byte[] output = cipher.update(source.readByteArray(byteCount));
+      if (output != null) {
+        delegate.write(output);
+      }
+    }
+
+    @Override
+    public void close() throws IOException {
+      if (closed) {
+        return;
+      }
+      closed = true;
+      try {
+        delegate.write(cipher.doFinal());
+      } catch (GeneralSecurityException e) {
+        throw new IOException("Request encryption failed", e);
+      }
+      delegate.emit();
+    }
+  }
+
+  private final class OpeningSource implements Source {
+    private final BufferedSource sealed;
+    private Cipher cipher;
+    private boolean finished;
+
+    OpeningSource(BufferedSource sealed) {
+      this.sealed = sealed;
+    }
+
+    @Override
+    public long read(Buffer sink, long byteCount) throws IOException {
+      if (cipher == null) {
+        try {
+          cipher = newCipher(Cipher.DECRYPT_MODE, sealed.readByteArray(ivLength));
+        } catch (EOFException e) {
+          throw new IOException("Encrypted response is too short", e);
+        }
+      }
+      while (!finished) {
+        byte[] output;
+        if (sealed.exhausted()) {
+          finished = true;
+          try {
+            output = cipher.doFinal();
+          } catch (GeneralSecurityException e) {
+            throw new IOException("Response decryption failed", e);
+          }
+        } else {
+          Buffer chunk = new Buffer();
+          sealed.read(chunk, Math.max(byteCount, 8192));
+          output = cipher.update(chunk.readByteArray());
+        }
+        if (output != null && output.length > 0) {
+          sink.write(output);
+          return output.length;
+        }
+      }
+      return -1;
+    }
+
+    @Override
+    public Timeout timeout() {
+      return sealed.timeout();
+    }
+
+    @Override
+    public void close() throws IOException {
+      sealed.close();
+    }
+  }
+}
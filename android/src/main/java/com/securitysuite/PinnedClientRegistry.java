@@ -0,0 +1,470 @@
+package com.securitysuite;
+
+import android.content.Context;
+
+import com.chuckerteam.chucker.api.ChuckerInterceptor;
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.ReadableArray;
+import com.facebook.react.bridge.ReadableMap;
+import com.facebook.react.bridge.WritableMap;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.net.ssl.SSLSocketFactory;
+import javax.net.ssl.X509TrustManager;
+
+import okhttp3.CertificatePinner;
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
+import okhttp3.Dns;
+import okhttp3.OkHttpClient;
+
+import okio.Buffer;
+
+/**
+ * Process-wide cache of {@link OkHttpClient}s used by {@link Sslpinning}.
+ *
+ * <p>Every client is derived from one base client via {@code newBuilder()}, so all fetches
+ * share a single dispatcher and connection pool (and with it TCP, TLS and HTTP/2 connection
+ * reuse). Derived clients are keyed by pin set, valid domains, timeout and logger flag, and
+ * the least recently used configuration is evicted once {@link #MAX_CONFIGURATIONS} is exceeded.
+ *
+ * <p>Calls run asynchronously on the shared dispatcher; {@link #configureDispatcher} tunes how
+ * many run at once overall and per host.
+ */
+public final class PinnedClientRegistry {
+  static final int MAX_CONFIGURATIONS = 16;
+  // OkHttp's own ConnectionPool defaults.
+  static final int DEFAULT_MAX_IDLE_CONNECTIONS = 5;
+  static final long DEFAULT_KEEP_ALIVE_MS = 5 * 60 * 1000;
+
+  private static final Object LOCK = new Object();
+
+  private static OkHttpClient baseClient;
+  // Resolver for every derived client; null keeps the base client's system DNS.
+  private static Dns dns;
+  private static long hits;
+  private static long misses;
+  private static long evictions;
+
+  private static final LinkedHashMap<ClientKey, OkHttpClient> clients =
+      new LinkedHashMap<ClientKey, OkHttpClient>(MAX_CONFIGURATIONS, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<ClientKey, OkHttpClient> eldest) {
+          if (size() > MAX_CONFIGURATIONS) {
+            evictions++;
+            return true;
+          }
+          return false;
+        }
+      };
+
+  // Compiled pins and allowlist per raw certificates/validDomains arrays, so requests that
+  // repeat a configuration skip normalisation entirely.
+  private static final LinkedHashMap<RawPinSet, PinSet> pinSets =
+      new LinkedHashMap<RawPinSet, PinSet>(MAX_CONFIGURATIONS, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<RawPinSet, PinSet> eldest) {
+          return size() > MAX_CONFIGURATIONS;
+        }
+      };
+
+  private PinnedClientRegistry() {}
+
+  /**
+   * Returns the shared client for this fetch configuration, building it on first use.
+   *
+   * @throws IllegalArgumentException if a configured pin is not a valid SPKI SHA-256 hash
+   */
+  static OkHttpClient getClient(Context context, ReadableMap options, boolean pinningEnabled) {
+    return getClient(context, options, pinningEnabled ? pinSetFor(options) : null);
+  }
+
+  /** As above, for callers that already resolved the pin set; {@code null} disables pinning. */
+  static OkHttpClient getClient(Context context, ReadableMap options, PinSet pinSet) {
+    ClientKey key = ClientKey.fromOptions(options, pinSet);
+    synchronized (LOCK) {
+      OkHttpClient client = clients.get(key);
+      if (client != null) {
+        hits++;
+        return client;
+      }
+      misses++;
+      client = buildClient(context, key);
+      clients.put(key, client);
+      return client;
+    }
+  }
+
+  /** Connection pool, dispatcher and cache counters for diagnostics from JS. */
+  static WritableMap getStats() {
+    WritableMap stats = Arguments.createMap();
+    synchronized (LOCK) {
+      OkHttpClient base = getBaseClient();
+      ConnectionPool pool = base.connectionPool();
+      Dispatcher dispatcher = base.dispatcher();
+
+      stats.putInt("connectionCount", pool.connectionCount());
+      stats.putInt("idleConnectionCount", pool.idleConnectionCount());
+      stats.putInt("runningCallsCount", dispatcher.runningCallsCount());
+      stats.putInt("queuedCallsCount", dispatcher.queuedCallsCount());
+      stats.putInt("inFlightCount", InFlightCalls.size());
+      stats.putInt("maxRequests", dispatcher.getMaxRequests());
+      stats.putInt("maxRequestsPerHost", dispatcher.getMaxRequestsPerHost());
+      stats.putInt("cachedClients", clients.size());
+      stats.putDouble("clientCacheHits", hits);
+      stats.putDouble("clientCacheMisses", misses);
+      stats.putDouble("clientCacheEvictions", evictions);
+      stats.putDouble("tlsSessionsStored", TlsSessionResumption.storedCount());
+      stats.putDouble("tlsSessionsRestored", TlsSessionResumption.restoredCount());
+    }
+    return stats;
+  }
+
+  /** Drops derived clients and idle connections, e.g. after pins are rotated. */
+  static void evictAll() {
+    synchronized (LOCK) {
+      clients.clear();
+      if (baseClient != null) {
+        baseClient.connectionPool().evictAll();
+      }
+    }
+  }
+
+  /**
+   * Installs {@code dns} (or restores system DNS when {@code null}) for clients built from now
+   * on. Derived clients are dropped; pooled connections are not reused across resolvers since
+   * OkHttp treats the resolver as part of a connection's address.
+   */
+  static void setDns(Dns dns) {
+    synchronized (LOCK) {
+      PinnedClientRegistry.dns = dns;
+      clients.clear();
+    }
+  }
+
+  static Dns getDns() {
+    synchronized (LOCK) {
+      return dns;
+    }
+  }
+
+  /** Replaces the base client (and drops derived clients). Tests use this to trust a local CA. */
+  static void setBaseClientForTesting(OkHttpClient client) {
+    synchronized (LOCK) {
+      clients.clear();
+      baseClient = client;
+      hits = 0;
+      misses = 0;
+      evictions = 0;
+    }
+  }
+
+  /**
+   * Adjusts the shared dispatcher's concurrency limits. Applies to every derived client,
+   * including calls already queued.
+   *
+   * <p>{@code maxIdleConnections} and {@code keepAliveMs} replace the shared connection pool,
+   * which drops existing idle connections and derived clients; calls in flight finish on the
+   * old pool.
+   */
+  static void configureDispatcher(ReadableMap options) {
+    int maxRequestsPerHost;
+    synchronized (LOCK) {
+      if (options.hasKey("maxIdleConnections") || options.hasKey("keepAliveMs")) {
+        replaceConnectionPool(options);
+      }
+      Dispatcher dispatcher = getBaseClient().dispatcher();
+      if (options.hasKey("maxRequests")) {
+        dispatcher.setMaxRequests(options.getInt("maxRequests"));
+      }
+      if (options.hasKey("maxRequestsPerHost")) {
+        dispatcher.setMaxRequestsPerHost(options.getInt("maxRequestsPerHost"));
+      }
+      maxRequestsPerHost = dispatcher.getMaxRequestsPerHost();
+    }
+    // Outside the lock: the scheduler may hand queued calls to the dispatcher right away.
+    FetchScheduler.SHARED.setMaxRequestsPerHost(maxRequestsPerHost);
+  }
+
+  private static void replaceConnectionPool(ReadableMap options) {
+    OkHttpClient base = getBaseClient();
+    int maxIdle = options.hasKey("maxIdleConnections")
+        ? options.getInt("maxIdleConnections")
+        : DEFAULT_MAX_IDLE_CONNECTIONS;
+    long keepAliveMs = options.hasKey("keepAliveMs")
+        ? (long) options.getDouble("keepAliveMs")
+        : DEFAULT_KEEP_ALIVE_MS;
+    ConnectionPool previous = base.connectionPool();
+    baseClient = base.newBuilder()
+        .connectionPool(new ConnectionPool(maxIdle, keepAliveMs, TimeUnit.MILLISECONDS))
+        .build();
+    clients.clear();
+    previous.evictAll();
+  }
+
+  private static OkHttpClient getBaseClient() {
+    if (baseClient == null) {
+      baseClient = new OkHttpClient.Builder()
+          .dispatcher(new Dispatcher(createDispatcherExecutor()))
+          .build();
+    }
+    return baseClient;
+  }
+
+  private static ExecutorService createDispatcherExecutor() {
+    AtomicInteger threadCount = new AtomicInteger();
+    // Same shape as OkHttp's default executor, with recognisable thread names in traces.
+    return new ThreadPoolExecutor(
+        0,
+        Integer.MAX_VALUE,
+        60,
+        TimeUnit.SECONDS,
+        new SynchronousQueue<>(),
+        runnable -> {
+          String name = "SecuritySuite-fetch-" + threadCount.incrementAndGet();
+          Thread thread = new Thread(runnable, name);
+          thread.setDaemon(true);
+          return thread;
+        }
+    );
+  }
+
+  private static OkHttpClient buildClient(Context context, ClientKey key) {
+    OkHttpClient.Builder builder = getBaseClient().newBuilder()
+        .eventListenerFactory(FetchTimings.FACTORY)
+        .addInterceptor(PayloadEncryption.INTERCEPTOR);
+    if (dns != null) {
+      builder.dns(dns);
+    }
+
+    // Fail-closed: once pinning is configured, OkHttp enforces pins with no system-trust fallback.
+    if (key.pinningEnabled) {
+      builder.certificatePinner(buildCertificatePinner(key));
+
+      // Same trust decisions as the base client, plus the persistent session store.
+      X509TrustManager trustManager = getBaseClient().x509TrustManager();
+      SSLSocketFactory resumable = TlsSessionResumption.socketFactoryFor(trustManager);
+      if (resumable != null) {
+        builder.sslSocketFactory(resumable, trustManager);
+      }
+    }
+
+    if (key.timeoutMillis != null) {
+      int timeout = key.timeoutMillis;
+      builder.connectTimeout(timeout, TimeUnit.MILLISECONDS)
+          .readTimeout(timeout, TimeUnit.MILLISECONDS)
+          .writeTimeout(timeout, TimeUnit.MILLISECONDS);
+    }
+
+    // The encrypted response cache is only ever attached to pinned clients, keyed by pin set.
+    // It runs inside PayloadEncryption and passes sealed exchanges straight through.
+    if (key.pinningEnabled) {
+      FetchCacheInterceptor cache = FetchCache.interceptorFor(key.pinSetId());
+      if (cache != null) {
+        builder.addInterceptor(cache);
+      }
+    }
+    // Signs on the dispatcher thread, inside the cache so a cache hit is never signed.
+    builder.addInterceptor(DeferredSigning.INTERCEPTOR);
+
+    // Hard-gate network logging to debug builds only.
+    if (key.loggerEnabled) {
+      ChuckerInterceptor chuckerInterceptor =
+          new ChuckerInterceptor.Builder(context.getApplicationContext())
+          .redactHeaders(HeaderSanitizer.SENSITIVE_HEADERS.toArray(new String[0]))
+          .build();
+      builder.addInterceptor(chuckerInterceptor);
+    }
+
+    return builder.build();
+  }
+
+  private static CertificatePinner buildCertificatePinner(ClientKey key) {
+    CertificatePinner.Builder certificatePinner = new CertificatePinner.Builder();
+    // "**." covers the domain itself and every subdomain, matching DomainAllowlist.
+    for (String domain : key.validDomains) {
+      for (String pin : key.pins) {
+        // OkHttp CertificatePinner pins SPKI SHA-256 hashes (public key pinning).
+        certificatePinner.add("**." + domain, "sha256/" + pin);
+      }
+    }
+    return certificatePinner.build();
+  }
+
+  /**
+   * Normalised, compiled form of one {@code certificates}/{@code validDomains} pair.
+   *
+   * @throws IllegalArgumentException if a configured pin is not a valid SPKI SHA-256 hash
+   */
+  static PinSet pinSetFor(ReadableMap options) {
+    RawPinSet raw = new RawPinSet(
+        toStringArray(options.getArray("certificates")),
+        toStringArray(options.getArray("validDomains"))
+    );
+    synchronized (LOCK) {
+      PinSet pinSet = pinSets.get(raw);
+      if (pinSet != null) {
+        return pinSet;
+      }
+    }
+    PinSet pinSet = PinSet.compile(raw);
+    synchronized (LOCK) {
+      pinSets.put(raw, pinSet);
+    }
+    return pinSet;
+  }
+
+  private static String[] toStringArray(ReadableArray array) {
+    String[] values = new String[array.size()];
+    for (int i = 0; i < values.length; i++) {
+      values[i] = array.getString(i);
+    }
+    return values;
+  }
+
+  private static final class RawPinSet {
+    final String[] certificates;
+    final String[] validDomains;
+    final int hashCode;
+
+    RawPinSet(String[] certificates, String[] validDomains) {
+      this.certificates = certificates;
+      this.validDomains = validDomains;
+      this.hashCode = 31 * Arrays.hashCode(certificates) + Arrays.hashCode(validDomains);
+    }
+
+    @Override
+    public boolean equals(Object other) {
+      if (!(other instanceof RawPinSet)) {
+        return false;
+      }
+      RawPinSet that = (RawPinSet) other;
+      return Arrays.equals(certificates, that.certificates)
+          && Arrays.equals(validDomains, that.validDomains);
+    }
+
+    @Override
+    public int hashCode() {
+      return hashCode;
+    }
+  }
+
+  static final class PinSet {
+    final List<String> pins;
+    final List<String> validDomains;
+    final DomainAllowlist allowlist;
+
+    private PinSet(List<String> pins, List<String> validDomains, DomainAllowlist allowlist) {
+      this.pins = pins;
+      this.validDomains = validDomains;
+      this.allowlist = allowlist;
+    }
+
+    private static PinSet compile(RawPinSet raw) {
+      TreeSet<String> pinSet = new TreeSet<>();
+      for (int i = 0; i < raw.certificates.length; i++) {
+        String pin = CryptoUtils.normalizePinHash(raw.certificates[i]);
+        if (pin.isEmpty()) {
+          throw new IllegalArgumentException("Invalid certificate/public key pin at index " + i);
+        }
+        pinSet.add(pin);
+      }
+
+      TreeSet<String> domainSet = new TreeSet<>();
+      for (String domain : raw.validDomains) {
+        String normalized = DomainAllowlist.normalize(domain);
+        if (normalized != null) {
+          domainSet.add(normalized);
+        }
+      }
+
+      return new PinSet(
+          Collections.unmodifiableList(new ArrayList<>(pinSet)),
+          Collections.unmodifiableList(new ArrayList<>(domainSet)),
+          DomainAllowlist.compile(domainSet)
+      );
+    }
+  }
+
+  static final class ClientKey {
+    final boolean pinningEnabled;
+    final List<String> pins;
+    final List<String> validDomains;
+    final Integer timeoutMillis;
+    final boolean loggerEnabled;
+
+    private ClientKey(
+        boolean pinningEnabled,
+        List<String> pins,
+        List<String> validDomains,
+        Integer timeoutMillis,
+        boolean loggerEnabled
+    ) {
+      this.pinningEnabled = pinningEnabled;
+      this.pins = pins;
+      this.validDomains = validDomains;
+      this.timeoutMillis = timeoutMillis;
+      this.loggerEnabled = loggerEnabled;
+    }
+
+    static ClientKey fromOptions(ReadableMap options, PinSet pinSet) {
+      boolean pinningEnabled = pinSet != null;
+      List<String> pins = pinningEnabled ? pinSet.pins : Collections.<String>emptyList();
+      List<String> domains = pinningEnabled ? pinSet.validDomains : Collections.<String>emptyList();
+
+      Integer timeout = options.hasKey("timeout") ? options.getInt("timeout") : null;
+      boolean logger = options.hasKey("loggerIsEnabled")
+          && options.getBoolean("loggerIsEnabled")
+          && BuildConfig.DEBUG;
+
+      return new ClientKey(pinningEnabled, pins, domains, timeout, logger);
+    }
+
+    /** Stable, filesystem-safe id for the pins and domains, independent of option order. */
+    String pinSetId() {
+      Buffer buffer = new Buffer();
+      for (String pin : pins) {
+        buffer.writeUtf8(pin).writeByte('\n');
+      }
+      buffer.writeByte(0);
+      for (String domain : validDomains) {
+        buffer.writeUtf8(domain).writeByte('\n');
+      }
+      return buffer.sha256().hex().substring(0, 32);
+    }
+
+    @Override
+    public boolean equals(Object other) {
+      if (this == other) {
+        return true;
+      }
+      if (!(other instanceof ClientKey)) {
+        return false;
+      }
+      ClientKey that = (ClientKey) other;
+      return pinningEnabled == that.pinningEnabled
+          && loggerEnabled == that.loggerEnabled
+          && pins.equals(that.pins)
+          && validDomains.equals(that.validDomains)
+          && Objects.equals(timeoutMillis, that.timeoutMillis);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(pinningEnabled, pins, validDomains, timeoutMillis, loggerEnabled);
+    }
+  }
+}
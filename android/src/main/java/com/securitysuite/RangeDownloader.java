@@ -0,0 +1,743 @@
+package com.securitysuite;
+
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.ReadableMap;
+import com.facebook.react.bridge.WritableArray;
+import com.facebook.react.bridge.WritableMap;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.net.ProtocolException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import javax.crypto.SecretKey;
+
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.Headers;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+
+import okio.BufferedSource;
+import okio.HashingSink;
+import okio.Okio;
+
+/**
+ * Downloads one large file over several pinned connections at once, for {@code downloadRanges}.
+ *
+ * <p>A signed {@code HEAD} comes first. When the server answers with {@code Accept-Ranges: bytes}
+ * and a length, the file is split into up to {@code connections} byte ranges of at least
+ * {@code minRangeSize}, each fetched by its own {@code GET} with a {@code Range} header into a
+ * preallocated {@code <destination>.part} through positional {@link FileChannel} writes. The
+ * client is forced to HTTP/1.1 so ranges really travel over separate TCP connections rather than
+ * as streams of one HTTP/2 connection. Otherwise the file is fetched with one plain {@code GET}.
+ *
+ * <p>Range progress is checkpointed every {@link #CHECKPOINT_BYTES} (after forcing the written
+ * bytes to disk) in {@code <destination>.part.json}, together with the length and the
+ * {@code ETag} or {@code Last-Modified} validator. A later call for the same URL and destination
+ * continues each range where it stopped, sending the validator as {@code If-Range}; a server that
+ * answers with the whole file instead means it changed, and the download starts over. A range
+ * whose connection drops is retried from its current offset per {@code retry} (on by default).
+ * A {@code 206} whose {@code Content-Range} is not exactly the rest of the requested range is
+ * treated like a dropped connection.
+ *
+ * <p>The probe and every range go through {@link FetchScheduler} as {@code priority}, which
+ * defaults to {@code background} so a large download yields to interactive fetches. Each attempt
+ * also takes a {@link CircuitBreaker} permit for its host; an open circuit fails the download at
+ * once with {@code code: "CIRCUIT_OPEN"}.
+ *
+ * <p>Once every range is in, the file is hashed; with {@code sha256} a mismatch discards it.
+ * The result carries the aggregate throughput and, per range, its bytes, attempts, duration and
+ * the {@link FetchTimings} of its last request.
+ */
+final class RangeDownloader {
+  static final int DEFAULT_CONNECTIONS = 4;
+  static final int MAX_CONNECTIONS = 8;
+  static final long DEFAULT_MIN_RANGE_SIZE = 1024 * 1024;
+  static final long CHECKPOINT_BYTES = 4 * 1024 * 1024;
+
+  /** Receives the outcome; invoked exactly once per download. */
+  interface Listener {
+    void onComplete(WritableMap result);
+  }
+
+  private final OkHttpClient client;
+  private final String url;
+  private final ReadableMap options;
+  private final SecretKey hmacKey;
+  private final String tag;
+  private final RetryPolicy retryPolicy;
+  private final FetchScheduler.Priority priority;
+  private final TransferProgress progress;
+  private final File destination;
+  private final File partial;
+  private final File journalFile;
+  private final String expectedSha256;
+  private final int connections;
+  private final long minRangeSize;
+  private final Listener listener;
+  private final long startedAtNs = System.nanoTime();
+
+  private final Set<Call> active = new HashSet<>();
+  private RandomAccessFile file;
+  private FileChannel channel;
+  private TransferProgress.Meter meter;
+  private long size = -1;
+  private String validator;
+  private boolean ranged;
+  private Range[] ranges;
+  private int remaining;
+  private boolean finished;
+
+  private RangeDownloader(
+      OkHttpClient client,
+      String url,
+      ReadableMap options,
+      SecretKey hmacKey,
+      TransferProgress progress,
+      File destination,
+      String expectedSha256,
+      int connections,
+      long minRangeSize,
+      Listener listener
+  ) {
+    this.client = client.newBuilder()
+        .protocols(Collections.singletonList(Protocol.HTTP_1_1))
+        .build();
+    this.url = url;
+    this.options = options;
+    this.hmacKey = hmacKey;
+    this.tag = Sslpinning.getTag(options, null);
+    this.retryPolicy = options.hasKey("retry")
+        ? RetryPolicy.fromOptions(options)
+        : RetryPolicy.DEFAULT;
+    this.priority = FetchScheduler.Priority.fromOptions(
+        options,
+        FetchScheduler.Priority.BACKGROUND
+    );
+    this.progress = progress;
+    this.destination = destination;
+    this.partial = new File(destination.getPath() + ".part");
+    this.journalFile = new File(destination.getPath() + ".part.json");
+    this.expectedSha256 = expectedSha256;
+    this.connections = connections;
+    this.minRangeSize = minRangeSize;
+    this.listener = listener;
+  }
+
+  /**
+   * Validates the options and sends the probe; the outcome goes to {@code listener}.
+   *
+   * @throws IllegalArgumentException for a missing destination, an unknown priority or
+   *     out-of-range options
+   */
+  static void start(
+      OkHttpClient client,
+      String url,
+      ReadableMap options,
+      SecretKey hmacKey,
+      TransferProgress progress,
+      Listener listener
+  ) {
+    if (!options.hasKey("destination") || options.getString("destination") == null) {
+      throw new IllegalArgumentException("destination is required");
+    }
+    File destination = ResponseFileWriter.resolveDestination(options.getString("destination"));
+    int connections = options.hasKey("connections")
+        ? options.getInt("connections")
+        : DEFAULT_CONNECTIONS;
+    if (connections < 1 || connections > MAX_CONNECTIONS) {
+      throw new IllegalArgumentException("connections must be between 1 and " + MAX_CONNECTIONS);
+    }
+    long minRangeSize = options.hasKey("minRangeSize")
+        ? (long) options.getDouble("minRangeSize")
+        : DEFAULT_MIN_RANGE_SIZE;
+    if (minRangeSize < 1) {
+      throw new IllegalArgumentException("minRangeSize must be at least 1");
+    }
+    String sha256 = options.hasKey("sha256") ? options.getString("sha256") : null;
+    if (sha256 != null && !sha256.matches("[0-9a-fA-F]{64}")) {
+      throw new IllegalArgumentException("sha256 must be 64 hex characters");
+    }
+
+    new RangeDownloader(
+        client,
+        url,
+        options,
+        hmacKey,
+        progress,
+        destination,
+        sha256 != null ? sha256.toLowerCase() : null,
+        connections,
+        minRangeSize,
+        listener
+    ).probe();
+  }
+
+  /** {@code {ok: false, error}} for a download that never started. */
+  static WritableMap rejected(String message) {
+    WritableMap result = Arguments.createMap();
+    result.putBoolean("ok", false);
+    result.putString("error", message);
+    return result;
+  }
+
+  /** One byte range; each is only ever touched by the thread running its current request. */
+  private static final class Range {
+    final int index;
+    final long start;
+    /** Inclusive; {@code -1} for an unranged download, which reads to the end of the body. */
+    final long end;
+    /** Bytes already in the file, including those from an earlier call. */
+    long done;
+    final long resumedBytes;
+    long checkpointedAt;
+    int attempts;
+    long startedAtNs;
+    long durationNs;
+    FetchTimings.Phases timings;
+
+    Range(int index, long start, long end, long done) {
+      this.index = index;
+      this.start = start;
+      this.end = end;
+      this.done = done;
+      this.resumedBytes = done;
+      this.checkpointedAt = done;
+    }
+
+    long length() {
+      return end - start + 1;
+    }
+
+    boolean isComplete() {
+      return end >= 0 && done >= length();
+    }
+  }
+
+  private void probe() {
+    Request request;
+    try {
+      request = signed(new Request.Builder().url(url).head(), "HEAD").build();
+    } catch (Exception e) {
+      fail(failure(e.getMessage() != null ? e.getMessage() : "Request signing failed"));
+      return;
+    }
+    Call call = client.newCall(request);
+    if (!track(call)) {
+      return;
+    }
+    schedule(call, new Callback() {
+      @Override
+      public void onFailure(Call call, IOException e) {
+        release(call);
+        fail(call.isCanceled() ? canceled() : failure(message(e)));
+      }
+
+      @Override
+      public void onResponse(Call call, Response response) {
+        // A HEAD response has no body; its headers stay readable once it is closed.
+        response.close();
+        release(call);
+        try {
+          String length = response.header("Content-Length");
+          boolean acceptsRanges = response.isSuccessful()
+              && "bytes".equalsIgnoreCase(response.header("Accept-Ranges"))
+              && length != null;
+          // Servers that refuse HEAD still get a plain GET.
+          long probedSize = acceptsRanges ? Long.parseLong(length.trim()) : -1;
+          String probedValidator = response.header("ETag") != null
+              ? response.header("ETag")
+              : response.header("Last-Modified");
+          plan(probedSize, probedValidator);
+        } catch (NumberFormatException e) {
+          plan(-1, null);
+        }
+      }
+    });
+  }
+
+  /** Opens the partial file and starts every unfinished range. */
+  private void plan(long probedSize, String probedValidator) {
+    try {
+      File parent = destination.getAbsoluteFile().getParentFile();
+      if (parent != null && !parent.isDirectory() && !parent.mkdirs()) {
+        throw new IOException("Unable to create directory: " + parent);
+      }
+      size = probedSize;
+      validator = probedValidator;
+      ranged = size > 0;
+      ranges = ranged ? resumeOrSplit() : null;
+      if (!ranged) {
+        journalFile.delete();
+        partial.delete();
+        ranges = new Range[] {new Range(0, 0, -1, 0)};
+      }
+      file = new RandomAccessFile(partial, "rw");
+      channel = file.getChannel();
+      if (ranged && file.length() != size) {
+        file.setLength(size);
+      }
+    } catch (IOException | JSONException e) {
+      fail(failure(e.getMessage() != null ? e.getMessage() : "Unable to prepare " + partial));
+      return;
+    }
+
+    meter = progress != null ? progress.meter(TransferProgress.DOWNLOAD, size) : null;
+    long resumedBytes = 0;
+    for (Range range : ranges) {
+      resumedBytes += range.done;
+      if (!range.isComplete()) {
+        remaining++;
+      }
+    }
+    if (meter != null && resumedBytes > 0) {
+      meter.add(resumedBytes);
+    }
+    if (remaining == 0) {
+      complete();
+      return;
+    }
+    for (Range range : ranges) {
+      if (!range.isComplete()) {
+        range.startedAtNs = System.nanoTime();
+        fetch(range, 1);
+      }
+    }
+  }
+
+  /** Ranges from a journal that matches this file, or a fresh split saved as a new journal. */
+  private Range[] resumeOrSplit() throws IOException, JSONException {
+    if (journalFile.isFile() && partial.isFile()) {
+      try (BufferedSource source = Okio.buffer(Okio.source(journalFile))) {
+        JSONObject saved = new JSONObject(source.readUtf8());
+        if (url.equals(saved.optString("url"))
+            && size == saved.optLong("size", -1)
+            && String.valueOf(validator).equals(saved.optString("validator", "null"))) {
+          JSONArray savedRanges = saved.getJSONArray("ranges");
+          Range[] resumed = new Range[savedRanges.length()];
+          for (int i = 0; i < resumed.length; i++) {
+            JSONArray entry = savedRanges.getJSONArray(i);
+            resumed[i] = new Range(i, entry.getLong(0), entry.getLong(1), entry.getLong(2));
+          }
+          return resumed;
+        }
+      } catch (IOException | JSONException e) {
+        // Unreadable journal: start over.
+      }
+    }
+    partial.delete();
+
+    int count = (int) Math.max(1, Math.min(connections, size / minRangeSize));
+    long step = (size + count - 1) / count;
+    Range[] split = new Range[count];
+    for (int i = 0; i < count; i++) {
+      long start = i * step;
+      split[i] = new Range(i, start, Math.min(size, start + step) - 1, 0);
+    }
+    writeJournal(split);
+    return split;
+  }
+
+  private synchronized void writeJournal(Range[] ranges) throws IOException, JSONException {
+    JSONArray entries = new JSONArray();
+    for (Range range : ranges) {
+      entries.put(new JSONArray().put(range.start).put(range.end).put(range.checkpointedAt));
+    }
+    ResponseFileWriter.replaceAtomically(
+        journalFile,
+        new JSONObject()
+            .put("url", url)
+            .put("size", size)
+            .put("validator", validator != null ? validator : JSONObject.NULL)
+            .put("ranges", entries)
+            .toString()
+    );
+  }
+
+  private Request.Builder signed(Request.Builder builder, String method) throws Exception {
+    Headers headers = Sslpinning.setHeader(options);
+    if (headers != null) {
+      builder.headers(headers);
+    }
+    JwsFetchSigner.Result jws =
+        JwsFetchSigner.sign(url, method, RequestBodyDigest.of(null), options, hmacKey);
+    if (jws != null && jws.signature != null && !jws.signature.isEmpty()) {
+      builder.addHeader(jws.headerName, jws.signature);
+    }
+    return builder;
+  }
+
+  private void fetch(Range range, int attempt) {
+    Request request;
+    try {
+      Request.Builder builder = signed(new Request.Builder().url(url).get(), "GET")
+          .tag(FetchTimings.class, new FetchTimings());
+      if (ranged) {
+        builder.header("Range", "bytes=" + (range.start + range.done) + "-" + range.end);
+        if (validator != null) {
+          builder.header("If-Range", validator);
+        }
+      }
+      request = builder.build();
+    } catch (Exception e) {
+      fail(failure(e.getMessage() != null ? e.getMessage() : "Request signing failed"));
+      return;
+    }
+
+    Call call = client.newCall(request);
+    if (!track(call)) {
+      return;
+    }
+    range.attempts++;
+    schedule(call, new Callback() {
+      @Override
+      public void onFailure(Call call, IOException e) {
+        retryOrFail(call, range, attempt, e);
+      }
+
+      @Override
+      public void onResponse(Call call, Response response) {
+        long delay = call.isCanceled()
+            ? -1
+            : retryPolicy.delayAfterResponse(attempt, "GET", response);
+        try (Response closeable = response) {
+          if (delay >= 0) {
+            release(call);
+            RetryPolicy.schedule(() -> fetch(range, attempt + 1), delay);
+            return;
+          }
+          int expected = ranged ? 206 : 200;
+          if (response.code() != expected) {
+            release(call);
+            WritableMap result = failure(
+                ranged && response.code() == 200
+                    ? "Resource changed during download"
+                    : response.body() != null ? response.body().string() : ""
+            );
+            result.putInt("status", response.code());
+            if (ranged && response.code() == 200) {
+              discard();
+            }
+            fail(result);
+            return;
+          }
+          if (ranged && !coversRemainder(range, response.header("Content-Range"))) {
+            throw new ProtocolException(
+                "Unexpected Content-Range '" + response.header("Content-Range") + "'"
+            );
+          }
+          read(range, closeable.body());
+        } catch (IOException e) {
+          retryOrFail(call, range, attempt, e);
+          return;
+        }
+        range.timings = call.request().tag(FetchTimings.class).snapshot();
+        release(call);
+        rangeDone(range);
+      }
+    });
+  }
+
+  /** Enqueues {@code call}; an open circuit for its host fails the whole download. */
+  private void schedule(Call call, Callback callback) {
+    String host = call.request().url().host();
+    FetchScheduler.SHARED.enqueue(call, host, priority, new Callback() {
+      @Override
+      public void onFailure(Call call, IOException e) {
+        if (e instanceof CircuitBreaker.OpenException) {
+          release(call);
+          fail(circuitOpen(host, ((CircuitBreaker.OpenException) e).retryAfterMs));
+        } else {
+          callback.onFailure(call, e);
+        }
+      }
+
+      @Override
+      public void onResponse(Call call, Response response) throws IOException {
+        callback.onResponse(call, response);
+      }
+    });
+  }
+
+  /** Whether a 206 carries exactly the bytes {@link #fetch} asked for: the rest of the range. */
+  private boolean coversRemainder(Range range, String contentRange) {
+    if (contentRange == null) {
+      return false;
+    }
+    String expected = "bytes " + (range.start + range.done) + "-" + range.end + "/";
+    String value = contentRange.trim();
+    if (!value.regionMatches(true, 0, expected, 0, expected.length())) {
+      return false;
+    }
+    String completeLength = value.substring(expected.length());
+    return completeLength.equals("*") || completeLength.equals(String.valueOf(size));
+  }
+
+  /** Writes the body at the range's offset, checkpointing as it goes. */
+  private void read(Range range, ResponseBody body) throws IOException {
+    BufferedSource source = body.source();
+    byte[] segment = new byte[(int) ResponseFileWriter.SEGMENT_SIZE];
+    while (!range.isComplete()) {
+      int limit = range.end < 0
+          ? segment.length
+          : (int) Math.min(segment.length, range.length() - range.done);
+      int read = source.read(segment, 0, limit);
+      if (read == -1) {
+        if (range.end < 0) {
+          return;
+        }
+        throw new ProtocolException("Range ended early at byte " + (range.start + range.done));
+      }
+      ByteBuffer buffer = ByteBuffer.wrap(segment, 0, read);
+      long position = range.start + range.done;
+      while (buffer.hasRemaining()) {
+        position += channel.write(buffer, position);
+      }
+      range.done += read;
+      if (meter != null) {
+        meter.add(read);
+      }
+      if (ranged && range.done - range.checkpointedAt >= CHECKPOINT_BYTES) {
+        checkpoint(range);
+      }
+    }
+  }
+
+  private void checkpoint(Range range) throws IOException {
+    // The journal must never claim bytes that are not on disk yet.
+    channel.force(false);
+    range.checkpointedAt = range.done;
+    try {
+      writeJournal(ranges);
+    } catch (JSONException e) {
+      throw new IOException(e);
+    }
+  }
+
+  private void retryOrFail(Call call, Range range, int attempt, IOException e) {
+    release(call);
+    long delay = call.isCanceled() ? -1 : retryPolicy.delayAfterFailure(attempt, "GET", e);
+    if (delay >= 0) {
+      if (!ranged) {
+        // Without ranges the only way back is from the start.
+        if (meter != null) {
+          meter.rewind(range.done);
+        }
+        range.done = 0;
+      }
+      RetryPolicy.schedule(() -> fetch(range, attempt + 1), delay);
+      return;
+    }
+    fail(call.isCanceled() ? canceled() : failure(message(e)));
+  }
+
+  private void rangeDone(Range range) {
+    range.durationNs = System.nanoTime() - range.startedAtNs;
+    boolean last;
+    try {
+      if (ranged) {
+        checkpoint(range);
+      }
+    } catch (IOException e) {
+      fail(failure(message(e)));
+      return;
+    }
+    synchronized (this) {
+      last = --remaining == 0 && !finished;
+    }
+    if (last) {
+      complete();
+    }
+  }
+
+  /** Verifies the finished file and moves it into place. */
+  private void complete() {
+    String sha256;
+    long written;
+    try {
+      if (!ranged) {
+        // A retried plain GET may have left a longer earlier attempt behind.
+        channel.truncate(ranges[0].done);
+      }
+      channel.force(true);
+      written = channel.size();
+      file.close();
+      HashingSink hashing = HashingSink.sha256(Okio.blackhole());
+      try (BufferedSource source = Okio.buffer(Okio.source(partial))) {
+        source.readAll(hashing);
+      }
+      sha256 = hashing.hash().hex();
+      if (expectedSha256 != null && !expectedSha256.equals(sha256)) {
+        discard();
+        fail(failure("SHA-256 mismatch: expected " + expectedSha256 + ", got " + sha256));
+        return;
+      }
+      if (destination.exists() && !destination.delete()) {
+        throw new IOException("Unable to replace existing file: " + destination);
+      }
+      if (!partial.renameTo(destination)) {
+        throw new IOException("Unable to move download to: " + destination);
+      }
+      journalFile.delete();
+    } catch (IOException e) {
+      fail(failure(message(e)));
+      return;
+    }
+
+    synchronized (this) {
+      if (finished) {
+        return;
+      }
+      finished = true;
+    }
+    if (meter != null) {
+      meter.finish();
+    }
+    WritableMap result = summary();
+    result.putBoolean("ok", true);
+    result.putString("path", destination.getAbsolutePath());
+    result.putDouble("size", written);
+    result.putString("sha256", sha256);
+    listener.onComplete(result);
+  }
+
+  /** Forgets the partial file and its journal, for changed or corrupt content. */
+  private void discard() {
+    closeQuietly();
+    partial.delete();
+    journalFile.delete();
+  }
+
+  /** Registers a new call unless the download already ended. */
+  private boolean track(Call call) {
+    synchronized (this) {
+      if (finished) {
+        return false;
+      }
+      active.add(call);
+    }
+    InFlightCalls.register(call, tag);
+    return true;
+  }
+
+  private void release(Call call) {
+    InFlightCalls.unregister(call);
+    synchronized (this) {
+      active.remove(call);
+      if (finished && active.isEmpty()) {
+        closeQuietly();
+      }
+    }
+  }
+
+  /** Reports {@code result} once and cancels the other ranges; the partial file is kept. */
+  private void fail(WritableMap result) {
+    Set<Call> siblings;
+    synchronized (this) {
+      if (finished) {
+        return;
+      }
+      finished = true;
+      siblings = new HashSet<>(active);
+    }
+    for (Call sibling : siblings) {
+      sibling.cancel();
+    }
+    synchronized (this) {
+      if (active.isEmpty()) {
+        closeQuietly();
+      }
+    }
+    listener.onComplete(result);
+  }
+
+  private void closeQuietly() {
+    try {
+      if (file != null) {
+        file.close();
+      }
+    } catch (IOException ignored) {
+      // Nothing left to flush that matters: the journal only lists forced bytes.
+    }
+  }
+
+  private WritableMap failure(String error) {
+    WritableMap result = summary();
+    result.putBoolean("ok", false);
+    result.putString("error", error);
+    return result;
+  }
+
+  private WritableMap canceled() {
+    WritableMap result = failure("Canceled");
+    result.putBoolean("canceled", true);
+    return result;
+  }
+
+  private WritableMap circuitOpen(String host, long retryAfterMs) {
+    WritableMap result = failure("Circuit open for host '" + host + "'");
+    result.putString("code", FetchResult.CIRCUIT_OPEN_CODE);
+    result.putBoolean("circuitOpen", true);
+    result.putDouble("retryAfterMs", retryAfterMs);
+    return result;
+  }
+
+  /**
+   * {@code ranged, resumedBytes, bytesPerSecond, duration} and one {@code ranges} entry per
+   * range with {@code start, end, bytes, resumedBytes, attempts, durationMs, bytesPerSecond}
+   * and the {@code timings} of its last request. Bytes and rates count this call only.
+   */
+  private synchronized WritableMap summary() {
+    WritableMap result = Arguments.createMap();
+    long elapsedNs = System.nanoTime() - startedAtNs;
+    result.putString("duration", elapsedNs / 1_000_000 + "ms");
+    result.putBoolean("ranged", ranged);
+    long transferred = 0;
+    long resumedBytes = 0;
+    WritableArray rangeStats = Arguments.createArray();
+    if (ranges != null) {
+      for (Range range : ranges) {
+        long bytes = range.done - range.resumedBytes;
+        transferred += bytes;
+        resumedBytes += range.resumedBytes;
+        WritableMap entry = Arguments.createMap();
+        entry.putDouble("start", range.start);
+        entry.putDouble("end", range.end);
+        entry.putDouble("bytes", bytes);
+        entry.putDouble("resumedBytes", range.resumedBytes);
+        entry.putInt("attempts", range.attempts);
+        entry.putDouble("durationMs", range.durationNs / 1e6);
+        entry.putDouble("bytesPerSecond", rate(bytes, range.durationNs));
+        if (range.timings != null) {
+          entry.putMap("timings", range.timings.toWritableMap());
+        }
+        rangeStats.pushMap(entry);
+      }
+    }
+    result.putDouble("resumedBytes", resumedBytes);
+    result.putDouble("bytesPerSecond", rate(transferred, elapsedNs));
+    result.putArray("ranges", rangeStats);
+    return result;
+  }
+
+  private static double rate(long bytes, long elapsedNs) {
+    return elapsedNs > 0 ? bytes * 1e9 / elapsedNs : 0;
+  }
+
+  private static String message(IOException e) {
+    return e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+  }
+}
@@ -0,0 +1,81 @@
+package com.securitysuite;
+
+import java.io.IOException;
+
+import okhttp3.RequestBody;
+
+import okio.Buffer;
+import okio.BufferedSink;
+import okio.ForwardingSink;
+import okio.HashingSink;
+import okio.Okio;
+
+/**
+ * Lazy view of a fetch request body for {@link JwsFetchSigner}.
+ *
+ * <p>The default fetch payload only needs {@code bodyHash}, which is computed by streaming the
+ * body once through a SHA-256 {@link HashingSink} into a blackhole — the payload is never
+ * materialised, so a multipart upload of any size signs in constant memory. Only the legacy
+ * detached formats, which MAC the raw body bytes, call {@link #bytes()}.
+ */
+public final class RequestBodyDigest {
+  private static final RequestBodyDigest EMPTY = new RequestBodyDigest(null, new byte[0]);
+
+  private final RequestBody body;
+  private byte[] bytes;
+  private byte[] sha256;
+  private boolean hashed;
+
+  private RequestBodyDigest(RequestBody body, byte[] bytes) {
+    this.body = body;
+    this.bytes = bytes;
+  }
+
+  public static RequestBodyDigest of(RequestBody body) {
+    return body == null ? EMPTY : new RequestBodyDigest(body, null);
+  }
+
+  public static RequestBodyDigest ofBytes(byte[] bytes) {
+    return bytes == null ? EMPTY : new RequestBodyDigest(null, bytes);
+  }
+
+  /**
+   * SHA-256 of the body as sent, or {@code null} when the body is empty. Computed at most once.
+   */
+  public synchronized byte[] sha256() throws IOException {
+    if (hashed) {
+      return sha256;
+    }
+    hashed = true;
+
+    if (bytes != null) {
+      sha256 = bytes.length > 0 ? new Buffer().write(bytes).sha256().toByteArray() : null;
+      return sha256;
+    }
+
+    long[] written = new long[1];
+    HashingSink hashingSink = HashingSink.sha256(Okio.blackhole());
+    ForwardingSink countingSink = new ForwardingSink(hashingSink) {
+      @Override
+      public void write(Buffer source, long byteCount) throws IOException {
+        written[0] += byteCount;
+        super.write(source, byteCount);
+      }
+    };
+    try (BufferedSink sink = Okio.buffer(countingSink)) {
+      body.writeTo(sink);
+    }
+    sha256 = written[0] > 0 ? hashingSink.hash().toByteArray() : null;
+    return sha256;
+  }
+
+  /** Materialises the whole body. Only for signing formats that MAC the raw payload. */
+  public synchronized byte[] bytes() throws IOException {
+    if (bytes == null) {
+      Buffer buffer = new Buffer();
+      body.writeTo(buffer);
+      bytes = buffer.readByteArray();
+    }
+    return bytes;
+  }
+}
@@ -0,0 +1,175 @@
+package com.securitysuite;
+
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.ReadableMap;
+import com.facebook.react.bridge.WritableMap;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import okhttp3.Headers;
+import okhttp3.OkHttpClient;
+
+/**
+ * Single-flight coalescing of identical pinned {@code GET} / {@code HEAD} fetches that opt in
+ * with {@code coalesce: true}.
+ *
+ * <p>While one such fetch is in flight, another with the same {@link Key} does not sign or send
+ * anything: it waits for the first one's {@link FetchResult} and receives that instead, through
+ * its own listener. Results are immutable and converted to fresh JS maps on delivery, so every
+ * waiter gets its own copy of the shared response. The key covers the method, URL, headers,
+ * {@code tag}, response handling and the client (which stands for the pin set, timeout and
+ * logging). Retry policy and priority come from the first caller.
+ *
+ * <p>Signed fetches ({@code jws}, or {@code keyId} with {@code requestId}) are never coalesced:
+ * a signature binds its own key, nonce and request id, so its response belongs to that caller
+ * alone. Nor are bodies, {@code progress} or {@code responseType: 'stream'}.
+ */
+final class RequestCoalescer {
+  static final RequestCoalescer SHARED = new RequestCoalescer();
+
+  /** Options that change what the caller gets back for the same response. */
+  private static final String[] RESPONSE_KEYS = {
+      "responseType", "destination", "maxJsonBytes", "decryptResponse"
+  };
+
+  /** Identity of a coalescable fetch; see {@link #keyFor}. */
+  static final class Key {
+    private final OkHttpClient client;
+    private final List<String> parts;
+
+    private Key(OkHttpClient client, List<String> parts) {
+      this.client = client;
+      this.parts = parts;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+      if (!(other instanceof Key)) {
+        return false;
+      }
+      Key key = (Key) other;
+      return client == key.client && parts.equals(key.parts);
+    }
+
+    @Override
+    public int hashCode() {
+      return 31 * System.identityHashCode(client) + parts.hashCode();
+    }
+  }
+
+  private final Object lock = new Object();
+  private final Map<Key, List<Sslpinning.FetchListener>> inFlight = new HashMap<>();
+  private long leaders;
+  private long coalesced;
+
+  /**
+   * The key for {@code options} sent with {@code client}, or {@code null} when the fetch did not
+   * opt in or cannot be shared.
+   */
+  static Key keyFor(
+      OkHttpClient client,
+      String url,
+      String method,
+      Headers headers,
+      String tag,
+      ReadableMap options
+  ) {
+    if (!options.hasKey("coalesce") || options.isNull("coalesce")
+        || !options.getBoolean("coalesce")) {
+      return null;
+    }
+    if (!method.equals("GET") && !method.equals("HEAD")) {
+      return null;
+    }
+    if (options.hasKey("jws") || options.hasKey("keyId") || options.hasKey("requestId")) {
+      return null;
+    }
+    if (options.hasKey("body") || options.hasKey("bodyFile") || options.hasKey("progress")) {
+      return null;
+    }
+    if (options.hasKey("responseType") && "stream".equals(options.getString("responseType"))) {
+      return null;
+    }
+
+    List<String> parts = new ArrayList<>(Arrays.asList(
+        method,
+        url,
+        headers != null ? headers.toMultimap().toString() : "",
+        String.valueOf(tag)
+    ));
+    for (String key : RESPONSE_KEYS) {
+      parts.add(valueOf(options, key));
+    }
+    return new Key(client, parts);
+  }
+
+  private static String valueOf(ReadableMap options, String key) {
+    if (!options.hasKey(key)) {
+      return "";
+    }
+    switch (options.getType(key)) {
+      case String:
+        return options.getString(key);
+      case Number:
+        return String.valueOf(options.getDouble(key));
+      case Boolean:
+        return String.valueOf(options.getBoolean(key));
+      default:
+        return "";
+    }
+  }
+
+  /**
+   * Joins the fetch in flight for {@code key} and returns {@code null}, or, when there is none,
+   * returns the listener the caller must run its own fetch with; its result reaches every
+   * waiter that joins until it completes.
+   */
+  Sslpinning.FetchListener join(Key key, Sslpinning.FetchListener listener) {
+    synchronized (lock) {
+      List<Sslpinning.FetchListener> waiters = inFlight.get(key);
+      if (waiters != null) {
+        waiters.add(listener);
+        coalesced++;
+        return null;
+      }
+      inFlight.put(key, new ArrayList<>());
+      leaders++;
+    }
+    return result -> {
+      List<Sslpinning.FetchListener> waiters;
+      synchronized (lock) {
+        // Later identical fetches start afresh rather than join a finished one.
+        waiters = inFlight.remove(key);
+      }
+      listener.onComplete(result);
+      for (Sslpinning.FetchListener waiter : waiters) {
+        waiter.onComplete(result);
+      }
+    };
+  }
+
+  /**
+   * {@code {leaders, coalesced, inFlight}}: fetches that went to the network, fetches served by
+   * one of those instead, and keys currently in flight.
+   */
+  WritableMap getStats() {
+    WritableMap stats = Arguments.createMap();
+    synchronized (lock) {
+      stats.putDouble("leaders", leaders);
+      stats.putDouble("coalesced", coalesced);
+      stats.putInt("inFlight", inFlight.size());
+    }
+    return stats;
+  }
+
+  void resetStats() {
+    synchronized (lock) {
+      leaders = 0;
+      coalesced = 0;
+    }
+  }
+}
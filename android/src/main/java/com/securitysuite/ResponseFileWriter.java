@@ -0,0 +1,99 @@
+package com.securitysuite;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import okio.Buffer;
+import okio.HashingSink;
+import okio.Okio;
+import okio.Source;
+
+/**
+ * Streams a response body to disk through a fixed-size buffer, hashing while it writes.
+ *
+ * <p>Heap use is bounded by {@link #SEGMENT_SIZE} regardless of payload size. Data is written
+ * to {@code <destination>.part} and renamed on success, so a failed download never leaves a
+ * truncated file at the destination path.
+ */
+final class ResponseFileWriter {
+  static final long SEGMENT_SIZE = 64 * 1024;
+
+  static final class Written {
+    final String path;
+    final long size;
+    final String sha256;
+
+    Written(String path, long size, String sha256) {
+      this.path = path;
+      this.size = size;
+      this.sha256 = sha256;
+    }
+  }
+
+  private ResponseFileWriter() {}
+
+  /** Accepts a plain path or a {@code file://} URI. */
+  static File resolveDestination(String destination) {
+    String path = destination.trim();
+    if (path.startsWith("file://")) {
+      path = path.substring("file://".length());
+    }
+    return new File(path);
+  }
+
+  /**
+   * Replaces {@code file} with {@code contents} through a synced temporary file, so a crash
+   * leaves either the old or the new contents. Used for the upload and download journals. Each
+   * call writes its own temporary file, so concurrent writers never interleave; the last rename
+   * wins.
+   */
+  static void replaceAtomically(File file, String contents) throws IOException {
+    File directory = file.getAbsoluteFile().getParentFile();
+    File temporary = File.createTempFile(file.getName(), ".tmp", directory);
+    try (FileOutputStream output = new FileOutputStream(temporary)) {
+      output.write(contents.getBytes(StandardCharsets.UTF_8));
+      output.getFD().sync();
+    } catch (IOException e) {
+      temporary.delete();
+      throw e;
+    }
+    if (!temporary.renameTo(file)) {
+      temporary.delete();
+      throw new IOException("Unable to replace " + file);
+    }
+  }
+
+  static Written write(Source source, File destination) throws IOException {
+    File parent = destination.getAbsoluteFile().getParentFile();
+    if (parent != null && !parent.isDirectory() && !parent.mkdirs()) {
+      throw new IOException("Unable to create directory: " + parent);
+    }
+
+    File partial = new File(destination.getPath() + ".part");
+    long total = 0;
+    HashingSink hashingSink = HashingSink.sha256(Okio.sink(partial));
+    try {
+      try (HashingSink sink = hashingSink) {
+        Buffer buffer = new Buffer();
+        long read;
+        while ((read = source.read(buffer, SEGMENT_SIZE)) != -1) {
+          sink.write(buffer, read);
+          total += read;
+        }
+      }
+      if (destination.exists() && !destination.delete()) {
+        throw new IOException("Unable to replace existing file: " + destination);
+      }
+      if (!partial.renameTo(destination)) {
+        throw new IOException("Unable to move download to: " + destination);
+      }
+    } catch (IOException e) {
+      partial.delete();
+      throw e;
+    }
+
+    return new Written(destination.getAbsolutePath(), total, hashingSink.hash().hex());
+  }
+}
@@ -0,0 +1,114 @@
+package com.securitysuite;
+
+import java.io.IOException;
+import java.net.ProtocolException;
+
+import okio.BufferedSource;
+
+/**
+ * Splits a streaming response body into chunks as bytes arrive, for {@code fetchStream}.
+ *
+ * <p>{@code lines} (NDJSON and similar) yields every non-blank line, without its line ending.
+ * {@code sse} follows the server-sent events format: {@code data:} lines are joined with
+ * {@code \n} and dispatched at each blank line together with the last {@code event:} and
+ * {@code id:} fields; comments and {@code retry:} are ignored. The reader only ever holds one
+ * line, and a line longer than {@code maxChunkBytes} fails the stream instead of buffering
+ * without bound.
+ */
+final class ResponseStreamer {
+  static final String FORMAT_LINES = "lines";
+  static final String FORMAT_SSE = "sse";
+  static final long DEFAULT_MAX_CHUNK_BYTES = 1024 * 1024;
+
+  private ResponseStreamer() {}
+
+  /** One line, or one server-sent event ({@code event} and {@code id} may be {@code null}). */
+  static final class Chunk {
+    final String data;
+    final String event;
+    final String id;
+
+    Chunk(String data, String event, String id) {
+      this.data = data;
+      this.event = event;
+      this.id = id;
+    }
+  }
+
+  interface ChunkSink {
+    /** May block to apply backpressure; throwing ends the stream. */
+    void onChunk(Chunk chunk) throws IOException;
+  }
+
+  static void stream(
+      BufferedSource source,
+      String format,
+      long maxChunkBytes,
+      ChunkSink sink
+  ) throws IOException {
+    boolean sse = FORMAT_SSE.equals(format);
+    StringBuilder data = null;
+    String event = null;
+    String id = null;
+
+    String line;
+    while ((line = readLine(source, maxChunkBytes)) != null) {
+      if (!sse) {
+        if (!line.trim().isEmpty()) {
+          sink.onChunk(new Chunk(line, null, null));
+        }
+        continue;
+      }
+
+      if (line.isEmpty()) {
+        if (data != null) {
+          sink.onChunk(new Chunk(data.toString(), event, id));
+        }
+        data = null;
+        event = null;
+        continue;
+      }
+      if (line.startsWith(":")) {
+        continue;
+      }
+      int colon = line.indexOf(':');
+      String field = colon < 0 ? line : line.substring(0, colon);
+      String value = colon < 0 ? "" : line.substring(colon + 1);
+      if (value.startsWith(" ")) {
+        value = value.substring(1);
+      }
+      switch (field) {
+        case "data":
+          data = data == null ? new StringBuilder(value) : data.append('\n').append(value);
+          break;
+        case "event":
+          event = value;
+          break;
+        case "id":
+          id = value;
+          break;
+        default:
+          break;
+      }
+    }
+    // Per the SSE spec an event without its terminating blank line is discarded.
+  }
+
+  /** Next line without its {@code \n} or {@code \r\n}, or {@code null} at end of stream. */
+  private static String readLine(BufferedSource source, long maxChunkBytes) throws IOException {
+    long newline = source.indexOf((byte) '\n', 0, maxChunkBytes + 1);
+    String line;
+    if (newline >= 0) {
+      line = source.readUtf8(newline);
+      source.skip(1);
+    } else if (source.getBuffer().size() > maxChunkBytes) {
+      throw new ProtocolException("Stream chunk exceeds maxChunkBytes (" + maxChunkBytes + ")");
+    } else if (source.exhausted()) {
+      return null;
+    } else {
+      // End of stream without a final line ending.
+      line = source.readUtf8();
+    }
+    return line.endsWith("\r") ? line.substring(0, line.length() - 1) : line;
+  }
+}
@@ -0,0 +1,221 @@
+package com.securitysuite;
+
+import com.facebook.react.bridge.ReadableArray;
+import com.facebook.react.bridge.ReadableMap;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.SocketTimeoutException;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import javax.net.ssl.SSLException;
+
+import okhttp3.Response;
+
+/**
+ * Native retry rules for one pinned fetch, parsed from {@code options.retry}.
+ *
+ * <p>A retry re-sends the already signed {@link okhttp3.Request}: method, path, query, body hash
+ * and the JS-supplied JWS header fields cannot change between attempts, so the signature is
+ * never recomputed. Only idempotent methods are retried unless {@code retryNonIdempotent} is
+ * set. TLS failures, which include certificate pin and hostname mismatches, are never retried;
+ * neither are cancelled calls.
+ *
+ * <p>Backoff is exponential with full jitter. A {@code Retry-After} header on a retryable status
+ * replaces the backoff, and a {@code Retry-After} longer than {@code maxDelayMs} ends the retries
+ * so the caller sees the server's answer. Waiting happens on a scheduler, never on a dispatcher
+ * thread.
+ */
+final class RetryPolicy {
+  static final RetryPolicy NONE = new RetryPolicy(1, 0, 0, new HashSet<>(), false);
+
+  static final int MAX_ATTEMPTS = 10;
+  static final int DEFAULT_MAX_ATTEMPTS = 3;
+  static final long DEFAULT_BASE_DELAY_MS = 300;
+  static final long DEFAULT_MAX_DELAY_MS = 10_000;
+  private static final int[] DEFAULT_RETRY_ON_STATUS = {408, 429, 502, 503, 504};
+
+  /** Same as an empty {@code retry: {}}, for callers that retry unless told otherwise. */
+  static final RetryPolicy DEFAULT = new RetryPolicy(
+      DEFAULT_MAX_ATTEMPTS,
+      DEFAULT_BASE_DELAY_MS,
+      DEFAULT_MAX_DELAY_MS,
+      defaultRetryOnStatus(),
+      false
+  );
+
+  private static final ScheduledExecutorService SCHEDULER = createScheduler();
+
+  final int maxAttempts;
+  private final long baseDelayMs;
+  private final long maxDelayMs;
+  private final Set<Integer> retryOnStatus;
+  private final boolean retryNonIdempotent;
+
+  private RetryPolicy(
+      int maxAttempts,
+      long baseDelayMs,
+      long maxDelayMs,
+      Set<Integer> retryOnStatus,
+      boolean retryNonIdempotent
+  ) {
+    this.maxAttempts = maxAttempts;
+    this.baseDelayMs = baseDelayMs;
+    this.maxDelayMs = maxDelayMs;
+    this.retryOnStatus = retryOnStatus;
+    this.retryNonIdempotent = retryNonIdempotent;
+  }
+
+  /**
+   * @throws IllegalArgumentException for out-of-range values
+   */
+  static RetryPolicy fromOptions(ReadableMap options) {
+    if (!options.hasKey("retry") || options.isNull("retry")) {
+      return NONE;
+    }
+    ReadableMap retry = options.getMap("retry");
+
+    int maxAttempts = retry.hasKey("maxAttempts")
+        ? retry.getInt("maxAttempts")
+        : DEFAULT_MAX_ATTEMPTS;
+    if (maxAttempts < 1 || maxAttempts > MAX_ATTEMPTS) {
+      throw new IllegalArgumentException(
+          "retry.maxAttempts must be between 1 and " + MAX_ATTEMPTS
+      );
+    }
+    long baseDelayMs = retry.hasKey("baseDelayMs")
+        ? (long) retry.getDouble("baseDelayMs")
+        : DEFAULT_BASE_DELAY_MS;
+    long maxDelayMs = retry.hasKey("maxDelayMs")
+        ? (long) retry.getDouble("maxDelayMs")
+        : DEFAULT_MAX_DELAY_MS;
+    if (baseDelayMs < 0 || maxDelayMs < baseDelayMs) {
+      throw new IllegalArgumentException(
+          "retry delays must satisfy 0 <= baseDelayMs <= maxDelayMs"
+      );
+    }
+
+    Set<Integer> retryOnStatus;
+    if (retry.hasKey("retryOnStatus")) {
+      retryOnStatus = new HashSet<>();
+      ReadableArray statuses = retry.getArray("retryOnStatus");
+      for (int i = 0; i < statuses.size(); i++) {
+        retryOnStatus.add(statuses.getInt(i));
+      }
+    } else {
+      retryOnStatus = defaultRetryOnStatus();
+    }
+
+    boolean retryNonIdempotent = retry.hasKey("retryNonIdempotent")
+        && retry.getBoolean("retryNonIdempotent");
+    return new RetryPolicy(
+        maxAttempts,
+        baseDelayMs,
+        maxDelayMs,
+        retryOnStatus,
+        retryNonIdempotent
+    );
+  }
+
+  boolean isEnabled() {
+    return maxAttempts > 1;
+  }
+
+  /** Delay before the next attempt after a transport failure, or {@code -1} to give up. */
+  long delayAfterFailure(int attempt, String method, IOException e) {
+    if (!canRetry(attempt, method) || !isTransient(e)) {
+      return -1;
+    }
+    return backoff(attempt);
+  }
+
+  /** Delay before the next attempt after an HTTP response, or {@code -1} to keep it. */
+  long delayAfterResponse(int attempt, String method, Response response) {
+    if (!canRetry(attempt, method) || !retryOnStatus.contains(response.code())) {
+      return -1;
+    }
+    long retryAfter = retryAfterMs(response);
+    if (retryAfter < 0) {
+      return backoff(attempt);
+    }
+    return retryAfter <= maxDelayMs ? retryAfter : -1;
+  }
+
+  static void schedule(Runnable task, long delayMs) {
+    SCHEDULER.schedule(task, delayMs, TimeUnit.MILLISECONDS);
+  }
+
+  private boolean canRetry(int attempt, String method) {
+    return attempt < maxAttempts && (retryNonIdempotent || isIdempotent(method));
+  }
+
+  // Full jitter: uniform in [0, min(maxDelay, base * 2^(attempt - 1))].
+  private long backoff(int attempt) {
+    long ceiling = Math.min(maxDelayMs, baseDelayMs << Math.min(attempt - 1, 30));
+    return ceiling > 0 ? ThreadLocalRandom.current().nextLong(ceiling + 1) : 0;
+  }
+
+  private static Set<Integer> defaultRetryOnStatus() {
+    Set<Integer> statuses = new HashSet<>();
+    for (int status : DEFAULT_RETRY_ON_STATUS) {
+      statuses.add(status);
+    }
+    return statuses;
+  }
+
+  private static boolean isIdempotent(String method) {
+    switch (method) {
+      case "GET":
+      case "HEAD":
+      case "OPTIONS":
+      case "PUT":
+      case "DELETE":
+        return true;
+      default:
+        return false;
+    }
+  }
+
+  // Pin failures surface as SSLPeerUnverifiedException, a subclass of SSLException.
+  private static boolean isTransient(IOException e) {
+    if (e instanceof SSLException) {
+      return false;
+    }
+    if (e instanceof SocketTimeoutException) {
+      return true;
+    }
+    // Other interrupted I/O is a cancellation, not a network fault.
+    return !(e instanceof InterruptedIOException);
+  }
+
+  /** {@code Retry-After} as delta-seconds or an HTTP date, in ms; {@code -1} if absent. */
+  private static long retryAfterMs(Response response) {
+    String value = response.header("Retry-After");
+    if (value == null) {
+      return -1;
+    }
+    try {
+      return Math.max(Long.parseLong(value.trim()) * 1000, 0);
+    } catch (NumberFormatException ignored) {
+      // Not delta-seconds; try the HTTP-date form.
+    }
+    Date date = response.headers().getDate("Retry-After");
+    return date != null ? Math.max(date.getTime() - System.currentTimeMillis(), 0) : -1;
+  }
+
+  private static ScheduledExecutorService createScheduler() {
+    ScheduledThreadPoolExecutor scheduler = new ScheduledThreadPoolExecutor(1, runnable -> {
+      Thread thread = new Thread(runnable, "SecuritySuite-retry");
+      thread.setDaemon(true);
+      return thread;
+    });
+    scheduler.setRemoveOnCancelPolicy(true);
+    return scheduler;
+  }
+}
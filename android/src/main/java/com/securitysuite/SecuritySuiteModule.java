@@ -9,13 +9,17 @@ import com.facebook.react.bridge.ReactMethod;
 import com.facebook.react.bridge.ReadableArray;
 import com.facebook.react.bridge.ReadableMap;
 import com.facebook.react.bridge.WritableArray;
+import com.facebook.react.bridge.WritableMap;
 import com.facebook.react.module.annotations.ReactModule;
+import com.facebook.react.modules.core.DeviceEventManagerModule;
 
 import androidx.annotation.NonNull;
 
 import android.util.Base64;
 import android.util.Log;
 
+import java.io.File;
+import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.security.KeyFactory;
 import java.security.KeyPair;
@@ -24,6 +28,8 @@ import java.security.PrivateKey;
 import java.security.PublicKey;
 import java.security.spec.ECGenParameterSpec;
 import java.security.spec.X509EncodedKeySpec;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import javax.crypto.Cipher;
 import javax.crypto.KeyAgreement;
@@ -48,10 +54,17 @@ import com.securitysuite.security.EmulatorDetector;
 import com.securitysuite.security.PlayIntegrityHelper;
 import com.securitysuite.security.RuntimeDetector;
 
+import okhttp3.Dns;
+
 @ReactModule(name = SecuritySuiteModule.NAME)
 public class SecuritySuiteModule extends ReactContextBaseJavaModule {
   public static final String NAME = "SecuritySuite";
+  static final String FETCH_BATCH_RESULT_EVENT = "SecuritySuiteFetchBatchResult";
+  static final String FETCH_STREAM_EVENT = "SecuritySuiteFetchStream";
+  static final String FETCH_PROGRESS_EVENT = "SecuritySuiteFetchProgress";
   private final ReactApplicationContext context;
+  private final Sslpinning sslpinning;
+  private final Map<String, StreamEmitter> streams = new ConcurrentHashMap<>();
 
   private SecretKey encryptionKey;
   private SecretKey hmacKey;
@@ -63,6 +76,8 @@ public class SecuritySuiteModule extends ReactContextBaseJavaModule {
   public SecuritySuiteModule(ReactApplicationContext reactContext) {
     super(reactContext);
     context = reactContext;
+    sslpinning = new Sslpinning(reactContext);
+    sslpinning.setProgressSender(event -> sendEvent(FETCH_PROGRESS_EVENT, event));
   }
 
   private boolean usesLegacyV09Crypto() {
@@ -150,6 +165,7 @@ public class SecuritySuiteModule extends ReactContextBaseJavaModule {
     byte[] sharedSecret = legacySharedSecret(legacyKeyPair.getPrivate(), serverPublicKey, cryptoConfig.keyAgreementAlgorithm);
     encryptionKey = new SecretKeySpec(sharedSecret, cryptoConfig.encryptionKeyAlgorithm);
     hmacKey = new SecretKeySpec(sharedSecret, cryptoConfig.hmacKeyAlgorithm);
+    sslpinning.setPayloadEncryption(new PayloadEncryption(encryptionKey, cryptoConfig));
     return sharedSecret;
   }
 
@@ -210,6 +226,7 @@ public class SecuritySuiteModule extends ReactContextBaseJavaModule {
     byte[] macKeyBytes = CryptoUtils.deriveHmacKey(sharedSecret, config.hmacKeyAlgorithm);
     encryptionKey = new SecretKeySpec(encKeyBytes, config.encryptionKeyAlgorithm);
     hmacKey = new SecretKeySpec(macKeyBytes, config.hmacKeyAlgorithm);
+    sslpinning.setPayloadEncryption(new PayloadEncryption(encryptionKey, config));
     return encKeyBytes;
   }
 
@@ -509,10 +526,392 @@ public class SecuritySuiteModule extends ReactContextBaseJavaModule {
 
   @ReactMethod
   public void fetch(String url, final ReadableMap options, Callback callback) {
-    Sslpinning sslpinning = new Sslpinning(context);
     sslpinning.fetch(url, options, hmacKey, callback);
   }
 
+  /**
+   * Runs {@code requests} concurrently and invokes {@code callback} once with an array of
+   * results in request order. When {@code options.batchId} is set, each result is also emitted
+   * as a {@link #FETCH_BATCH_RESULT_EVENT} event as soon as it completes.
+   */
+  @ReactMethod
+  public void fetchBatch(ReadableArray requests, ReadableMap options, Callback callback) {
+    String batchId = options.hasKey("batchId") ? options.getString("batchId") : null;
+    FetchBatch.ItemListener itemListener = batchId == null ? null : (index, result) -> {
+      WritableMap event = FetchBatch.toEntry(index, result);
+      event.putString("batchId", batchId);
+      sendEvent(FETCH_BATCH_RESULT_EVENT, event);
+    };
+    FetchBatch batch = new FetchBatch(
+        requests.size(),
+        itemListener,
+        results -> callback.invoke(FetchBatch.toArray(results), null)
+    );
+    sslpinning.executeBatch(requests, options, hmacKey, batch);
+  }
+
+  /**
+   * Starts a {@code responseType: 'stream'} request identified by {@code options.streamId}. Its
+   * chunks and final result arrive as {@link #FETCH_STREAM_EVENT} events; JS acknowledges each
+   * chunk event with {@link #ackFetchStream} to apply backpressure. {@code promise} resolves once
+   * the stream is set up and rejects only when there is no {@code streamId} to report to.
+   */
+  @ReactMethod
+  public void fetchStream(String url, ReadableMap options, Promise promise) {
+    if (!options.hasKey("streamId") || options.isNull("streamId")) {
+      promise.reject("FETCH_STREAM_ERROR", "fetchStream requires options.streamId");
+      return;
+    }
+    String streamId = options.getString("streamId");
+    boolean sse = options.hasKey("streamFormat")
+        && ResponseStreamer.FORMAT_SSE.equals(options.getString("streamFormat"));
+    long coalesceMs = options.hasKey("coalesceMs")
+        ? (long) options.getDouble("coalesceMs")
+        : StreamEmitter.DEFAULT_COALESCE_MS;
+    int maxUnackedEvents = options.hasKey("maxUnackedEvents")
+        ? options.getInt("maxUnackedEvents")
+        : StreamEmitter.DEFAULT_MAX_UNACKED_EVENTS;
+    StreamEmitter emitter = new StreamEmitter(
+        streamId,
+        sse,
+        event -> sendEvent(FETCH_STREAM_EVENT, event),
+        coalesceMs,
+        maxUnackedEvents
+    );
+    if (coalesceMs < 0 || maxUnackedEvents < 1) {
+      emitter.finish(FetchResult.rejected(
+          "coalesceMs must not be negative and maxUnackedEvents must be at least 1"
+      ));
+      promise.resolve(null);
+      return;
+    }
+
+    streams.put(streamId, emitter);
+    sslpinning.execute(url, options, hmacKey, new Sslpinning.StreamListener() {
+      @Override
+      public void onChunk(ResponseStreamer.Chunk chunk) throws IOException {
+        emitter.onChunk(chunk);
+      }
+
+      @Override
+      public void onComplete(FetchResult result) {
+        streams.remove(streamId);
+        emitter.finish(result);
+      }
+    });
+    promise.resolve(null);
+  }
+
+  @ReactMethod
+  public void ackFetchStream(String streamId) {
+    StreamEmitter emitter = streams.get(streamId);
+    if (emitter != null) {
+      emitter.ack();
+    }
+  }
+
+  /**
+   * Uploads {@code options.file} in parallel, resumable chunks; resolves with a summary map whose
+   * {@code ok} says whether every chunk (and the commit, if any) succeeded.
+   */
+  @ReactMethod
+  public void uploadChunked(String url, ReadableMap options, Promise promise) {
+    File journalDir = new File(context.getFilesDir(), ChunkedUploader.JOURNAL_DIRECTORY);
+    sslpinning.uploadChunked(url, options, hmacKey, journalDir, promise::resolve);
+  }
+
+  /**
+   * Downloads {@code url} to {@code options.destination} over parallel byte ranges, resuming a
+   * previous partial download; resolves with a summary map whose {@code ok} says whether the
+   * file was written and verified.
+   */
+  @ReactMethod
+  public void downloadRanges(String url, ReadableMap options, Promise promise) {
+    sslpinning.downloadRanges(url, options, hmacKey, promise::resolve);
+  }
+
+  // Required by NativeEventEmitter; events are emitted regardless of listener count.
+  @ReactMethod
+  public void addListener(String eventName) {}
+
+  @ReactMethod
+  public void removeListeners(double count) {}
+
+  private void sendEvent(String eventName, WritableMap params) {
+    if (!context.hasActiveReactInstance()) {
+      return;
+    }
+    context
+        .getJSModule(DeviceEventManagerModule.RCTDeviceEventEmitter.class)
+        .emit(eventName, params);
+  }
+
+  /** Cancels in-flight fetches started with {@code tag}; resolves with how many were cancelled. */
+  @ReactMethod
+  public void cancelFetch(String tag, Promise promise) {
+    promise.resolve(InFlightCalls.cancel(tag));
+  }
+
+  @ReactMethod
+  public void cancelAllFetches(Promise promise) {
+    promise.resolve(InFlightCalls.cancelAll());
+  }
+
+  @ReactMethod
+  public void configureFetchDispatcher(ReadableMap options, Promise promise) {
+    try {
+      if (options.hasKey("maxRequests") && options.getInt("maxRequests") < 1) {
+        promise.reject("FETCH_CONFIG_ERROR", "maxRequests must be at least 1");
+        return;
+      }
+      if (options.hasKey("maxRequestsPerHost") && options.getInt("maxRequestsPerHost") < 1) {
+        promise.reject("FETCH_CONFIG_ERROR", "maxRequestsPerHost must be at least 1");
+        return;
+      }
+      if (options.hasKey("maxIdleConnections") && options.getInt("maxIdleConnections") < 0) {
+        promise.reject("FETCH_CONFIG_ERROR", "maxIdleConnections must not be negative");
+        return;
+      }
+      if (options.hasKey("keepAliveMs") && options.getDouble("keepAliveMs") < 1) {
+        promise.reject("FETCH_CONFIG_ERROR", "keepAliveMs must be at least 1");
+        return;
+      }
+      PinnedClientRegistry.configureDispatcher(options);
+      promise.resolve(null);
+    } catch (Exception e) {
+      promise.reject("FETCH_CONFIG_ERROR", e.getMessage(), e);
+    }
+  }
+
+  /**
+   * Opens pinned connections to {@code options.hosts} in the background and resolves with a
+   * report of how long the warmup took per host.
+   */
+  @ReactMethod
+  public void preconnect(ReadableMap options, Promise promise) {
+    ConnectionWarmer.preconnect(context, options, new ConnectionWarmer.Listener() {
+      @Override
+      public void onComplete(WritableMap report) {
+        promise.resolve(report);
+      }
+
+      @Override
+      public void onError(String message) {
+        promise.reject("FETCH_PRECONNECT_ERROR", message);
+      }
+    });
+  }
+
+  /**
+   * Sets the priority scheduler's concurrency limits and per-host rate limits for pinned
+   * fetches; see {@link FetchScheduler#configure}.
+   */
+  @ReactMethod
+  public void configureFetchScheduler(ReadableMap options, Promise promise) {
+    try {
+      FetchScheduler.SHARED.configure(options);
+      promise.resolve(null);
+    } catch (Exception e) {
+      promise.reject("FETCH_CONFIG_ERROR", e.getMessage(), e);
+    }
+  }
+
+  /** Queue depth, running calls and queue wait times per priority class. */
+  @ReactMethod
+  public void getFetchSchedulerStats(Promise promise) {
+    try {
+      promise.resolve(FetchScheduler.SHARED.getStats());
+    } catch (Exception e) {
+      promise.reject("FETCH_STATS_ERROR", e.getMessage(), e);
+    }
+  }
+
+  /**
+   * Enables (or with {@code enabled: false} disables) the per-host circuit breaker for pinned
+   * fetches; see {@link CircuitBreaker#configure}.
+   */
+  @ReactMethod
+  public void configureCircuitBreaker(ReadableMap options, Promise promise) {
+    try {
+      CircuitBreaker.SHARED.configure(options);
+      promise.resolve(null);
+    } catch (Exception e) {
+      promise.reject("FETCH_CONFIG_ERROR", e.getMessage(), e);
+    }
+  }
+
+  /** Circuit state per host and the most recent state transitions. */
+  @ReactMethod
+  public void getCircuitBreakerStats(Promise promise) {
+    try {
+      promise.resolve(CircuitBreaker.SHARED.getStats());
+    } catch (Exception e) {
+      promise.reject("FETCH_STATS_ERROR", e.getMessage(), e);
+    }
+  }
+
+  @ReactMethod
+  public void resetCircuitBreaker(Promise promise) {
+    CircuitBreaker.SHARED.reset();
+    promise.resolve(null);
+  }
+
+  /** Fetches served by an identical in-flight {@code coalesce: true} fetch. */
+  @ReactMethod
+  public void getFetchCoalescingStats(Promise promise) {
+    try {
+      promise.resolve(RequestCoalescer.SHARED.getStats());
+    } catch (Exception e) {
+      promise.reject("FETCH_STATS_ERROR", e.getMessage(), e);
+    }
+  }
+
+  @ReactMethod
+  public void resetFetchCoalescingStats(Promise promise) {
+    RequestCoalescer.SHARED.resetStats();
+    promise.resolve(null);
+  }
+
+  @ReactMethod
+  public void getFetchClientStats(Promise promise) {
+    try {
+      promise.resolve(PinnedClientRegistry.getStats());
+    } catch (Exception e) {
+      promise.reject("FETCH_STATS_ERROR", e.getMessage(), e);
+    }
+  }
+
+  @ReactMethod
+  public void getFetchLatencyHistograms(Promise promise) {
+    try {
+      promise.resolve(LatencyHistograms.snapshot());
+    } catch (Exception e) {
+      promise.reject("FETCH_STATS_ERROR", e.getMessage(), e);
+    }
+  }
+
+  @ReactMethod
+  public void resetFetchLatencyHistograms(Promise promise) {
+    LatencyHistograms.reset();
+    promise.resolve(null);
+  }
+
+  @ReactMethod
+  public void configureFetchCache(ReadableMap options, Promise promise) {
+    try {
+      boolean enabled = !options.hasKey("enabled") || options.getBoolean("enabled");
+      if (!enabled) {
+        FetchCache.disable();
+        promise.resolve(null);
+        return;
+      }
+      long maxSizeBytes = options.hasKey("maxSizeBytes")
+          ? (long) options.getDouble("maxSizeBytes")
+          : FetchCache.DEFAULT_MAX_SIZE_BYTES;
+      if (maxSizeBytes < 1) {
+        promise.reject("FETCH_CACHE_ERROR", "maxSizeBytes must be at least 1");
+        return;
+      }
+      FetchCache.enable(context, maxSizeBytes);
+      promise.resolve(null);
+    } catch (Exception e) {
+      promise.reject("FETCH_CACHE_ERROR", e.getMessage(), e);
+    }
+  }
+
+  @ReactMethod
+  public void getFetchCacheStats(Promise promise) {
+    try {
+      promise.resolve(FetchCache.getStats());
+    } catch (Exception e) {
+      promise.reject("FETCH_CACHE_ERROR", e.getMessage(), e);
+    }
+  }
+
+  @ReactMethod
+  public void clearFetchCache(Promise promise) {
+    try {
+      FetchCache.clear();
+      promise.resolve(null);
+    } catch (Exception e) {
+      promise.reject("FETCH_CACHE_ERROR", e.getMessage(), e);
+    }
+  }
+
+  /**
+   * Enables or disables persistent TLS session resumption for pinned requests. Rejects when
+   * Conscrypt is not bundled, since the platform cache cannot be encrypted.
+   */
+  @ReactMethod
+  public void configureTlsSessionResumption(ReadableMap options, Promise promise) {
+    try {
+      boolean enabled = !options.hasKey("enabled") || options.getBoolean("enabled");
+      if (enabled) {
+        TlsSessionResumption.enable(context);
+      } else {
+        TlsSessionResumption.disable();
+      }
+      promise.resolve(null);
+    } catch (Exception e) {
+      promise.reject("FETCH_CONFIG_ERROR", e.getMessage(), e);
+    }
+  }
+
+  @ReactMethod
+  public void clearTlsSessions(Promise promise) {
+    TlsSessionResumption.clear();
+    promise.resolve(null);
+  }
+
+  /** Installs (or removes) the caching resolver used by pinned clients. */
+  @ReactMethod
+  public void configureDnsCache(ReadableMap options, Promise promise) {
+    try {
+      boolean enabled = !options.hasKey("enabled") || options.getBoolean("enabled");
+      if (!enabled) {
+        PinnedClientRegistry.setDns(null);
+        promise.resolve(null);
+        return;
+      }
+      long ttlMs = options.hasKey("ttlMs")
+          ? (long) options.getDouble("ttlMs")
+          : CachingDns.DEFAULT_TTL_MS;
+      long staleMs = options.hasKey("staleWhileRevalidateMs")
+          ? (long) options.getDouble("staleWhileRevalidateMs")
+          : 0;
+      if (ttlMs < 0 || staleMs < 0) {
+        promise.reject(
+            "FETCH_CONFIG_ERROR",
+            "ttlMs and staleWhileRevalidateMs must not be negative"
+        );
+        return;
+      }
+      PinnedClientRegistry.setDns(new CachingDns(Dns.SYSTEM, ttlMs, staleMs));
+      promise.resolve(null);
+    } catch (Exception e) {
+      promise.reject("FETCH_CONFIG_ERROR", e.getMessage(), e);
+    }
+  }
+
+  @ReactMethod
+  public void getDnsCacheStats(Promise promise) {
+    try {
+      Dns dns = PinnedClientRegistry.getDns();
+      promise.resolve(dns instanceof CachingDns ? ((CachingDns) dns).getStats() : null);
+    } catch (Exception e) {
+      promise.reject("FETCH_STATS_ERROR", e.getMessage(), e);
+    }
+  }
+
+  @ReactMethod
+  public void clearDnsCache(Promise promise) {
+    Dns dns = PinnedClientRegistry.getDns();
+    if (dns instanceof CachingDns) {
+      ((CachingDns) dns).clear();
+    }
+    promise.resolve(null);
+  }
+
   @ReactMethod
   public void getDeviceId(Callback callback) {
     try {
@@ -1,39 +1,28 @@
 package com.securitysuite;
 
-import android.content.Context;
-import android.net.Uri;
-
-import com.chuckerteam.chucker.api.ChuckerInterceptor;
-import com.facebook.react.bridge.Arguments;
 import com.facebook.react.bridge.Callback;
 import com.facebook.react.bridge.ReactApplicationContext;
 import com.facebook.react.bridge.ReadableArray;
 import com.facebook.react.bridge.ReadableMap;
 import com.facebook.react.bridge.ReadableMapKeySetIterator;
 import com.facebook.react.bridge.ReadableType;
-import com.facebook.react.bridge.WritableMap;
-
-import org.json.JSONException;
 
-import java.io.BufferedOutputStream;
 import java.io.File;
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.OutputStream;
 
 import java.net.SocketTimeoutException;
 import java.net.URI;
 import java.net.URISyntaxException;
 
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.concurrent.TimeUnit;
 
 import javax.crypto.SecretKey;
 
-import okhttp3.CertificatePinner;
+import okhttp3.Call;
 import okhttp3.Headers;
 import okhttp3.MediaType;
 import okhttp3.MultipartBody;
@@ -42,178 +31,596 @@ import okhttp3.OkHttpClient;
 import okhttp3.RequestBody;
 import okhttp3.Response;
 
-import okio.Buffer;
+import okio.BufferedSource;
+import okio.Okio;
 
 public class Sslpinning {
-  private final ReactApplicationContext context;
-  private String hostname = "";
   private static final String CONTENT_TYPE = "application/json; charset=utf-8";
   public static final MediaType mediaType = MediaType.parse(CONTENT_TYPE);
-  String responseBodyString = "{}";
-  Callback callback;
-  private final java.util.List<java.io.File> tempFiles = new java.util.ArrayList<>();
+  private static final String EMPTY_RESPONSE = "{}";
+
+  private final ReactApplicationContext context;
+  /** Session key for {@code encryptBody}/{@code decryptResponse}; set by the module. */
+  private volatile PayloadEncryption payloadEncryption;
+  /** Destination of {@code progress} events; set by the module. */
+  private volatile TransferProgress.EventSender progressSender;
+
+  /** Receives the outcome of {@link #execute}; invoked exactly once per request. */
+  interface FetchListener {
+    void onComplete(FetchResult result);
+  }
+
+  /** A {@link FetchListener} that also takes the chunks of a {@code responseType: 'stream'}. */
+  interface StreamListener extends FetchListener, ResponseStreamer.ChunkSink {}
 
   public Sslpinning(ReactApplicationContext context) {
     this.context = context;
   }
 
+  void setPayloadEncryption(PayloadEncryption payloadEncryption) {
+    this.payloadEncryption = payloadEncryption;
+  }
+
+  void setProgressSender(TransferProgress.EventSender progressSender) {
+    this.progressSender = progressSender;
+  }
+
   public void fetch(String url, final ReadableMap options, SecretKey hmacKey, Callback callback) {
-    this.callback = callback;
+    execute(url, options, hmacKey, result -> result.deliver(callback));
+  }
 
+  /**
+   * Validates, signs and enqueues one request. Safe to call concurrently: all per-request
+   * state lives in a {@link FetchRequestContext}.
+   */
+  void execute(String url, ReadableMap options, SecretKey hmacKey, FetchListener listener) {
     if (!CryptoUtils.isHttpsUrl(url)) {
-      callback.invoke(null, "Only HTTPS URLs are allowed");
+      listener.onComplete(FetchResult.rejected("Only HTTPS URLs are allowed"));
       return;
     }
 
     PinningConfig pinningConfig = PinningConfig.fromOptions(options);
     if (pinningConfig.hasError()) {
-      callback.invoke(null, pinningConfig.getError());
+      listener.onComplete(FetchResult.rejected(pinningConfig.getError()));
       return;
     }
 
+    String hostname;
     try {
-      this.hostname = getHostname(url);
+      hostname = getHostname(url);
     } catch (URISyntaxException e) {
-      callback.invoke(null, "Invalid URL hostname");
+      listener.onComplete(FetchResult.rejected("Invalid URL hostname"));
       return;
     }
 
-    if (pinningConfig.isEnabled() && !isValidDomain(this.hostname, options)) {
-      callback.invoke(null, "Hostname '" + this.hostname + "' is not in validDomains");
+    ResponseConfig responseConfig = ResponseConfig.fromOptions(options);
+    if (responseConfig.hasError()) {
+      listener.onComplete(FetchResult.rejected(responseConfig.getError()));
       return;
     }
 
     try {
-      OkHttpClient client = getClient(options, pinningConfig);
-
-      Headers header = setHeader(options);
-      String method = getMethod(options);
-      RequestBody requestBody = setBody(options);
+      PinnedClientRegistry.PinSet pinSet =
+          pinningConfig.isEnabled() ? PinnedClientRegistry.pinSetFor(options) : null;
+      if (pinSet != null && !pinSet.allowlist.matches(hostname)) {
+        listener.onComplete(
+            FetchResult.rejected("Hostname '" + hostname + "' is not in validDomains")
+        );
+        return;
+      }
 
-      if ((method.equals("POST") || method.equals("PUT") || method.equals("PATCH")) && requestBody == null) {
-        this.callback.invoke(null, "For " + method + " method body option is Required!");
+      OkHttpClient client = PinnedClientRegistry.getClient(context, options, pinSet);
+      listener = coalesce(client, url, options, null, listener);
+      if (listener == null) {
         return;
       }
+      FetchRequestContext request = prepare(
+          url,
+          hostname,
+          options,
+          null,
+          responseConfig,
+          hmacKey,
+          listener
+      );
+      if (request != null) {
+        enqueue(client, request);
+      }
+    } catch (Exception e) {
+      listener.onComplete(
+          FetchResult.rejected(e.getMessage() != null ? e.getMessage() : "Request failed")
+      );
+    }
+  }
 
-      JwsFetchSigner.Result jwsResult;
+  /**
+   * Runs every request in {@code requests} concurrently over one client.
+   *
+   * <p>Pinning, timeout and logger settings come from {@code batchOptions} and are validated
+   * once for the whole batch; the client and compiled domain allowlist are resolved once.
+   * Per-item options carry {@code url} plus the usual method, headers, body, response, JWS,
+   * {@code tag} and {@code retry} fields, the last two defaulting to the batch's. Calls to the
+   * same host share a single HTTP/2 connection when the server negotiates h2; the number in
+   * flight per host is bounded by the dispatcher's {@code maxRequestsPerHost}.
+   */
+  void executeBatch(
+      ReadableArray requests,
+      ReadableMap batchOptions,
+      SecretKey hmacKey,
+      FetchBatch batch
+  ) {
+    PinningConfig pinningConfig = PinningConfig.fromOptions(batchOptions);
+    if (pinningConfig.hasError()) {
+      batch.rejectAll(pinningConfig.getError());
+      return;
+    }
+
+    PinnedClientRegistry.PinSet pinSet;
+    OkHttpClient client;
+    try {
+      pinSet = pinningConfig.isEnabled() ? PinnedClientRegistry.pinSetFor(batchOptions) : null;
+      client = PinnedClientRegistry.getClient(context, batchOptions, pinSet);
+    } catch (Exception e) {
+      batch.rejectAll(e.getMessage() != null ? e.getMessage() : "Request failed");
+      return;
+    }
+
+    for (int i = 0; i < requests.size(); i++) {
+      FetchListener listener = batch.listenerFor(i);
       try {
-        jwsResult = JwsFetchSigner.sign(
+        ReadableMap options = requests.getMap(i);
+        String url = options != null && options.hasKey("url") ? options.getString("url") : null;
+        if (url == null || !CryptoUtils.isHttpsUrl(url)) {
+          listener.onComplete(FetchResult.rejected("Only HTTPS URLs are allowed"));
+          continue;
+        }
+
+        String hostname;
+        try {
+          hostname = getHostname(url);
+        } catch (URISyntaxException e) {
+          listener.onComplete(FetchResult.rejected("Invalid URL hostname"));
+          continue;
+        }
+
+        ResponseConfig responseConfig = ResponseConfig.fromOptions(options);
+        if (responseConfig.hasError()) {
+          listener.onComplete(FetchResult.rejected(responseConfig.getError()));
+          continue;
+        }
+
+        if (pinSet != null && !pinSet.allowlist.matches(hostname)) {
+          listener.onComplete(
+              FetchResult.rejected("Hostname '" + hostname + "' is not in validDomains")
+          );
+          continue;
+        }
+
+        listener = coalesce(client, url, options, batchOptions, listener);
+        if (listener == null) {
+          continue;
+        }
+        FetchRequestContext request = prepare(
             url,
-            method,
-            extractPayload(requestBody),
+            hostname,
             options,
-            hmacKey
+            batchOptions,
+            responseConfig,
+            hmacKey,
+            listener
         );
+        if (request != null) {
+          enqueue(client, request);
+        }
       } catch (Exception e) {
-        callback.invoke(null, e.getMessage() != null ? e.getMessage() : "JWS signing failed");
-        return;
+        listener.onComplete(
+            FetchResult.rejected(e.getMessage() != null ? e.getMessage() : "Request failed")
+        );
       }
+    }
+  }
+
+  /**
+   * Starts a {@link ChunkedUploader} after the URL and pinning checks {@link #execute} applies,
+   * for both the upload URL and {@code commitUrl}. Journals live in {@code journalDir}.
+   */
+  void uploadChunked(
+      String url,
+      ReadableMap options,
+      SecretKey hmacKey,
+      File journalDir,
+      ChunkedUploader.Listener listener
+  ) {
+    try {
+      String commitUrl = options.hasKey("commitUrl") ? options.getString("commitUrl") : null;
+      OkHttpClient client = commitUrl != null
+          ? checkedClient(options, url, commitUrl)
+          : checkedClient(options, url);
+      ChunkedUploader.start(
+          context,
+          client,
+          url,
+          commitUrl,
+          options,
+          hmacKey,
+          TransferProgress.fromOptions(options, progressSender),
+          journalDir,
+          listener
+      );
+    } catch (Exception e) {
+      listener.onComplete(
+          ChunkedUploader.rejected(e.getMessage() != null ? e.getMessage() : "Upload failed")
+      );
+    }
+  }
 
-      Request.Builder requestBuilder = new Request.Builder()
-          .url(url)
-          .method(method, requestBody);
+  /** Starts a {@link RangeDownloader} after the checks {@link #execute} applies. */
+  void downloadRanges(
+      String url,
+      ReadableMap options,
+      SecretKey hmacKey,
+      RangeDownloader.Listener listener
+  ) {
+    try {
+      RangeDownloader.start(
+          checkedClient(options, url),
+          url,
+          options,
+          hmacKey,
+          TransferProgress.fromOptions(options, progressSender),
+          listener
+      );
+    } catch (Exception e) {
+      listener.onComplete(
+          RangeDownloader.rejected(e.getMessage() != null ? e.getMessage() : "Download failed")
+      );
+    }
+  }
 
-      if (header != null) {
-        requestBuilder.headers(header);
+  /**
+   * The pinned client for {@code options}, after checking that every URL is HTTPS and, with
+   * pinning on, that its host is in {@code validDomains}.
+   *
+   * @throws IllegalArgumentException with the message to report when a check fails
+   */
+  private OkHttpClient checkedClient(ReadableMap options, String... urls) {
+    for (String url : urls) {
+      if (!CryptoUtils.isHttpsUrl(url)) {
+        throw new IllegalArgumentException("Only HTTPS URLs are allowed");
+      }
+    }
+    PinningConfig pinningConfig = PinningConfig.fromOptions(options);
+    if (pinningConfig.hasError()) {
+      throw new IllegalArgumentException(pinningConfig.getError());
+    }
+    PinnedClientRegistry.PinSet pinSet =
+        pinningConfig.isEnabled() ? PinnedClientRegistry.pinSetFor(options) : null;
+    for (String url : urls) {
+      String hostname;
+      try {
+        hostname = getHostname(url);
+      } catch (URISyntaxException e) {
+        throw new IllegalArgumentException("Invalid URL hostname");
       }
-      if (jwsResult != null && jwsResult.signature != null && !jwsResult.signature.isEmpty()) {
-        requestBuilder.addHeader(jwsResult.headerName, jwsResult.signature);
+      if (pinSet != null && !pinSet.allowlist.matches(hostname)) {
+        throw new IllegalArgumentException("Hostname '" + hostname + "' is not in validDomains");
       }
+    }
+    return PinnedClientRegistry.getClient(context, options, pinSet);
+  }
 
-      Request request = requestBuilder.build();
-      WritableMap output = Arguments.createMap();
+  /**
+   * Returns the listener to run this fetch with, or {@code null} when an identical
+   * {@code coalesce: true} fetch is already in flight and will deliver its result to
+   * {@code listener}; see {@link RequestCoalescer}.
+   */
+  private static FetchListener coalesce(
+      OkHttpClient client,
+      String url,
+      ReadableMap options,
+      ReadableMap defaults,
+      FetchListener listener
+  ) {
+    RequestCoalescer.Key key = RequestCoalescer.keyFor(
+        client,
+        url,
+        getMethod(options),
+        setHeader(options),
+        getTag(options, defaults != null ? getTag(defaults, null) : null),
+        options
+    );
+    return key != null ? RequestCoalescer.SHARED.join(key, listener) : listener;
+  }
 
-      try {
-        Response response = client.newCall(request).execute();
-        int responseCode = response.code();
+  /**
+   * Builds the request for an already validated URL. Returns {@code null} after reporting a
+   * rejection to the listener. {@code defaults} (the batch options, if any) supply {@code tag},
+   * {@code retry} and {@code priority} when the request does not set their own. Signing is
+   * deferred to the dispatcher thread (see {@link DeferredSigning}) and covers the body as given
+   * here, before {@code compressRequest} is applied.
+   *
+   * @throws IllegalArgumentException for an invalid retry policy, priority, compression or
+   *     progress option
+   * @throws IllegalStateException for payload encryption without a session key
+   */
+  private FetchRequestContext prepare(
+      String url,
+      String hostname,
+      ReadableMap options,
+      ReadableMap defaults,
+      ResponseConfig responseConfig,
+      SecretKey hmacKey,
+      FetchListener listener
+  ) throws IOException {
+    String tag = getTag(options, defaults != null ? getTag(defaults, null) : null);
+    RetryPolicy retryPolicy = RetryPolicy.fromOptions(
+        defaults != null && !options.hasKey("retry") ? defaults : options
+    );
+    FetchScheduler.Priority priority = FetchScheduler.Priority.fromOptions(options, defaults);
+    if (responseConfig.isStream() && !(listener instanceof StreamListener)) {
+      listener.onComplete(FetchResult.rejected("responseType 'stream' requires fetchStream"));
+      return null;
+    }
+    PayloadEncryption.Mode encryption =
+        PayloadEncryption.Mode.fromOptions(options, payloadEncryption);
+    if (encryption != null && encryption.encryptBody && options.hasKey("compressRequest")) {
+      // Compressing secrets next to attacker-influenced data before encryption leaks them.
+      throw new IllegalArgumentException("compressRequest cannot be combined with encryptBody");
+    }
+    TransferProgress progress = TransferProgress.fromOptions(options, progressSender);
+    Headers header = setHeader(options);
+    String method = getMethod(options);
+    RequestBody requestBody = setBody(options);
+
+    if ((method.equals("POST") || method.equals("PUT") || method.equals("PATCH")) && requestBody == null) {
+      listener.onComplete(
+          FetchResult.rejected("For " + method + " method body option is Required!")
+      );
+      return null;
+    }
+
+    DeferredSigning signing = DeferredSigning.of(url, method, requestBody, options, hmacKey);
+    if (progress != null) {
+      requestBody = progress.wrap(requestBody);
+    }
+    requestBody = CompressedRequestBody.wrap(requestBody, options);
+
+    Request.Builder requestBuilder = new Request.Builder()
+        .url(url)
+        .method(method, requestBody)
+        .tag(FetchTimings.class, new FetchTimings())
+        .tag(DeferredSigning.class, signing);
+    if (encryption != null) {
+      requestBuilder.tag(PayloadEncryption.Mode.class, encryption);
+    }
+    if (progress != null) {
+      requestBuilder.tag(TransferProgress.class, progress);
+    }
 
-        okhttp3.ResponseBody body = response.body();
-        byte[] bytes = body != null ? body.bytes() : new byte[0];
-        responseBodyString = new String(bytes, StandardCharsets.UTF_8);
+    if (header != null) {
+      requestBuilder.headers(header);
+    }
+    String contentEncoding = CompressedRequestBody.encodingOf(requestBody);
+    if (contentEncoding != null) {
+      requestBuilder.header("Content-Encoding", contentEncoding);
+    }
 
-        output.putInt("status", responseCode);
-        output.putString("url", request.url().toString());
+    return new FetchRequestContext(
+        url,
+        hostname,
+        tag,
+        requestBuilder.build(),
+        responseConfig,
+        retryPolicy,
+        priority,
+        listener
+    );
+  }
+
+  // Asynchronous: the native-modules thread is released immediately and the listener is
+  // invoked from the dispatcher thread that completes the call. The call is registered before
+  // it is enqueued so it can be cancelled from the moment it exists. Every attempt passes
+  // through FetchScheduler, which decides when it reaches the dispatcher and fails it at once
+  // while the host's CircuitBreaker is open.
+  private static void enqueue(OkHttpClient client, FetchRequestContext request) {
+    Call newCall = client.newCall(request.request);
+    InFlightCalls.register(newCall, request.tag);
+    enqueue(client, request, newCall, 1, new ArrayList<>());
+  }
 
-        long tx = response.sentRequestAtMillis();
-        long rx = response.receivedResponseAtMillis();
-        output.putString("duration", (rx - tx) + "ms");
+  private static void enqueue(
+      OkHttpClient client,
+      FetchRequestContext request,
+      Call newCall,
+      int attempt,
+      List<FetchResult.Attempt> attempts
+  ) {
+    RetryPolicy retryPolicy = request.retryPolicy;
+    String method = request.request.method();
+    okhttp3.Callback callback = new okhttp3.Callback() {
+      @Override
+      public void onFailure(Call call, IOException e) {
+        if (e instanceof CircuitBreaker.OpenException) {
+          InFlightCalls.unregister(call);
+          long retryAfterMs = ((CircuitBreaker.OpenException) e).retryAfterMs;
+          complete(request, FetchResult.circuitOpen(request.hostname, retryAfterMs), attempts);
+          return;
+        }
+        if (e instanceof DeferredSigning.SigningException && !call.isCanceled()) {
+          InFlightCalls.unregister(call);
+          complete(request, FetchResult.rejected(e.getMessage()), attempts);
+          return;
+        }
+        if (!call.isCanceled()) {
+          long delay = retryPolicy.delayAfterFailure(attempt, method, e);
+          if (delay >= 0) {
+            attempts.add(new FetchResult.Attempt(0, message(e), snapshot(call), delay));
+            retry(client, request, call, attempt, attempts, delay);
+            return;
+          }
+        }
+        InFlightCalls.unregister(call);
+        complete(request, call.isCanceled() ? FetchResult.canceled() : transportError(e), attempts);
+      }
 
-        if (!response.isSuccessful() || responseCode >= 400) {
-          output.putString("error", responseBodyString);
-          callback.invoke(null, output);
+      @Override
+      public void onResponse(Call call, Response response) {
+        long delay = call.isCanceled()
+            ? -1
+            : retryPolicy.delayAfterResponse(attempt, method, response);
+        if (delay >= 0) {
+          response.close();
+          attempts.add(new FetchResult.Attempt(response.code(), null, snapshot(call), delay));
+          retry(client, request, call, attempt, attempts, delay);
           return;
         }
-        output.putString("response", responseBodyString);
-        callback.invoke(output, null);
-      } catch (IOException e) {
-        output.putString("error", e.getMessage() != null ? e.getMessage() : responseBodyString);
-        callback.invoke(null, output);
-        if (!(e instanceof SocketTimeoutException)) {
-          e.printStackTrace();
+
+        FetchResult result;
+        // Cancelling mid-body fails the read; ResponseFileWriter then removes its .part file.
+        try (Response closeable = response) {
+          result = readResponse(request, call.request(), closeable);
+        } catch (IOException e) {
+          result = call.isCanceled() ? FetchResult.canceled() : transportError(e);
         }
-      } finally {
-        for (java.io.File f : tempFiles) { f.delete(); }
-        tempFiles.clear();
+        InFlightCalls.unregister(call);
+        complete(request, result, attempts);
       }
-    } catch (Exception e) {
-      callback.invoke(null, e.getMessage() != null ? e.getMessage() : "Request failed");
-    }
+    };
+    FetchScheduler.SHARED.enqueue(newCall, request.hostname, request.priority, callback);
   }
 
-  private byte[] extractPayload(RequestBody requestBody) throws IOException {
-    if (requestBody == null) {
-      return new byte[0];
+  /**
+   * Schedules the next attempt with the same signed request and fresh timings. The next call is
+   * registered before the previous one is released, so a cancel during the backoff still
+   * reaches it.
+   */
+  private static void retry(
+      OkHttpClient client,
+      FetchRequestContext request,
+      Call previous,
+      int attempt,
+      List<FetchResult.Attempt> attempts,
+      long delayMs
+  ) {
+    Request next = previous.request().newBuilder()
+        .tag(FetchTimings.class, new FetchTimings())
+        .build();
+    Call nextCall = client.newCall(next);
+    InFlightCalls.register(nextCall, request.tag);
+    InFlightCalls.unregister(previous);
+    RetryPolicy.schedule(
+        () -> enqueue(client, request, nextCall, attempt + 1, attempts),
+        delayMs
+    );
+  }
+
+  private static void complete(
+      FetchRequestContext request,
+      FetchResult result,
+      List<FetchResult.Attempt> attempts
+  ) {
+    if (request.retryPolicy.isEnabled() && !result.isRejected()) {
+      attempts.add(result.toAttempt());
+      result = result.withAttempts(attempts);
     }
-    Buffer buffer = new Buffer();
-    requestBody.writeTo(buffer);
-    return buffer.readByteArray();
+    request.complete(result);
+  }
+
+  private static FetchTimings.Phases snapshot(Call call) {
+    FetchTimings listener = call.request().tag(FetchTimings.class);
+    return listener != null ? listener.snapshot() : null;
+  }
+
+  private static String message(IOException e) {
+    return e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
   }
 
-  private CertificatePinner getCertificatePinner(ReadableMap options) {
-    CertificatePinner.Builder certificatePinner = new CertificatePinner.Builder();
-    ReadableArray hashes = options.getArray("certificates");
+  private static FetchResult readResponse(
+      FetchRequestContext request,
+      Request sent,
+      Response response
+  ) throws IOException {
+    int responseCode = response.code();
+    boolean successful = response.isSuccessful() && responseCode < 400;
+    String url = sent.url().toString();
+    okhttp3.ResponseBody body = response.body();
+    BufferedSource source = body != null ? source(sent, body) : null;
+
+    long tx = response.sentRequestAtMillis();
+    long rx = response.receivedResponseAtMillis();
+    String duration = (rx - tx) + "ms";
+
+    // Error bodies are always returned as text so callers can surface the server message.
+    if (successful && request.responseConfig.isFile() && body != null) {
+      ResponseFileWriter.Written file = ResponseFileWriter.write(
+          source,
+          request.responseConfig.getDestination()
+      );
+      return FetchResult.downloaded(responseCode, url, duration, file, timings(request, sent));
+    }
+
+    // Chunks go to the listener as they arrive; the result itself carries no body.
+    if (successful && request.responseConfig.isStream() && body != null) {
+      ResponseStreamer.stream(
+          source,
+          request.responseConfig.getStreamFormat(),
+          request.responseConfig.getMaxChunkBytes(),
+          (StreamListener) request.listener
+      );
+      return FetchResult.response(responseCode, url, duration, "", true, timings(request, sent));
+    }
 
-    for (int i = 0; i < hashes.size(); i++) {
-      String pin = CryptoUtils.normalizePinHash(hashes.getString(i));
-      if (pin.isEmpty()) {
-        throw new IllegalArgumentException("Invalid certificate/public key pin at index " + i);
+    // Bodies over the cap, or that are not valid JSON, fall back to the string response.
+    if (successful && request.responseConfig.isJson() && body != null) {
+      Object data = JsonResponseDecoder.decode(
+          source,
+          request.responseConfig.getMaxJsonBytes()
+      );
+      if (data != null) {
+        return FetchResult.decoded(responseCode, url, duration, data, timings(request, sent));
       }
-      // OkHttp CertificatePinner pins SPKI SHA-256 hashes (public key pinning).
-      certificatePinner.add(this.hostname, "sha256/" + pin);
     }
 
-    return certificatePinner.build();
+    byte[] bytes = source != null ? source.readByteArray() : new byte[0];
+    String responseBodyString = new String(bytes, StandardCharsets.UTF_8);
+    return FetchResult.response(
+        responseCode,
+        url,
+        duration,
+        responseBodyString,
+        successful,
+        timings(request, sent)
+    );
   }
 
-  private OkHttpClient getClient(ReadableMap options, PinningConfig pinningConfig) {
-    OkHttpClient.Builder builder = new OkHttpClient.Builder();
-
-    // Fail-closed: once pinning is configured, OkHttp enforces pins with no system-trust fallback.
-    if (pinningConfig.isEnabled()) {
-      builder.certificatePinner(getCertificatePinner(options));
+  /** The response body, counted for {@code progress} when the request asked for it. */
+  private static BufferedSource source(Request sent, okhttp3.ResponseBody body) {
+    TransferProgress progress = sent.tag(TransferProgress.class);
+    if (progress == null) {
+      return body.source();
     }
+    return Okio.buffer(progress.wrap(body.source(), body.contentLength()));
+  }
 
-    if (options.hasKey("timeout")) {
-      int timeout = options.getInt("timeout");
-      builder.connectTimeout(timeout, TimeUnit.MILLISECONDS)
-          .readTimeout(timeout, TimeUnit.MILLISECONDS)
-          .writeTimeout(timeout, TimeUnit.MILLISECONDS);
+  /** Phase breakdown for a consumed response; also feeds the per-host histograms. */
+  private static FetchTimings.Phases timings(FetchRequestContext request, Request sent) {
+    FetchTimings listener = sent.tag(FetchTimings.class);
+    if (listener == null) {
+      return null;
     }
+    FetchTimings.Phases phases = listener.snapshot();
+    LatencyHistograms.record(request.hostname, phases);
+    return phases;
+  }
 
-    // Hard-gate network logging to debug builds only.
-    if (options.hasKey("loggerIsEnabled")
-        && options.getBoolean("loggerIsEnabled")
-        && BuildConfig.DEBUG) {
-      ChuckerInterceptor chuckerInterceptor = new ChuckerInterceptor.Builder(context)
-          .redactHeaders(HeaderSanitizer.SENSITIVE_HEADERS.toArray(new String[0]))
-          .build();
-      builder.addInterceptor(chuckerInterceptor);
+  private static FetchResult transportError(IOException e) {
+    if (!(e instanceof SocketTimeoutException)) {
+      e.printStackTrace();
     }
-
-    return builder.build();
+    return FetchResult.transportError(e.getMessage() != null ? e.getMessage() : EMPTY_RESPONSE);
   }
 
-  private static String getHostname(String url) throws URISyntaxException {
+  static String getHostname(String url) throws URISyntaxException {
     URI uri = new URI(url.trim());
     String domain = uri.getHost();
     if (domain == null) {
@@ -222,7 +629,14 @@ public class Sslpinning {
     return domain;
   }
 
-  private String getMethod(ReadableMap options) {
+  static String getTag(ReadableMap options, String fallback) {
+    if (options.hasKey("tag") && options.getType("tag") == ReadableType.String) {
+      return options.getString("tag");
+    }
+    return fallback;
+  }
+
+  static String getMethod(ReadableMap options) {
     String method = "GET";
     if (options.hasKey("method") && options.getString("method") != null) {
       method = options.getString("method").toUpperCase();
@@ -230,7 +644,7 @@ public class Sslpinning {
     return method;
   }
 
-  private Headers setHeader(ReadableMap options) {
+  static Headers setHeader(ReadableMap options) {
     if (!options.hasKey("headers")) {
       return null;
     }
@@ -244,7 +658,7 @@ public class Sslpinning {
     return builder.build();
   }
 
-  private HashMap<String, String> readableMapToHashMap(ReadableMap readableMap) {
+  private static HashMap<String, String> readableMapToHashMap(ReadableMap readableMap) {
     HashMap<String, String> map = new HashMap<>();
     if (readableMap == null) {
       return map;
@@ -269,6 +683,10 @@ public class Sslpinning {
   }
 
   private RequestBody setBody(ReadableMap options) {
+    if (options.hasKey("bodyFile") && options.getType("bodyFile") == ReadableType.Map) {
+      return getFileBody(options.getMap("bodyFile"));
+    }
+
     if (!options.hasKey("body")) {
       return null;
     }
@@ -291,6 +709,14 @@ public class Sslpinning {
     }
   }
 
+  /** Raw (non-multipart) upload streamed from {@code bodyFile.uri} or {@code bodyFile.path}. */
+  private RequestBody getFileBody(ReadableMap fileData) {
+    String type = fileData.hasKey("type") && fileData.getString("type") != null
+        ? fileData.getString("type")
+        : "application/octet-stream";
+    return UriRequestBody.create(context, getFileLocation(fileData), MediaType.parse(type));
+  }
+
   private RequestBody getBody(ReadableMap body) {
     MultipartBody.Builder multipartBodyBuilder = new MultipartBody.Builder()
         .setType(MultipartBody.FORM);
@@ -321,60 +747,149 @@ public class Sslpinning {
       ReadableMap fileData,
       String key
   ) {
-    Uri uri = Uri.parse("");
-    if (fileData.hasKey("uri")) {
-      uri = Uri.parse(fileData.getString("uri"));
-    } else if (fileData.hasKey("path")) {
-      uri = Uri.parse(fileData.getString("path"));
-    }
     String type = fileData.getString("type");
     String fileName = fileData.hasKey("fileName")
         ? fileData.getString("fileName")
         : fileData.getString("name");
 
-    try {
-      File file = getTempFile(context, uri);
-      tempFiles.add(file);
-      multipartBodyBuilder.addFormDataPart(key, fileName, RequestBody.create(MediaType.parse(type), file));
-    } catch (IOException e) {
-      throw new IllegalStateException("Failed to read multipart file", e);
-    }
+    // Streamed from the provider when OkHttp writes the part; no temp copy is made.
+    RequestBody fileBody = UriRequestBody.create(
+        context,
+        getFileLocation(fileData),
+        MediaType.parse(type)
+    );
+    multipartBodyBuilder.addFormDataPart(key, fileName, fileBody);
   }
 
-  public static File getTempFile(Context context, Uri uri) throws IOException {
-    File file = File.createTempFile("media", null);
-    try (InputStream inputStream = context.getContentResolver().openInputStream(uri);
-         OutputStream outputStream = new BufferedOutputStream(new FileOutputStream(file))) {
-      if (inputStream == null) {
-        throw new IOException("Unable to open URI: " + uri);
-      }
-      byte[] buffer = new byte[1024];
-      int len;
-      while ((len = inputStream.read(buffer)) != -1) {
-        outputStream.write(buffer, 0, len);
-      }
+  private static String getFileLocation(ReadableMap fileData) {
+    if (fileData.hasKey("uri")) {
+      return fileData.getString("uri");
+    } else if (fileData.hasKey("path")) {
+      return fileData.getString("path");
     }
-    return file;
+    return "";
   }
 
-  private boolean isValidDomain(String hostname, ReadableMap options) {
-    ReadableArray domains = options.getArray("validDomains");
-    if (domains == null || domains.size() == 0) {
-      return false;
+  static final class ResponseConfig {
+    static final String TYPE_TEXT = "text";
+    static final String TYPE_FILE = "file";
+    static final String TYPE_JSON = "json";
+    static final String TYPE_STREAM = "stream";
+
+    private final String type;
+    private final File destination;
+    // Largest decoded JSON body, or largest stream chunk.
+    private final long maxBytes;
+    private final String streamFormat;
+    private final String error;
+
+    private ResponseConfig(
+        String type,
+        File destination,
+        long maxBytes,
+        String streamFormat,
+        String error
+    ) {
+      this.type = type;
+      this.destination = destination;
+      this.maxBytes = maxBytes;
+      this.streamFormat = streamFormat;
+      this.error = error;
     }
 
-    for (int i = 0; i < domains.size(); i++) {
-      String domain = domains.getString(i);
-      if (domain == null || domain.trim().isEmpty()) {
-        continue;
+    private static ResponseConfig invalid(String type, String error) {
+      return new ResponseConfig(type, null, 0, null, error);
+    }
+
+    static ResponseConfig fromOptions(ReadableMap options) {
+      String type = TYPE_TEXT;
+      if (options.hasKey("responseType") && options.getString("responseType") != null) {
+        type = options.getString("responseType");
+      }
+
+      if (TYPE_TEXT.equals(type)) {
+        return new ResponseConfig(type, null, 0, null, null);
+      }
+      if (TYPE_STREAM.equals(type)) {
+        String format = options.hasKey("streamFormat")
+            ? options.getString("streamFormat")
+            : ResponseStreamer.FORMAT_LINES;
+        if (!ResponseStreamer.FORMAT_LINES.equals(format)
+            && !ResponseStreamer.FORMAT_SSE.equals(format)) {
+          return invalid(type, "Unsupported streamFormat '" + format + "'");
+        }
+        long maxChunkBytes = options.hasKey("maxChunkBytes")
+            ? (long) options.getDouble("maxChunkBytes")
+            : ResponseStreamer.DEFAULT_MAX_CHUNK_BYTES;
+        if (maxChunkBytes < 1) {
+          return invalid(type, "maxChunkBytes must be at least 1");
+        }
+        return new ResponseConfig(type, null, maxChunkBytes, format, null);
+      }
+      if (TYPE_JSON.equals(type)) {
+        long maxJsonBytes = JsonResponseDecoder.DEFAULT_MAX_BYTES;
+        if (options.hasKey("maxJsonBytes")) {
+          maxJsonBytes = (long) options.getDouble("maxJsonBytes");
+          if (maxJsonBytes < 0) {
+            return invalid(type, "maxJsonBytes must not be negative");
+          }
+        }
+        return new ResponseConfig(type, null, maxJsonBytes, null, null);
+      }
+      if (!TYPE_FILE.equals(type)) {
+        return invalid(type, "Unsupported responseType '" + type + "'");
       }
-      String normalized = domain.trim().toLowerCase();
-      String host = hostname.toLowerCase();
-      if (host.equals(normalized) || host.endsWith("." + normalized)) {
-        return true;
+
+      String destination = options.hasKey("destination")
+          ? options.getString("destination")
+          : null;
+      if (destination == null || destination.trim().isEmpty()) {
+        return invalid(type, "responseType 'file' requires a destination path");
       }
+      return new ResponseConfig(
+          type,
+          ResponseFileWriter.resolveDestination(destination),
+          0,
+          null,
+          null
+      );
+    }
+
+    boolean isFile() {
+      return TYPE_FILE.equals(type);
+    }
+
+    boolean isJson() {
+      return TYPE_JSON.equals(type);
+    }
+
+    boolean isStream() {
+      return TYPE_STREAM.equals(type);
+    }
+
+    String getStreamFormat() {
+      return streamFormat;
+    }
+
+    long getMaxChunkBytes() {
+      return maxBytes;
+    }
+
+    File getDestination() {
+      return destination;
+    }
+
+    long getMaxJsonBytes() {
+      return maxBytes;
+    }
+
+    boolean hasError() {
+      return error != null;
+    }
+
+    String getError() {
+      return error;
     }
-    return false;
   }
 
   static final class PinningConfig {
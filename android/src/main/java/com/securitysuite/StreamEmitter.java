@@ -0,0 +1,169 @@
+package com.securitysuite;
+
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.WritableArray;
+import com.facebook.react.bridge.WritableMap;
+
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Delivers the chunks of one {@code fetchStream} to JS as events, coalesced and flow-controlled.
+ *
+ * <p>The first chunk is emitted at once; after that, chunks arriving within {@code coalesceMs}
+ * of the last event are batched into the next one. At most {@code maxUnackedEvents} events are
+ * outstanding: JS acknowledges each after its handler returns, and until it does chunks pile up
+ * in the next batch. Once that batch holds {@link #MAX_PENDING_CHUNKS} too, the reading thread
+ * blocks, which stops reading the socket and lets TCP push back on the server. A consumer that
+ * acknowledges nothing for {@link #STALL_TIMEOUT_MS} fails the stream.
+ *
+ * <p>Every stream ends with one event carrying {@code done: true} and the usual fetch result
+ * (status, timings, or error), emitted after all of its chunks.
+ */
+final class StreamEmitter {
+  static final long DEFAULT_COALESCE_MS = 50;
+  static final int DEFAULT_MAX_UNACKED_EVENTS = 4;
+  static final int MAX_PENDING_CHUNKS = 256;
+  static final long STALL_TIMEOUT_MS = 60_000;
+
+  interface EventSender {
+    void send(WritableMap event);
+  }
+
+  private static final ScheduledExecutorService FLUSHER = createFlusher();
+
+  private final String streamId;
+  private final boolean sse;
+  private final EventSender sender;
+  private final long coalesceMs;
+  private final int maxUnackedEvents;
+
+  private List<ResponseStreamer.Chunk> pending = new ArrayList<>();
+  private long lastEmitMs;
+  private boolean flushScheduled;
+  private int unacked;
+  private long chunkCount;
+  private boolean finished;
+
+  StreamEmitter(
+      String streamId,
+      boolean sse,
+      EventSender sender,
+      long coalesceMs,
+      int maxUnackedEvents
+  ) {
+    this.streamId = streamId;
+    this.sse = sse;
+    this.sender = sender;
+    this.coalesceMs = coalesceMs;
+    this.maxUnackedEvents = maxUnackedEvents;
+  }
+
+  /** Called on the reading thread for every chunk; blocks while JS is too far behind. */
+  synchronized void onChunk(ResponseStreamer.Chunk chunk) throws InterruptedIOException {
+    long deadline = System.currentTimeMillis() + STALL_TIMEOUT_MS;
+    while (pending.size() >= MAX_PENDING_CHUNKS && !finished) {
+      long remaining = deadline - System.currentTimeMillis();
+      if (remaining <= 0) {
+        throw new InterruptedIOException("Stream consumer stalled");
+      }
+      try {
+        wait(remaining);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new InterruptedIOException("Interrupted");
+      }
+    }
+    pending.add(chunk);
+    chunkCount++;
+
+    long sinceLast = System.currentTimeMillis() - lastEmitMs;
+    if (sinceLast >= coalesceMs) {
+      flush();
+    } else if (!flushScheduled) {
+      flushScheduled = true;
+      FLUSHER.schedule(this::scheduledFlush, coalesceMs - sinceLast, TimeUnit.MILLISECONDS);
+    }
+  }
+
+  /** JS finished handling one event. */
+  synchronized void ack() {
+    if (unacked > 0) {
+      unacked--;
+    }
+    flush();
+    notifyAll();
+  }
+
+  /** Emits whatever is pending, ignoring the window, then the terminal event. */
+  synchronized void finish(FetchResult result) {
+    if (finished) {
+      return;
+    }
+    finished = true;
+    emit();
+    WritableMap event = result.toWritableMap();
+    event.putString("streamId", streamId);
+    event.putBoolean("done", true);
+    event.putBoolean("ok", result.isSuccess());
+    event.putDouble("chunkCount", chunkCount);
+    sender.send(event);
+    notifyAll();
+  }
+
+  private synchronized void scheduledFlush() {
+    flushScheduled = false;
+    flush();
+  }
+
+  private void flush() {
+    if (!finished && unacked < maxUnackedEvents) {
+      emit();
+    }
+  }
+
+  private void emit() {
+    if (pending.isEmpty()) {
+      return;
+    }
+    WritableArray chunks = Arguments.createArray();
+    for (ResponseStreamer.Chunk chunk : pending) {
+      if (!sse) {
+        chunks.pushString(chunk.data);
+        continue;
+      }
+      WritableMap event = Arguments.createMap();
+      event.putString("data", chunk.data);
+      if (chunk.event != null) {
+        event.putString("event", chunk.event);
+      }
+      if (chunk.id != null) {
+        event.putString("id", chunk.id);
+      }
+      chunks.pushMap(event);
+    }
+    pending = new ArrayList<>();
+    unacked++;
+    lastEmitMs = System.currentTimeMillis();
+
+    WritableMap event = Arguments.createMap();
+    event.putString("streamId", streamId);
+    event.putArray("chunks", chunks);
+    sender.send(event);
+    notifyAll();
+  }
+
+  private static ScheduledExecutorService createFlusher() {
+    ScheduledThreadPoolExecutor flusher = new ScheduledThreadPoolExecutor(1, runnable -> {
+      Thread thread = new Thread(runnable, "SecuritySuite-stream");
+      thread.setDaemon(true);
+      return thread;
+    });
+    flusher.setRemoveOnCancelPolicy(true);
+    return flusher;
+  }
+}
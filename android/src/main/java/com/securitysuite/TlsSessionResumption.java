@@ -0,0 +1,192 @@
+package com.securitysuite;
+
+import android.content.Context;
+
+import java.io.File;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.security.Provider;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLSession;
+import javax.net.ssl.SSLSocketFactory;
+import javax.net.ssl.TrustManager;
+import javax.net.ssl.X509TrustManager;
+
+/**
+ * Opt-in persistent TLS session cache for pinned clients, so the first request after a cold
+ * start can resume a session instead of running a full handshake.
+ *
+ * <p>The platform TLS stack only exposes a plaintext file cache, so this needs the app to bundle
+ * Conscrypt ({@code org.conscrypt:conscrypt-android}), whose public
+ * {@code Conscrypt.setClientSessionCache} accepts a custom store. Conscrypt is loaded via
+ * reflection, like Play Integrity, so the module works without it. Sessions are kept in a
+ * {@link TlsSessionStore} under {@code noBackupFilesDir}, encrypted with their own data key,
+ * wrapped by a Keystore key that is not shared with the HTTP cache.
+ *
+ * <p>Resumption does not weaken pinning. OkHttp runs {@code CertificatePinner} on every new
+ * connection, against the peer chain the (resumed) session carries, and a session only reaches
+ * the store after a full handshake that passed the trust manager.
+ */
+public final class TlsSessionResumption {
+  private static final String DIRECTORY_NAME = "securitysuite-tls-sessions";
+  private static final String WRAPPED_KEY_FILE = "session.key";
+  private static final String KEY_ALIAS = "com.securitysuite.tlssessions.wrap";
+
+  private static final Object LOCK = new Object();
+
+  private static TlsSessionStore store;
+  private static X509TrustManager trustManager;
+  private static SSLSocketFactory socketFactory;
+
+  private TlsSessionResumption() {}
+
+  /** Whether the Conscrypt provider is bundled and loadable on this device. */
+  public static boolean isAvailable() {
+    try {
+      Class<?> conscrypt = Class.forName("org.conscrypt.Conscrypt");
+      return (Boolean) conscrypt.getMethod("isAvailable").invoke(null);
+    } catch (Throwable t) {
+      return false;
+    }
+  }
+
+  /** Enables resumption for pinned clients built from now on. */
+  public static void enable(Context context) throws Exception {
+    if (!isAvailable()) {
+      throw new IllegalStateException(
+          "TLS session resumption requires org.conscrypt:conscrypt-android"
+      );
+    }
+    File directory = new File(context.getNoBackupFilesDir(), DIRECTORY_NAME);
+    File keyFile = new File(directory, WRAPPED_KEY_FILE);
+    byte[] dataKey;
+    try {
+      dataKey = FetchCacheKeyStore.loadOrCreateDataKey(keyFile, KEY_ALIAS);
+    } catch (Exception e) {
+      // The wrapping key is gone; stored sessions are unreadable, so start over.
+      deleteContents(directory);
+      dataKey = FetchCacheKeyStore.loadOrCreateDataKey(keyFile, KEY_ALIAS);
+    }
+    synchronized (LOCK) {
+      store = new TlsSessionStore(directory, dataKey);
+      trustManager = null;
+      socketFactory = null;
+    }
+    PinnedClientRegistry.evictAll();
+  }
+
+  /** Stops resuming and storing sessions. Stored sessions stay on disk until {@link #clear()}. */
+  public static void disable() {
+    synchronized (LOCK) {
+      store = null;
+      trustManager = null;
+      socketFactory = null;
+    }
+    PinnedClientRegistry.evictAll();
+  }
+
+  public static void clear() {
+    synchronized (LOCK) {
+      if (store != null) {
+        store.clear();
+      }
+    }
+    // Drop pooled connections too, so the next request really does a full handshake.
+    PinnedClientRegistry.evictAll();
+  }
+
+  static long storedCount() {
+    synchronized (LOCK) {
+      return store != null ? store.storedCount() : 0;
+    }
+  }
+
+  static long restoredCount() {
+    synchronized (LOCK) {
+      return store != null ? store.restoredCount() : 0;
+    }
+  }
+
+  /**
+   * Conscrypt socket factory backed by the persistent store and validating with
+   * {@code trustManager}, or {@code null} when resumption is disabled or unavailable.
+   */
+  static SSLSocketFactory socketFactoryFor(X509TrustManager trustManager) {
+    synchronized (LOCK) {
+      if (store == null || trustManager == null) {
+        return null;
+      }
+      if (socketFactory != null && TlsSessionResumption.trustManager == trustManager) {
+        return socketFactory;
+      }
+      try {
+        socketFactory = createSocketFactory(store, trustManager);
+        TlsSessionResumption.trustManager = trustManager;
+        return socketFactory;
+      } catch (Throwable t) {
+        return null;
+      }
+    }
+  }
+
+  private static SSLSocketFactory createSocketFactory(
+      TlsSessionStore store,
+      X509TrustManager trustManager
+  ) throws Exception {
+    Class<?> conscrypt = Class.forName("org.conscrypt.Conscrypt");
+    Provider provider = (Provider) conscrypt.getMethod("newProvider").invoke(null);
+    SSLContext sslContext = SSLContext.getInstance("TLS", provider);
+    sslContext.init(null, new TrustManager[] { trustManager }, null);
+
+    Class<?> cacheInterface = Class.forName("org.conscrypt.SSLClientSessionCache");
+    Object cache = Proxy.newProxyInstance(
+        cacheInterface.getClassLoader(),
+        new Class<?>[] { cacheInterface },
+        new SessionCacheHandler(store)
+    );
+    conscrypt.getMethod("setClientSessionCache", SSLContext.class, cacheInterface)
+        .invoke(null, sslContext, cache);
+    return sslContext.getSocketFactory();
+  }
+
+  // The session directory is flat: the wrapped key and one file per host.
+  private static void deleteContents(File directory) {
+    File[] files = directory.listFiles();
+    if (files != null) {
+      for (File file : files) {
+        file.delete();
+      }
+    }
+  }
+
+  /** Implements {@code org.conscrypt.SSLClientSessionCache} over a {@link TlsSessionStore}. */
+  private static final class SessionCacheHandler implements InvocationHandler {
+    private final TlsSessionStore store;
+
+    SessionCacheHandler(TlsSessionStore store) {
+      this.store = store;
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) {
+      switch (method.getName()) {
+        case "getSessionData":
+          return store.load((String) args[0], (Integer) args[1]);
+        case "putSessionData":
+          SSLSession session = (SSLSession) args[0];
+          store.save(session.getPeerHost(), session.getPeerPort(), (byte[]) args[1]);
+          return null;
+        case "hashCode":
+          return System.identityHashCode(proxy);
+        case "equals":
+          return proxy == args[0];
+        case "toString":
+          return "TlsSessionStore";
+        default:
+          return null;
+      }
+    }
+  }
+}
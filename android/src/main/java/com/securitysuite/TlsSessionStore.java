@@ -0,0 +1,185 @@
+package com.securitysuite;
+
+import com.securitysuite.crypto.encryption.AesGcmEncryption;
+import com.securitysuite.crypto.utils.CryptoBytes;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Locale;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+
+import okio.Buffer;
+import okio.BufferedSink;
+import okio.BufferedSource;
+import okio.Okio;
+
+/**
+ * Encrypted on-disk store for serialized TLS client sessions, one file per {@code host:port}.
+ *
+ * <p>A file is {@code version (1) || savedAtMillis (8) || IV (12) || AES-256-GCM(session)}, with
+ * the version, timestamp and {@code host:port} as associated data. A session copied to another
+ * host's file, or with its timestamp rolled forward, fails authentication and is dropped.
+ * Entries older than {@link #MAX_AGE_MS} are never returned, and at most {@link #MAX_ENTRIES}
+ * are kept, oldest first out.
+ */
+final class TlsSessionStore {
+  static final long MAX_AGE_MS = 24L * 60 * 60 * 1000;
+  static final int MAX_ENTRIES = 64;
+  private static final byte VERSION = 1;
+  private static final int HEADER_LENGTH = 1 + 8;
+  private static final String TRANSFORMATION = "AES/GCM/NoPadding";
+  private static final String SUFFIX = ".session";
+
+  private final File directory;
+  private final SecretKeySpec key;
+
+  private long stored;
+  private long restored;
+
+  TlsSessionStore(File directory, byte[] dataKey) {
+    if (dataKey == null || dataKey.length != 32) {
+      throw new IllegalArgumentException("Session encryption requires a 32-byte key");
+    }
+    this.directory = directory;
+    this.key = new SecretKeySpec(dataKey, "AES");
+  }
+
+  /** Session bytes previously saved for {@code host:port}, or {@code null}. */
+  synchronized byte[] load(String host, int port) {
+    if (host == null) {
+      return null;
+    }
+    File file = fileFor(host, port);
+    if (!file.isFile()) {
+      return null;
+    }
+    try {
+      byte[] sealed;
+      try (BufferedSource source = Okio.buffer(Okio.source(file))) {
+        sealed = source.readByteArray();
+      }
+      if (sealed.length < HEADER_LENGTH + AesGcmEncryption.IV_LENGTH || sealed[0] != VERSION) {
+        throw new IOException("Unsupported session file");
+      }
+      long savedAt = ByteBuffer.wrap(sealed, 1, 8).getLong();
+      long age = System.currentTimeMillis() - savedAt;
+      if (age < 0 || age > MAX_AGE_MS) {
+        file.delete();
+        return null;
+      }
+
+      Cipher cipher = Cipher.getInstance(TRANSFORMATION);
+      cipher.init(Cipher.DECRYPT_MODE, key, new GCMParameterSpec(
+          AesGcmEncryption.TAG_LENGTH_BITS,
+          sealed,
+          HEADER_LENGTH,
+          AesGcmEncryption.IV_LENGTH
+      ));
+      cipher.updateAAD(associatedData(sealed, host, port));
+      int offset = HEADER_LENGTH + AesGcmEncryption.IV_LENGTH;
+      byte[] session = cipher.doFinal(sealed, offset, sealed.length - offset);
+      restored++;
+      return session;
+    } catch (Exception e) {
+      // Tampered, moved or unreadable: a full handshake is always a safe fallback.
+      file.delete();
+      return null;
+    }
+  }
+
+  synchronized void save(String host, int port, byte[] session) {
+    if (host == null || port <= 0 || session == null) {
+      return;
+    }
+    if (!directory.isDirectory() && !directory.mkdirs()) {
+      return;
+    }
+    try {
+      byte[] header = ByteBuffer.allocate(HEADER_LENGTH)
+          .put(VERSION)
+          .putLong(System.currentTimeMillis())
+          .array();
+      byte[] iv = CryptoBytes.randomBytes(AesGcmEncryption.IV_LENGTH);
+      Cipher cipher = Cipher.getInstance(TRANSFORMATION);
+      cipher.init(
+          Cipher.ENCRYPT_MODE,
+          key,
+          new GCMParameterSpec(AesGcmEncryption.TAG_LENGTH_BITS, iv)
+      );
+      cipher.updateAAD(associatedData(header, host, port));
+      byte[] ciphertext = cipher.doFinal(session);
+
+      File file = fileFor(host, port);
+      File temp = new File(directory, file.getName() + ".tmp");
+      try (BufferedSink sink = Okio.buffer(Okio.sink(temp))) {
+        sink.write(header);
+        sink.write(iv);
+        sink.write(ciphertext);
+      }
+      if (!temp.renameTo(file)) {
+        temp.delete();
+        return;
+      }
+      stored++;
+      trim();
+    } catch (Exception ignored) {
+      // Not persisting a session only costs a full handshake next time.
+    }
+  }
+
+  synchronized void clear() {
+    File[] files = directory.listFiles();
+    if (files != null) {
+      for (File file : files) {
+        if (file.getName().endsWith(SUFFIX)) {
+          file.delete();
+        }
+      }
+    }
+    stored = 0;
+    restored = 0;
+  }
+
+  synchronized long storedCount() {
+    return stored;
+  }
+
+  synchronized long restoredCount() {
+    return restored;
+  }
+
+  private void trim() {
+    File[] files = directory.listFiles((dir, name) -> name.endsWith(SUFFIX));
+    if (files == null || files.length <= MAX_ENTRIES) {
+      return;
+    }
+    Arrays.sort(files, Comparator.comparingLong(File::lastModified));
+    for (int i = 0; i < files.length - MAX_ENTRIES; i++) {
+      files[i].delete();
+    }
+  }
+
+  // Hashed so hostnames are not readable from the file listing.
+  private File fileFor(String host, int port) {
+    String name = new Buffer().writeUtf8(endpoint(host, port)).sha256().hex().substring(0, 32);
+    return new File(directory, name + SUFFIX);
+  }
+
+  private static byte[] associatedData(byte[] header, String host, int port) {
+    byte[] endpoint = endpoint(host, port).getBytes(StandardCharsets.UTF_8);
+    byte[] aad = Arrays.copyOf(header, HEADER_LENGTH + endpoint.length);
+    System.arraycopy(endpoint, 0, aad, HEADER_LENGTH, endpoint.length);
+    return aad;
+  }
+
+  private static String endpoint(String host, int port) {
+    return host.toLowerCase(Locale.US) + ":" + port;
+  }
+}
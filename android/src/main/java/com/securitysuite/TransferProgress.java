@@ -0,0 +1,229 @@
+package com.securitysuite;
+
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.ReadableMap;
+import com.facebook.react.bridge.WritableMap;
+
+import java.io.IOException;
+
+import okhttp3.MediaType;
+import okhttp3.RequestBody;
+
+import okio.Buffer;
+import okio.BufferedSink;
+import okio.ForwardingSink;
+import okio.ForwardingSource;
+import okio.Okio;
+import okio.Source;
+
+/**
+ * Upload and download progress for one fetch, reported as events while bytes move.
+ *
+ * <p>The request body is wrapped in a counting sink and the response body in a counting source,
+ * so progress follows what OkHttp actually writes and reads, including bodies streamed from a
+ * file or URI. Events are throttled: one is sent only once {@code intervalMs} has passed since
+ * the previous one <em>and</em> at least {@code minPercent} more of a known total has moved, so
+ * a fast link produces at most {@code 1000 / intervalMs} events per second and
+ * {@code 100 / minPercent} per transfer. The last event of each direction carries
+ * {@code done: true} and is never throttled.
+ *
+ * <p>Both directions count the body as the caller sees it: uploads before {@code compressRequest}
+ * or {@code encryptBody} transform it, downloads after {@code Content-Encoding} and
+ * {@code decryptResponse} are undone, so {@code total} is the length the caller expects. A
+ * retried upload starts again from zero.
+ */
+final class TransferProgress {
+  static final long DEFAULT_INTERVAL_MS = 100;
+  static final double DEFAULT_MIN_PERCENT = 1;
+  static final String UPLOAD = "upload";
+  static final String DOWNLOAD = "download";
+
+  interface EventSender {
+    void send(WritableMap event);
+  }
+
+  /** Monotonic clock for throttling; replaced in tests. */
+  interface Clock {
+    long nowMs();
+  }
+
+  private final String id;
+  private final EventSender sender;
+  private final long intervalMs;
+  private final double minPercent;
+  private final Clock clock;
+
+  TransferProgress(String id, EventSender sender, long intervalMs, double minPercent, Clock clock) {
+    this.id = id;
+    this.sender = sender;
+    this.intervalMs = intervalMs;
+    this.minPercent = minPercent;
+    this.clock = clock;
+  }
+
+  /**
+   * Reads {@code progress: {id, intervalMs?, minPercent?}}. Returns {@code null} when progress
+   * was not requested or there is nobody to send events to.
+   *
+   * @throws IllegalArgumentException for a missing id or an out-of-range throttle
+   */
+  static TransferProgress fromOptions(ReadableMap options, EventSender sender) {
+    if (!options.hasKey("progress") || options.isNull("progress") || sender == null) {
+      return null;
+    }
+    ReadableMap progress = options.getMap("progress");
+    String id = progress.hasKey("id") ? progress.getString("id") : null;
+    if (id == null || id.isEmpty()) {
+      throw new IllegalArgumentException("progress.id is required");
+    }
+    long intervalMs = progress.hasKey("intervalMs")
+        ? (long) progress.getDouble("intervalMs")
+        : DEFAULT_INTERVAL_MS;
+    if (intervalMs < 0) {
+      throw new IllegalArgumentException("progress.intervalMs must not be negative");
+    }
+    double minPercent = progress.hasKey("minPercent")
+        ? progress.getDouble("minPercent")
+        : DEFAULT_MIN_PERCENT;
+    if (minPercent < 0 || minPercent > 100) {
+      throw new IllegalArgumentException("progress.minPercent must be between 0 and 100");
+    }
+    return new TransferProgress(
+        id,
+        sender,
+        intervalMs,
+        minPercent,
+        () -> System.nanoTime() / 1_000_000
+    );
+  }
+
+  /** Meter for a transfer made of several requests, e.g. the chunks of an upload. */
+  Meter meter(String direction, long total) {
+    return new Meter(direction, total);
+  }
+
+  /** Counts {@code body} as it is written; {@code null} stays {@code null}. */
+  RequestBody wrap(RequestBody body) {
+    return body != null ? new CountingRequestBody(body) : null;
+  }
+
+  /** Counts {@code source} as it is read; {@code total} is {@code -1} when unknown. */
+  Source wrap(Source source, long total) {
+    Meter meter = new Meter(DOWNLOAD, total);
+    return new ForwardingSource(source) {
+      @Override
+      public long read(Buffer sink, long byteCount) throws IOException {
+        long read = super.read(sink, byteCount);
+        if (read == -1) {
+          meter.finish();
+        } else {
+          meter.add(read);
+        }
+        return read;
+      }
+    };
+  }
+
+  private final class CountingRequestBody extends RequestBody {
+    private final RequestBody body;
+
+    CountingRequestBody(RequestBody body) {
+      this.body = body;
+    }
+
+    @Override
+    public MediaType contentType() {
+      return body.contentType();
+    }
+
+    @Override
+    public long contentLength() throws IOException {
+      return body.contentLength();
+    }
+
+    @Override
+    public boolean isOneShot() {
+      return body.isOneShot();
+    }
+
+    @Override
+    public void writeTo(BufferedSink sink) throws IOException {
+      Meter meter = new Meter(UPLOAD, body.contentLength());
+      BufferedSink counting = Okio.buffer(new ForwardingSink(sink) {
+        @Override
+        public void write(Buffer source, long byteCount) throws IOException {
+          super.write(source, byteCount);
+          meter.add(byteCount);
+        }
+      });
+      body.writeTo(counting);
+      // Flushing pushes the tail into the request sink without closing it.
+      counting.flush();
+      meter.finish();
+    }
+  }
+
+  /** One direction of one attempt; safe to feed from several threads. */
+  final class Meter {
+    private final String direction;
+    private final long total;
+    private long bytes;
+    private long lastEmitMs;
+    private long lastEmitBytes;
+    private boolean finished;
+
+    Meter(String direction, long total) {
+      this.direction = direction;
+      this.total = total;
+      this.lastEmitMs = clock.nowMs();
+    }
+
+    synchronized void add(long count) {
+      if (finished) {
+        return;
+      }
+      bytes += count;
+      if (total > 0 && bytes >= total) {
+        finish();
+        return;
+      }
+      long now = clock.nowMs();
+      boolean intervalElapsed = now - lastEmitMs >= intervalMs;
+      boolean enoughMoved = total <= 0 || (bytes - lastEmitBytes) * 100.0 >= minPercent * total;
+      if (intervalElapsed && enoughMoved) {
+        emit(now, false);
+      }
+    }
+
+    /** Takes back {@code count} bytes that will be transferred again, e.g. after a restart. */
+    synchronized void rewind(long count) {
+      if (finished) {
+        return;
+      }
+      bytes = Math.max(0, bytes - count);
+      lastEmitBytes = Math.min(lastEmitBytes, bytes);
+    }
+
+    synchronized void finish() {
+      if (!finished) {
+        finished = true;
+        emit(clock.nowMs(), true);
+      }
+    }
+
+    private void emit(long now, boolean done) {
+      WritableMap event = Arguments.createMap();
+      event.putString("id", id);
+      event.putString("direction", direction);
+      event.putDouble("bytes", bytes);
+      event.putDouble("total", total);
+      // Rate over the interval since the previous event, so it follows link changes.
+      long elapsedMs = Math.max(1, now - lastEmitMs);
+      event.putDouble("bytesPerSecond", (bytes - lastEmitBytes) * 1000.0 / elapsedMs);
+      event.putBoolean("done", done);
+      lastEmitMs = now;
+      lastEmitBytes = bytes;
+      sender.send(event);
+    }
+  }
+}
@@ -0,0 +1,98 @@
+package com.securitysuite;
+
+import android.content.ContentResolver;
+import android.content.Context;
+import android.content.res.AssetFileDescriptor;
+import android.database.Cursor;
+import android.net.Uri;
+import android.provider.OpenableColumns;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+
+import okhttp3.MediaType;
+import okhttp3.RequestBody;
+
+import okio.BufferedSink;
+import okio.Okio;
+import okio.Source;
+
+/**
+ * Request body that streams straight from a {@code content://} URI into the OkHttp sink.
+ *
+ * <p>Replaces the old copy-to-temp-file step: the provider is opened each time the body is
+ * written, so nothing is staged on disk or in memory. {@code file://} URIs and plain paths
+ * are served by OkHttp's file body, which reads the file directly.
+ */
+final class UriRequestBody extends RequestBody {
+  private final ContentResolver resolver;
+  private final Uri uri;
+  private final MediaType contentType;
+  private final long contentLength;
+
+  private UriRequestBody(ContentResolver resolver, Uri uri, MediaType contentType) {
+    this.resolver = resolver;
+    this.uri = uri;
+    this.contentType = contentType;
+    this.contentLength = queryLength(resolver, uri);
+  }
+
+  /** Returns a streaming body for a {@code content://} URI, {@code file://} URI or plain path. */
+  static RequestBody create(Context context, String location, MediaType contentType) {
+    if (location == null || location.trim().isEmpty()) {
+      throw new IllegalArgumentException("File uri or path is required");
+    }
+    Uri uri = Uri.parse(location.trim());
+    String scheme = uri.getScheme();
+    if (scheme == null || ContentResolver.SCHEME_FILE.equals(scheme)) {
+      String path = scheme == null ? location.trim() : uri.getPath();
+      return RequestBody.create(new File(path), contentType);
+    }
+    return new UriRequestBody(context.getContentResolver(), uri, contentType);
+  }
+
+  @Override
+  public MediaType contentType() {
+    return contentType;
+  }
+
+  /** Size reported by the provider, or -1 (chunked upload) when it does not know. */
+  @Override
+  public long contentLength() {
+    return contentLength;
+  }
+
+  @Override
+  public void writeTo(BufferedSink sink) throws IOException {
+    InputStream inputStream = resolver.openInputStream(uri);
+    if (inputStream == null) {
+      throw new IOException("Unable to open URI: " + uri);
+    }
+    try (Source source = Okio.source(inputStream)) {
+      sink.writeAll(source);
+    }
+  }
+
+  private static long queryLength(ContentResolver resolver, Uri uri) {
+    try (Cursor cursor = resolver.query(uri, new String[] {OpenableColumns.SIZE}, null, null, null)) {
+      if (cursor != null && cursor.moveToFirst() && !cursor.isNull(0)) {
+        long size = cursor.getLong(0);
+        if (size >= 0) {
+          return size;
+        }
+      }
+    } catch (RuntimeException ignored) {
+      // Providers are free to reject metadata queries; fall through to the descriptor.
+    }
+
+    try (AssetFileDescriptor descriptor = resolver.openAssetFileDescriptor(uri, "r")) {
+      if (descriptor != null) {
+        return descriptor.getLength();
+      }
+    } catch (IOException | RuntimeException ignored) {
+      // Unknown length: OkHttp falls back to chunked transfer encoding.
+    }
+    return -1;
+  }
+}
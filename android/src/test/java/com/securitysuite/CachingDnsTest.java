@@ -0,0 +1,107 @@
+package com.securitysuite;
+
+import com.facebook.react.bridge.ReadableMap;
+
+import org.junit.Test;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import okhttp3.Dns;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+public class CachingDnsTest {
+  private long now = 1_000_000;
+  private final Queue<Runnable> refreshes = new ArrayDeque<>();
+  private final AtomicInteger upstreamLookups = new AtomicInteger();
+  private List<InetAddress> answer;
+
+  private final Dns upstream = hostname -> {
+    upstreamLookups.incrementAndGet();
+    if (answer == null) {
+      throw new UnknownHostException(hostname);
+    }
+    return answer;
+  };
+
+  @Test
+  public void servesCachedThenStaleAnswersWhileRefreshingOnce() throws Exception {
+    CachingDns dns = new CachingDns(upstream, 1_000, 5_000, refreshes::add, () -> now);
+    List<InetAddress> first = Collections.singletonList(address("10.0.0.1"));
+    List<InetAddress> second = Collections.singletonList(address("10.0.0.2"));
+
+    answer = first;
+    assertEquals(first, dns.lookup("api.example.com"));
+    now += 999;
+    assertEquals(first, dns.lookup("api.example.com"));
+    assertEquals(1, upstreamLookups.get());
+
+    // Expired but inside the stale window: old answer now, a single refresh in the background.
+    answer = second;
+    now += 2_000;
+    assertEquals(first, dns.lookup("api.example.com"));
+    assertEquals(first, dns.lookup("api.example.com"));
+    assertEquals(1, refreshes.size());
+    refreshes.poll().run();
+    assertEquals(second, dns.lookup("api.example.com"));
+    assertEquals(2, upstreamLookups.get());
+
+    // Past the stale window the lookup is synchronous again, and failures are not cached.
+    now += 10_000;
+    answer = null;
+    for (int i = 0; i < 2; i++) {
+      try {
+        dns.lookup("api.example.com");
+        fail();
+      } catch (UnknownHostException expected) {
+        // Reported to OkHttp as usual.
+      }
+    }
+    assertEquals(4, upstreamLookups.get());
+
+    ReadableMap stats = dns.getStats().getMap("hosts").getMap("api.example.com");
+    assertEquals(7, stats.getInt("lookups"));
+    assertEquals(2, stats.getInt("hits"));
+    assertEquals(2, stats.getInt("staleHits"));
+    assertEquals(2, stats.getInt("misses"));
+    assertEquals(2, stats.getInt("failures"));
+    assertEquals("10.0.0.2", stats.getArray("addresses").getString(0));
+  }
+
+  @Test
+  public void interleavesAddressFamiliesStartingWithThePreferredOne() throws Exception {
+    InetAddress v6a = address("2001:db8::1");
+    InetAddress v6b = address("2001:db8::2");
+    InetAddress v4a = address("192.0.2.1");
+    InetAddress v4b = address("192.0.2.2");
+    InetAddress v4c = address("192.0.2.3");
+
+    assertEquals(
+        Arrays.asList(v6a, v4a, v6b, v4b, v4c),
+        CachingDns.interleave(Arrays.asList(v6a, v6b, v4a, v4b, v4c))
+    );
+    assertEquals(
+        Arrays.asList(v4a, v6a, v4b, v6b),
+        CachingDns.interleave(Arrays.asList(v4a, v4b, v6a, v6b))
+    );
+
+    CachingDns dns = new CachingDns(upstream, 1_000, 0, refreshes::add, () -> now);
+    answer = Arrays.asList(v4a, v4b, v6a);
+    assertEquals(Arrays.asList(v4a, v6a, v4b), dns.lookup("cdn.example.com"));
+    dns.clear();
+    dns.lookup("cdn.example.com");
+    assertEquals(2, upstreamLookups.get());
+  }
+
+  private static InetAddress address(String literal) throws UnknownHostException {
+    return InetAddress.getByName(literal);
+  }
+}
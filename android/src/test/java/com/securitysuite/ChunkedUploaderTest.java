@@ -0,0 +1,159 @@
+package com.securitysuite;
+
+import com.facebook.react.bridge.JavaOnlyArray;
+import com.facebook.react.bridge.JavaOnlyMap;
+import com.facebook.react.bridge.ReadableMap;
+import com.facebook.react.bridge.WritableMap;
+
+import org.json.JSONObject;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+
+import okio.ByteString;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+public class ChunkedUploaderTest {
+  private static final int CHUNK = 64 * 1024;
+
+  @Rule
+  public final TemporaryFolder folder = new TemporaryFolder();
+
+  @Rule
+  public final PinnedServerRule pinned = new PinnedServerRule();
+
+  private final MockWebServer server = pinned.server();
+
+  @Test
+  public void resumesAfterAFailedChunkAndCommits() throws Exception {
+    byte[] content = new byte[4 * CHUNK + 37_856];
+    new Random(7).nextBytes(content);
+    File file = folder.newFile("video.mp4");
+    Files.write(file.toPath(), content);
+    File journalDir = new File(folder.getRoot(), "journal");
+
+    byte[] received = new byte[content.length];
+    AtomicBoolean failThirdChunk = new AtomicBoolean(true);
+    AtomicInteger chunkRequests = new AtomicInteger();
+    BlockingQueue<String> commits = new LinkedBlockingQueue<>();
+    server.setDispatcher(new Dispatcher() {
+      @Override
+      public MockResponse dispatch(RecordedRequest request) {
+        if (request.getPath().equals("/commit")) {
+          commits.add(request.getBody().readUtf8());
+          return new MockResponse().setBody("{\"id\":\"v1\"}");
+        }
+        if ("2".equals(request.getHeader("X-Run"))) {
+          // A chunk of the failed run may still land after the failure; count only the resume.
+          chunkRequests.incrementAndGet();
+        }
+        String range = request.getHeader("Content-Range");
+        int offset = Integer.parseInt(range.substring("bytes ".length(), range.indexOf('-')));
+        if (offset == 2 * CHUNK && failThirdChunk.getAndSet(false)) {
+          return new MockResponse().setResponseCode(500).setBody("disk full");
+        }
+        byte[] body = request.getBody().readByteArray();
+        String digest = "sha-256=:" + ByteString.of(body).sha256().base64() + ":";
+        boolean intact = digest.equals(request.getHeader("Content-Digest"));
+        if (!"PUT".equals(request.getMethod()) || !intact) {
+          return new MockResponse().setResponseCode(400);
+        }
+        System.arraycopy(body, 0, received, offset, body.length);
+        return new MockResponse().setResponseCode(204);
+      }
+    });
+
+    JavaOnlyMap options = JavaOnlyMap.of(
+        "file", JavaOnlyMap.of("path", file.getAbsolutePath()),
+        "chunkSize", (double) CHUNK,
+        "concurrency", 2,
+        "retry", JavaOnlyMap.of("maxAttempts", 1),
+        "commitUrl", "https://localhost:" + server.getPort() + "/commit",
+        "certificates", JavaOnlyArray.of(pinned.pin()),
+        "validDomains", JavaOnlyArray.of("localhost")
+    );
+    String url = "https://localhost:" + server.getPort() + "/upload";
+
+    ReadableMap first = upload(url, options, journalDir);
+    assertFalse(first.getBoolean("ok"));
+    assertEquals(500, first.getInt("status"));
+    assertEquals("disk full", first.getString("error"));
+    assertEquals(5, first.getInt("chunkCount"));
+    assertEquals(1, journalDir.listFiles().length);
+    assertTrue(commits.isEmpty());
+
+    options.putMap("headers", JavaOnlyMap.of("X-Run", "2"));
+    ReadableMap second = upload(url, options, journalDir);
+    assertTrue(second.getString("error"), second.getBoolean("ok"));
+    assertEquals(first.getString("uploadId"), second.getString("uploadId"));
+    assertTrue(second.getInt("resumedChunks") >= Math.max(1, first.getInt("uploadedChunks")));
+    assertEquals(5, second.getInt("resumedChunks") + second.getInt("uploadedChunks"));
+    // Only the chunks the first run did not finish were sent again.
+    assertEquals(second.getInt("uploadedChunks"), chunkRequests.get());
+    assertArrayEquals(content, received);
+
+    assertEquals(200, second.getInt("status"));
+    assertEquals("{\"id\":\"v1\"}", second.getString("response"));
+    JSONObject commit = new JSONObject(commits.poll(5, TimeUnit.SECONDS));
+    assertEquals(content.length, commit.getLong("size"));
+    assertEquals(
+        ByteString.of(Arrays.copyOfRange(content, 4 * CHUNK, content.length)).sha256().hex(),
+        commit.getJSONArray("chunks").getString(4)
+    );
+    assertEquals(0, journalDir.listFiles().length);
+  }
+
+  @Test
+  public void discardsAJournalForADifferentFile() throws Exception {
+    File journalDir = folder.newFolder("journal");
+    ChunkedUploader.Journal journal =
+        ChunkedUploader.Journal.open(journalDir, "u1", "https://x/upload", 1000, CHUNK, 42);
+    journal.markDone(0, "aa");
+
+    assertEquals(
+        "aa",
+        ChunkedUploader.Journal.open(journalDir, "u1", "https://x/upload", 1000, CHUNK, 42)
+            .chunks()
+            .get(0)
+    );
+    assertTrue(
+        ChunkedUploader.Journal.open(journalDir, "u1", "https://x/upload", 1001, CHUNK, 42)
+            .chunks()
+            .isEmpty()
+    );
+    assertTrue(
+        ChunkedUploader.Journal.open(journalDir, "u1", "https://x/upload", 1000, CHUNK, 42)
+            .chunks()
+            .isEmpty()
+    );
+  }
+
+  private static ReadableMap upload(String url, ReadableMap options, File journalDir)
+      throws Exception {
+    BlockingQueue<WritableMap> results = new LinkedBlockingQueue<>();
+    new Sslpinning(null).uploadChunked(url, options, null, journalDir, results::add);
+    WritableMap result = results.poll(10, TimeUnit.SECONDS);
+    assertNotNull(result);
+    return result;
+  }
+}
@@ -0,0 +1,111 @@
+package com.securitysuite;
+
+import com.facebook.react.bridge.JavaOnlyMap;
+import com.facebook.react.bridge.ReadableArray;
+import com.facebook.react.bridge.ReadableMap;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+public class CircuitBreakerTest {
+  private long now = 1_000;
+  private final CircuitBreaker breaker = new CircuitBreaker(() -> now);
+
+  @Test
+  public void opensOnFailureRateFailsFastAndClosesAfterProbes() {
+    CircuitBreaker.Permit unchecked = breaker.acquire("api.example.com");
+    breaker.configure(JavaOnlyMap.of(
+        "windowSize", 4,
+        "minimumCalls", 4,
+        "failureRateThreshold", 0.5,
+        "openDurationMs", 10_000d,
+        "halfOpenMaxCalls", 2
+    ));
+    // Disabled until configured: every attempt goes through.
+    assertNotNull(unchecked);
+
+    breaker.acquire("api.example.com").onResponse(200, 20);
+    breaker.acquire("api.example.com").onResponse(503, 20);
+    CircuitBreaker.Permit late = breaker.acquire("api.example.com");
+    breaker.acquire("api.example.com").onResponse(200, 20);
+    breaker.acquire("API.example.com").onFailure();
+    assertNull(breaker.acquire("api.example.com"));
+    assertNotNull(breaker.acquire("other.example.com"));
+    assertEquals(10_000, breaker.retryAfterMs("api.example.com"));
+    // An attempt from before the circuit opened cannot affect it any more.
+    late.onResponse(200, 20);
+
+    now += 10_000;
+    CircuitBreaker.Permit first = breaker.acquire("api.example.com");
+    CircuitBreaker.Permit second = breaker.acquire("api.example.com");
+    assertNull(breaker.acquire("api.example.com"));
+    first.onResponse(200, 30);
+    second.onResponse(204, 30);
+
+    ReadableMap stats = breaker.getStats();
+    ReadableMap host = stats.getMap("hosts").getMap("api.example.com");
+    assertEquals("closed", host.getString("state"));
+    assertEquals(2, host.getDouble("rejected"), 0);
+    ReadableArray events = stats.getArray("events");
+    assertEquals(3, events.size());
+    assertEquals("open", events.getMap(0).getString("to"));
+    assertEquals("failureRate", events.getMap(0).getString("reason"));
+    assertEquals(0.5, events.getMap(0).getDouble("failureRate"), 0);
+    assertEquals("half-open", events.getMap(1).getString("to"));
+    assertEquals("probesSucceeded", events.getMap(2).getString("reason"));
+    assertEquals(11_000, events.getMap(2).getDouble("at"), 0);
+  }
+
+  @Test
+  public void opensOnSlowCallsAndReopensWhenAProbeFails() {
+    breaker.configure(JavaOnlyMap.of(
+        "windowSize", 3,
+        "minimumCalls", 3,
+        "slowCallDurationMs", 1_000d,
+        "slowCallRateThreshold", 0.6,
+        "openDurationMs", 5_000d,
+        "halfOpenMaxCalls", 1
+    ));
+
+    breaker.acquire("slow.example.com").onResponse(200, 1_500);
+    breaker.acquire("slow.example.com").onResponse(200, 100);
+    // A cancelled attempt counts neither way.
+    breaker.acquire("slow.example.com").release();
+    breaker.acquire("slow.example.com").onResponse(200, 2_000);
+    assertNull(breaker.acquire("slow.example.com"));
+
+    now += 5_000;
+    CircuitBreaker.Permit probe = breaker.acquire("slow.example.com");
+    probe.onFailure();
+    assertNull(breaker.acquire("slow.example.com"));
+    assertEquals(5_000, breaker.retryAfterMs("slow.example.com"));
+
+    ReadableArray events = breaker.getStats().getArray("events");
+    assertEquals("slowCallRate", events.getMap(0).getString("reason"));
+    assertEquals("probeFailed", events.getMap(2).getString("reason"));
+    assertEquals("open", events.getMap(2).getString("to"));
+
+    breaker.reset();
+    assertEquals(0, breaker.getStats().getArray("events").size());
+    assertNotNull(breaker.acquire("slow.example.com"));
+  }
+
+  @Test
+  public void neverEvictsAnOpenCircuit() {
+    breaker.configure(JavaOnlyMap.of("windowSize", 1, "minimumCalls", 1));
+    breaker.acquire("down.example.com").onFailure();
+    for (int i = 0; i < CircuitBreaker.MAX_HOSTS; i++) {
+      breaker.acquire("host" + i + ".example.com").onResponse(200, 10);
+    }
+
+    assertNull(breaker.acquire("down.example.com"));
+    ReadableMap hosts = breaker.getStats().getMap("hosts");
+    assertEquals(CircuitBreaker.MAX_HOSTS, hosts.toHashMap().size());
+    // The least recently used closed host made room instead.
+    assertFalse(hosts.hasKey("host0.example.com"));
+  }
+}
@@ -0,0 +1,90 @@
+package com.securitysuite;
+
+import com.facebook.react.bridge.JavaOnlyMap;
+
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.zip.Inflater;
+
+import okhttp3.RequestBody;
+
+import okio.Buffer;
+import okio.ByteString;
+import okio.GzipSource;
+import okio.InflaterSource;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class CompressedRequestBodyTest {
+  @Test
+  public void compressesLargeBodiesAndRoundTrips() throws Exception {
+    StringBuilder json = new StringBuilder("[");
+    for (int i = 0; i < 2000; i++) {
+      json.append("{\"event\":\"screen_view\",\"seq\":").append(i).append("},");
+    }
+    json.append("{}]");
+    byte[] payload = json.toString().getBytes(StandardCharsets.UTF_8);
+    RequestBody body = RequestBody.create(payload, Sslpinning.mediaType);
+
+    RequestBody gzip = CompressedRequestBody.wrap(body, JavaOnlyMap.of("compressRequest", "gzip"));
+    assertEquals("gzip", CompressedRequestBody.encodingOf(gzip));
+    assertEquals(-1, gzip.contentLength());
+    assertEquals(Sslpinning.mediaType, gzip.contentType());
+    Buffer sent = write(gzip);
+    assertTrue(sent.size() < payload.length / 4);
+    Buffer decoded = new Buffer();
+    decoded.writeAll(new GzipSource(sent));
+    assertEquals(json.toString(), decoded.readUtf8());
+
+    // Written twice, as a retry would.
+    assertEquals(write(gzip).sha256(), write(gzip).sha256());
+
+    RequestBody deflate = CompressedRequestBody.wrap(
+        body,
+        JavaOnlyMap.of("compressRequest", "deflate")
+    );
+    assertEquals("deflate", CompressedRequestBody.encodingOf(deflate));
+    Buffer inflated = new Buffer();
+    inflated.writeAll(new InflaterSource(write(deflate), new Inflater()));
+    assertEquals(json.toString(), inflated.readUtf8());
+
+    // The signature is computed from the original body, never the wrapper.
+    assertEquals(
+        new Buffer().write(payload).sha256(),
+        ByteString.of(RequestBodyDigest.of(body).sha256())
+    );
+  }
+
+  @Test
+  public void skipsSmallBodiesAndRejectsUnknownEncodings() throws Exception {
+    RequestBody small = RequestBody.create("{\"ok\":true}", Sslpinning.mediaType);
+    assertSame(small, CompressedRequestBody.wrap(small, JavaOnlyMap.of("compressRequest", "gzip")));
+    assertNull(CompressedRequestBody.encodingOf(small));
+    assertSame(small, CompressedRequestBody.wrap(small, new JavaOnlyMap()));
+
+    RequestBody forced = CompressedRequestBody.wrap(
+        small,
+        JavaOnlyMap.of("compressRequest", "gzip", "compressThreshold", 0)
+    );
+    assertEquals("gzip", CompressedRequestBody.encodingOf(forced));
+    assertNull(CompressedRequestBody.wrap(null, JavaOnlyMap.of("compressRequest", "gzip")));
+
+    try {
+      CompressedRequestBody.wrap(small, JavaOnlyMap.of("compressRequest", "br"));
+      fail();
+    } catch (IllegalArgumentException expected) {
+      assertTrue(expected.getMessage().contains("'br'"));
+    }
+  }
+
+  private static Buffer write(RequestBody body) throws Exception {
+    Buffer buffer = new Buffer();
+    body.writeTo(buffer);
+    return buffer;
+  }
+}
@@ -0,0 +1,143 @@
+package com.securitysuite;
+
+import com.facebook.react.bridge.JavaOnlyArray;
+import com.facebook.react.bridge.JavaOnlyMap;
+import com.facebook.react.bridge.ReadableMap;
+import com.facebook.react.bridge.WritableMap;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import okhttp3.Protocol;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class ConnectionWarmerTest {
+  // HTTP/2 would multiplex the warmup calls onto one connection.
+  @Rule
+  public final PinnedServerRule pinned = new PinnedServerRule(Protocol.HTTP_1_1);
+
+  private final MockWebServer server = pinned.server();
+
+  @Before
+  public void setUp() throws Exception {
+    server.setDispatcher(new Dispatcher() {
+      @Override
+      public MockResponse dispatch(RecordedRequest request) {
+        // MockWebServer would write a body after a HEAD response too, corrupting the stream.
+        return "HEAD".equals(request.getMethod())
+            ? new MockResponse()
+            : new MockResponse().setBody("ok");
+      }
+    });
+  }
+
+  @Test
+  public void warmsPinnedConnectionsThatTheNextFetchReuses() throws Exception {
+    String pin = pinned.pin();
+    ReadableMap report = preconnect(pin, 2);
+
+    assertEquals(2, report.getInt("idleConnectionCount"));
+    ReadableMap host = report.getArray("hosts").getMap(0);
+    assertTrue(host.getBoolean("ok"));
+    assertEquals(2, host.getInt("warmedCalls"));
+    assertEquals("http/1.1", host.getString("protocol"));
+    assertEquals("HEAD", server.takeRequest().getMethod());
+
+    AtomicReference<FetchResult> result = new AtomicReference<>();
+    CountDownLatch done = new CountDownLatch(1);
+    new Sslpinning(null).execute(
+        "https://localhost:" + server.getPort() + "/after-warmup",
+        JavaOnlyMap.of(
+            "method", "GET",
+            "certificates", JavaOnlyArray.of(pin),
+            "validDomains", JavaOnlyArray.of("localhost")
+        ),
+        null,
+        value -> {
+          result.set(value);
+          done.countDown();
+        }
+    );
+    assertTrue(done.await(30, TimeUnit.SECONDS));
+    assertTrue(result.get().error, result.get().isSuccess());
+    assertTrue(result.get().timings.connectionReused);
+    assertEquals(-1, result.get().timings.tlsNs);
+  }
+
+  @Test
+  public void wrongPinLeavesNoConnectionBehind() throws Exception {
+    ReadableMap report = preconnect("AAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAAA=", 1);
+
+    assertEquals(0, report.getInt("idleConnectionCount"));
+    ReadableMap host = report.getArray("hosts").getMap(0);
+    assertFalse(host.getBoolean("ok"));
+    assertTrue(host.getString("error").contains("Certificate pinning failure"));
+    assertEquals(0, server.getRequestCount());
+  }
+
+  @Test
+  public void skipsHostsWhoseCircuitIsOpen() throws Exception {
+    CircuitBreaker.SHARED.configure(JavaOnlyMap.of(
+        "windowSize", 1,
+        "minimumCalls", 1,
+        "openDurationMs", 60_000d
+    ));
+    try {
+      CircuitBreaker.SHARED.acquire("localhost").onFailure();
+      ReadableMap report = preconnect(pinned.pin(), 2);
+
+      ReadableMap host = report.getArray("hosts").getMap(0);
+      assertFalse(host.getBoolean("ok"));
+      assertTrue(host.getBoolean("circuitOpen"));
+      assertTrue(host.getDouble("retryAfterMs") > 0);
+      assertEquals(0, server.getRequestCount());
+    } finally {
+      CircuitBreaker.SHARED.configure(JavaOnlyMap.of("enabled", false));
+      CircuitBreaker.SHARED.reset();
+    }
+  }
+
+  private ReadableMap preconnect(String pin, int connectionsPerHost) throws InterruptedException {
+    AtomicReference<WritableMap> report = new AtomicReference<>();
+    AtomicReference<String> error = new AtomicReference<>();
+    CountDownLatch done = new CountDownLatch(1);
+    ConnectionWarmer.preconnect(
+        null,
+        JavaOnlyMap.of(
+            "hosts", JavaOnlyArray.of("localhost:" + server.getPort()),
+            "connectionsPerHost", connectionsPerHost,
+            "certificates", JavaOnlyArray.of(pin),
+            "validDomains", JavaOnlyArray.of("localhost")
+        ),
+        new ConnectionWarmer.Listener() {
+          @Override
+          public void onComplete(WritableMap value) {
+            report.set(value);
+            done.countDown();
+          }
+
+          @Override
+          public void onError(String message) {
+            error.set(message);
+            done.countDown();
+          }
+        }
+    );
+    assertTrue(done.await(30, TimeUnit.SECONDS));
+    assertNull(error.get());
+    return report.get();
+  }
+}
@@ -0,0 +1,125 @@
+package com.securitysuite;
+
+import com.facebook.react.bridge.JavaOnlyMap;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+
+import okio.BufferedSink;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class DeferredSigningTest {
+  private final OkHttpClient client = new OkHttpClient.Builder()
+      .addInterceptor(DeferredSigning.INTERCEPTOR)
+      .build();
+  private final List<Thread> writers = new CopyOnWriteArrayList<>();
+  private MockWebServer server;
+
+  @Before
+  public void setUp() throws Exception {
+    server = new MockWebServer();
+    server.start();
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    server.shutdown();
+  }
+
+  @Test
+  public void signsOnTheSendingThreadOnceAcrossRetries() throws Exception {
+    server.enqueue(new MockResponse());
+    server.enqueue(new MockResponse());
+    Request request = signed(JavaOnlyMap.of("secret", "test-secret"));
+
+    CountDownLatch done = new CountDownLatch(1);
+    client.newCall(request).enqueue(new Callback() {
+      @Override
+      public void onFailure(Call call, IOException e) {
+        done.countDown();
+      }
+
+      @Override
+      public void onResponse(Call call, Response response) {
+        response.close();
+        done.countDown();
+      }
+    });
+    assertTrue(done.await(5, TimeUnit.SECONDS));
+    // The body was hashed by the dispatcher, not by the thread that built the request.
+    assertNotEquals(Thread.currentThread(), writers.get(0));
+
+    // A retry sends the same request again without hashing the body a second time.
+    client.newCall(request).execute().close();
+    RecordedRequest first = server.takeRequest();
+    RecordedRequest second = server.takeRequest();
+    String signature = first.getHeader(JwsFetchSigner.MODERN_JWS_HEADER);
+    assertNotNull(signature);
+    assertEquals(signature, second.getHeader(JwsFetchSigner.MODERN_JWS_HEADER));
+    assertEquals("payload", second.getBody().readUtf8());
+    assertEquals(3, writers.size());
+  }
+
+  @Test
+  public void failsWithoutSendingWhenTheRequestCannotBeSigned() throws Exception {
+    Request request = signed(JavaOnlyMap.of("secret", " "));
+
+    try {
+      client.newCall(request).execute();
+      fail();
+    } catch (DeferredSigning.SigningException e) {
+      assertTrue(e.getMessage().contains("JWS secret is required"));
+    }
+    assertEquals(0, server.getRequestCount());
+  }
+
+  private Request signed(JavaOnlyMap jws) {
+    String url = server.url("/upload").toString();
+    RequestBody body = new RequestBody() {
+      @Override
+      public MediaType contentType() {
+        return MediaType.get("text/plain");
+      }
+
+      @Override
+      public void writeTo(BufferedSink sink) throws IOException {
+        writers.add(Thread.currentThread());
+        sink.writeUtf8("payload");
+      }
+    };
+    return new Request.Builder()
+        .url(url)
+        .post(body)
+        .tag(DeferredSigning.class, DeferredSigning.of(
+            url,
+            "POST",
+            body,
+            JavaOnlyMap.of("jws", jws),
+            null
+        ))
+        .build();
+  }
+}
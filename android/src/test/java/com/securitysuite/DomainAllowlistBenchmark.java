@@ -0,0 +1,67 @@
+package com.securitysuite;
+
+import com.facebook.react.bridge.ReadableArray;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+/**
+ * Microbenchmark of {@link DomainAllowlist} against the previous per-request scan over a
+ * 300-entry allowlist. Not a unit test: timings depend on the machine, so run it by hand with
+ * {@code main} and compare ns/lookup and bytes allocated per lookup.
+ */
+public final class DomainAllowlistBenchmark {
+  private static final int ITERATIONS = 20_000;
+
+  private DomainAllowlistBenchmark() {}
+
+  public static void main(String[] args) {
+    ReadableArray raw = DomainAllowlistTest.rawDomains();
+    DomainAllowlist allowlist = DomainAllowlist.compile(DomainAllowlistTest.toList(raw));
+    String[] hosts = DomainAllowlistTest.hosts();
+
+    // Warm up both paths so the JIT has compiled them before measuring.
+    int sink = 0;
+    for (int i = 0; i < ITERATIONS; i++) {
+      String host = hosts[i % hosts.length];
+      sink += DomainAllowlistTest.legacyIsValidDomain(host, raw) ? 1 : 0;
+      sink += allowlist.matches(host) ? 1 : 0;
+    }
+
+    long scanAllocated = allocatedBytes();
+    long scanStart = System.nanoTime();
+    for (int i = 0; i < ITERATIONS; i++) {
+      sink += DomainAllowlistTest.legacyIsValidDomain(hosts[i % hosts.length], raw) ? 1 : 0;
+    }
+    long scanNs = System.nanoTime() - scanStart;
+    scanAllocated = allocatedBytes() - scanAllocated;
+
+    long compiledAllocated = allocatedBytes();
+    long compiledStart = System.nanoTime();
+    for (int i = 0; i < ITERATIONS; i++) {
+      sink += allowlist.matches(hosts[i % hosts.length]) ? 1 : 0;
+    }
+    long compiledNs = System.nanoTime() - compiledStart;
+    compiledAllocated = allocatedBytes() - compiledAllocated;
+
+    System.out.printf(
+        "validDomains(%d): linear scan %.1f ns/op, %d B/op; compiled %.1f ns/op, %d B/op (%d)%n",
+        raw.size(),
+        (double) scanNs / ITERATIONS,
+        scanAllocated / ITERATIONS,
+        (double) compiledNs / ITERATIONS,
+        compiledAllocated / ITERATIONS,
+        sink
+    );
+  }
+
+  // Per-thread allocation counters are a HotSpot extension; report 0 where they are missing.
+  private static long allocatedBytes() {
+    ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+    if (threads instanceof com.sun.management.ThreadMXBean) {
+      return ((com.sun.management.ThreadMXBean) threads)
+          .getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+    return 0;
+  }
+}
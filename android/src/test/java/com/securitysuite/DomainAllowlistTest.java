@@ -0,0 +1,96 @@
+package com.securitysuite;
+
+import com.facebook.react.bridge.JavaOnlyArray;
+import com.facebook.react.bridge.ReadableArray;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class DomainAllowlistTest {
+  private static final int DOMAINS = 300;
+
+  @Test
+  public void matchesDomainsAndSubdomainsOnLabelBoundaries() {
+    DomainAllowlist allowlist = DomainAllowlist.compile(
+        Arrays.asList(" Example.COM ", "api.partner.io.", "bücher.de", "", null)
+    );
+
+    assertTrue(allowlist.matches("example.com"));
+    assertTrue(allowlist.matches("API.Example.com"));
+    assertTrue(allowlist.matches("deep.sub.example.com."));
+    assertTrue(allowlist.matches("api.partner.io"));
+    assertTrue(allowlist.matches("xn--bcher-kva.de"));
+    assertTrue(allowlist.matches("shop.xn--bcher-kva.de"));
+
+    assertFalse(allowlist.matches("badexample.com"));
+    assertFalse(allowlist.matches("example.com.evil.net"));
+    assertFalse(allowlist.matches("partner.io"));
+    assertFalse(allowlist.matches("com"));
+    assertFalse(allowlist.matches(""));
+    assertFalse(DomainAllowlist.compile(Arrays.asList(" ", null)).matches("example.com"));
+  }
+
+  @Test
+  public void agreesWithLinearScan() {
+    ReadableArray raw = rawDomains();
+    DomainAllowlist allowlist = DomainAllowlist.compile(toList(raw));
+    for (String host : hosts()) {
+      assertEquals(host, legacyIsValidDomain(host, raw), allowlist.matches(host));
+    }
+  }
+
+  static ReadableArray rawDomains() {
+    JavaOnlyArray domains = new JavaOnlyArray();
+    for (int i = 0; i < DOMAINS; i++) {
+      domains.pushString(" Service" + i + ".Example" + (i % 7) + ".com ");
+    }
+    return domains;
+  }
+
+  static String[] hosts() {
+    return new String[] {
+        "service7.example0.com",
+        "api.service150.example3.com",
+        "deep.api.service299.example5.com",
+        "service300.example6.com",
+        "evilservice7.example0.com",
+        "unrelated.host.net",
+        "SERVICE42.EXAMPLE0.COM",
+        "example0.com",
+    };
+  }
+
+  static List<String> toList(ReadableArray array) {
+    List<String> values = new ArrayList<>();
+    for (int i = 0; i < array.size(); i++) {
+      values.add(array.getString(i));
+    }
+    return values;
+  }
+
+  // The matcher that Sslpinning ran on every request before allowlists were compiled.
+  static boolean legacyIsValidDomain(String hostname, ReadableArray domains) {
+    if (domains == null || domains.size() == 0) {
+      return false;
+    }
+    for (int i = 0; i < domains.size(); i++) {
+      String domain = domains.getString(i);
+      if (domain == null || domain.trim().isEmpty()) {
+        continue;
+      }
+      String normalized = domain.trim().toLowerCase();
+      String host = hostname.toLowerCase();
+      if (host.equals(normalized) || host.endsWith("." + normalized)) {
+        return true;
+      }
+    }
+    return false;
+  }
+}
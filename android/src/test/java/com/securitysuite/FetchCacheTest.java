@@ -0,0 +1,242 @@
+package com.securitysuite;
+
+import com.facebook.react.bridge.JavaOnlyArray;
+import com.facebook.react.bridge.JavaOnlyMap;
+import com.facebook.react.bridge.ReadableMap;
+import com.securitysuite.crypto.utils.CryptoBytes;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import okhttp3.CertificatePinner;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import okhttp3.tls.HeldCertificate;
+
+import okio.Buffer;
+import okio.BufferedSink;
+import okio.BufferedSource;
+import okio.ByteString;
+import okio.Okio;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class FetchCacheTest {
+  private static final String CATALOG = "{\"catalog\":\"sensitive-catalog-contents\"}";
+
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  @Rule
+  public final PinnedServerRule pinned = new PinnedServerRule();
+
+  private final MockWebServer server = pinned.server();
+  private Sslpinning sslpinning;
+
+  @Before
+  public void setUp() throws Exception {
+    server.setDispatcher(new Dispatcher() {
+      @Override
+      public MockResponse dispatch(RecordedRequest request) {
+        if (request.getPath().equals("/moved")) {
+          return new MockResponse().setResponseCode(302).setHeader("Location", "/fresh");
+        }
+        if ("\"v1\"".equals(request.getHeader("If-None-Match"))) {
+          return new MockResponse().setResponseCode(304).setHeader("ETag", "\"v1\"");
+        }
+        return new MockResponse()
+            .setHeader("ETag", "\"v1\"")
+            .setHeader("Cache-Control", request.getPath().startsWith("/fresh")
+                ? "max-age=60"
+                : "no-cache")
+            .setBody(CATALOG);
+      }
+    });
+    FetchCache.configure(
+        temporaryFolder.newFolder("cache"),
+        1024 * 1024,
+        new EncryptedCacheFiles(CryptoBytes.randomBytes(32))
+    );
+    FetchCache.clear();
+    sslpinning = new Sslpinning(null);
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    FetchCache.disable();
+  }
+
+  @Test
+  public void revalidatesWithEtagAndServesFreshEntriesWithoutNetwork() throws Exception {
+    assertEquals(CATALOG, fetch("/catalog").body);
+    assertEquals(CATALOG, fetch("/catalog").body);
+    assertEquals(CATALOG, fetch("/fresh").body);
+    assertEquals(CATALOG, fetch("/fresh").body);
+
+    assertEquals(3, server.getRequestCount());
+    ReadableMap stats = FetchCache.getStats();
+    assertEquals(2, stats.getInt("missCount"));
+    assertEquals(1, stats.getInt("conditionalRequestCount"));
+    assertEquals(1, stats.getInt("revalidatedCount"));
+    assertEquals(1, stats.getInt("hitCount"));
+    assertEquals(2 * CATALOG.length(), stats.getInt("bytesServedFromCache"));
+
+    byte[] needle = "sensitive-catalog-contents".getBytes("UTF-8");
+    File root = temporaryFolder.getRoot();
+    for (File file : Files.walk(root.toPath()).map(Path::toFile)
+        .filter(File::isFile).toArray(File[]::new)) {
+      assertFalse(file + " holds plaintext",
+          ByteString.of(Files.readAllBytes(file.toPath())).indexOf(ByteString.of(needle)) >= 0);
+    }
+  }
+
+  @Test
+  public void neverFilesARedirectedResponseUnderTheOriginalUrl() throws Exception {
+    assertEquals(CATALOG, fetch("/moved").body);
+    assertEquals(CATALOG, fetch("/moved").body);
+
+    assertEquals(4, server.getRequestCount());
+    assertEquals(0, FetchCache.getStats().getInt("sizeBytes"));
+  }
+
+  @Test
+  public void unpinnedRequestsNeverUseTheCache() throws Exception {
+    for (int i = 0; i < 2; i++) {
+      CountDownLatch done = new CountDownLatch(1);
+      sslpinning.execute(
+          "https://localhost:" + server.getPort() + "/fresh",
+          JavaOnlyMap.of("method", "GET"),
+          null,
+          result -> done.countDown()
+      );
+      assertTrue(done.await(30, TimeUnit.SECONDS));
+    }
+    assertEquals(2, server.getRequestCount());
+    assertEquals(0, FetchCache.getStats().getInt("missCount"));
+  }
+
+  @Test
+  public void segmentedEntriesRoundTripAndRejectTampering() throws Exception {
+    EncryptedCacheFiles files = new EncryptedCacheFiles(CryptoBytes.randomBytes(32));
+    int segment = EncryptedCacheFiles.SEGMENT_SIZE;
+    int[] sizes = {0, 1, segment, 2 * segment, 150_000};
+    for (int size : sizes) {
+      byte[] plaintext = Arrays.copyOf(CryptoBytes.randomBytes(Math.max(size, 1)), size);
+      File file = temporaryFolder.newFile("entry-" + size + ".1");
+      try (BufferedSink sink = Okio.buffer(files.sink(file, file.getName()))) {
+        sink.write(plaintext);
+      }
+      try (BufferedSource source = Okio.buffer(files.source(file, file.getName()))) {
+        assertArrayEquals(plaintext, source.readByteArray());
+      }
+    }
+
+    File file = new File(temporaryFolder.getRoot(), "entry-150000.1");
+    try (RandomAccessFile raw = new RandomAccessFile(file, "rw")) {
+      raw.seek(100);
+      int value = raw.read();
+      raw.seek(100);
+      raw.write(value ^ 1);
+    }
+    assertUnreadable(files, file, file.getName());
+
+    // Cut after the first full segment: it was sealed as non-final, so it must not verify.
+    File twoSegments = new File(temporaryFolder.getRoot(), "entry-" + 2 * segment + ".1");
+    try (RandomAccessFile raw = new RandomAccessFile(twoSegments, "rw")) {
+      raw.setLength(9 + segment + 16);
+    }
+    assertUnreadable(files, twoSegments, twoSegments.getName());
+
+    // A file opened under another entry's name must not verify.
+    assertUnreadable(files, new File(temporaryFolder.getRoot(), "entry-1.1"), "other.1");
+  }
+
+  @Test
+  public void everyPinSetSharesOneSizeBudget() throws Exception {
+    String body = new String(new char[40 * 1024]).replace('\0', 'x');
+    server.setDispatcher(new Dispatcher() {
+      @Override
+      public MockResponse dispatch(RecordedRequest request) {
+        return new MockResponse().setHeader("Cache-Control", "max-age=60").setBody(body);
+      }
+    });
+    FetchCache.configure(
+        temporaryFolder.newFolder("budget"),
+        100 * 1024,
+        new EncryptedCacheFiles(CryptoBytes.randomBytes(32))
+    );
+    String pin = pinned.pin();
+    String backup = CertificatePinner.pin(new HeldCertificate.Builder().build().certificate());
+    String rotated = CertificatePinner.pin(new HeldCertificate.Builder().build().certificate());
+
+    // Six 40 KiB entries over three pin sets would fit a 100 KiB budget per pin set.
+    for (String[] pins : new String[][] {{pin}, {pin, backup}, {pin, rotated}}) {
+      for (String path : new String[] {"/a", "/b"}) {
+        assertEquals(body, fetch(path, pins).body);
+      }
+    }
+    long size = (long) FetchCache.getStats().getDouble("sizeBytes");
+    assertTrue("size " + size, size > 40 * 1024 && size <= 100 * 1024);
+
+    // The most recent entry survived eviction; the oldest did not.
+    int requests = server.getRequestCount();
+    fetch("/b", pin, rotated);
+    assertEquals(requests, server.getRequestCount());
+    fetch("/a", pin);
+    assertEquals(requests + 1, server.getRequestCount());
+  }
+
+  private static void assertUnreadable(EncryptedCacheFiles files, File file, String name)
+      throws IOException {
+    try (BufferedSource source = Okio.buffer(files.source(file, name))) {
+      source.readAll(new Buffer());
+      fail("Expected authentication failure for " + file);
+    } catch (IOException expected) {
+      // Tampered, truncated or moved entries must not decrypt.
+    }
+  }
+
+  private FetchResult fetch(String path) throws InterruptedException {
+    return fetch(path, pinned.pin());
+  }
+
+  private FetchResult fetch(String path, String... pins) throws InterruptedException {
+    AtomicReference<FetchResult> result = new AtomicReference<>();
+    CountDownLatch done = new CountDownLatch(1);
+    sslpinning.execute(
+        "https://localhost:" + server.getPort() + path,
+        JavaOnlyMap.of(
+            "method", "GET",
+            "certificates", JavaOnlyArray.of((Object[]) pins),
+            "validDomains", JavaOnlyArray.of("localhost")
+        ),
+        null,
+        value -> {
+          result.set(value);
+          done.countDown();
+        }
+    );
+    assertTrue(done.await(30, TimeUnit.SECONDS));
+    assertTrue(result.get().error, result.get().isSuccess());
+    return result.get();
+  }
+}
@@ -0,0 +1,250 @@
+package com.securitysuite;
+
+import com.facebook.react.bridge.JavaOnlyMap;
+import com.facebook.react.bridge.ReadableMap;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+public class FetchSchedulerTest {
+  private final OkHttpClient client = new OkHttpClient();
+  private long breakerNowMs;
+  private final CircuitBreaker breaker = new CircuitBreaker(() -> breakerNowMs);
+  private final BlockingQueue<String> done = new LinkedBlockingQueue<>();
+  private MockWebServer server;
+
+  @Before
+  public void setUp() throws Exception {
+    server = new MockWebServer();
+    server.start();
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    server.shutdown();
+  }
+
+  @Test
+  public void interactiveCallsOvertakeQueuedBackgroundWork() throws Exception {
+    CountDownLatch releaseFirst = new CountDownLatch(1);
+    server.setDispatcher(new Dispatcher() {
+      @Override
+      public MockResponse dispatch(RecordedRequest request) throws InterruptedException {
+        if (request.getPath().equals("/analytics-1")) {
+          releaseFirst.await(5, TimeUnit.SECONDS);
+        }
+        return new MockResponse();
+      }
+    });
+    FetchScheduler scheduler = new FetchScheduler(() -> 0, (task, delayMs) -> {}, breaker);
+    scheduler.configure(JavaOnlyMap.of("maxConcurrent", 1, "maxBackground", 1));
+
+    enqueue(scheduler, "/analytics-1", FetchScheduler.Priority.BACKGROUND);
+    assertEquals("/analytics-1", server.takeRequest(5, TimeUnit.SECONDS).getPath());
+    enqueue(scheduler, "/analytics-2", FetchScheduler.Priority.BACKGROUND);
+    enqueue(scheduler, "/profile", FetchScheduler.Priority.NORMAL);
+    enqueue(scheduler, "/checkout", FetchScheduler.Priority.CRITICAL);
+
+    // Critical calls do not wait for a slot.
+    assertEquals("/checkout", done.poll(5, TimeUnit.SECONDS));
+    ReadableMap classes = scheduler.getStats().getMap("classes");
+    assertEquals(1, classes.getMap("normal").getInt("queued"));
+    assertEquals(1, classes.getMap("background").getInt("queued"));
+    assertEquals(1, classes.getMap("background").getInt("running"));
+
+    releaseFirst.countDown();
+    List<String> order = new ArrayList<>();
+    for (int i = 0; i < 3; i++) {
+      order.add(done.poll(5, TimeUnit.SECONDS));
+    }
+    assertEquals("/analytics-1", order.get(0));
+    // The normal call queued after the second background call still starts first.
+    assertEquals("/profile", order.get(1));
+    assertEquals("/analytics-2", order.get(2));
+    classes = scheduler.getStats().getMap("classes");
+    assertEquals(2, classes.getMap("background").getDouble("started"), 0);
+  }
+
+  @Test
+  public void rateLimitsPerHostAndStartsCancelledCallsAtOnce() throws Exception {
+    long[] now = {0};
+    List<Long> wakeups = new ArrayList<>();
+    List<Runnable> timers = new ArrayList<>();
+    FetchScheduler scheduler = new FetchScheduler(() -> now[0], (task, delayMs) -> {
+      wakeups.add(delayMs);
+      timers.add(task);
+    }, breaker);
+    scheduler.configure(JavaOnlyMap.of(
+        "rateLimits",
+        JavaOnlyMap.of("LOCALHOST", JavaOnlyMap.of("requestsPerSecond", 2d, "burst", 1d))
+    ));
+    for (int i = 0; i < 3; i++) {
+      server.enqueue(new MockResponse());
+    }
+
+    enqueue(scheduler, "/1", FetchScheduler.Priority.NORMAL);
+    enqueue(scheduler, "/2", FetchScheduler.Priority.NORMAL);
+    Call third = enqueue(scheduler, "/3", FetchScheduler.Priority.NORMAL);
+    assertEquals("/1", done.poll(5, TimeUnit.SECONDS));
+    ReadableMap normal = scheduler.getStats().getMap("classes").getMap("normal");
+    assertEquals(2, normal.getInt("queued"));
+    assertEquals(2, normal.getDouble("rateLimited"), 0);
+    assertEquals(Long.valueOf(500), wakeups.get(0));
+
+    now[0] = 500;
+    timers.get(0).run();
+    assertEquals("/2", done.poll(5, TimeUnit.SECONDS));
+
+    third.cancel();
+    scheduler.drain();
+    assertEquals("/3 failed", done.poll(5, TimeUnit.SECONDS));
+    normal = scheduler.getStats().getMap("classes").getMap("normal");
+    assertEquals(0, normal.getInt("queued"));
+    assertEquals(3, normal.getDouble("started"), 0);
+    assertEquals(500, normal.getDouble("maxWaitMs"), 0);
+    // The cancelled call never reached the server.
+    assertEquals(2, server.getRequestCount());
+    assertTrue(done.isEmpty());
+  }
+
+  @Test
+  public void usesEveryHostSlotWhileNoCriticalCallIsWaiting() throws Exception {
+    CountDownLatch release = new CountDownLatch(1);
+    server.setDispatcher(new Dispatcher() {
+      @Override
+      public MockResponse dispatch(RecordedRequest request) throws InterruptedException {
+        release.await(5, TimeUnit.SECONDS);
+        return new MockResponse();
+      }
+    });
+    FetchScheduler scheduler = new FetchScheduler(() -> 0, (task, delayMs) -> {}, breaker);
+    scheduler.setMaxRequestsPerHost(2);
+
+    enqueue(scheduler, "/sync-1", FetchScheduler.Priority.NORMAL);
+    enqueue(scheduler, "/sync-2", FetchScheduler.Priority.NORMAL);
+    ReadableMap normal = scheduler.getStats().getMap("classes").getMap("normal");
+    assertEquals(2, normal.getInt("running"));
+    assertEquals(0, normal.getInt("queued"));
+
+    release.countDown();
+    assertTrue(done.poll(5, TimeUnit.SECONDS).startsWith("/sync-"));
+    assertTrue(done.poll(5, TimeUnit.SECONDS).startsWith("/sync-"));
+  }
+
+  @Test
+  public void leavesAHostSlotForCriticalCalls() throws Exception {
+    CountDownLatch release = new CountDownLatch(1);
+    server.setDispatcher(new Dispatcher() {
+      @Override
+      public MockResponse dispatch(RecordedRequest request) throws InterruptedException {
+        if (request.getPath().startsWith("/sync")) {
+          release.await(5, TimeUnit.SECONDS);
+        }
+        return new MockResponse();
+      }
+    });
+    FetchScheduler scheduler = new FetchScheduler(() -> 0, (task, delayMs) -> {}, breaker);
+    scheduler.setMaxRequestsPerHost(2);
+
+    enqueue(scheduler, "/sync-critical", FetchScheduler.Priority.CRITICAL);
+    enqueue(scheduler, "/sync-1", FetchScheduler.Priority.NORMAL);
+    enqueue(scheduler, "/sync-2", FetchScheduler.Priority.NORMAL);
+
+    // While the critical call runs, normal calls leave it a slot.
+    ReadableMap normal = scheduler.getStats().getMap("classes").getMap("normal");
+    assertEquals(1, normal.getInt("running"));
+    assertEquals(1, normal.getInt("queued"));
+
+    release.countDown();
+    List<String> order = new ArrayList<>();
+    for (int i = 0; i < 3; i++) {
+      order.add(done.poll(5, TimeUnit.SECONDS));
+    }
+    assertTrue(order.contains("/sync-critical"));
+    assertTrue(order.contains("/sync-1"));
+    assertTrue(order.contains("/sync-2"));
+  }
+
+  @Test
+  public void takesTheBreakerPermitOnAdmission() throws Exception {
+    long[] now = {0};
+    List<Runnable> timers = new ArrayList<>();
+    FetchScheduler scheduler =
+        new FetchScheduler(() -> now[0], (task, delayMs) -> timers.add(task), breaker);
+    scheduler.configure(JavaOnlyMap.of(
+        "rateLimits",
+        JavaOnlyMap.of("localhost", JavaOnlyMap.of("requestsPerSecond", 1d, "burst", 1d))
+    ));
+    breaker.configure(JavaOnlyMap.of(
+        "windowSize", 1,
+        "minimumCalls", 1,
+        "openDurationMs", 1_000d,
+        "halfOpenMaxCalls", 1
+    ));
+    server.enqueue(new MockResponse());
+    server.enqueue(new MockResponse());
+
+    enqueue(scheduler, "/first", FetchScheduler.Priority.NORMAL);
+    assertEquals("/first", done.poll(5, TimeUnit.SECONDS));
+
+    // An open circuit fails the call instead of queueing it.
+    breaker.acquire("localhost").onFailure();
+    enqueue(scheduler, "/refused", FetchScheduler.Priority.NORMAL);
+    assertEquals("/refused circuit open", done.poll(5, TimeUnit.SECONDS));
+    assertEquals(0, scheduler.getStats().getMap("classes").getMap("normal").getInt("queued"));
+
+    // Half-open: a call waiting for its token does not hold the only probe slot.
+    breakerNowMs = 1_000;
+    enqueue(scheduler, "/probe", FetchScheduler.Priority.NORMAL);
+    CircuitBreaker.Permit other = breaker.acquire("localhost");
+    assertNotNull(other);
+    other.release();
+
+    now[0] = 1_000;
+    timers.get(0).run();
+    assertEquals("/probe", done.poll(5, TimeUnit.SECONDS));
+    ReadableMap host = breaker.getStats().getMap("hosts").getMap("localhost");
+    assertEquals("closed", host.getString("state"));
+    assertEquals(2, server.getRequestCount());
+  }
+
+  private Call enqueue(FetchScheduler scheduler, String path, FetchScheduler.Priority priority) {
+    Call call = client.newCall(new Request.Builder().url(server.url(path)).build());
+    scheduler.enqueue(call, server.getHostName(), priority, new Callback() {
+      @Override
+      public void onFailure(Call call, IOException e) {
+        done.add(path + (e instanceof CircuitBreaker.OpenException ? " circuit open" : " failed"));
+      }
+
+      @Override
+      public void onResponse(Call call, Response response) {
+        response.close();
+        done.add(path);
+      }
+    });
+    return call;
+  }
+}
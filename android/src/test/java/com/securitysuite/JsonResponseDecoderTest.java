@@ -0,0 +1,53 @@
+package com.securitysuite;
+
+import com.facebook.react.bridge.JavaOnlyMap;
+import com.facebook.react.bridge.ReadableArray;
+import com.facebook.react.bridge.ReadableMap;
+import com.facebook.react.bridge.ReadableType;
+
+import org.junit.Test;
+
+import okio.Buffer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class JsonResponseDecoderTest {
+  @Test
+  public void decodesNestedDocumentIntoBridgeTypes() throws Exception {
+    Buffer body = new Buffer().writeUtf8(
+        "{\"id\":7,\"name\":\"caf\\u00e9\",\"tags\":[\"a\",null,true],\"meta\":{\"ok\":false}}"
+    );
+
+    Object data = JsonResponseDecoder.decode(body, JsonResponseDecoder.DEFAULT_MAX_BYTES);
+    JavaOnlyMap output = new JavaOnlyMap();
+    JsonResponseDecoder.putValue(output, "data", data);
+
+    ReadableMap map = output.getMap("data");
+    assertEquals(7.0, map.getDouble("id"), 0);
+    assertEquals("café", map.getString("name"));
+    ReadableArray tags = map.getArray("tags");
+    assertEquals(3, tags.size());
+    assertEquals(ReadableType.Null, tags.getType(1));
+    assertTrue(tags.getBoolean(2));
+    assertFalse(map.getMap("meta").getBoolean("ok"));
+  }
+
+  @Test
+  public void oversizedOrInvalidBodyIsLeftUnconsumedForStringFallback() throws Exception {
+    String large = "[\"" + "x".repeat(64) + "\"]";
+    Buffer oversized = new Buffer().writeUtf8(large);
+    assertNull(JsonResponseDecoder.decode(oversized, 16));
+    assertEquals(large, oversized.readUtf8());
+
+    String invalid = "{\"truncated\":";
+    Buffer broken = new Buffer().writeUtf8(invalid);
+    assertNull(JsonResponseDecoder.decode(broken, JsonResponseDecoder.DEFAULT_MAX_BYTES));
+    assertEquals(invalid, broken.readUtf8());
+
+    Buffer trailing = new Buffer().writeUtf8("{} {}");
+    assertNull(JsonResponseDecoder.decode(trailing, JsonResponseDecoder.DEFAULT_MAX_BYTES));
+  }
+}
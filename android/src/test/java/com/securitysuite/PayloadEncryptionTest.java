@@ -0,0 +1,218 @@
+package com.securitysuite;
+
+import com.facebook.react.bridge.JavaOnlyMap;
+import com.securitysuite.crypto.utils.CryptoBytes;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+
+import okio.Buffer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class PayloadEncryptionTest {
+  private static final int IV_LENGTH = 12;
+  private static final int TAG_BITS = 128;
+
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  private final SecretKey key = new SecretKeySpec(CryptoBytes.randomBytes(32), "AES");
+  private final OkHttpClient client = new OkHttpClient.Builder()
+      .addInterceptor(PayloadEncryption.INTERCEPTOR)
+      .build();
+  private MockWebServer server;
+  private PayloadEncryption.Mode mode;
+
+  @Before
+  public void setUp() throws Exception {
+    server = new MockWebServer();
+    server.start();
+    CryptoConfig config = CryptoConfig.fromReadableMap(JavaOnlyMap.of(
+        "keyAgreementAlgorithm", "ECDH",
+        "keyFactoryAlgorithm", "EC",
+        "encryptionKeyAlgorithm", "AES",
+        "hmacKeyAlgorithm", "HmacSHA256",
+        "cipherTransformation", "AES/GCM/NoPadding",
+        "gcmTagLength", TAG_BITS,
+        "gcmIvLength", IV_LENGTH
+    ));
+    mode = PayloadEncryption.Mode.fromOptions(
+        JavaOnlyMap.of("encryptBody", true, "decryptResponse", true),
+        new PayloadEncryption(key, config)
+    );
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    server.shutdown();
+  }
+
+  @Test
+  public void sealsRequestAndOpensResponseWithTheSessionKey() throws Exception {
+    String reply = "{\"balance\":\"1000\"}";
+    server.enqueue(new MockResponse().setBody(new Buffer().write(seal(reply))));
+    server.enqueue(new MockResponse().setResponseCode(502).setBody("Bad gateway"));
+
+    String body = "{\"amount\":1000,\"to\":\"IR123\"}";
+    Response response = client.newCall(request(body)).execute();
+    assertEquals(reply, response.body().string());
+
+    RecordedRequest recorded = server.takeRequest();
+    byte[] sent = recorded.getBody().readByteArray();
+    assertEquals("application/octet-stream", recorded.getHeader("Content-Type"));
+    assertEquals(String.valueOf(sent.length), recorded.getHeader("Content-Length"));
+    assertEquals(body, open(sent));
+    assertFalse(new String(sent, StandardCharsets.ISO_8859_1).contains("IR123"));
+
+    // Error bodies from intermediaries are passed through untouched.
+    assertEquals("Bad gateway", client.newCall(request(body)).execute().body().string());
+    assertNull(PayloadEncryption.Mode.fromOptions(new JavaOnlyMap(), null));
+  }
+
+  @Test
+  public void rejectsTamperedResponsesAndMissingKey() throws Exception {
+    byte[] sealed = seal("{\"balance\":\"1000\"}");
+    sealed[IV_LENGTH + 3] ^= 1;
+    server.enqueue(new MockResponse().setBody(new Buffer().write(sealed)));
+
+    try (Response response = client.newCall(request("{}")).execute()) {
+      response.body().string();
+      fail();
+    } catch (IOException expected) {
+      assertEquals("Response decryption failed", expected.getMessage());
+    }
+
+    try {
+      PayloadEncryption.Mode.fromOptions(JavaOnlyMap.of("decryptResponse", true), null);
+      fail();
+    } catch (IllegalStateException expected) {
+      assertTrue(expected.getMessage().contains("establishSharedKey"));
+    }
+  }
+
+  @Test
+  public void rejectsFileBodiesAndFileOrStreamResponses() {
+    PayloadEncryption encryption = mode.encryption;
+    assertRejected(JavaOnlyMap.of(
+        "encryptBody", true, "bodyFile", JavaOnlyMap.of("path", "/tmp/upload.bin")), encryption);
+    assertRejected(JavaOnlyMap.of("decryptResponse", true, "responseType", "file"), encryption);
+    assertRejected(JavaOnlyMap.of("decryptResponse", true, "responseType", "stream"), encryption);
+
+    // Each direction only restricts itself.
+    assertTrue(PayloadEncryption.Mode.fromOptions(JavaOnlyMap.of(
+        "decryptResponse", true, "bodyFile", JavaOnlyMap.of("path", "/tmp/upload.bin")),
+        encryption).decryptResponse);
+    assertTrue(PayloadEncryption.Mode.fromOptions(
+        JavaOnlyMap.of("encryptBody", true, "responseType", "file"), encryption).encryptBody);
+  }
+
+  private static void assertRejected(JavaOnlyMap options, PayloadEncryption encryption) {
+    try {
+      PayloadEncryption.Mode.fromOptions(options, encryption);
+      fail();
+    } catch (IllegalArgumentException expected) {
+      assertTrue(expected.getMessage().contains("cannot be combined"));
+    }
+  }
+
+  @Test
+  public void plainFetchNeverGetsACachedSealedBody() throws Exception {
+    OkHttpClient cached = cachingClient();
+    server.enqueue(new MockResponse()
+        .setHeader("Cache-Control", "max-age=60")
+        .setBody(new Buffer().write(seal("sealed"))));
+    server.enqueue(new MockResponse().setHeader("Cache-Control", "max-age=60").setBody("plain"));
+
+    try (Response response = cached.newCall(get(mode)).execute()) {
+      assertEquals("sealed", response.body().string());
+    }
+    try (Response response = cached.newCall(get(null)).execute()) {
+      assertEquals("plain", response.body().string());
+    }
+    assertEquals(2, server.getRequestCount());
+  }
+
+  @Test
+  public void decryptingFetchNeverGetsACachedPlainBody() throws Exception {
+    OkHttpClient cached = cachingClient();
+    server.enqueue(new MockResponse().setHeader("Cache-Control", "max-age=60").setBody("plain"));
+    server.enqueue(new MockResponse()
+        .setHeader("Cache-Control", "max-age=60")
+        .setBody(new Buffer().write(seal("sealed"))));
+
+    try (Response response = cached.newCall(get(null)).execute()) {
+      assertEquals("plain", response.body().string());
+    }
+    try (Response response = cached.newCall(get(mode)).execute()) {
+      assertEquals("sealed", response.body().string());
+    }
+    assertEquals(2, server.getRequestCount());
+  }
+
+  private OkHttpClient cachingClient() throws IOException {
+    FetchCacheStore store = new FetchCacheStore(
+        temporaryFolder.newFolder("cache"),
+        1024 * 1024,
+        new EncryptedCacheFiles(CryptoBytes.randomBytes(32))
+    );
+    return client.newBuilder()
+        .addInterceptor(new FetchCacheInterceptor(store, "pins"))
+        .build();
+  }
+
+  private Request get(PayloadEncryption.Mode mode) {
+    return new Request.Builder()
+        .url(server.url("/balance"))
+        .tag(PayloadEncryption.Mode.class, mode)
+        .build();
+  }
+
+  private Request request(String body) {
+    return new Request.Builder()
+        .url(server.url("/transfer"))
+        .post(RequestBody.create(body, Sslpinning.mediaType))
+        .tag(PayloadEncryption.Mode.class, mode)
+        .build();
+  }
+
+  private byte[] seal(String plaintext) throws Exception {
+    byte[] iv = CryptoBytes.randomBytes(IV_LENGTH);
+    Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+    cipher.init(Cipher.ENCRYPT_MODE, key, new GCMParameterSpec(TAG_BITS, iv));
+    return new Buffer()
+        .write(iv)
+        .write(cipher.doFinal(plaintext.getBytes(StandardCharsets.UTF_8)))
+        .readByteArray();
+  }
+
+  private String open(byte[] sealed) throws Exception {
+    Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+    cipher.init(Cipher.DECRYPT_MODE, key, new GCMParameterSpec(TAG_BITS, sealed, 0, IV_LENGTH));
+    byte[] plaintext = cipher.doFinal(sealed, IV_LENGTH, sealed.length - IV_LENGTH);
+    return new String(plaintext, StandardCharsets.UTF_8);
+  }
+}
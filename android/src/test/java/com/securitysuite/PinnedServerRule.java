@@ -0,0 +1,90 @@
+package com.securitysuite;
+
+import com.facebook.react.bridge.JavaOnlyArray;
+import com.facebook.react.bridge.JavaOnlyMap;
+
+import org.junit.rules.ExternalResource;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+
+import okhttp3.CertificatePinner;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.tls.HandshakeCertificates;
+import okhttp3.tls.HeldCertificate;
+
+/**
+ * An HTTPS {@link MockWebServer} with a self-signed certificate for {@code localhost} and
+ * {@code 127.0.0.1}, and pinned clients built on a base client that trusts it. Pins are still
+ * enforced by {@code CertificatePinner}, so {@link #pin()} must be passed like a real one.
+ */
+final class PinnedServerRule extends ExternalResource {
+  private final Protocol[] protocols;
+  private final HeldCertificate certificate = new HeldCertificate.Builder()
+      .addSubjectAlternativeName("localhost")
+      .addSubjectAlternativeName("127.0.0.1")
+      .build();
+  private final MockWebServer server = new MockWebServer();
+
+  /** With {@code protocols}, e.g. HTTP/1.1 only; otherwise MockWebServer's defaults. */
+  PinnedServerRule(Protocol... protocols) {
+    this.protocols = protocols;
+  }
+
+  @Override
+  protected void before() throws IOException {
+    HandshakeCertificates serverCertificates = new HandshakeCertificates.Builder()
+        .heldCertificate(certificate)
+        .build();
+    HandshakeCertificates clientCertificates = new HandshakeCertificates.Builder()
+        .addTrustedCertificate(certificate.certificate())
+        .build();
+
+    server.useHttps(serverCertificates.sslSocketFactory(), false);
+    if (protocols.length > 0) {
+      server.setProtocols(Arrays.asList(protocols));
+    }
+    server.start();
+    PinnedClientRegistry.setBaseClientForTesting(new OkHttpClient.Builder()
+        .sslSocketFactory(clientCertificates.sslSocketFactory(), clientCertificates.trustManager())
+        .build());
+  }
+
+  @Override
+  protected void after() {
+    try {
+      server.shutdown();
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    } finally {
+      PinnedClientRegistry.setBaseClientForTesting(null);
+    }
+  }
+
+  /** Not started yet during field initialisation; set a dispatcher on it at any time. */
+  MockWebServer server() {
+    return server;
+  }
+
+  /** The server certificate's {@code sha256/} pin. */
+  String pin() {
+    return CertificatePinner.pin(certificate.certificate());
+  }
+
+  /** A {@code GET} pinned to {@link #pin()}. */
+  JavaOnlyMap pinnedOptions() {
+    return pinnedOptions(pin());
+  }
+
+  /** A {@code GET} pinned to {@code pin}, for {@code localhost} and {@code 127.0.0.1}. */
+  static JavaOnlyMap pinnedOptions(String pin) {
+    return JavaOnlyMap.of(
+        "method", "GET",
+        "certificates", JavaOnlyArray.of(pin),
+        "validDomains", JavaOnlyArray.of("localhost", "127.0.0.1")
+    );
+  }
+}
@@ -0,0 +1,230 @@
+package com.securitysuite;
+
+import com.facebook.react.bridge.JavaOnlyArray;
+import com.facebook.react.bridge.JavaOnlyMap;
+import com.facebook.react.bridge.ReadableMap;
+import com.facebook.react.bridge.WritableMap;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import okhttp3.mockwebserver.SocketPolicy;
+
+import okio.Buffer;
+import okio.ByteString;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+public class RangeDownloaderTest {
+  private static final byte[] CONTENT = new byte[300_000];
+
+  static {
+    new Random(11).nextBytes(CONTENT);
+  }
+
+  @Rule
+  public final TemporaryFolder folder = new TemporaryFolder();
+
+  @Rule
+  public final PinnedServerRule pinned = new PinnedServerRule();
+
+  private final MockWebServer server = pinned.server();
+
+  @Test
+  public void downloadsRangesInParallelAndResumesAfterAFailure() throws Exception {
+    AtomicBoolean failSecondRange = new AtomicBoolean(true);
+    AtomicInteger rangedBytes = new AtomicInteger();
+    server.setDispatcher(new Dispatcher() {
+      @Override
+      public MockResponse dispatch(RecordedRequest request) {
+        MockResponse response = new MockResponse()
+            .setHeader("Accept-Ranges", "bytes")
+            .setHeader("ETag", "\"v1\"");
+        if ("HEAD".equals(request.getMethod())) {
+          return response.setHeader("Content-Length", CONTENT.length);
+        }
+        String range = request.getHeader("Range");
+        if (range == null || !"\"v1\"".equals(request.getHeader("If-Range"))) {
+          return response.setResponseCode(400);
+        }
+        int start = Integer.parseInt(range.substring("bytes=".length(), range.indexOf('-')));
+        int end = Integer.parseInt(range.substring(range.indexOf('-') + 1));
+        if (start == 75_000 && failSecondRange.getAndSet(false)) {
+          return response.setResponseCode(500);
+        }
+        rangedBytes.addAndGet(end - start + 1);
+        return response
+            .setResponseCode(206)
+            .setHeader("Content-Range", "bytes " + start + "-" + end + "/" + CONTENT.length)
+            .setBody(new Buffer().write(Arrays.copyOfRange(CONTENT, start, end + 1)));
+      }
+    });
+
+    File destination = new File(folder.getRoot(), "downloads/model.bin");
+    JavaOnlyMap options = JavaOnlyMap.of(
+        "destination", destination.getAbsolutePath(),
+        "connections", 4,
+        "minRangeSize", 50_000d,
+        "retry", JavaOnlyMap.of("maxAttempts", 1),
+        "sha256", ByteString.of(CONTENT).sha256().hex(),
+        "certificates", JavaOnlyArray.of(pinned.pin()),
+        "validDomains", JavaOnlyArray.of("localhost")
+    );
+    String url = "https://localhost:" + server.getPort() + "/model.bin";
+
+    ReadableMap first = download(url, options);
+    assertFalse(first.getBoolean("ok"));
+    assertEquals(500, first.getInt("status"));
+    assertTrue(first.getBoolean("ranged"));
+    assertEquals(4, first.getArray("ranges").size());
+    assertTrue(new File(destination.getPath() + ".part.json").isFile());
+    assertFalse(destination.exists());
+
+    rangedBytes.set(0);
+    ReadableMap second = download(url, options);
+    assertTrue(second.getString("error"), second.getBoolean("ok"));
+    assertArrayEquals(CONTENT, Files.readAllBytes(destination.toPath()));
+    assertEquals(ByteString.of(CONTENT).sha256().hex(), second.getString("sha256"));
+    assertEquals(CONTENT.length, second.getDouble("size"), 0);
+    // Ranges finished by the first call are not fetched again.
+    assertEquals(CONTENT.length, second.getDouble("resumedBytes") + rangedBytes.get(), 0);
+    assertFalse(new File(destination.getPath() + ".part").exists());
+    assertFalse(new File(destination.getPath() + ".part.json").exists());
+  }
+
+  @Test
+  public void fallsBackToOneRequestAndRejectsAChecksumMismatch() throws Exception {
+    AtomicInteger gets = new AtomicInteger();
+    server.setDispatcher(new Dispatcher() {
+      @Override
+      public MockResponse dispatch(RecordedRequest request) {
+        if ("HEAD".equals(request.getMethod())) {
+          return new MockResponse().setResponseCode(405);
+        }
+        // The first GET drops halfway; the retry starts over from byte 0.
+        MockResponse response = new MockResponse()
+            .setBody(new Buffer().write(CONTENT));
+        return gets.getAndIncrement() == 0
+            ? response.setSocketPolicy(SocketPolicy.DISCONNECT_DURING_RESPONSE_BODY)
+            : response;
+      }
+    });
+
+    File destination = new File(folder.getRoot(), "plain.bin");
+    JavaOnlyMap options = JavaOnlyMap.of(
+        "destination", destination.getAbsolutePath(),
+        "retry", JavaOnlyMap.of("maxAttempts", 2, "baseDelayMs", 0d),
+        "certificates", JavaOnlyArray.of(pinned.pin()),
+        "validDomains", JavaOnlyArray.of("localhost")
+    );
+    String url = "https://localhost:" + server.getPort() + "/plain.bin";
+
+    ReadableMap plain = download(url, options);
+    assertTrue(plain.getString("error"), plain.getBoolean("ok"));
+    assertFalse(plain.getBoolean("ranged"));
+    assertEquals(2, plain.getArray("ranges").getMap(0).getInt("attempts"));
+    assertArrayEquals(CONTENT, Files.readAllBytes(destination.toPath()));
+
+    options.putString("sha256", ByteString.encodeUtf8("other").sha256().hex());
+    gets.set(1);
+    ReadableMap mismatch = download(url, options);
+    assertFalse(mismatch.getBoolean("ok"));
+    assertTrue(mismatch.getString("error").startsWith("SHA-256 mismatch"));
+    assertFalse(new File(destination.getPath() + ".part").exists());
+  }
+
+  @Test
+  public void rejectsAPartialResponseForTheWrongRange() throws Exception {
+    server.setDispatcher(new Dispatcher() {
+      @Override
+      public MockResponse dispatch(RecordedRequest request) {
+        MockResponse response = new MockResponse().setHeader("Accept-Ranges", "bytes");
+        if ("HEAD".equals(request.getMethod())) {
+          return response.setHeader("Content-Length", CONTENT.length);
+        }
+        // Every range gets the start of the file.
+        return response
+            .setResponseCode(206)
+            .setHeader("Content-Range", "bytes 0-149999/" + CONTENT.length)
+            .setBody(new Buffer().write(Arrays.copyOfRange(CONTENT, 0, 150_000)));
+      }
+    });
+
+    File destination = new File(folder.getRoot(), "wrong.bin");
+    JavaOnlyMap options = JavaOnlyMap.of(
+        "destination", destination.getAbsolutePath(),
+        "connections", 2,
+        "minRangeSize", 50_000d,
+        "retry", JavaOnlyMap.of("maxAttempts", 1),
+        "certificates", JavaOnlyArray.of(pinned.pin()),
+        "validDomains", JavaOnlyArray.of("localhost")
+    );
+    ReadableMap result = download("https://localhost:" + server.getPort() + "/wrong.bin", options);
+
+    assertFalse(result.getBoolean("ok"));
+    assertTrue(result.getString("error"), result.getString("error").contains("Content-Range"));
+    assertFalse(destination.exists());
+  }
+
+  @Test
+  public void failsFastOnceTheHostCircuitOpens() throws Exception {
+    server.setDispatcher(new Dispatcher() {
+      @Override
+      public MockResponse dispatch(RecordedRequest request) {
+        return new MockResponse().setResponseCode(503);
+      }
+    });
+    CircuitBreaker.SHARED.configure(JavaOnlyMap.of(
+        "windowSize", 1,
+        "minimumCalls", 1,
+        "openDurationMs", 60_000d
+    ));
+    try {
+      JavaOnlyMap options = JavaOnlyMap.of(
+          "destination", new File(folder.getRoot(), "down.bin").getAbsolutePath(),
+          "retry", JavaOnlyMap.of("maxAttempts", 1),
+          "certificates", JavaOnlyArray.of(pinned.pin()),
+          "validDomains", JavaOnlyArray.of("localhost")
+      );
+      String url = "https://localhost:" + server.getPort() + "/down.bin";
+
+      // The failed probe opens the circuit, so the fallback GET is never sent.
+      ReadableMap first = download(url, options);
+      assertEquals(FetchResult.CIRCUIT_OPEN_CODE, first.getString("code"));
+      assertTrue(first.getDouble("retryAfterMs") > 0);
+      ReadableMap second = download(url, options);
+      assertTrue(second.getBoolean("circuitOpen"));
+      assertEquals(1, server.getRequestCount());
+    } finally {
+      CircuitBreaker.SHARED.configure(JavaOnlyMap.of("enabled", false));
+      CircuitBreaker.SHARED.reset();
+    }
+  }
+
+  private static ReadableMap download(String url, ReadableMap options) throws Exception {
+    BlockingQueue<WritableMap> results = new LinkedBlockingQueue<>();
+    new Sslpinning(null).downloadRanges(url, options, null, results::add);
+    WritableMap result = results.poll(10, TimeUnit.SECONDS);
+    assertNotNull(result);
+    return result;
+  }
+}
@@ -0,0 +1,118 @@
+package com.securitysuite;
+
+import com.sun.management.ThreadMXBean;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Arrays;
+
+import okhttp3.MediaType;
+import okhttp3.MultipartBody;
+import okhttp3.RequestBody;
+
+import okio.Buffer;
+import okio.BufferedSink;
+import okio.ForwardingSink;
+import okio.Okio;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class RequestBodyDigestTest {
+  private static final long UPLOAD_SIZE = 200L * 1024 * 1024;
+  private static final int CHUNK_SIZE = 64 * 1024;
+
+  @Test
+  public void streamingDigestMatchesBufferedDigest() throws Exception {
+    byte[] payload = "{\"amount\":1000}".getBytes(StandardCharsets.UTF_8);
+    RequestBody body = RequestBody.create(payload, MediaType.parse("application/json"));
+
+    assertArrayEquals(
+        MessageDigest.getInstance("SHA-256").digest(payload),
+        RequestBodyDigest.of(body).sha256()
+    );
+    assertArrayEquals(
+        RequestBodyDigest.ofBytes(payload).sha256(),
+        RequestBodyDigest.of(body).sha256()
+    );
+  }
+
+  @Test
+  public void emptyBodyHasNoDigest() throws Exception {
+    assertNull(RequestBodyDigest.of(null).sha256());
+    assertNull(RequestBodyDigest.of(RequestBody.create(new byte[0], null)).sha256());
+    assertNull(RequestBodyDigest.ofBytes(new byte[0]).sha256());
+  }
+
+  @Test
+  public void multipartUploadOf200MbIsDigestedInConstantMemory() throws Exception {
+    ThreadMXBean threads = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+    long threadId = Thread.currentThread().getId();
+
+    RequestBody upload = new MultipartBody.Builder()
+        .setType(MultipartBody.FORM)
+        .addFormDataPart("file", "video.mp4", new SyntheticBody(UPLOAD_SIZE))
+        .build();
+
+    long allocatedBefore = threads.getThreadAllocatedBytes(threadId);
+    byte[] digest = RequestBodyDigest.of(upload).sha256();
+    long allocated = threads.getThreadAllocatedBytes(threadId) - allocatedBefore;
+
+    MessageDigest expected = MessageDigest.getInstance("SHA-256");
+    try (BufferedSink reference = Okio.buffer(new DigestingSink(expected))) {
+      upload.writeTo(reference);
+    }
+    assertArrayEquals(expected.digest(), digest);
+
+    // Buffering would allocate at least the 200 MB payload; streaming stays within a few MB.
+    assertTrue("allocated " + allocated + " bytes", allocated < 16L * 1024 * 1024);
+  }
+
+  /** Writes {@code size} bytes from one reused chunk, like a file source would. */
+  private static final class SyntheticBody extends RequestBody {
+    private final long size;
+
+    SyntheticBody(long size) {
+      this.size = size;
+    }
+
+    @Override
+    public MediaType contentType() {
+      return MediaType.parse("application/octet-stream");
+    }
+
+    @Override
+    public long contentLength() {
+      return size;
+    }
+
+    @Override
+    public void writeTo(BufferedSink sink) throws IOException {
+      byte[] chunk = new byte[CHUNK_SIZE];
+      Arrays.fill(chunk, (byte) 'x');
+      for (long remaining = size; remaining > 0; remaining -= CHUNK_SIZE) {
+        sink.write(chunk, 0, (int) Math.min(CHUNK_SIZE, remaining));
+      }
+    }
+  }
+
+  /** Reference digest computed with a plain MessageDigest. */
+  private static final class DigestingSink extends ForwardingSink {
+    private final MessageDigest digest;
+
+    DigestingSink(MessageDigest digest) {
+      super(Okio.blackhole());
+      this.digest = digest;
+    }
+
+    @Override
+    public void write(Buffer source, long byteCount) throws IOException {
+      digest.update(source.readByteArray(byteCount));
+    }
+  }
+}
@@ -0,0 +1,154 @@
+package com.securitysuite;
+
+import com.facebook.react.bridge.JavaOnlyMap;
+import com.facebook.react.bridge.ReadableMap;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.Headers;
+import okhttp3.OkHttpClient;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class RequestCoalescerTest {
+  private static final String URL = "https://api.example.com/config";
+
+  private final OkHttpClient client = new OkHttpClient();
+  private final RequestCoalescer coalescer = new RequestCoalescer();
+  private final CountDownLatch release = new CountDownLatch(1);
+  @Rule
+  public final PinnedServerRule pinned = new PinnedServerRule();
+
+  private final MockWebServer server = pinned.server();
+
+  @Before
+  public void setUp() throws Exception {
+    server.setDispatcher(new Dispatcher() {
+      @Override
+      public MockResponse dispatch(RecordedRequest request) throws InterruptedException {
+        // Hold every response so the fetches under test overlap.
+        release.await(10, TimeUnit.SECONDS);
+        return new MockResponse().setBody("config");
+      }
+    });
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    release.countDown();
+  }
+
+  @Test
+  public void sharesOneResultWithEveryConcurrentWaiter() {
+    List<FetchResult> leaderResults = new ArrayList<>();
+    List<FetchResult> waiterResults = new ArrayList<>();
+    RequestCoalescer.Key key = key(client, "GET", JavaOnlyMap.of("coalesce", true));
+
+    Sslpinning.FetchListener leader = coalescer.join(key, leaderResults::add);
+    assertNotNull(leader);
+    assertNull(coalescer.join(key, waiterResults::add));
+    assertNull(coalescer.join(
+        key(client, "GET", JavaOnlyMap.of("coalesce", true)), waiterResults::add));
+    assertEquals(1, coalescer.getStats().getInt("inFlight"));
+
+    FetchResult result = FetchResult.canceled();
+    leader.onComplete(result);
+    assertEquals(1, leaderResults.size());
+    assertEquals(2, waiterResults.size());
+    assertSame(result, waiterResults.get(1));
+
+    // Once the leader has completed, the next identical fetch goes to the network again.
+    assertNotNull(coalescer.join(key, waiterResults::add));
+    ReadableMap stats = coalescer.getStats();
+    assertEquals(2, stats.getDouble("leaders"), 0);
+    assertEquals(2, stats.getDouble("coalesced"), 0);
+    coalescer.resetStats();
+    assertEquals(0, coalescer.getStats().getDouble("coalesced"), 0);
+  }
+
+  @Test
+  public void onlyKeysIdempotentOptedInFetches() {
+    assertNull(key(client, "GET", JavaOnlyMap.of()));
+    assertNull(key(client, "GET", JavaOnlyMap.of("coalesce", false)));
+    assertNull(key(client, "POST", JavaOnlyMap.of("coalesce", true)));
+    assertNull(key(client, "GET", JavaOnlyMap.of("coalesce", true, "body", "{}")));
+    assertNull(key(client, "GET", JavaOnlyMap.of("coalesce", true, "jws", JavaOnlyMap.of())));
+    assertNull(key(client, "GET",
+        JavaOnlyMap.of("coalesce", true, "keyId", "k1", "requestId", "r1")));
+    assertNull(key(client, "GET", JavaOnlyMap.of("coalesce", true, "responseType", "stream")));
+    assertNotNull(key(client, "HEAD", JavaOnlyMap.of("coalesce", true)));
+
+    RequestCoalescer.Key json = key(client, "GET", JavaOnlyMap.of("coalesce", true));
+    assertNotEquals(json, key(new OkHttpClient(), "GET", JavaOnlyMap.of("coalesce", true)));
+    assertNotEquals(json, key(client, "GET",
+        JavaOnlyMap.of("coalesce", true, "responseType", "text")));
+    assertNotEquals(json, RequestCoalescer.keyFor(
+        client, URL, "GET", Headers.of("Authorization", "Bearer b"), null,
+        JavaOnlyMap.of("coalesce", true)));
+    assertNotEquals(json, RequestCoalescer.keyFor(
+        client, URL, "GET", Headers.of("Authorization", "Bearer a"), "refresh",
+        JavaOnlyMap.of("coalesce", true)));
+  }
+
+  @Test
+  public void sendsDifferentlySignedFetchesSeparately() throws Exception {
+    Sslpinning sslpinning = new Sslpinning(null);
+    String url = "https://localhost:" + server.getPort() + "/config";
+    String pin = pinned.pin();
+    BlockingQueue<FetchResult> results = new LinkedBlockingQueue<>();
+
+    for (String secret : new String[] {"alice", "bob"}) {
+      JavaOnlyMap options = pinnedOptions(pin);
+      options.putMap("jws", JavaOnlyMap.of("secret", secret));
+      sslpinning.execute(url, options, null, results::add);
+    }
+    RecordedRequest first = server.takeRequest(5, TimeUnit.SECONDS);
+    RecordedRequest second = server.takeRequest(5, TimeUnit.SECONDS);
+    assertNotNull(second);
+    assertNotEquals(
+        first.getHeader(JwsFetchSigner.MODERN_JWS_HEADER),
+        second.getHeader(JwsFetchSigner.MODERN_JWS_HEADER)
+    );
+
+    // The same fetch without a signature is shared.
+    for (int i = 0; i < 2; i++) {
+      sslpinning.execute(url, pinnedOptions(pin), null, results::add);
+    }
+    assertNotNull(server.takeRequest(5, TimeUnit.SECONDS));
+    release.countDown();
+    for (int i = 0; i < 4; i++) {
+      FetchResult result = results.poll(5, TimeUnit.SECONDS);
+      assertEquals("config", result.body);
+    }
+    assertEquals(3, server.getRequestCount());
+  }
+
+  private static JavaOnlyMap pinnedOptions(String pin) {
+    JavaOnlyMap options = PinnedServerRule.pinnedOptions(pin);
+    options.putBoolean("coalesce", true);
+    return options;
+  }
+
+  private static RequestCoalescer.Key key(OkHttpClient client, String method, ReadableMap options) {
+    return RequestCoalescer.keyFor(
+        client, URL, method, Headers.of("Authorization", "Bearer a"), null, options);
+  }
+}
@@ -0,0 +1,156 @@
+package com.securitysuite;
+
+import com.facebook.react.bridge.JavaOnlyArray;
+import com.facebook.react.bridge.JavaOnlyMap;
+import com.facebook.react.bridge.ReadableArray;
+import com.facebook.react.bridge.WritableMap;
+
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+
+import okio.Buffer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class ResponseStreamerTest {
+  @Rule
+  public final PinnedServerRule pinned = new PinnedServerRule();
+
+  private final MockWebServer server = pinned.server();
+
+  @Test
+  public void splitsLinesAndServerSentEvents() throws Exception {
+    List<ResponseStreamer.Chunk> lines = new ArrayList<>();
+    ResponseStreamer.stream(
+        new Buffer().writeUtf8("{\"n\":1}\r\n\n{\"n\":2}\n{\"n\":3}"),
+        ResponseStreamer.FORMAT_LINES,
+        1024,
+        lines::add
+    );
+    assertEquals(3, lines.size());
+    assertEquals("{\"n\":1}", lines.get(0).data);
+    assertEquals("{\"n\":3}", lines.get(2).data);
+
+    List<ResponseStreamer.Chunk> events = new ArrayList<>();
+    ResponseStreamer.stream(
+        new Buffer().writeUtf8(": keep-alive\n\nevent: price\nid: 7\ndata: {\"a\":1,\n"
+            + "data:  \"b\":2}\nretry: 1000\n\ndata: tick\n\ndata: unterminated\n"),
+        ResponseStreamer.FORMAT_SSE,
+        1024,
+        events::add
+    );
+    assertEquals(2, events.size());
+    assertEquals("{\"a\":1,\n \"b\":2}", events.get(0).data);
+    assertEquals("price", events.get(0).event);
+    assertEquals("7", events.get(0).id);
+    assertEquals("tick", events.get(1).data);
+    assertEquals("7", events.get(1).id);
+
+    try {
+      ResponseStreamer.stream(
+          new Buffer().writeUtf8("x".repeat(2048) + "\n"),
+          ResponseStreamer.FORMAT_LINES,
+          1024,
+          chunk -> { }
+      );
+      fail();
+    } catch (IOException expected) {
+      assertTrue(expected.getMessage().contains("maxChunkBytes"));
+    }
+  }
+
+  @Test
+  public void holdsBackEventsUntilJsAcknowledges() throws Exception {
+    List<WritableMap> sent = new ArrayList<>();
+    StreamEmitter emitter = new StreamEmitter("s1", false, sent::add, 0, 1);
+
+    emitter.onChunk(new ResponseStreamer.Chunk("a", null, null));
+    emitter.onChunk(new ResponseStreamer.Chunk("b", null, null));
+    emitter.onChunk(new ResponseStreamer.Chunk("c", null, null));
+    assertEquals(1, sent.size());
+    assertEquals(1, sent.get(0).getArray("chunks").size());
+
+    emitter.ack();
+    assertEquals(2, sent.size());
+    ReadableArray coalesced = sent.get(1).getArray("chunks");
+    assertEquals(2, coalesced.size());
+    assertEquals("c", coalesced.getString(1));
+
+    emitter.onChunk(new ResponseStreamer.Chunk("d", null, null));
+    emitter.finish(FetchResult.response(200, "https://x", "1ms", "", true, null));
+    assertEquals(4, sent.size());
+    assertEquals("d", sent.get(2).getArray("chunks").getString(0));
+    assertTrue(sent.get(3).getBoolean("done"));
+    assertEquals(4, sent.get(3).getInt("chunkCount"));
+  }
+
+  @Test
+  public void deliversTheFirstLineBeforeTheBodyEnds() throws Exception {
+    server.enqueue(new MockResponse()
+        .setBody("{\"n\":1}\n{\"n\":2}\n{\"n\":3}\n")
+        .throttleBody(8, 300, TimeUnit.MILLISECONDS));
+
+    List<Long> chunkTimes = new CopyOnWriteArrayList<>();
+    List<WritableMap> events = new CopyOnWriteArrayList<>();
+    CountDownLatch done = new CountDownLatch(1);
+    StreamEmitter emitter = new StreamEmitter("s2", false, event -> {
+      events.add(event);
+      if (event.hasKey("done")) {
+        done.countDown();
+      } else {
+        chunkTimes.add(System.nanoTime());
+      }
+    }, 0, 8);
+
+    JavaOnlyMap options = JavaOnlyMap.of(
+        "method", "GET",
+        "responseType", "stream",
+        "certificates", JavaOnlyArray.of(pinned.pin()),
+        "validDomains", JavaOnlyArray.of("localhost")
+    );
+    long start = System.nanoTime();
+    new Sslpinning(null).execute(
+        "https://localhost:" + server.getPort() + "/events",
+        options,
+        null,
+        new Sslpinning.StreamListener() {
+          @Override
+          public void onChunk(ResponseStreamer.Chunk chunk) throws IOException {
+            emitter.onChunk(chunk);
+          }
+
+          @Override
+          public void onComplete(FetchResult result) {
+            emitter.finish(result);
+          }
+        }
+    );
+    assertTrue(done.await(10, TimeUnit.SECONDS));
+    long finished = System.nanoTime();
+
+    WritableMap terminal = events.get(events.size() - 1);
+    assertTrue(terminal.getBoolean("ok"));
+    assertEquals(200, terminal.getInt("status"));
+    assertTrue(terminal.hasKey("timings"));
+    assertEquals(3, terminal.getInt("chunkCount"));
+    assertFalse(terminal.hasKey("chunks"));
+    assertEquals(3, chunkTimes.size());
+    // The first line is delivered while the remaining two are still being throttled.
+    long firstLine = TimeUnit.NANOSECONDS.toMillis(chunkTimes.get(0) - start);
+    long whole = TimeUnit.NANOSECONDS.toMillis(finished - start);
+    assertTrue(firstLine + " vs " + whole, whole - firstLine >= 400);
+  }
+}
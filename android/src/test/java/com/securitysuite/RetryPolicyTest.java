@@ -0,0 +1,97 @@
+package com.securitysuite;
+
+import com.facebook.react.bridge.JavaOnlyMap;
+import com.facebook.react.bridge.ReadableArray;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+public class RetryPolicyTest {
+  @Rule
+  public final PinnedServerRule pinned = new PinnedServerRule();
+
+  private final MockWebServer server = pinned.server();
+  private Sslpinning sslpinning;
+
+  @Before
+  public void setUp() throws Exception {
+    sslpinning = new Sslpinning(null);
+  }
+
+  @Test
+  public void retriesRetryableStatusAndTimeoutWithTheSameSignature() throws Exception {
+    server.enqueue(new MockResponse().setResponseCode(502));
+    server.enqueue(new MockResponse().setHeadersDelay(2, TimeUnit.SECONDS).setBody("late"));
+    server.enqueue(new MockResponse().setBody("ok"));
+
+    JavaOnlyMap options = pinned.pinnedOptions();
+    options.putInt("timeout", 500);
+    options.putMap("retry", JavaOnlyMap.of("maxAttempts", 3, "baseDelayMs", 10));
+    options.putMap("jws", JavaOnlyMap.of("secret", "retry-test-secret"));
+    FetchResult result = fetch("/resource", options);
+
+    assertTrue(result.error, result.isSuccess());
+    assertEquals("ok", result.body);
+    ReadableArray attempts = result.toWritableMap().getArray("attempts");
+    assertEquals(3, attempts.size());
+    assertEquals(502, attempts.getMap(0).getInt("status"));
+    assertTrue(attempts.getMap(0).getInt("backoffMs") <= 10);
+    assertEquals("timeout", attempts.getMap(1).getString("error"));
+    assertEquals(200, attempts.getMap(2).getInt("status"));
+
+    RecordedRequest first = server.takeRequest();
+    server.takeRequest();
+    RecordedRequest last = server.takeRequest();
+    assertNotNull(first.getHeader(JwsFetchSigner.MODERN_JWS_HEADER));
+    assertEquals(
+        first.getHeader(JwsFetchSigner.MODERN_JWS_HEADER),
+        last.getHeader(JwsFetchSigner.MODERN_JWS_HEADER)
+    );
+  }
+
+  @Test
+  public void neverRetriesNonIdempotentMethodsOrPinFailures() throws Exception {
+    server.enqueue(new MockResponse().setResponseCode(503));
+    JavaOnlyMap post = pinned.pinnedOptions();
+    post.putString("method", "POST");
+    post.putString("body", "{}");
+    post.putMap("retry", JavaOnlyMap.of("maxAttempts", 3, "baseDelayMs", 10));
+    FetchResult rejected = fetch("/submit", post);
+    assertEquals(503, rejected.status);
+    assertEquals(1, server.getRequestCount());
+
+    JavaOnlyMap wrongPin = PinnedServerRule.pinnedOptions("sha256/" + "A".repeat(43) + "=");
+    wrongPin.putMap("retry", JavaOnlyMap.of("maxAttempts", 5, "baseDelayMs", 10));
+    FetchResult pinFailure = fetch("/pinned", wrongPin);
+    assertFalse(pinFailure.isSuccess());
+    assertTrue(pinFailure.error, pinFailure.error.contains("Certificate pinning failure"));
+    assertEquals(1, pinFailure.toWritableMap().getArray("attempts").size());
+    assertEquals(1, server.getRequestCount());
+  }
+
+  private FetchResult fetch(String path, JavaOnlyMap options) throws InterruptedException {
+    AtomicReference<FetchResult> result = new AtomicReference<>();
+    CountDownLatch done = new CountDownLatch(1);
+    sslpinning.execute("https://localhost:" + server.getPort() + path, options, null, value -> {
+      result.set(value);
+      done.countDown();
+    });
+    assertTrue(done.await(30, TimeUnit.SECONDS));
+    return result.get();
+  }
+
+}
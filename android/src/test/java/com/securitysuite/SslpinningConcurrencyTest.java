@@ -0,0 +1,216 @@
+package com.securitysuite;
+
+import com.facebook.react.bridge.JavaOnlyArray;
+import com.facebook.react.bridge.JavaOnlyMap;
+import com.facebook.react.bridge.ReadableMap;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class SslpinningConcurrencyTest {
+  private static final int REQUESTS = 64;
+
+  @Rule
+  public final PinnedServerRule pinned = new PinnedServerRule();
+
+  private final MockWebServer server = pinned.server();
+  private Sslpinning sslpinning;
+
+  @Before
+  public void setUp() throws Exception {
+    server.setDispatcher(new Dispatcher() {
+      @Override
+      public MockResponse dispatch(RecordedRequest request) throws InterruptedException {
+        // Small random delay so completions interleave across dispatcher threads.
+        Thread.sleep((long) (Math.random() * 20));
+        if (request.getPath().startsWith("/slow/")) {
+          // Headers arrive at once; the body trickles in, so callers sit in the body read.
+          return new MockResponse()
+              .setBody(new okio.Buffer().write(new byte[256 * 1024]))
+              .throttleBody(1024, 1, TimeUnit.SECONDS);
+        }
+        return new MockResponse().setBody(request.getPath());
+      }
+    });
+    sslpinning = new Sslpinning(null);
+  }
+
+  @Test
+  public void sharedInstanceServesConcurrentRequestsWithoutCrossTalk() throws Exception {
+    Map<String, FetchResult> results = new ConcurrentHashMap<>();
+    CountDownLatch done = new CountDownLatch(REQUESTS);
+
+    for (int i = 0; i < REQUESTS; i++) {
+      // Alternate hosts so a shared hostname field would pin against the wrong host.
+      String host = i % 2 == 0 ? "localhost" : "127.0.0.1";
+      String path = "/item/" + i;
+      String url = "https://" + host + ":" + server.getPort() + path;
+      new Thread(() -> sslpinning.execute(url, pinned.pinnedOptions(), null, result -> {
+        results.put(path, result);
+        done.countDown();
+      })).start();
+    }
+
+    assertTrue(done.await(30, TimeUnit.SECONDS));
+    assertEquals(REQUESTS, results.size());
+    for (Map.Entry<String, FetchResult> entry : results.entrySet()) {
+      FetchResult result = entry.getValue();
+      assertTrue(entry.getKey() + " failed: " + result.error, result.isSuccess());
+      assertEquals(200, result.status);
+      assertEquals(entry.getKey(), result.body);
+    }
+    assertEquals(REQUESTS, server.getRequestCount());
+  }
+
+  @Test
+  public void responsesCarryPhaseTimingsAndFeedHostHistograms() throws Exception {
+    LatencyHistograms.reset();
+    List<FetchResult> results = new CopyOnWriteArrayList<>();
+    for (int i = 0; i < 2; i++) {
+      CountDownLatch done = new CountDownLatch(1);
+      String url = "https://localhost:" + server.getPort() + "/timed/" + i;
+      sslpinning.execute(url, pinned.pinnedOptions(), null, result -> {
+        results.add(result);
+        done.countDown();
+      });
+      assertTrue(done.await(30, TimeUnit.SECONDS));
+    }
+
+    FetchTimings.Phases first = results.get(0).timings;
+    assertFalse(first.connectionReused);
+    assertTrue(first.connectNs > 0);
+    assertTrue(first.tlsNs > 0);
+    assertTrue(first.ttfbNs > 0);
+    assertTrue(first.totalNs >= first.tlsNs + first.ttfbNs);
+
+    FetchTimings.Phases second = results.get(1).timings;
+    assertTrue(second.connectionReused);
+    assertEquals(-1, second.tlsNs);
+
+    ReadableMap total = LatencyHistograms.snapshot()
+        .getMap("hosts")
+        .getMap("localhost")
+        .getMap("total");
+    assertEquals(2, total.getInt("count"));
+  }
+
+  @Test
+  public void concurrentRequestsWithWrongPinAllFail() throws Exception {
+    String wrongPin = "sha256/" + "A".repeat(43) + "=";
+    List<FetchResult> results = new CopyOnWriteArrayList<>();
+    CountDownLatch done = new CountDownLatch(8);
+
+    for (int i = 0; i < 8; i++) {
+      String url = "https://localhost:" + server.getPort() + "/pinned/" + i;
+      sslpinning.execute(url, PinnedServerRule.pinnedOptions(wrongPin), null, result -> {
+        results.add(result);
+        done.countDown();
+      });
+    }
+
+    assertTrue(done.await(30, TimeUnit.SECONDS));
+    for (FetchResult result : results) {
+      assertFalse(result.isSuccess());
+      assertFalse(result.isRejected());
+      assertTrue(result.error, result.error.contains("Certificate pinning failure"));
+    }
+    assertEquals(0, server.getRequestCount());
+  }
+
+  @Test
+  public void batchReturnsResultsInRequestOrderAndRejectsPerItem() throws Exception {
+    JavaOnlyArray requests = new JavaOnlyArray();
+    for (int i = 0; i < 16; i++) {
+      requests.pushMap(JavaOnlyMap.of("url", "https://localhost:" + server.getPort() + "/batch/" + i));
+    }
+    requests.pushMap(JavaOnlyMap.of("url", "https://example.com/outside"));
+    requests.pushMap(JavaOnlyMap.of("url", "http://localhost/plaintext"));
+
+    AtomicReference<FetchResult[]> batchResults = new AtomicReference<>();
+    List<Integer> streamed = new CopyOnWriteArrayList<>();
+    CountDownLatch done = new CountDownLatch(1);
+    FetchBatch batch = new FetchBatch(
+        requests.size(),
+        (index, result) -> streamed.add(index),
+        results -> {
+          batchResults.set(results);
+          done.countDown();
+        }
+    );
+    sslpinning.executeBatch(requests, pinned.pinnedOptions(), null, batch);
+
+    assertTrue(done.await(30, TimeUnit.SECONDS));
+    FetchResult[] results = batchResults.get();
+    assertEquals(18, results.length);
+    assertEquals(18, streamed.size());
+    for (int i = 0; i < 16; i++) {
+      assertTrue(results[i].error, results[i].isSuccess());
+      assertEquals("/batch/" + i, results[i].body);
+    }
+    assertTrue(results[16].isRejected());
+    assertEquals("Hostname 'example.com' is not in validDomains", results[16].error);
+    assertTrue(results[17].isRejected());
+    assertEquals(16, server.getRequestCount());
+  }
+
+  @Test
+  public void cancelByTagFreesOnlyTaggedCallsImmediately() throws Exception {
+    List<FetchResult> canceled = new CopyOnWriteArrayList<>();
+    CountDownLatch canceledDone = new CountDownLatch(3);
+    for (int i = 0; i < 3; i++) {
+      JavaOnlyMap options = pinned.pinnedOptions();
+      options.putString("tag", "screen");
+      String url = "https://localhost:" + server.getPort() + "/slow/" + i;
+      sslpinning.execute(url, options, null, result -> {
+        canceled.add(result);
+        canceledDone.countDown();
+      });
+    }
+    // Wait until every slow call holds a socket on the server.
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+    while (server.getRequestCount() < 3 && System.nanoTime() < deadline) {
+      Thread.sleep(10);
+    }
+
+    AtomicReference<FetchResult> other = new AtomicReference<>();
+    CountDownLatch otherDone = new CountDownLatch(1);
+    JavaOnlyMap otherOptions = pinned.pinnedOptions();
+    otherOptions.putString("tag", "other");
+    sslpinning.execute("https://localhost:" + server.getPort() + "/fast", otherOptions, null,
+        result -> {
+          other.set(result);
+          otherDone.countDown();
+        });
+
+    assertEquals(3, InFlightCalls.cancel("screen"));
+    assertTrue(canceledDone.await(5, TimeUnit.SECONDS));
+    for (FetchResult result : canceled) {
+      assertTrue(result.error, result.isCanceled());
+      assertTrue(result.toWritableMap().getBoolean("canceled"));
+    }
+
+    assertTrue(otherDone.await(30, TimeUnit.SECONDS));
+    assertTrue(other.get().error, other.get().isSuccess());
+    assertEquals(0, InFlightCalls.size());
+    assertEquals(0, InFlightCalls.cancel("screen"));
+  }
+
+}
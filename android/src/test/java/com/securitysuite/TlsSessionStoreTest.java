@@ -0,0 +1,73 @@
+package com.securitysuite;
+
+import com.securitysuite.crypto.utils.CryptoBytes;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+
+import okio.ByteString;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+
+public class TlsSessionStoreTest {
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  @Test
+  public void roundTripsSessionsEncryptedPerEndpoint() throws Exception {
+    File directory = temporaryFolder.newFolder("sessions");
+    byte[] key = CryptoBytes.randomBytes(32);
+    byte[] session = "session-ticket-and-master-secret".getBytes("UTF-8");
+
+    TlsSessionStore store = new TlsSessionStore(directory, key);
+    store.save("API.example.com", 443, session);
+    assertNull(store.load("api.example.com", 8443));
+
+    // A fresh store with the same key is what the next process start sees.
+    TlsSessionStore restarted = new TlsSessionStore(directory, key);
+    assertArrayEquals(session, restarted.load("api.example.com", 443));
+    assertEquals(1, restarted.restoredCount());
+
+    File[] files = directory.listFiles();
+    assertEquals(1, files.length);
+    byte[] onDisk = Files.readAllBytes(files[0].toPath());
+    assertFalse(ByteString.of(onDisk).indexOf(ByteString.of(session)) >= 0);
+    assertFalse(ByteString.of(onDisk).indexOf(ByteString.encodeUtf8("example.com")) >= 0);
+
+    assertNull(new TlsSessionStore(directory, CryptoBytes.randomBytes(32))
+        .load("api.example.com", 443));
+  }
+
+  @Test
+  public void rejectsTamperedAndRelocatedSessions() throws Exception {
+    File directory = temporaryFolder.newFolder("sessions");
+    TlsSessionStore store = new TlsSessionStore(directory, CryptoBytes.randomBytes(32));
+    store.save("a.example.com", 443, CryptoBytes.randomBytes(200));
+    File first = directory.listFiles()[0];
+    store.save("b.example.com", 443, CryptoBytes.randomBytes(200));
+    File second = directory.listFiles(file -> !file.equals(first))[0];
+
+    // Serving a.example.com's session for b.example.com must fail authentication.
+    Files.copy(first.toPath(), second.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    assertNull(store.load("b.example.com", 443));
+    assertFalse(second.exists());
+
+    try (RandomAccessFile raw = new RandomAccessFile(first, "rw")) {
+      raw.seek(40);
+      int value = raw.read();
+      raw.seek(40);
+      raw.write(value ^ 1);
+    }
+    assertNull(store.load("a.example.com", 443));
+    assertEquals(0, store.restoredCount());
+  }
+}
@@ -0,0 +1,106 @@
+package com.securitysuite;
+
+import com.facebook.react.bridge.WritableMap;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import okhttp3.MediaType;
+import okhttp3.RequestBody;
+
+import okio.Buffer;
+import okio.BufferedSink;
+import okio.Source;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class TransferProgressTest {
+  private long now;
+  private final List<WritableMap> events = new ArrayList<>();
+
+  @Test
+  public void throttlesDownloadEventsByIntervalAndPercent() throws Exception {
+    // 1000 bytes read 10 at a time, 20 ms apart.
+    TransferProgress byTime = new TransferProgress("d1", events::add, 100, 1, () -> now);
+    Source source = byTime.wrap(new Buffer().write(new byte[1000]), 1000);
+    Buffer sink = new Buffer();
+    while (true) {
+      now += 20;
+      if (source.read(sink, 10) == -1) {
+        break;
+      }
+    }
+    // One event per 100 ms (50 bytes, above 1%), the last one marked done.
+    assertEquals(20, events.size());
+    assertEquals(50, events.get(0).getDouble("bytes"), 0);
+    assertEquals(500, events.get(0).getDouble("bytesPerSecond"), 0);
+    assertFalse(events.get(18).getBoolean("done"));
+    WritableMap last = events.get(19);
+    assertTrue(last.getBoolean("done"));
+    assertEquals(1000, last.getDouble("bytes"), 0);
+    assertEquals("download", last.getString("direction"));
+
+    events.clear();
+    TransferProgress byPercent = new TransferProgress("d2", events::add, 0, 25, () -> now);
+    source = byPercent.wrap(new Buffer().write(new byte[1000]), 1000);
+    while (source.read(sink, 10) != -1) {
+      now += 1;
+    }
+    assertEquals(4, events.size());
+    assertEquals(250, events.get(0).getDouble("bytes"), 0);
+    assertTrue(events.get(3).getBoolean("done"));
+  }
+
+  @Test
+  public void countsUploadsOfUnknownLengthAndFinishesOnce() throws Exception {
+    TransferProgress progress = new TransferProgress("u1", events::add, 0, 1, () -> now);
+    RequestBody body = progress.wrap(new RequestBody() {
+      @Override
+      public MediaType contentType() {
+        return null;
+      }
+
+      @Override
+      public void writeTo(BufferedSink sink) throws IOException {
+        for (int i = 0; i < 3; i++) {
+          sink.write(new byte[20_000]);
+          now += 10;
+        }
+      }
+    });
+    assertEquals(-1, body.contentLength());
+
+    Buffer sent = new Buffer();
+    body.writeTo(sent);
+    assertEquals(60_000, sent.size());
+    WritableMap last = events.get(events.size() - 1);
+    assertTrue(last.getBoolean("done"));
+    assertEquals(60_000, last.getDouble("bytes"), 0);
+    assertEquals(-1, last.getDouble("total"), 0);
+    assertEquals("upload", last.getString("direction"));
+    assertEquals("u1", last.getString("id"));
+    for (int i = 0; i < events.size() - 1; i++) {
+      assertFalse(events.get(i).getBoolean("done"));
+    }
+  }
+
+  @Test
+  public void rewindTakesBackBytesThatWillBeReadAgain() {
+    TransferProgress progress = new TransferProgress("d3", events::add, 0, 1, () -> now);
+    TransferProgress.Meter meter = progress.meter(TransferProgress.DOWNLOAD, -1);
+    meter.add(600);
+    // The transfer restarts from byte 0.
+    meter.rewind(600);
+    meter.add(1000);
+    meter.finish();
+
+    WritableMap last = events.get(events.size() - 1);
+    assertTrue(last.getBoolean("done"));
+    assertEquals(1000, last.getDouble("bytes"), 0);
+  }
+}
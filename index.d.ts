@@ -201,6 +201,42 @@ interface SecureStorageInterface {
   multiMerge: (keyValuePairs: Array<[string, string]>) => Promise<void>;
 }
 
+export interface BatchFetchResult {
+  index: number;
+  ok: boolean;
+  status?: number;
+  url?: string;
+  duration?: string;
+  response?: string;
+  error?: string;
+  path?: string;
+  size?: number;
+  sha256?: string;
+  data?: unknown;
+  canceled?: boolean;
+  attempts?: Array<{
+    status?: number;
+    error?: string;
+    backoffMs?: number;
+  }>;
+}
+
+export interface RetryOptions {
+  maxAttempts?: number;
+  baseDelayMs?: number;
+  maxDelayMs?: number;
+  retryOnStatus?: number[];
+  retryNonIdempotent?: boolean;
+}
+
+export interface FetchProgress {
+  direction: 'upload' | 'download';
+  bytes: number;
+  total: number;
+  bytesPerSecond: number;
+  done: boolean;
+}
+
 declare module 'react-native-security-suite' {
   function getPublicKey(options?: CryptoOptions): Promise<string>;
   function getSharedKey(
@@ -242,9 +278,168 @@ declare module 'react-native-security-suite' {
       requestId?: string;
       secret?: string;
       jws?: JwsFetchOptions;
+      responseType?: 'text' | 'file' | 'json';
+      destination?: string;
+      maxJsonBytes?: number;
+      bodyFile?: { uri?: string; path?: string; type?: string };
+      tag?: string;
+      retry?: RetryOptions;
+      priority?: 'critical' | 'normal' | 'background';
+      coalesce?: boolean;
+      compressRequest?: 'gzip' | 'deflate';
+      compressThreshold?: number;
+      encryptBody?: boolean;
+      decryptResponse?: boolean;
+      onProgress?: (progress: FetchProgress) => void;
+      progressThrottle?: { intervalMs?: number; minPercent?: number };
     },
     loggerIsEnabled?: boolean
   ): Promise<any>;
+  function fetchBatch(
+    requests: Array<{
+      url: string;
+      body?: string | object;
+      headers?: { [key: string]: string };
+      method?: 'DELETE' | 'GET' | 'POST' | 'PUT' | 'PATCH';
+      jws?: JwsFetchOptions;
+      responseType?: 'text' | 'file' | 'json';
+      destination?: string;
+      maxJsonBytes?: number;
+      bodyFile?: { uri?: string; path?: string; type?: string };
+      tag?: string;
+      retry?: RetryOptions;
+      priority?: 'critical' | 'normal' | 'background';
+      coalesce?: boolean;
+      compressRequest?: 'gzip' | 'deflate';
+      compressThreshold?: number;
+      encryptBody?: boolean;
+      decryptResponse?: boolean;
+      onProgress?: (progress: FetchProgress) => void;
+      progressThrottle?: { intervalMs?: number; minPercent?: number };
+    }>,
+    options?: {
+      timeout?: number;
+      certificates?: string[];
+      validDomains?: string[];
+      tag?: string;
+      retry?: RetryOptions;
+      priority?: 'critical' | 'normal' | 'background';
+      onResult?: (result: BatchFetchResult) => void;
+    },
+    loggerIsEnabled?: boolean
+  ): Promise<BatchFetchResult[]>;
+  function fetchStream(
+    url: string,
+    options: {
+      body?: string | object;
+      headers?: { [key: string]: string };
+      method?: 'DELETE' | 'GET' | 'POST' | 'PUT' | 'PATCH';
+      timeout?: number;
+      certificates?: string[];
+      validDomains?: string[];
+      jws?: JwsFetchOptions;
+      tag?: string;
+      retry?: RetryOptions;
+      priority?: 'critical' | 'normal' | 'background';
+      streamFormat?: 'lines' | 'sse';
+      maxChunkBytes?: number;
+      coalesceMs?: number;
+      maxUnackedEvents?: number;
+      onProgress?: (progress: FetchProgress) => void;
+      progressThrottle?: { intervalMs?: number; minPercent?: number };
+    },
+    onChunks: (
+      chunks: Array<string | { data: string; event?: string; id?: string }>
+    ) => void | Promise<void>,
+    loggerIsEnabled?: boolean
+  ): Promise<{
+    status: number;
+    url: string;
+    duration: string;
+    chunkCount: number;
+  }>;
+  function uploadChunked(
+    url: string,
+    options: {
+      file: { uri?: string; path?: string };
+      method?: 'PUT' | 'POST' | 'PATCH';
+      headers?: { [key: string]: string };
+      timeout?: number;
+      certificates?: string[];
+      validDomains?: string[];
+      jws?: JwsFetchOptions;
+      tag?: string;
+      retry?: RetryOptions;
+      priority?: 'critical' | 'normal' | 'background';
+      uploadId?: string;
+      chunkSize?: number;
+      concurrency?: number;
+      commitUrl?: string;
+      onProgress?: (progress: FetchProgress) => void;
+      progressThrottle?: { intervalMs?: number; minPercent?: number };
+    }
+  ): Promise<{
+    ok: boolean;
+    uploadId?: string;
+    size?: number;
+    chunkCount?: number;
+    uploadedChunks?: number;
+    resumedChunks?: number;
+    duration?: string;
+    status?: number;
+    response?: string;
+    error?: string;
+    canceled?: boolean;
+    code?: string;
+    circuitOpen?: boolean;
+    retryAfterMs?: number;
+  }>;
+  function downloadRanges(
+    url: string,
+    options: {
+      destination: string;
+      headers?: { [key: string]: string };
+      timeout?: number;
+      certificates?: string[];
+      validDomains?: string[];
+      jws?: JwsFetchOptions;
+      tag?: string;
+      retry?: RetryOptions;
+      priority?: 'critical' | 'normal' | 'background';
+      sha256?: string;
+      connections?: number;
+      minRangeSize?: number;
+      onProgress?: (progress: FetchProgress) => void;
+      progressThrottle?: { intervalMs?: number; minPercent?: number };
+    }
+  ): Promise<{
+    ok: boolean;
+    path?: string;
+    size?: number;
+    sha256?: string;
+    ranged?: boolean;
+    resumedBytes?: number;
+    bytesPerSecond?: number;
+    duration?: string;
+    ranges?: Array<{
+      start: number;
+      end: number;
+      bytes: number;
+      resumedBytes: number;
+      attempts: number;
+      durationMs: number;
+      bytesPerSecond: number;
+      timings?: { [phase: string]: number };
+    }>;
+    status?: number;
+    error?: string;
+    canceled?: boolean;
+    code?: string;
+    circuitOpen?: boolean;
+    retryAfterMs?: number;
+  }>;
+  function cancelFetch(tag: string): Promise<number>;
+  function cancelAllFetches(): Promise<number>;
   function deviceHasSecurityRisk(): Promise<boolean>;
   function mapNativeError(error: unknown): SecurityError | Error;
   function isSecurityError(error: unknown): error is SecurityError;
@@ -1,4 +1,4 @@
-import { NativeModules, Platform } from 'react-native';
+import { NativeEventEmitter, NativeModules, Platform } from 'react-native';
 import {
   ensureLegacyV09Initialized,
   isSecuritySuiteInitialized,
@@ -6,6 +6,7 @@ import {
   resolveCryptoOptions,
 } from './config';
 import { jsonParse } from './helpers';
+import type { FetchTimings } from './network';
 import {
   toNativeCryptoOptions,
   type CryptoOptions,
@@ -77,7 +78,29 @@ export { ThreatMonitor } from './monitoring';
 export type { ThreatMonitorOptions, ThreatMonitorHandle } from './monitoring';
 
 export { NetworkSecurity } from './network';
-export type { PinningConfig, NetworkFetchOptions } from './network';
+export type {
+  PinningConfig,
+  NetworkFetchOptions,
+  FetchClientStats,
+  FetchDispatcherConfig,
+  FetchSchedulerConfig,
+  FetchSchedulerClassStats,
+  FetchSchedulerStats,
+  CircuitBreakerConfig,
+  CircuitBreakerStats,
+  CircuitState,
+  FetchCoalescingStats,
+  PreconnectOptions,
+  PreconnectReport,
+  FetchTimings,
+  FetchLatencyHistograms,
+  LatencyHistogram,
+  FetchCacheConfig,
+  FetchCacheStats,
+  TlsSessionResumptionConfig,
+  DnsCacheConfig,
+  DnsCacheStats,
+} from './network';
 
 export { Storage } from './storage';
 export type {
@@ -167,6 +190,108 @@ export interface Options {
   secret?: string;
   /** JWS request-signing configuration. */
   jws?: JwsFetchOptions;
+  /**
+   * Android: `'file'` streams a successful body to `destination` instead of
+   * returning it as a string; the result then carries `path`, `size` and
+   * `sha256` (hex). `'json'` decodes a successful body natively on the
+   * network thread and returns it as `data`, so no `JSON.parse` runs on the JS
+   * thread. Defaults to `'text'`.
+   */
+  responseType?: 'text' | 'file' | 'json';
+  /** Destination path or `file://` URI for `responseType: 'file'`. */
+  destination?: string;
+  /**
+   * Largest body, in bytes, decoded by `responseType: 'json'` (default 4 MiB).
+   * Larger or invalid bodies are returned as the usual `response` string.
+   */
+  maxJsonBytes?: number;
+  /**
+   * Android: upload a file as the raw request body, streamed natively from a
+   * `content://` URI, `file://` URI or path. Takes precedence over `body`.
+   */
+  bodyFile?: { uri?: string; path?: string; type?: string };
+  /**
+   * Android: label for `cancelFetch(tag)`. A cancelled request rejects with
+   * `canceled: true` and releases its socket and thread immediately.
+   */
+  tag?: string;
+  /**
+   * Android: retry transient failures natively with jittered exponential
+   * backoff. Idempotent methods only unless `retryNonIdempotent`; TLS and pin
+   * failures are never retried.
+   */
+  retry?: RetryOptions;
+  /**
+   * Android: scheduling class (default `normal`). Queued `background`
+   * requests wait while `normal` or `critical` ones are queued, and
+   * `critical` requests never wait for a concurrency slot. See
+   * `NetworkSecurity.configureScheduler`.
+   */
+  priority?: FetchPriority;
+  /**
+   * Android: while an identical `GET` or `HEAD` with `coalesce: true` is in
+   * flight (same URL, headers, pins, `tag` and response options), wait for
+   * its response instead of sending another request. Ignored for signed
+   * requests (`jws`, `keyId`) and with a body or `onProgress`.
+   */
+  coalesce?: boolean;
+  /**
+   * Android: compress the request body while it streams and send
+   * `Content-Encoding`. `bodyHash` always covers the uncompressed body.
+   */
+  compressRequest?: 'gzip' | 'deflate';
+  /** Bodies smaller than this many bytes are sent as is (default 1024). */
+  compressThreshold?: number;
+  /**
+   * Android: seal the body natively with the session key from
+   * `establishSharedKey` (`IV || ciphertext || tag`, sent as octet-stream).
+   * The body is held in memory, so `bodyFile` is rejected.
+   */
+  encryptBody?: boolean;
+  /**
+   * Android: open a sealed 2xx response natively with the session key. The
+   * body is held in memory, so `responseType` 'file' and 'stream' reject.
+   */
+  decryptResponse?: boolean;
+  /**
+   * Android: called as the request and response bodies move. Throttled to
+   * one call per `progressThrottle.intervalMs` (default 100) and per
+   * `progressThrottle.minPercent` of the total (default 1); the final call of
+   * each direction has `done: true`.
+   */
+  onProgress?: (progress: FetchProgress) => void;
+  progressThrottle?: { intervalMs?: number; minPercent?: number };
+}
+
+export interface FetchProgress {
+  direction: 'upload' | 'download';
+  bytes: number;
+  /** -1 when the length is not known up front (chunked or compressed). */
+  total: number;
+  /** Over the interval since the previous call. */
+  bytesPerSecond: number;
+  done: boolean;
+}
+
+export interface RetryOptions {
+  /** Total tries including the first (1-10, default 3). */
+  maxAttempts?: number;
+  /** Backoff base in ms (default 300); doubles per attempt, fully jittered. */
+  baseDelayMs?: number;
+  /** Backoff cap in ms (default 10000); a longer `Retry-After` is not waited. */
+  maxDelayMs?: number;
+  /** Statuses to retry (default 408, 429, 502, 503, 504). */
+  retryOnStatus?: number[];
+  retryNonIdempotent?: boolean;
+}
+
+export interface FetchAttempt {
+  /** HTTP status, absent when the attempt failed in transport. */
+  status?: number;
+  error?: string;
+  timings?: FetchTimings;
+  /** Wait before the next attempt, in ms. */
+  backoffMs?: number;
 }
 
 interface Response {
@@ -174,11 +299,23 @@ interface Response {
   url: string;
   json: () => Promise<{ [key: string]: any }>;
   duration: string;
+  /** Android: per-phase breakdown of `duration`. */
+  timings?: FetchTimings;
+  /** Android: every try, in order, when `retry` allowed more than one. */
+  attempts?: FetchAttempt[];
 }
 
 export interface SuccessResponse extends Response {
   response: string;
   responseJSON: Promise<{ [key: string]: any }>;
+  /** Set for `responseType: 'file'`: absolute path of the downloaded file. */
+  path?: string;
+  /** Set for `responseType: 'file'`: bytes written. */
+  size?: number;
+  /** Set for `responseType: 'file'`: hex SHA-256 of the written bytes. */
+  sha256?: string;
+  /** Set for `responseType: 'json'` when the body was decoded natively. */
+  data?: unknown;
 }
 
 export interface ErrorResponse extends Response {
@@ -186,6 +323,199 @@ export interface ErrorResponse extends Response {
   path: string;
   message: string;
   code: string;
+  /** Set when the request was cancelled with `cancelFetch`. */
+  canceled?: boolean;
+  /**
+   * Android: set (with `code: 'CIRCUIT_OPEN'`) when the request failed fast
+   * because the host's circuit breaker is open.
+   */
+  circuitOpen?: boolean;
+  /** With `circuitOpen`: milliseconds until the host is probed again. */
+  retryAfterMs?: number;
+}
+
+export type FetchPriority = 'critical' | 'normal' | 'background';
+
+export interface BatchFetchRequest
+  extends Omit<
+    Options,
+    'headers' | 'timeout' | 'certificates' | 'validDomains'
+  > {
+  url: string;
+  headers?: Header;
+}
+
+export interface BatchFetchOptions {
+  /** Applies to every request in the batch. */
+  timeout?: number;
+  /** Pinning is validated once for the whole batch. */
+  certificates?: string[];
+  validDomains?: string[];
+  /** Default `tag` for requests that do not set their own. */
+  tag?: string;
+  /** Default `retry` for requests that do not set their own. */
+  retry?: RetryOptions;
+  /** Default `priority` for requests that do not set their own. */
+  priority?: FetchPriority;
+  /** Called as each request completes, in completion order. */
+  onResult?: (result: BatchFetchResult) => void;
+}
+
+export interface BatchFetchResult {
+  /** Position of the request in the `requests` array. */
+  index: number;
+  ok: boolean;
+  status?: number;
+  url?: string;
+  duration?: string;
+  response?: string;
+  error?: string;
+  path?: string;
+  size?: number;
+  sha256?: string;
+  data?: unknown;
+  timings?: FetchTimings;
+  canceled?: boolean;
+  /** `CIRCUIT_OPEN` when failed fast by the circuit breaker. */
+  code?: string;
+  circuitOpen?: boolean;
+  retryAfterMs?: number;
+  attempts?: FetchAttempt[];
+}
+
+export interface ChunkedUploadOptions
+  extends Pick<
+    Options,
+    | 'certificates'
+    | 'validDomains'
+    | 'timeout'
+    | 'jws'
+    | 'tag'
+    | 'retry'
+    | 'priority'
+    | 'onProgress'
+    | 'progressThrottle'
+  > {
+  /** `content://` or `file://` URI, or a plain path. */
+  file: { uri?: string; path?: string };
+  /** Method of every chunk request (default `PUT`). */
+  method?: 'PUT' | 'POST' | 'PATCH';
+  headers?: Header;
+  /** Resume key; defaults to a hash of the URL, file, size and chunk size. */
+  uploadId?: string;
+  /** Bytes per chunk (default 8 MiB, at least 64 KiB). */
+  chunkSize?: number;
+  /** Chunks in flight at once (1-8, default 3). */
+  concurrency?: number;
+  /** Receives a signed JSON POST with every chunk's SHA-256 once all are in. */
+  commitUrl?: string;
+}
+
+export interface ChunkedUploadResult {
+  ok: boolean;
+  uploadId?: string;
+  size?: number;
+  chunkCount?: number;
+  /** Chunks sent by this call. */
+  uploadedChunks?: number;
+  /** Chunks skipped because an earlier call already uploaded them. */
+  resumedChunks?: number;
+  duration?: string;
+  /** Status and body of the commit, or of the chunk that failed. */
+  status?: number;
+  response?: string;
+  error?: string;
+  canceled?: boolean;
+  /** `'CIRCUIT_OPEN'` when the host's circuit breaker stopped the upload. */
+  code?: string;
+  circuitOpen?: boolean;
+  retryAfterMs?: number;
+}
+
+export interface RangeDownloadOptions
+  extends Pick<
+    Options,
+    | 'certificates'
+    | 'validDomains'
+    | 'timeout'
+    | 'jws'
+    | 'tag'
+    | 'retry'
+    | 'priority'
+    | 'onProgress'
+    | 'progressThrottle'
+  > {
+  /** Absolute path, or a name resolved against the app's cache directory. */
+  destination: string;
+  headers?: Header;
+  /** Expected SHA-256 (hex) of the whole file; a mismatch discards it. */
+  sha256?: string;
+  /** Ranges fetched at once, each on its own connection (1-8, default 4). */
+  connections?: number;
+  /** Smallest range worth its own connection (default 1 MiB). */
+  minRangeSize?: number;
+}
+
+export interface RangeDownloadStats {
+  start: number;
+  /** Inclusive; `-1` when the server did not support ranges. */
+  end: number;
+  /** Bytes fetched by this call. */
+  bytes: number;
+  /** Bytes already on disk from an earlier call. */
+  resumedBytes: number;
+  attempts: number;
+  durationMs: number;
+  bytesPerSecond: number;
+  timings?: FetchTimings;
+}
+
+export interface RangeDownloadResult {
+  ok: boolean;
+  path?: string;
+  size?: number;
+  sha256?: string;
+  /** Whether the server honoured byte ranges. */
+  ranged?: boolean;
+  resumedBytes?: number;
+  /** Aggregate throughput of this call. */
+  bytesPerSecond?: number;
+  duration?: string;
+  ranges?: RangeDownloadStats[];
+  status?: number;
+  error?: string;
+  canceled?: boolean;
+  /** `'CIRCUIT_OPEN'` when the host's circuit breaker stopped the download. */
+  code?: string;
+  circuitOpen?: boolean;
+  retryAfterMs?: number;
+}
+
+export interface FetchStreamOptions
+  extends Omit<Options, 'responseType' | 'destination' | 'maxJsonBytes'> {
+  /** `lines` splits NDJSON-style bodies (default); `sse` parses server-sent events. */
+  streamFormat?: 'lines' | 'sse';
+  /** Longest line accepted before the stream fails (default 1 MiB). */
+  maxChunkBytes?: number;
+  /** Chunks arriving within this many ms share one event (default 50). */
+  coalesceMs?: number;
+  /** Events delivered to `onChunks` and not yet handled (default 4). */
+  maxUnackedEvents?: number;
+}
+
+export interface ServerSentEvent {
+  data: string;
+  event?: string;
+  id?: string;
+}
+
+export interface FetchStreamResult {
+  status: number;
+  url: string;
+  duration: string;
+  timings?: FetchTimings;
+  chunkCount: number;
+  attempts?: FetchAttempt[];
 }
 
 export interface FetchEventResponse {
@@ -316,7 +646,9 @@ export const generateJWS = (options: GenerateJWSOptions): Promise<string> => {
   );
 };
 
-function normalizeFetchOptions(options: Options): Options {
+function normalizeFetchOptions<T extends { jws?: JwsFetchOptions }>(
+  options: T
+): T {
   if (!options.jws) {
     return options;
   }
@@ -502,6 +834,40 @@ export const SecureStorage = {
   },
 };
 
+const FETCH_PROGRESS_EVENT = 'SecuritySuiteFetchProgress';
+let nextProgressId = 0;
+
+/**
+ * Replaces `onProgress` with the native `progress` option and subscribes to
+ * its events. Call the returned function once the request has completed.
+ */
+function withProgress<
+  T extends Pick<Options, 'onProgress' | 'progressThrottle'>
+>(options: T): [T, () => void] {
+  const { onProgress, progressThrottle } = options;
+  const stripped = {
+    ...options,
+    onProgress: undefined,
+    progressThrottle: undefined,
+  };
+  if (!onProgress || Platform.OS !== 'android') {
+    return [stripped, () => {}];
+  }
+
+  const id = `progress-${++nextProgressId}`;
+  const subscription = new NativeEventEmitter(
+    NativeSecuritySuiteModule
+  ).addListener(FETCH_PROGRESS_EVENT, ({ id: eventId, ...progress }: any) => {
+    if (eventId === id) {
+      onProgress(progress as FetchProgress);
+    }
+  });
+  return [
+    { ...stripped, progress: { ...progressThrottle, id } },
+    () => subscription.remove(),
+  ];
+}
+
 export function fetch(
   url: string,
   options: Options,
@@ -510,14 +876,19 @@ export function fetch(
   return ensureLegacyV09Initialized().then(
     () =>
       new Promise((resolve, reject) => {
+        const [nativeOptions, releaseProgress] = withProgress(options);
         NativeSecuritySuiteModule.fetch(
           url,
-          { ...normalizeFetchOptions(options), loggerIsEnabled },
+          { ...normalizeFetchOptions(nativeOptions), loggerIsEnabled },
           (result: SuccessResponse, error: ErrorResponse) => {
+            releaseProgress();
             if (error === null) {
               resolve({
                 ...result,
-                json: () => jsonParse(result.response),
+                json: () =>
+                  result.data !== undefined
+                    ? (result.data as any)
+                    : jsonParse(result.response),
               });
             } else {
               const errorJson = jsonParse(
@@ -534,6 +905,14 @@ export function fetch(
                 message: errorJson?.message ?? String(error?.error ?? error),
                 code: errorJson?.code ?? '',
                 duration: error?.duration ?? '',
+                ...(error?.canceled ? { canceled: true } : {}),
+                ...(error?.circuitOpen
+                  ? {
+                      code: error.code,
+                      circuitOpen: true,
+                      retryAfterMs: error.retryAfterMs,
+                    }
+                  : {}),
                 ...errorJson,
               });
             }
@@ -543,6 +922,252 @@ export function fetch(
   );
 }
 
+/**
+ * Android: cancels every in-flight `fetch` / `fetchBatch` request started with
+ * `tag`, freeing their connections and threads at once. Resolves with the
+ * number of requests cancelled (always 0 on other platforms).
+ */
+export function cancelFetch(tag: string): Promise<number> {
+  if (Platform.OS !== 'android' || !NativeSecuritySuiteModule.cancelFetch) {
+    return Promise.resolve(0);
+  }
+  return NativeSecuritySuiteModule.cancelFetch(tag);
+}
+
+/** Android: cancels every in-flight pinned request, tagged or not. */
+export function cancelAllFetches(): Promise<number> {
+  if (
+    Platform.OS !== 'android' ||
+    !NativeSecuritySuiteModule.cancelAllFetches
+  ) {
+    return Promise.resolve(0);
+  }
+  return NativeSecuritySuiteModule.cancelAllFetches();
+}
+
+const FETCH_STREAM_EVENT = 'SecuritySuiteFetchStream';
+let nextStreamId = 0;
+
+/**
+ * Android: pinned request whose body is delivered while it downloads. Lines
+ * (or server-sent events with `streamFormat: 'sse'`) are passed to `onChunks`
+ * in arrival order, a few at a time; native reading pauses while `onChunks`
+ * falls behind, including while a returned promise is pending. Resolves with
+ * the status and timings once the body ends. HTTP errors reject with the body
+ * as `error`, like `fetch`. Use `tag` and `cancelFetch` to stop a stream.
+ */
+export function fetchStream(
+  url: string,
+  options: FetchStreamOptions,
+  onChunks: (chunks: Array<string | ServerSentEvent>) => void | Promise<void>,
+  loggerIsEnabled = __DEV__
+): Promise<FetchStreamResult> {
+  if (Platform.OS !== 'android' || !NativeSecuritySuiteModule.fetchStream) {
+    return Promise.reject(
+      new Error('fetchStream is only supported on Android')
+    );
+  }
+
+  return ensureLegacyV09Initialized().then(
+    () =>
+      new Promise((resolve, reject) => {
+        const streamId = `stream-${++nextStreamId}`;
+        const [nativeOptions, releaseProgress] = withProgress(options);
+        let delivery = Promise.resolve();
+        const subscription = new NativeEventEmitter(
+          NativeSecuritySuiteModule
+        ).addListener(
+          FETCH_STREAM_EVENT,
+          ({ streamId: eventStreamId, ...event }: any) => {
+            if (eventStreamId !== streamId) {
+              return;
+            }
+            if (!event.done) {
+              delivery = delivery
+                .then(() => onChunks(event.chunks))
+                .catch(() => {})
+                .then(() => NativeSecuritySuiteModule.ackFetchStream(streamId));
+              return;
+            }
+            subscription.remove();
+            releaseProgress();
+            const { done: _done, ok, ...result } = event;
+            delivery.then(() => (ok ? resolve(result) : reject(result)));
+          }
+        );
+
+        NativeSecuritySuiteModule.fetchStream(url, {
+          headers: {},
+          ...normalizeFetchOptions(nativeOptions),
+          responseType: 'stream',
+          streamId,
+          loggerIsEnabled,
+        }).catch((error: unknown) => {
+          subscription.remove();
+          releaseProgress();
+          reject(error);
+        });
+      })
+  );
+}
+
+/**
+ * Android: uploads a large file as fixed-size chunks sent in parallel over
+ * the pinned client. Each chunk carries `Upload-Id`, `Content-Range` and a
+ * `Content-Digest`, and is JWS-signed on its own. Finished chunks are
+ * journaled natively, so calling again with the same file (or `uploadId`)
+ * after a failure sends only the missing chunks. Rejects with the result,
+ * including how many chunks made it, when the upload does not complete.
+ */
+export function uploadChunked(
+  url: string,
+  options: ChunkedUploadOptions
+): Promise<ChunkedUploadResult> {
+  if (Platform.OS !== 'android' || !NativeSecuritySuiteModule.uploadChunked) {
+    return Promise.reject(
+      new Error('uploadChunked is only supported on Android')
+    );
+  }
+
+  return ensureLegacyV09Initialized().then(() => {
+    const [nativeOptions, releaseProgress] = withProgress(options);
+    return NativeSecuritySuiteModule.uploadChunked(
+      url,
+      normalizeFetchOptions(nativeOptions)
+    ).then((result: ChunkedUploadResult) => {
+      releaseProgress();
+      return result.ok ? result : Promise.reject(result);
+    });
+  });
+}
+
+/**
+ * Android: downloads a large file as byte ranges fetched in parallel over
+ * separate pinned connections, falling back to a single request when the
+ * server does not support ranges. Progress is checkpointed natively, so
+ * calling again with the same URL and destination after a failure fetches
+ * only the missing bytes. Rejects with the result when the download does
+ * not complete or fails the `sha256` check.
+ */
+export function downloadRanges(
+  url: string,
+  options: RangeDownloadOptions
+): Promise<RangeDownloadResult> {
+  if (Platform.OS !== 'android' || !NativeSecuritySuiteModule.downloadRanges) {
+    return Promise.reject(
+      new Error('downloadRanges is only supported on Android')
+    );
+  }
+
+  return ensureLegacyV09Initialized().then(() => {
+    const [nativeOptions, releaseProgress] = withProgress(options);
+    return NativeSecuritySuiteModule.downloadRanges(
+      url,
+      normalizeFetchOptions(nativeOptions)
+    ).then((result: RangeDownloadResult) => {
+      releaseProgress();
+      return result.ok ? result : Promise.reject(result);
+    });
+  });
+}
+
+const FETCH_BATCH_RESULT_EVENT = 'SecuritySuiteFetchBatchResult';
+let nextBatchId = 0;
+
+function toBatchResult(
+  index: number,
+  result: SuccessResponse | null,
+  error: any
+): BatchFetchResult {
+  if (error === null || error === undefined) {
+    return { ...(result as SuccessResponse), index, ok: true };
+  }
+  if (typeof error === 'string') {
+    return { index, ok: false, error };
+  }
+  return { ...error, index, ok: false };
+}
+
+/**
+ * Runs several pinned requests concurrently and resolves once with every
+ * result in request order. Individual failures never reject the batch; check
+ * `ok` on each entry.
+ *
+ * On Android the batch is one bridge call: pinning is validated once, calls
+ * share one client (and one HTTP/2 connection per host where negotiated), and
+ * results return in a single callback. Other platforms fall back to parallel
+ * `fetch` calls with the same result shape.
+ */
+export function fetchBatch(
+  requests: BatchFetchRequest[],
+  options: BatchFetchOptions = {},
+  loggerIsEnabled = __DEV__
+): Promise<BatchFetchResult[]> {
+  const { onResult, ...batchOptions } = options;
+  const progress = requests.map((request) => withProgress(request));
+  const nativeRequests = progress.map(([request]) =>
+    normalizeFetchOptions(request)
+  );
+
+  if (Platform.OS !== 'android' || !NativeSecuritySuiteModule.fetchBatch) {
+    return ensureLegacyV09Initialized().then(() =>
+      Promise.all(
+        nativeRequests.map(
+          ({ url, ...request }, index) =>
+            new Promise<BatchFetchResult>((resolve) => {
+              NativeSecuritySuiteModule.fetch(
+                url,
+                {
+                  headers: {},
+                  ...request,
+                  ...batchOptions,
+                  loggerIsEnabled,
+                },
+                (result: SuccessResponse, error: ErrorResponse) => {
+                  progress[index]![1]();
+                  const entry = toBatchResult(index, result, error);
+                  onResult?.(entry);
+                  resolve(entry);
+                }
+              );
+            })
+        )
+      )
+    );
+  }
+
+  return ensureLegacyV09Initialized().then(
+    () =>
+      new Promise((resolve) => {
+        const batchId = onResult ? `batch-${++nextBatchId}` : undefined;
+        const subscription = batchId
+          ? new NativeEventEmitter(NativeSecuritySuiteModule).addListener(
+              FETCH_BATCH_RESULT_EVENT,
+              ({ batchId: eventBatchId, ...entry }: any) => {
+                if (eventBatchId === batchId) {
+                  onResult?.(entry as BatchFetchResult);
+                }
+              }
+            )
+          : null;
+
+        NativeSecuritySuiteModule.fetchBatch(
+          nativeRequests,
+          {
+            ...batchOptions,
+            loggerIsEnabled,
+            ...(batchId ? { batchId } : {}),
+          },
+          (results: BatchFetchResult[]) => {
+            subscription?.remove();
+            progress.forEach(([, releaseProgress]) => releaseProgress());
+            resolve(results);
+          }
+        );
+      })
+  );
+}
+
 export function deviceHasSecurityRisk(): Promise<boolean> {
   return NativeSecuritySuiteModule.deviceHasSecurityRisk();
 }
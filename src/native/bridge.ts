@@ -112,6 +112,45 @@ export interface SecuritySuiteNativeModule {
   ): Promise<string>;
   deviceAttestationGetPlayIntegrityToken(nonce: string): Promise<string>;
 
+  // ─── Pinned network (Android) ────────────────────────────────────────────
+  configureFetchDispatcher?(options: Record<string, unknown>): Promise<void>;
+  getFetchClientStats?(): Promise<Record<string, number>>;
+  configureFetchScheduler?(options: Record<string, unknown>): Promise<void>;
+  getFetchSchedulerStats?(): Promise<Record<string, unknown>>;
+  configureCircuitBreaker?(options: Record<string, unknown>): Promise<void>;
+  getCircuitBreakerStats?(): Promise<Record<string, unknown>>;
+  resetCircuitBreaker?(): Promise<void>;
+  getFetchCoalescingStats?(): Promise<Record<string, number>>;
+  resetFetchCoalescingStats?(): Promise<void>;
+  preconnect?(options: Record<string, unknown>): Promise<Record<string, unknown>>;
+  getFetchLatencyHistograms?(): Promise<Record<string, unknown>>;
+  resetFetchLatencyHistograms?(): Promise<void>;
+  configureFetchCache?(options: Record<string, unknown>): Promise<void>;
+  getFetchCacheStats?(): Promise<Record<string, unknown>>;
+  clearFetchCache?(): Promise<void>;
+  configureTlsSessionResumption?(options: Record<string, unknown>): Promise<void>;
+  clearTlsSessions?(): Promise<void>;
+  configureDnsCache?(options: Record<string, unknown>): Promise<void>;
+  getDnsCacheStats?(): Promise<Record<string, unknown> | null>;
+  clearDnsCache?(): Promise<void>;
+  cancelFetch?(tag: string): Promise<number>;
+  cancelAllFetches?(): Promise<number>;
+  fetchBatch?(
+    requests: Record<string, unknown>[],
+    options: Record<string, unknown>,
+    callback: (results: Record<string, unknown>[]) => void
+  ): void;
+  fetchStream?(url: string, options: Record<string, unknown>): Promise<void>;
+  ackFetchStream?(streamId: string): void;
+  uploadChunked?(
+    url: string,
+    options: Record<string, unknown>
+  ): Promise<Record<string, unknown>>;
+  downloadRanges?(
+    url: string,
+    options: Record<string, unknown>
+  ): Promise<Record<string, unknown>>;
+
   [key: string]: unknown;
 }
 
@@ -1,5 +1,6 @@
-import { NativeModules } from 'react-native';
+import { NativeModules, Platform } from 'react-native';
 import { jsonParse } from '../helpers';
+import { getNativeModule } from '../native/bridge';
 
 export interface PinningConfig {
   /** Base64-encoded SPKI SHA-256 hashes (with or without the `sha256/` prefix). */
@@ -15,6 +16,291 @@ export interface NetworkFetchOptions {
   timeout?: number;
 }
 
+/** Concurrency limits for the shared native dispatcher (Android only). */
+export interface FetchDispatcherConfig {
+  /** Maximum concurrent requests across all hosts. OkHttp default: 64. */
+  maxRequests?: number;
+  /** Maximum concurrent requests to a single host. OkHttp default: 5. */
+  maxRequestsPerHost?: number;
+  /**
+   * Idle connections kept in the shared pool, across all hosts. OkHttp
+   * default: 5. Changing this or `keepAliveMs` replaces the pool.
+   */
+  maxIdleConnections?: number;
+  /** How long an idle connection is kept. OkHttp default: 5 minutes. */
+  keepAliveMs?: number;
+}
+
+/** Priority scheduler for native pinned requests (Android only). */
+export interface FetchSchedulerConfig {
+  /**
+   * Requests running at once before `normal` and `background` requests
+   * queue; `critical` requests never wait for a slot. Default 16.
+   */
+  maxConcurrent?: number;
+  /** Running `background` requests, at most `maxConcurrent`. Default 2. */
+  maxBackground?: number;
+  /**
+   * Token bucket per host. `burst` defaults to one second's worth (at
+   * least 1). Replaces all previous limits when given; `{}` removes them.
+   */
+  rateLimits?: Record<string, { requestsPerSecond: number; burst?: number }>;
+}
+
+export interface FetchSchedulerClassStats {
+  /** Requests waiting for a slot or a rate-limit token. */
+  queued: number;
+  running: number;
+  started: number;
+  /** Requests that had to wait for a rate-limit token. */
+  rateLimited: number;
+  /** Time from queueing to start. */
+  meanWaitMs: number;
+  maxWaitMs: number;
+}
+
+/** Queue depth and wait times per priority class (Android only). */
+export interface FetchSchedulerStats {
+  maxConcurrent: number;
+  maxBackground: number;
+  running: number;
+  classes: {
+    critical: FetchSchedulerClassStats;
+    normal: FetchSchedulerClassStats;
+    background: FetchSchedulerClassStats;
+  };
+}
+
+/** Per-host circuit breaker for native pinned requests (Android only). */
+export interface CircuitBreakerConfig {
+  /** Defaults to `true`; pass `false` to turn the breaker off. */
+  enabled?: boolean;
+  /** Recent attempts per host the rates are computed over. Default 20. */
+  windowSize?: number;
+  /** Attempts needed in the window before the circuit can open. Default 10. */
+  minimumCalls?: number;
+  /** Share of failed attempts that opens the circuit. Default 0.5. */
+  failureRateThreshold?: number;
+  /** Responses slower than this count as slow. Default 5000. */
+  slowCallDurationMs?: number;
+  /** Share of slow responses that opens the circuit. Default 0.8. */
+  slowCallRateThreshold?: number;
+  /** How long an open circuit fails fast before probing. Default 30000. */
+  openDurationMs?: number;
+  /** Probes let through while half-open. Default 3. */
+  halfOpenMaxCalls?: number;
+  /** Statuses counted as failures. Default `[500, 502, 503, 504]`. */
+  failureOnStatus?: number[];
+}
+
+export type CircuitState = 'closed' | 'open' | 'half-open';
+
+/** Requests served by an identical in-flight one (Android only). */
+export interface FetchCoalescingStats {
+  /** `coalesce: true` requests that were sent. */
+  leaders: number;
+  /** Requests that shared a leader's response instead of being sent. */
+  coalesced: number;
+  /** Leaders currently in flight. */
+  inFlight: number;
+}
+
+/** Circuit state per host and recent transitions (Android only). */
+export interface CircuitBreakerStats {
+  enabled: boolean;
+  hosts: Record<
+    string,
+    {
+      state: CircuitState;
+      /** Attempts currently in the window. */
+      calls: number;
+      failureRate: number;
+      slowCallRate: number;
+      /** Attempts failed fast while open. */
+      rejected: number;
+      /** Time left before the next probe; 0 unless open. */
+      retryAfterMs: number;
+    }
+  >;
+  /** Most recent transitions, oldest first. */
+  events: Array<{
+    host: string;
+    from: CircuitState;
+    to: CircuitState;
+    reason:
+      | 'failureRate'
+      | 'slowCallRate'
+      | 'openDurationElapsed'
+      | 'probeFailed'
+      | 'probeSlow'
+      | 'probesSucceeded';
+    /** Epoch milliseconds. */
+    at: number;
+    failureRate: number;
+    slowCallRate: number;
+  }>;
+}
+
+export interface PreconnectOptions extends PinningConfig {
+  /** `host`, `host:port` or `https://` origins; each must match `validDomains`. */
+  hosts: string[];
+  /**
+   * Warm connections to open per HTTP/1.1 host. HTTP/2 hosts share one
+   * multiplexed connection. Default 1.
+   */
+  connectionsPerHost?: number;
+  timeout?: number;
+}
+
+/** Outcome of `NetworkSecurity.preconnect` (Android only). */
+export interface PreconnectReport {
+  /** Wall time until every host finished warming up. */
+  durationMs: number;
+  /** Idle connections in the shared pool afterwards. */
+  idleConnectionCount: number;
+  hosts: Array<{
+    host: string;
+    /** At least one pinned connection was established. */
+    ok: boolean;
+    warmedCalls: number;
+    durationMs: number;
+    protocol?: string;
+    /** Last failure, e.g. a pin mismatch. */
+    error?: string;
+    /** The host's circuit was open, so it was skipped. */
+    circuitOpen?: boolean;
+    retryAfterMs?: number;
+  }>;
+}
+
+/** Snapshot of the shared native HTTP client (Android only). */
+export interface FetchClientStats {
+  /** Open connections in the shared pool. */
+  connectionCount: number;
+  /** Idle connections kept alive for reuse. */
+  idleConnectionCount: number;
+  runningCallsCount: number;
+  queuedCallsCount: number;
+  /** Pinned requests enqueued and not yet completed (cancellable by tag). */
+  inFlightCount: number;
+  maxRequests: number;
+  maxRequestsPerHost: number;
+  /** Pinning configurations currently holding a derived client. */
+  cachedClients: number;
+  clientCacheHits: number;
+  clientCacheMisses: number;
+  clientCacheEvictions: number;
+  /** TLS sessions written to the persistent store since it was enabled. */
+  tlsSessionsStored: number;
+  /** Stored sessions offered to the TLS stack for resumption. */
+  tlsSessionsRestored: number;
+}
+
+export interface TlsSessionResumptionConfig {
+  /** Defaults to `true`; pass `false` to stop storing and resuming sessions. */
+  enabled?: boolean;
+}
+
+export interface DnsCacheConfig {
+  /** Defaults to `true`; pass `false` to go back to system DNS. */
+  enabled?: boolean;
+  /** How long an answer is reused. Default 60000. */
+  ttlMs?: number;
+  /**
+   * After `ttlMs`, keep serving the old answer for this long while one
+   * background lookup refreshes it. Default 0 (off).
+   */
+  staleWhileRevalidateMs?: number;
+}
+
+/** Per-host counters of the native DNS cache (Android only). */
+export interface DnsCacheStats {
+  ttlMs: number;
+  staleWhileRevalidateMs: number;
+  hosts: Record<
+    string,
+    {
+      lookups: number;
+      hits: number;
+      staleHits: number;
+      /** Lookups answered by the system resolver. */
+      misses: number;
+      failures: number;
+      /** Mean and last system resolver latency; cache hits are excluded. */
+      meanLookupMs: number;
+      lastLookupMs: number;
+      /** Cached addresses, IPv6 and IPv4 interleaved. */
+      addresses: string[];
+    }
+  >;
+}
+
+export interface FetchCacheConfig {
+  /** Defaults to `true`; pass `false` to stop caching (entries stay encrypted on disk). */
+  enabled?: boolean;
+  /** Total size bound across all pin sets, LRU-evicted. Default 20 MiB. */
+  maxSizeBytes?: number;
+}
+
+/** Counters for the encrypted native response cache (Android only). */
+export interface FetchCacheStats {
+  enabled: boolean;
+  maxSizeBytes: number;
+  sizeBytes: number;
+  /** Served from cache without contacting the server. */
+  hitCount: number;
+  /** No usable entry; fetched from the network. */
+  missCount: number;
+  /** Stale entries revalidated with `If-None-Match` / `If-Modified-Since`. */
+  conditionalRequestCount: number;
+  /** Conditional requests answered with 304, served from cache. */
+  revalidatedCount: number;
+  /** Body bytes served from cache (hits and 304s) instead of the network. */
+  bytesServedFromCache: number;
+}
+
+/**
+ * Per-phase timing of one native pinned request, in nanoseconds. A phase that
+ * did not run (e.g. DNS/connect/TLS on a reused connection) is `-1`.
+ */
+export interface FetchTimings {
+  dnsNs: number;
+  /** TCP connect, excluding TLS. */
+  connectNs: number;
+  /** TLS handshake including certificate pin verification. */
+  tlsNs: number;
+  requestWriteNs: number;
+  /** Request fully written to first response byte. */
+  ttfbNs: number;
+  responseReadNs: number;
+  totalNs: number;
+  connectionReused: boolean;
+  /** Negotiated protocol, e.g. `h2` or `http/1.1`. */
+  protocol?: string;
+}
+
+export interface LatencyHistogram {
+  count: number;
+  meanNs: number;
+  /** Counts per bucket; the last entry is the overflow bucket. */
+  buckets: number[];
+}
+
+/** Per-host latency histograms for native pinned requests (Android only). */
+export interface FetchLatencyHistograms {
+  /** Inclusive upper bound of each bucket, in milliseconds. */
+  bucketBoundsMs: number[];
+  hosts: {
+    [host: string]: {
+      dns: LatencyHistogram;
+      connect: LatencyHistogram;
+      tls: LatencyHistogram;
+      ttfb: LatencyHistogram;
+      total: LatencyHistogram;
+    };
+  };
+}
+
 let _globalPinning: PinningConfig | null = null;
 let _uninstall: (() => void) | null = null;
 
@@ -127,4 +413,229 @@ export const NetworkSecurity = {
         validDomains: config.validDomains,
       });
   },
+
+  /**
+   * Android: tune how many pinned requests run concurrently. Requests beyond
+   * the limits are queued natively instead of blocking each other. No-op on
+   * other platforms.
+   */
+  configureDispatcher(config: FetchDispatcherConfig): Promise<void> {
+    const native = getNativeModule();
+    if (Platform.OS !== 'android' || !native.configureFetchDispatcher) {
+      return Promise.resolve();
+    }
+    return native.configureFetchDispatcher({ ...config });
+  },
+
+  /**
+   * Android: limits how many pinned requests run per priority class and how
+   * fast each rate-limited host is called. Queued requests start by
+   * priority, so `background` work yields to `normal` and `critical`
+   * requests. While a `critical` request to a host is queued or running,
+   * other requests leave it one of the host's `maxRequestsPerHost` slots (see
+   * `configureDispatcher`). No-op on other platforms.
+   */
+  configureScheduler(config: FetchSchedulerConfig): Promise<void> {
+    const native = getNativeModule();
+    if (Platform.OS !== 'android' || !native.configureFetchScheduler) {
+      return Promise.resolve();
+    }
+    return native.configureFetchScheduler({ ...config });
+  },
+
+  /** Android: per-class queue depth and wait times (`null` elsewhere). */
+  getSchedulerStats(): Promise<FetchSchedulerStats | null> {
+    const native = getNativeModule();
+    if (Platform.OS !== 'android' || !native.getFetchSchedulerStats) {
+      return Promise.resolve(null);
+    }
+    return native.getFetchSchedulerStats() as Promise<FetchSchedulerStats>;
+  },
+
+  /**
+   * Android: turns on a per-host circuit breaker for pinned requests. When a
+   * host's failure or slow-response rate crosses its threshold, requests to
+   * it fail at once with `code: 'CIRCUIT_OPEN'` until a few probes succeed.
+   * No-op on other platforms.
+   */
+  configureCircuitBreaker(config: CircuitBreakerConfig = {}): Promise<void> {
+    const native = getNativeModule();
+    if (Platform.OS !== 'android' || !native.configureCircuitBreaker) {
+      return Promise.resolve();
+    }
+    return native.configureCircuitBreaker({ ...config });
+  },
+
+  /** Android: per-host circuit state and transitions (`null` elsewhere). */
+  getCircuitBreakerStats(): Promise<CircuitBreakerStats | null> {
+    const native = getNativeModule();
+    if (Platform.OS !== 'android' || !native.getCircuitBreakerStats) {
+      return Promise.resolve(null);
+    }
+    return native.getCircuitBreakerStats() as Promise<CircuitBreakerStats>;
+  },
+
+  /** Android: closes every circuit and clears the transition history. */
+  resetCircuitBreaker(): Promise<void> {
+    const native = getNativeModule();
+    if (Platform.OS !== 'android' || !native.resetCircuitBreaker) {
+      return Promise.resolve();
+    }
+    return native.resetCircuitBreaker();
+  },
+
+  /** Android: how many requests `coalesce` saved (`null` elsewhere). */
+  getCoalescingStats(): Promise<FetchCoalescingStats | null> {
+    const native = getNativeModule();
+    if (Platform.OS !== 'android' || !native.getFetchCoalescingStats) {
+      return Promise.resolve(null);
+    }
+    return native.getFetchCoalescingStats() as Promise<FetchCoalescingStats>;
+  },
+
+  /** Android: zeroes the coalescing counters. */
+  resetCoalescingStats(): Promise<void> {
+    const native = getNativeModule();
+    if (Platform.OS !== 'android' || !native.resetFetchCoalescingStats) {
+      return Promise.resolve();
+    }
+    return native.resetFetchCoalescingStats();
+  },
+
+  /**
+   * Android: opens pinned connections to `hosts` in the background so the
+   * first request skips DNS, TCP, TLS and pin validation. Connections fail
+   * closed like any pinned request and are left idle in the shared pool.
+   * Resolves with `null` on other platforms.
+   */
+  preconnect(options: PreconnectOptions): Promise<PreconnectReport | null> {
+    const native = getNativeModule();
+    if (Platform.OS !== 'android' || !native.preconnect) {
+      return Promise.resolve(null);
+    }
+    return native.preconnect({ ...options }) as Promise<PreconnectReport>;
+  },
+
+  /**
+   * Android: connection pool and client cache counters for the native pinned
+   * transport. Resolves with `null` on platforms without a shared client.
+   */
+  getClientStats(): Promise<FetchClientStats | null> {
+    const native = getNativeModule();
+    if (Platform.OS !== 'android' || !native.getFetchClientStats) {
+      return Promise.resolve(null);
+    }
+    return native.getFetchClientStats() as Promise<FetchClientStats>;
+  },
+
+  /**
+   * Android: per-host latency histograms built from the phase timings of
+   * every native pinned response. Resolves with `null` elsewhere.
+   */
+  getLatencyHistograms(): Promise<FetchLatencyHistograms | null> {
+    const native = getNativeModule();
+    if (Platform.OS !== 'android' || !native.getFetchLatencyHistograms) {
+      return Promise.resolve(null);
+    }
+    return native.getFetchLatencyHistograms() as Promise<FetchLatencyHistograms>;
+  },
+
+  /**
+   * Android: enables an HTTP cache for pinned native requests. Entries follow
+   * standard `Cache-Control` / ETag semantics, are encrypted at rest with a
+   * Keystore-wrapped AES-GCM key, and are only served over connections pinned
+   * to the same pin set. No-op on other platforms.
+   */
+  configureCache(config: FetchCacheConfig = {}): Promise<void> {
+    const native = getNativeModule();
+    if (Platform.OS !== 'android' || !native.configureFetchCache) {
+      return Promise.resolve();
+    }
+    return native.configureFetchCache({ ...config });
+  },
+
+  /** Android: cache hit, miss and revalidation counters (`null` elsewhere). */
+  getCacheStats(): Promise<FetchCacheStats | null> {
+    const native = getNativeModule();
+    if (Platform.OS !== 'android' || !native.getFetchCacheStats) {
+      return Promise.resolve(null);
+    }
+    return native.getFetchCacheStats() as Promise<FetchCacheStats>;
+  },
+
+  /** Android: deletes every cached response and resets the counters. */
+  clearCache(): Promise<void> {
+    const native = getNativeModule();
+    if (Platform.OS !== 'android' || !native.clearFetchCache) {
+      return Promise.resolve();
+    }
+    return native.clearFetchCache();
+  },
+
+  /**
+   * Android: persists TLS sessions of pinned connections, encrypted with a
+   * Keystore-wrapped key, so the first request after a cold start can resume
+   * instead of running a full handshake. Requires the app to bundle
+   * `org.conscrypt:conscrypt-android`; rejects otherwise. Pins are still
+   * checked on every resumed connection. No-op on other platforms.
+   */
+  configureTlsSessionResumption(
+    config: TlsSessionResumptionConfig = {}
+  ): Promise<void> {
+    const native = getNativeModule();
+    if (Platform.OS !== 'android' || !native.configureTlsSessionResumption) {
+      return Promise.resolve();
+    }
+    return native.configureTlsSessionResumption({ ...config });
+  },
+
+  /** Android: deletes stored TLS sessions and drops pooled connections. */
+  clearTlsSessions(): Promise<void> {
+    const native = getNativeModule();
+    if (Platform.OS !== 'android' || !native.clearTlsSessions) {
+      return Promise.resolve();
+    }
+    return native.clearTlsSessions();
+  },
+
+  /**
+   * Android: caches DNS answers for pinned connections so new connections
+   * skip the blocking system lookup, optionally serving stale answers while
+   * refreshing in the background. Addresses are ordered to alternate IPv6 and
+   * IPv4. No-op on other platforms.
+   */
+  configureDnsCache(config: DnsCacheConfig = {}): Promise<void> {
+    const native = getNativeModule();
+    if (Platform.OS !== 'android' || !native.configureDnsCache) {
+      return Promise.resolve();
+    }
+    return native.configureDnsCache({ ...config });
+  },
+
+  /** Android: per-host DNS cache counters and lookup latency (`null` when off). */
+  getDnsCacheStats(): Promise<DnsCacheStats | null> {
+    const native = getNativeModule();
+    if (Platform.OS !== 'android' || !native.getDnsCacheStats) {
+      return Promise.resolve(null);
+    }
+    return native.getDnsCacheStats() as Promise<DnsCacheStats | null>;
+  },
+
+  /** Android: forgets every cached DNS answer. */
+  clearDnsCache(): Promise<void> {
+    const native = getNativeModule();
+    if (Platform.OS !== 'android' || !native.clearDnsCache) {
+      return Promise.resolve();
+    }
+    return native.clearDnsCache();
+  },
+
+  /** Android: clears the histograms returned by `getLatencyHistograms`. */
+  resetLatencyHistograms(): Promise<void> {
+    const native = getNativeModule();
+    if (Platform.OS !== 'android' || !native.resetFetchLatencyHistograms) {
+      return Promise.resolve();
+    }
+    return native.resetFetchLatencyHistograms();
+  },
 };